@@ -77,6 +77,32 @@ public class BulletConfig extends Config {
     public static final String EQUALITY_PARTITIONER_FIELDS = "bullet.query.partitioner.equality.fields";
     public static final String EQUALITY_PARTITIONER_DELIMITER = "bullet.query.partitioner.equality.delimiter";
 
+    public static final String QUERY_EXPRESSION_OPTIMIZE_ENABLE = "bullet.query.expression.optimize.enable";
+    public static final String QUERY_EXPRESSION_COMPILE_ENABLE = "bullet.query.expression.compile.enable";
+    public static final String QUERY_EXPRESSION_REGEX_CACHE_SIZE = "bullet.query.expression.regex.cache.size";
+    public static final String QUERY_EXPRESSION_REGEX_FAST_MATCH_ENABLE = "bullet.query.expression.regex.fast.match.enable";
+    public static final String QUERY_EXPRESSION_SHARE_ENABLE = "bullet.query.expression.share.enable";
+    public static final String QUERY_SCAN_SHARE_ENABLE = "bullet.query.scan.share.enable";
+    public static final String QUERY_EXPRESSION_REORDER_ENABLE = "bullet.query.expression.reorder.enable";
+    public static final String QUERY_EXPRESSION_GUARD_ENABLE = "bullet.query.expression.guard.enable";
+    public static final String QUERY_EXPRESSION_COMPACT_SET_ENABLE = "bullet.query.expression.compact.set.enable";
+    public static final String QUERY_EXPRESSION_COMPACT_SET_MIN_SIZE = "bullet.query.expression.compact.set.min.size";
+    public static final String QUERY_EXPRESSION_LIST_PACK_ENABLE = "bullet.query.expression.list.pack.enable";
+
+    public static final String QUERY_PROFILE_ENABLE = "bullet.query.profile.enable";
+    public static final String QUERY_PROFILE_SAMPLE_INTERVAL = "bullet.query.profile.sample.interval";
+
+    public static final String QUERY_BUDGET_ENABLE = "bullet.query.budget.enable";
+    public static final String QUERY_BUDGET_SAMPLE_INTERVAL = "bullet.query.budget.sample.interval";
+    public static final String QUERY_BUDGET_CPU_MS_PER_SECOND = "bullet.query.budget.cpu.ms.per.second";
+    public static final String QUERY_BUDGET_MEMORY_MB = "bullet.query.budget.memory.mb";
+    public static final String QUERY_BUDGET_GLOBAL_CPU_MS_PER_SECOND = "bullet.query.budget.global.cpu.ms.per.second";
+    public static final String QUERY_BUDGET_GLOBAL_MEMORY_MB = "bullet.query.budget.global.memory.mb";
+    public static final String QUERY_BUDGET_MAX_SAMPLING = "bullet.query.budget.max.sampling";
+
+    public static final String CLOCK_CACHE_ENABLE = "bullet.clock.cache.enable";
+    public static final String CLOCK_CACHE_RESOLUTION_MS = "bullet.clock.cache.resolution.ms";
+
     // Defaults
     public static final long DEFAULT_QUERY_DURATION = (long) Double.POSITIVE_INFINITY;
     public static final long DEFAULT_QUERY_MAX_DURATION = (long) Double.POSITIVE_INFINITY;
@@ -115,6 +141,7 @@ public class BulletConfig extends Config {
                      ImmutablePair.of(Concept.INNER_QUERY_METADATA, "Inner Query"),
                      ImmutablePair.of(Concept.QUERY_RECEIVE_TIME, "Receive Time"),
                      ImmutablePair.of(Concept.QUERY_FINISH_TIME, "Finish Time"),
+                     ImmutablePair.of(Concept.QUERY_PROFILE, "Profile"),
                      ImmutablePair.of(Concept.SKETCH_METADATA, "Sketch"),
                      ImmutablePair.of(Concept.SKETCH_ESTIMATED_RESULT, "Was Estimated"),
                      ImmutablePair.of(Concept.SKETCH_STANDARD_DEVIATIONS, "Standard Deviations"),
@@ -153,6 +180,32 @@ public class BulletConfig extends Config {
     public static final String DEFAULT_EQUALITY_PARTITIONER_DELIMITER = "|";
     public static final int MAXIMUM_EQUALITY_FIELDS = 10;
 
+    public static final boolean DEFAULT_QUERY_EXPRESSION_OPTIMIZE_ENABLE = false;
+    public static final boolean DEFAULT_QUERY_EXPRESSION_COMPILE_ENABLE = false;
+    public static final int DEFAULT_QUERY_EXPRESSION_REGEX_CACHE_SIZE = 64;
+    public static final boolean DEFAULT_QUERY_EXPRESSION_REGEX_FAST_MATCH_ENABLE = false;
+    public static final boolean DEFAULT_QUERY_EXPRESSION_SHARE_ENABLE = false;
+    public static final boolean DEFAULT_QUERY_SCAN_SHARE_ENABLE = false;
+    public static final boolean DEFAULT_QUERY_EXPRESSION_REORDER_ENABLE = false;
+    public static final boolean DEFAULT_QUERY_EXPRESSION_GUARD_ENABLE = false;
+    public static final boolean DEFAULT_QUERY_EXPRESSION_COMPACT_SET_ENABLE = false;
+    public static final int DEFAULT_QUERY_EXPRESSION_COMPACT_SET_MIN_SIZE = 10000;
+    public static final boolean DEFAULT_QUERY_EXPRESSION_LIST_PACK_ENABLE = false;
+
+    public static final boolean DEFAULT_QUERY_PROFILE_ENABLE = false;
+    public static final int DEFAULT_QUERY_PROFILE_SAMPLE_INTERVAL = 64;
+
+    public static final boolean DEFAULT_QUERY_BUDGET_ENABLE = false;
+    public static final int DEFAULT_QUERY_BUDGET_SAMPLE_INTERVAL = 64;
+    public static final int DEFAULT_QUERY_BUDGET_CPU_MS_PER_SECOND = 250;
+    public static final int DEFAULT_QUERY_BUDGET_MEMORY_MB = 64;
+    public static final int DEFAULT_QUERY_BUDGET_GLOBAL_CPU_MS_PER_SECOND = 1000;
+    public static final int DEFAULT_QUERY_BUDGET_GLOBAL_MEMORY_MB = 1024;
+    public static final int DEFAULT_QUERY_BUDGET_MAX_SAMPLING = 16;
+
+    public static final boolean DEFAULT_CLOCK_CACHE_ENABLE = false;
+    public static final int DEFAULT_CLOCK_CACHE_RESOLUTION_MS = 1;
+
     // Validator definitions for the configs in this class.
     // This can be static since VALIDATOR itself does not change for different values for fields in the BulletConfig.
     private static final Validator VALIDATOR = new Validator();
@@ -307,6 +360,86 @@ public class BulletConfig extends Config {
                  .defaultTo(DEFAULT_EQUALITY_PARTITIONER_DELIMITER)
                  .checkIf(Validator::isString);
 
+        VALIDATOR.define(QUERY_EXPRESSION_OPTIMIZE_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_EXPRESSION_OPTIMIZE_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_EXPRESSION_COMPILE_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_EXPRESSION_COMPILE_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_EXPRESSION_REGEX_CACHE_SIZE)
+                 .defaultTo(DEFAULT_QUERY_EXPRESSION_REGEX_CACHE_SIZE)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+        VALIDATOR.define(QUERY_EXPRESSION_REGEX_FAST_MATCH_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_EXPRESSION_REGEX_FAST_MATCH_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_EXPRESSION_SHARE_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_EXPRESSION_SHARE_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_SCAN_SHARE_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_SCAN_SHARE_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_EXPRESSION_REORDER_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_EXPRESSION_REORDER_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_EXPRESSION_GUARD_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_EXPRESSION_GUARD_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_EXPRESSION_COMPACT_SET_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_EXPRESSION_COMPACT_SET_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_EXPRESSION_COMPACT_SET_MIN_SIZE)
+                 .defaultTo(DEFAULT_QUERY_EXPRESSION_COMPACT_SET_MIN_SIZE)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+        VALIDATOR.define(QUERY_EXPRESSION_LIST_PACK_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_EXPRESSION_LIST_PACK_ENABLE)
+                 .checkIf(Validator::isBoolean);
+
+        VALIDATOR.define(QUERY_PROFILE_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_PROFILE_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_PROFILE_SAMPLE_INTERVAL)
+                 .defaultTo(DEFAULT_QUERY_PROFILE_SAMPLE_INTERVAL)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+
+        VALIDATOR.define(QUERY_BUDGET_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_BUDGET_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_BUDGET_SAMPLE_INTERVAL)
+                 .defaultTo(DEFAULT_QUERY_BUDGET_SAMPLE_INTERVAL)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+        VALIDATOR.define(QUERY_BUDGET_CPU_MS_PER_SECOND)
+                 .defaultTo(DEFAULT_QUERY_BUDGET_CPU_MS_PER_SECOND)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+        VALIDATOR.define(QUERY_BUDGET_MEMORY_MB)
+                 .defaultTo(DEFAULT_QUERY_BUDGET_MEMORY_MB)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+        VALIDATOR.define(QUERY_BUDGET_GLOBAL_CPU_MS_PER_SECOND)
+                 .defaultTo(DEFAULT_QUERY_BUDGET_GLOBAL_CPU_MS_PER_SECOND)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+        VALIDATOR.define(QUERY_BUDGET_GLOBAL_MEMORY_MB)
+                 .defaultTo(DEFAULT_QUERY_BUDGET_GLOBAL_MEMORY_MB)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+        VALIDATOR.define(QUERY_BUDGET_MAX_SAMPLING)
+                 .defaultTo(DEFAULT_QUERY_BUDGET_MAX_SAMPLING)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+
+        VALIDATOR.define(CLOCK_CACHE_ENABLE)
+                 .defaultTo(DEFAULT_CLOCK_CACHE_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(CLOCK_CACHE_RESOLUTION_MS)
+                 .defaultTo(DEFAULT_CLOCK_CACHE_RESOLUTION_MS)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+
 
         VALIDATOR.relate("Max should be >= default", QUERY_MAX_DURATION, QUERY_DEFAULT_DURATION)
                  .checkIf(Validator::isGreaterOrEqual);
@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import lombok.Getter;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Clock} that caches the system time. A single background daemon thread updates the time every resolution
+ * milliseconds and reading the time is a read of a volatile long. The time can be behind by up to the resolution (and
+ * by how late the thread is scheduled), so this is meant for checking timeouts and windows on every record rather than
+ * for measuring durations precisely. Use {@link #close()} to stop the thread.
+ */
+public class CachedClock extends Clock implements AutoCloseable {
+    private static final String THREAD_NAME = "bullet-clock-ticker";
+
+    @Getter
+    private final int resolution;
+    private final ScheduledExecutorService ticker;
+    private volatile long time;
+
+    /**
+     * Creates and starts a clock with the given resolution.
+     *
+     * @param resolution The positive number of milliseconds between the updates of the time.
+     */
+    public CachedClock(int resolution) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("The resolution must be positive: " + resolution);
+        }
+        this.resolution = resolution;
+        time = System.currentTimeMillis();
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, resolution, resolution, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return time;
+    }
+
+    /**
+     * Stops updating the time. The time stays at the last update.
+     */
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Updates the time to the system time. This is called by the background thread.
+     */
+    void tick() {
+        time = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A source of the current time in milliseconds. The queries, windows, rate limits and PubSub metadata read the time
+ * with {@link #now()} from the clock in use, which is the system clock by default. If
+ * {@link BulletConfig#CLOCK_CACHE_ENABLE} is true, {@link #configure(BulletConfig)} replaces it with a
+ * {@link CachedClock} that is read without a system call. Use {@link #use(Clock)} to use any other clock, for instance
+ * a {@link ManualClock} in tests.
+ *
+ * The clock in use is shared by the whole JVM, so the queries do not configure it. The first
+ * {@link com.yahoo.bullet.querying.QueryManager} that is created calls {@link #configure(BulletConfig)} with its config
+ * and no later config changes the clock. An application that does not use a manager can call it once when it starts,
+ * before it creates any queries.
+ */
+@Slf4j
+public abstract class Clock {
+    /**
+     * The clock that reads {@link System#currentTimeMillis()}.
+     */
+    public static final Clock SYSTEM = new SystemClock();
+
+    private static volatile Clock clock = SYSTEM;
+
+    private static final class SystemClock extends Clock {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Returns the current time of this clock.
+     *
+     * @return The current time in milliseconds since the epoch.
+     */
+    public abstract long currentTimeMillis();
+
+    /**
+     * Returns the current time of the clock in use.
+     *
+     * @return The current time in milliseconds since the epoch.
+     */
+    public static long now() {
+        return clock.currentTimeMillis();
+    }
+
+    /**
+     * Returns the clock in use.
+     *
+     * @return The non-null clock in use.
+     */
+    public static Clock get() {
+        return clock;
+    }
+
+    /**
+     * Uses the given clock from now on. The previous clock is not closed.
+     *
+     * @param clock The non-null clock to use.
+     * @return The clock that was in use before.
+     */
+    public static synchronized Clock use(Clock clock) {
+        Clock previous = Clock.clock;
+        Clock.clock = clock;
+        return previous;
+    }
+
+    /**
+     * Uses a {@link CachedClock} with the configured resolution if {@link BulletConfig#CLOCK_CACHE_ENABLE} is true and
+     * the clock in use is the system clock or a {@link CachedClock} with another resolution, which is closed. Any other
+     * clock that was chosen with {@link #use(Clock)} is left as is. This does nothing if caching is disabled. Call this
+     * once when the application starts since it applies to the whole JVM.
+     *
+     * @param config The validated {@link BulletConfig} to use.
+     */
+    public static synchronized void configure(BulletConfig config) {
+        if (!config.getAs(BulletConfig.CLOCK_CACHE_ENABLE, Boolean.class)) {
+            return;
+        }
+        int resolution = config.getAs(BulletConfig.CLOCK_CACHE_RESOLUTION_MS, Integer.class);
+        Clock current = clock;
+        if (current instanceof CachedClock) {
+            if (((CachedClock) current).getResolution() == resolution) {
+                return;
+            }
+            ((CachedClock) current).close();
+        } else if (current != SYSTEM) {
+            return;
+        }
+        log.info("Using a cached clock with a resolution of {} ms", resolution);
+        clock = new CachedClock(resolution);
+    }
+}
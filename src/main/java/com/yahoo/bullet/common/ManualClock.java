@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Clock} whose time only changes when it is set or advanced. Use it with {@link Clock#use(Clock)} to test
+ * windows, timeouts and rate limits deterministically.
+ */
+public class ManualClock extends Clock {
+    private final AtomicLong time;
+
+    /**
+     * Creates a clock at the current system time.
+     */
+    public ManualClock() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a clock at the given time.
+     *
+     * @param time The time in milliseconds since the epoch.
+     */
+    public ManualClock(long time) {
+        this.time = new AtomicLong(time);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return time.get();
+    }
+
+    /**
+     * Sets the time.
+     *
+     * @param time The time in milliseconds since the epoch.
+     */
+    public void set(long time) {
+        this.time.set(time);
+    }
+
+    /**
+     * Moves the time forward or backward.
+     *
+     * @param millis The number of milliseconds to add to the time.
+     * @return The new time.
+     */
+    public long advance(long millis) {
+        return time.addAndGet(millis);
+    }
+}
@@ -9,13 +9,32 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 
 @Slf4j
 public class SerializerDeserializer {
+    /**
+     * An {@link ObjectOutputStream} whose readers can read the compact forms that some classes write instead of their
+     * default serialized form when they are written to this. Older versions of these classes cannot read these forms.
+     */
+    public static class CompactObjectOutputStream extends ObjectOutputStream {
+        /**
+         * Creates a stream that writes to the given stream.
+         *
+         * @param out The stream to write to.
+         * @throws IOException if the stream header could not be written.
+         */
+        public CompactObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+    }
+
     /**
      * Convenience method to deserialize an object into a type from raw serialized data produced by the method
      * {@link #toBytes(Serializable)}.
@@ -45,9 +64,23 @@ public class SerializerDeserializer {
      * @return the serialized byte[] or null if not successful.
      */
     public static <U extends Serializable> byte[] toBytes(U object) {
+        return toBytes(object, false);
+    }
+
+    /**
+     * Convenience method to serializes the given {@link Serializable} object to a raw byte[], optionally with the
+     * compact forms of the classes that have them (see {@link CompactObjectOutputStream}). Both can be read with
+     * {@link #fromBytes(byte[])}.
+     *
+     * @param object The object to serialize.
+     * @param compact Whether to write the compact forms.
+     * @param <U> The subtype of {@link Serializable} to try and serialize.
+     * @return the serialized byte[] or null if not successful.
+     */
+    public static <U extends Serializable> byte[] toBytes(U object, boolean compact) {
         try (
             ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(bos)
+            ObjectOutputStream oos = compact ? new CompactObjectOutputStream(bos) : new ObjectOutputStream(bos)
         ) {
             oos.writeObject(object);
             return bos.toByteArray();
@@ -57,4 +90,38 @@ public class SerializerDeserializer {
         }
         return null;
     }
+
+    /**
+     * Writes a long as an unsigned variable-length integer, seven bits per byte. Small values take fewer bytes.
+     *
+     * @param out The output to write to.
+     * @param value The value to write. Negative values take the most bytes.
+     * @throws IOException if the value could not be written.
+     */
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0L) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a long written by {@link #writeVarLong(DataOutput, long)}.
+     *
+     * @param in The input to read from.
+     * @return The value read.
+     * @throws IOException if the value could not be read.
+     */
+    public static long readVarLong(DataInput in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length long");
+    }
 }
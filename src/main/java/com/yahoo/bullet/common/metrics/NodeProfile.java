@@ -0,0 +1,137 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common.metrics;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts how many times a part of a query, such as its filter, was run and how often it returned null or true or
+ * failed. The time taken is only measured for one out of every sample interval runs. Use {@link #begin()} and
+ * {@link #end(long)} around each run. Like the rest of the querying, this must only be used by one thread at a time.
+ */
+@Getter
+public class NodeProfile implements Serializable {
+    private static final long serialVersionUID = 4427893081255310982L;
+
+    public static final String INVOCATIONS = "Invocations";
+    public static final String NULL_RATE = "Null Rate";
+    public static final String PASS_RATE = "Pass Rate";
+    public static final String FAILURE_RATE = "Failure Rate";
+    public static final String AVERAGE_NANOS = "Average Nanos";
+
+    // The metric names used when reporting to a MetricCollector.
+    public static final String INVOCATIONS_METRIC = "invocations";
+    public static final String NULLS_METRIC = "nulls";
+    public static final String PASSES_METRIC = "passes";
+    public static final String FAILURES_METRIC = "failures";
+    public static final String SAMPLES_METRIC = "samples";
+    public static final String SAMPLED_NANOS_METRIC = "sampled.nanos";
+
+    static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final int sampleInterval;
+    private long invocations;
+    private long nulls;
+    private long passes;
+    private long failures;
+    private long samples;
+    private long sampledNanos;
+
+    // The counts as of the last report to a MetricCollector.
+    @Getter(AccessLevel.NONE)
+    private long[] reported = new long[6];
+
+    /**
+     * Constructor that creates a profile that times one out of every given number of runs.
+     *
+     * @param sampleInterval The positive number of runs per timed run.
+     */
+    public NodeProfile(int sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Counts a run and starts timing it if it is sampled.
+     *
+     * @return A value to pass to {@link #end(long)} once the run is over.
+     */
+    public long begin() {
+        return invocations++ % sampleInterval == 0 ? System.nanoTime() : NOT_SAMPLED;
+    }
+
+    /**
+     * Stops timing a run if it was sampled.
+     *
+     * @param start The value returned by the {@link #begin()} for the run.
+     */
+    public void end(long start) {
+        if (start != NOT_SAMPLED) {
+            sampledNanos += System.nanoTime() - start;
+            samples++;
+        }
+    }
+
+    /**
+     * Counts a run that returned null.
+     */
+    public void recordNull() {
+        nulls++;
+    }
+
+    /**
+     * Counts a run that returned true or let its input through.
+     */
+    public void recordPass() {
+        passes++;
+    }
+
+    /**
+     * Counts a run that failed.
+     */
+    public void recordFailure() {
+        failures++;
+    }
+
+    /**
+     * Gets the counts, the rates and the average time of the sampled runs in nanoseconds as a {@link Map}.
+     *
+     * @return A non-null {@link Map} of the profile.
+     */
+    public Map<String, Object> asMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(INVOCATIONS, invocations);
+        map.put(NULL_RATE, rate(nulls, invocations));
+        map.put(PASS_RATE, rate(passes, invocations));
+        map.put(FAILURE_RATE, rate(failures, invocations));
+        map.put(AVERAGE_NANOS, rate(sampledNanos, samples));
+        return map;
+    }
+
+    /**
+     * Adds the counts since the last report to the given {@link MetricCollector}. The name of each metric is the given
+     * prefix followed by a dot and the name of the count.
+     *
+     * @param collector The non-null collector to add the counts to.
+     * @param prefix The prefix of the names of the metrics.
+     */
+    public void report(MetricCollector collector, String prefix) {
+        long[] current = {invocations, nulls, passes, failures, samples, sampledNanos};
+        String[] names = {INVOCATIONS_METRIC, NULLS_METRIC, PASSES_METRIC, FAILURES_METRIC, SAMPLES_METRIC, SAMPLED_NANOS_METRIC};
+        for (int i = 0; i < current.length; i++) {
+            collector.add(prefix + "." + names[i], current[i] - reported[i]);
+        }
+        reported = current;
+    }
+
+    private static double rate(long count, long total) {
+        return total == 0 ? 0.0 : (double) count / total;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common.metrics;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The named {@link NodeProfile} objects for the parts of a query, in the order they were created.
+ */
+public class QueryProfile implements Serializable {
+    private static final long serialVersionUID = -6019938204715213893L;
+
+    private final int sampleInterval;
+    private final Map<String, NodeProfile> nodes = new LinkedHashMap<>();
+
+    /**
+     * Constructor that creates an empty profile.
+     *
+     * @param sampleInterval The positive number of runs per timed run for each {@link NodeProfile}.
+     */
+    public QueryProfile(int sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Gets the {@link NodeProfile} with the given name, creating it if it does not exist.
+     *
+     * @param name The name of the part of the query.
+     * @return The non-null {@link NodeProfile} for the name.
+     */
+    public NodeProfile get(String name) {
+        return nodes.computeIfAbsent(name, k -> new NodeProfile(sampleInterval));
+    }
+
+    /**
+     * Gets the profiles as a {@link Map} of their names to {@link NodeProfile#asMap()}.
+     *
+     * @return A non-null {@link Map} of the profiles.
+     */
+    public Map<String, Object> asMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        nodes.forEach((name, node) -> map.put(name, node.asMap()));
+        return map;
+    }
+
+    /**
+     * Adds the counts of every profile since the last report to the given {@link MetricCollector}. The metrics of a
+     * profile are prefixed with the given prefix followed by a dot and its name.
+     *
+     * @param collector The non-null collector to add the counts to.
+     * @param prefix The prefix of the names of the metrics.
+     */
+    public void report(MetricCollector collector, String prefix) {
+        nodes.forEach((name, node) -> node.report(collector, prefix + "." + name));
+    }
+}
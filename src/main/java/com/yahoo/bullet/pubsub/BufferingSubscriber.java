@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.pubsub;
 
+import com.yahoo.bullet.common.Clock;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -63,7 +64,7 @@ public abstract class BufferingSubscriber implements Subscriber {
     /**
      * The start time of the current rate limit interval.
      */
-    protected long startTime = System.currentTimeMillis();
+    protected long startTime = Clock.now();
 
     /**
      * Creates an instance of this class with the given max for uncommitted messages and rate limiting disabled.
@@ -106,14 +107,14 @@ public abstract class BufferingSubscriber implements Subscriber {
     }
 
     private boolean isRateLimited() {
-        return rateLimitEnable && startTime + rateLimitIntervalMS > System.currentTimeMillis() && messageCount >= rateLimitMaxMessages;
+        return rateLimitEnable && startTime + rateLimitIntervalMS > Clock.now() && messageCount >= rateLimitMaxMessages;
     }
 
     private void updateRateLimit() {
         if (!rateLimitEnable) {
             return;
         }
-        long timeNow = System.currentTimeMillis();
+        long timeNow = Clock.now();
         if (startTime + rateLimitIntervalMS > timeNow) {
             messageCount++;
         } else {
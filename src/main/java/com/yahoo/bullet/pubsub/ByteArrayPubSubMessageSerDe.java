@@ -19,25 +19,34 @@ import java.io.Serializable;
  * to the backend and if it is passed between multiple workers (i.e. serialized and deserialized multiple times), it
  * will not needlessly convert the {@link Query} object multiple times.
  *
+ * If {@link BulletConfig#QUERY_EXPRESSION_LIST_PACK_ENABLE} is true, the {@link Query} is serialized with the compact
+ * forms of its expressions (see {@link SerializerDeserializer#toBytes(Serializable, boolean)}).
+ *
  * This behaves like the {@link IdentityPubSubMessageSerDe} for all other operations.
  */
 public class ByteArrayPubSubMessageSerDe extends IdentityPubSubMessageSerDe {
     private static final long serialVersionUID = -7648403271773714704L;
 
+    private final boolean compact;
+
     /**
      * A {@link PubSubMessage} that is sticky for converting the content between byte[] and {@link Query}.
      */
     private static class LazyPubSubMessage extends PubSubMessage {
         private static final long serialVersionUID = -6516915913438279870L;
 
-        private LazyPubSubMessage(String id, byte[] content, Metadata metadata) {
+        // Not serialized so that a message that is passed on is written in the default form.
+        private transient boolean compact;
+
+        private LazyPubSubMessage(String id, byte[] content, Metadata metadata, boolean compact) {
             super(id, content, metadata);
+            this.compact = compact;
         }
 
         @Override
         public byte[] getContentAsByteArray() {
             if (content instanceof Query) {
-                content = SerializerDeserializer.toBytes((Serializable) content);
+                content = SerializerDeserializer.toBytes((Serializable) content, compact);
             }
             return (byte[]) content;
         }
@@ -58,10 +67,14 @@ public class ByteArrayPubSubMessageSerDe extends IdentityPubSubMessageSerDe {
      */
     public ByteArrayPubSubMessageSerDe(BulletConfig config) {
         super(config);
+        compact = config != null && config.getOrDefaultAs(BulletConfig.QUERY_EXPRESSION_LIST_PACK_ENABLE,
+                                                          BulletConfig.DEFAULT_QUERY_EXPRESSION_LIST_PACK_ENABLE,
+                                                          Boolean.class);
     }
 
     @Override
     public PubSubMessage toMessage(String id, Query query, String queryString) {
-        return toMessage(new LazyPubSubMessage(id, SerializerDeserializer.toBytes(query), new Metadata(null, queryString)));
+        byte[] content = SerializerDeserializer.toBytes(query, compact);
+        return toMessage(new LazyPubSubMessage(id, content, new Metadata(null, queryString), compact));
     }
 }
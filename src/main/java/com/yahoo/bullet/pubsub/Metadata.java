@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.pubsub;
 
+import com.yahoo.bullet.common.Clock;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -32,7 +33,7 @@ public class Metadata implements Serializable {
      * Default constructor that creates an empty instance of metadata.
      */
     public Metadata() {
-        created = System.currentTimeMillis();
+        created = Clock.now();
     }
 
     /**
@@ -0,0 +1,299 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.query.expressions;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Rewrites an expression tree into a simpler tree that evaluates to the same results. If optimization is disabled, this
+ * simply returns the expression. Otherwise, the following rewrites are applied bottom-up:
+ *
+ * 1) Sub-expressions with only constant operands are evaluated once and replaced by a {@link ValueExpression}.
+ * 2) Nested ANDs (or ORs), binary or n-ary, are flattened into a single n-ary AND (or OR).
+ * 3) NOT NOT x is replaced by x if x is an expression that evaluates to a boolean.
+ * 4) Within an OR, consecutive equalities or INs of the same field against constants of the same type (x = a OR x = b)
+ *    are merged into a single x IN [a, b].
+ *
+ * The rewritten tree has the same results and null semantics as the original one. Sub-expressions that fail to
+ * evaluate, such as a division by zero, are not folded so that they fail on evaluation as they would otherwise. If the
+ * optimization fails for any reason, the original expression is used instead.
+ */
+@Slf4j
+public class ExpressionOptimizer {
+    private static final Set<Operation> BOOLEAN_OPERATIONS =
+            EnumSet.of(Operation.EQUALS, Operation.EQUALS_ANY, Operation.EQUALS_ALL,
+                       Operation.NOT_EQUALS, Operation.NOT_EQUALS_ANY, Operation.NOT_EQUALS_ALL,
+                       Operation.GREATER_THAN, Operation.GREATER_THAN_ANY, Operation.GREATER_THAN_ALL,
+                       Operation.LESS_THAN, Operation.LESS_THAN_ANY, Operation.LESS_THAN_ALL,
+                       Operation.GREATER_THAN_OR_EQUALS, Operation.GREATER_THAN_OR_EQUALS_ANY, Operation.GREATER_THAN_OR_EQUALS_ALL,
+                       Operation.LESS_THAN_OR_EQUALS, Operation.LESS_THAN_OR_EQUALS_ANY, Operation.LESS_THAN_OR_EQUALS_ALL,
+                       Operation.REGEX_LIKE, Operation.REGEX_LIKE_ANY, Operation.NOT_REGEX_LIKE, Operation.NOT_REGEX_LIKE_ANY,
+                       Operation.SIZE_IS, Operation.CONTAINS_KEY, Operation.CONTAINS_VALUE, Operation.IN, Operation.NOT_IN,
+                       Operation.AND, Operation.OR, Operation.XOR, Operation.NOT, Operation.IS_NULL, Operation.IS_NOT_NULL,
+                       Operation.BETWEEN, Operation.NOT_BETWEEN, Operation.STARTS_WITH, Operation.ENDS_WITH, Operation.CONTAINS);
+
+    private final boolean enabled;
+
+    /**
+     * Constructor that creates an expression optimizer from a {@link BulletConfig}.
+     *
+     * @param config The validated config to use.
+     */
+    public ExpressionOptimizer(BulletConfig config) {
+        this(config.getAs(BulletConfig.QUERY_EXPRESSION_OPTIMIZE_ENABLE, Boolean.class));
+    }
+
+    /**
+     * Constructor that creates an expression optimizer.
+     *
+     * @param enabled Whether expressions should be rewritten or simply returned as is.
+     */
+    public ExpressionOptimizer(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets an optimized expression for the given expression. The given expression is not modified.
+     *
+     * @param expression The expression to optimize. Can be null.
+     * @return An expression that evaluates to the same results or null if the given expression was null.
+     */
+    public Expression optimize(Expression expression) {
+        if (!enabled || expression == null) {
+            return expression;
+        }
+        try {
+            return rewrite(expression);
+        } catch (Exception e) {
+            log.warn("Could not optimize expression {}. Using it as is.", expression, e);
+            return expression;
+        }
+    }
+
+    private Expression rewrite(Expression expression) {
+        Expression rewritten;
+        if (expression instanceof BinaryExpression) {
+            rewritten = rewriteBinary((BinaryExpression) expression);
+        } else if (expression instanceof UnaryExpression) {
+            rewritten = rewriteUnary((UnaryExpression) expression);
+        } else if (expression instanceof NAryExpression) {
+            NAryExpression nAry = (NAryExpression) expression;
+            rewritten = rewriteNAry(rewriteAll(nAry.getOperands()), nAry.getOp(), nAry.getType());
+        } else if (expression instanceof ListExpression && ((ListExpression) expression).isPacked()) {
+            // A packed list only has constants so it is kept packed as is.
+            return expression;
+        } else if (expression instanceof ListExpression) {
+            rewritten = withType(new ListExpression(rewriteAll(((ListExpression) expression).getValues())), expression.getType());
+        } else if (expression instanceof CastExpression) {
+            CastExpression cast = (CastExpression) expression;
+            rewritten = withType(new CastExpression(rewrite(cast.getValue()), cast.getCastType()), cast.getType());
+        } else {
+            // Values and fields are already as simple as they can be.
+            return expression;
+        }
+        return isFoldable(rewritten) ? fold(rewritten) : rewritten;
+    }
+
+    private Expression rewriteBinary(BinaryExpression binary) {
+        Expression left = rewrite(binary.getLeft());
+        Expression right = rewrite(binary.getRight());
+        Operation op = binary.getOp();
+        if (op == Operation.AND || op == Operation.OR) {
+            List<Expression> operands = new ArrayList<>();
+            operands.add(left);
+            operands.add(right);
+            return rewriteNAry(operands, op, binary.getType());
+        }
+        return withType(new BinaryExpression(left, right, op), binary.getType());
+    }
+
+    private Expression rewriteUnary(UnaryExpression unary) {
+        Expression operand = rewrite(unary.getOperand());
+        Operation op = unary.getOp();
+        if (op == Operation.NOT && isNot(operand)) {
+            Expression inner = ((UnaryExpression) operand).getOperand();
+            if (isBoolean(inner)) {
+                return inner;
+            }
+        }
+        return withType(new UnaryExpression(operand, op), unary.getType());
+    }
+
+    private Expression rewriteNAry(List<Expression> operands, Operation op, Type type) {
+        if (op != Operation.AND && op != Operation.OR) {
+            return withType(new NAryExpression(operands, op), type);
+        }
+        List<Expression> flattened = new ArrayList<>();
+        for (Expression operand : operands) {
+            if (operand instanceof NAryExpression && ((NAryExpression) operand).getOp() == op) {
+                flattened.addAll(((NAryExpression) operand).getOperands());
+            } else {
+                flattened.add(operand);
+            }
+        }
+        if (op == Operation.OR) {
+            flattened = mergeEqualities(flattened);
+        }
+        // All the operands might have merged into a single IN, which is already a boolean.
+        if (flattened.size() == 1 && isBoolean(flattened.get(0))) {
+            return flattened.get(0);
+        }
+        return withType(new NAryExpression(flattened, op), type);
+    }
+
+    /**
+     * Merges consecutive equalities (or INs) of the same field against non-null constants of the same type in the
+     * operands of an OR into an IN. Since the constants have the same type, an equality fails to compare the field if
+     * and only if the first one does. Merging only consecutive operands keeps the evaluation order of the others.
+     */
+    private static List<Expression> mergeEqualities(List<Expression> operands) {
+        List<Expression> merged = new ArrayList<>();
+        int i = 0;
+        while (i < operands.size()) {
+            Expression operand = operands.get(i++);
+            Expression field = getEqualityField(operand);
+            if (field == null) {
+                merged.add(operand);
+                continue;
+            }
+            List<Expression> first = getEqualityValues(operand);
+            List<Expression> values = new ArrayList<>(first);
+            Type type = first.get(0).getType();
+            while (i < operands.size() && field.equals(getEqualityField(operands.get(i)))) {
+                List<Expression> next = getEqualityValues(operands.get(i));
+                if (next.get(0).getType() != type) {
+                    break;
+                }
+                values.addAll(next);
+                i++;
+            }
+            if (values.size() == first.size()) {
+                merged.add(operand);
+            } else {
+                merged.add(withType(new BinaryExpression(field, new ListExpression(values), Operation.IN), operand.getType()));
+            }
+        }
+        return merged;
+    }
+
+    // The field is only compared and put back in an IN, so it does not need to be a FieldExpression.
+    private static Expression getEqualityField(Expression expression) {
+        if (!(expression instanceof BinaryExpression)) {
+            return null;
+        }
+        BinaryExpression binary = (BinaryExpression) expression;
+        Expression left = binary.getLeft();
+        Expression right = binary.getRight();
+        if (binary.getOp() == Operation.EQUALS) {
+            if (left instanceof FieldExpression && isMergeable(right)) {
+                return left;
+            } else if (right instanceof FieldExpression && isMergeable(left)) {
+                return right;
+            }
+        } else if (binary.getOp() == Operation.IN && left instanceof FieldExpression && right instanceof ListExpression) {
+            List<Expression> values = ((ListExpression) right).getValues();
+            if (!values.isEmpty() && values.stream().allMatch(value -> isMergeable(value) && value.getType() == values.get(0).getType())) {
+                return left;
+            }
+        }
+        return null;
+    }
+
+    private static List<Expression> getEqualityValues(Expression expression) {
+        BinaryExpression binary = (BinaryExpression) expression;
+        if (binary.getOp() == Operation.IN) {
+            return ((ListExpression) binary.getRight()).getValues();
+        }
+        return Collections.singletonList(binary.getLeft() instanceof ValueExpression ? binary.getLeft() : binary.getRight());
+    }
+
+    // The constant can be put in a list whose element type is the type of the constant.
+    private static boolean isMergeable(Expression expression) {
+        if (!(expression instanceof ValueExpression)) {
+            return false;
+        }
+        Serializable value = ((ValueExpression) expression).getValue();
+        return value != null && expression.getType() == Type.getType(value);
+    }
+
+    private static boolean isFoldable(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            return isConstant(binary.getLeft()) && isConstant(binary.getRight());
+        } else if (expression instanceof UnaryExpression) {
+            return isConstant(((UnaryExpression) expression).getOperand());
+        } else if (expression instanceof NAryExpression) {
+            // UNIXTIMESTAMP() without arguments is the current time.
+            List<Expression> operands = ((NAryExpression) expression).getOperands();
+            return !operands.isEmpty() && operands.stream().allMatch(ExpressionOptimizer::isConstant);
+        } else if (expression instanceof CastExpression) {
+            return isConstant(((CastExpression) expression).getValue());
+        }
+        return false;
+    }
+
+    private static boolean isConstant(Expression expression) {
+        if (expression instanceof ListExpression) {
+            return ((ListExpression) expression).getValues().stream().allMatch(value -> value instanceof ValueExpression);
+        }
+        return expression instanceof ValueExpression;
+    }
+
+    private static Expression fold(Expression expression) {
+        TypedObject result;
+        try {
+            result = expression.getEvaluator().evaluate(null);
+        } catch (RuntimeException e) {
+            return expression;
+        }
+        Type type = result.getType();
+        if (type == Type.NULL) {
+            return new ValueExpression(null);
+        }
+        Serializable value = result.getValue();
+        if (value == null || !Type.isPrimitive(type) || Type.getType(value) != type) {
+            return expression;
+        }
+        return new ValueExpression(value);
+    }
+
+    private static boolean isNot(Expression expression) {
+        return expression instanceof UnaryExpression && ((UnaryExpression) expression).getOp() == Operation.NOT;
+    }
+
+    private static boolean isBoolean(Expression expression) {
+        if (expression instanceof ValueExpression) {
+            return expression.getType() == Type.BOOLEAN && ((ValueExpression) expression).getValue() instanceof Boolean;
+        } else if (expression instanceof BinaryExpression) {
+            return BOOLEAN_OPERATIONS.contains(((BinaryExpression) expression).getOp());
+        } else if (expression instanceof UnaryExpression) {
+            return BOOLEAN_OPERATIONS.contains(((UnaryExpression) expression).getOp());
+        } else if (expression instanceof NAryExpression) {
+            return BOOLEAN_OPERATIONS.contains(((NAryExpression) expression).getOp());
+        }
+        return false;
+    }
+
+    private List<Expression> rewriteAll(List<Expression> expressions) {
+        return expressions.stream().map(this::rewrite).collect(Collectors.toList());
+    }
+
+    private static Expression withType(Expression expression, Type type) {
+        expression.setType(type);
+        return expression;
+    }
+}
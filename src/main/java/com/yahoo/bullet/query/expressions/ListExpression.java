@@ -5,22 +5,48 @@
  */
 package com.yahoo.bullet.query.expressions;
 
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.SerializerDeserializer;
 import com.yahoo.bullet.common.Utilities;
 import com.yahoo.bullet.querying.evaluators.Evaluator;
 import com.yahoo.bullet.querying.evaluators.ListEvaluator;
-import lombok.Getter;
-
+import com.yahoo.bullet.typesystem.Type;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
+import static com.yahoo.bullet.common.SerializerDeserializer.readVarLong;
+import static com.yahoo.bullet.common.SerializerDeserializer.writeVarLong;
+
 /**
  * An expression that holds a list of expressions.
+ *
+ * A list of non-null constants of the same primitive type, such as a large list of ids for an IN, can be serialized as
+ * its type followed by the packed values instead of as a list of {@link ValueExpression}. Integers and longs are
+ * written as the variable-length differences between consecutive values, which are small for ids that are close to
+ * each other. Older versions cannot read this, so lists are only packed when written to a
+ * {@link SerializerDeserializer.CompactObjectOutputStream} (see {@link BulletConfig#QUERY_EXPRESSION_LIST_PACK_ENABLE}).
+ * Both forms can be read. A packed list is kept in an array of the values once deserialized. It is hashed and compared
+ * on that array and its value expressions are only created once they are asked for.
  */
-@Getter
 public class ListExpression extends Expression {
     private static final long serialVersionUID = 311789452858823415L;
 
-    private final List<Expression> values;
+    // The longest string that is guaranteed to fit in DataOutput#writeUTF.
+    private static final int MAX_PACKED_STRING_LENGTH = 65535 / 3;
+    // The name of the serialized field of the values.
+    private static final String VALUES = "values";
+
+    // This is null for a packed list till its values are asked for.
+    private List<Expression> values;
+    // The type and the array of the values if they are packed instead.
+    private transient Type packedType;
+    private transient Object packed;
 
     /**
      * Constructor that creates a list expression.
@@ -31,6 +57,33 @@ public class ListExpression extends Expression {
         this.values = Utilities.requireNonNull(values);
     }
 
+    /**
+     * Gets the values in this list. If the values are packed, the value expressions are created on the first call.
+     *
+     * @return The list of values.
+     */
+    public List<Expression> getValues() {
+        if (values == null) {
+            int size = Array.getLength(packed);
+            List<Expression> expressions = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                expressions.add(new ValueExpression(getPacked(i)));
+            }
+            values = expressions;
+        }
+        return values;
+    }
+
+    /**
+     * Checks if the values in this list are packed. The list is then a list of non-null constants of the same primitive
+     * type.
+     *
+     * @return True if the values are packed.
+     */
+    boolean isPacked() {
+        return packed != null;
+    }
+
     @Override
     public Evaluator getEvaluator() {
         return new ListEvaluator(this);
@@ -45,16 +98,240 @@ public class ListExpression extends Expression {
             return false;
         }
         ListExpression other = (ListExpression) obj;
-        return Objects.equals(values, other.values) && type == other.type;
+        if (type != other.type) {
+            return false;
+        }
+        if (packed != null && other.packed != null) {
+            return packedType == other.packedType && Objects.deepEquals(packed, other.packed);
+        } else if (packed != null) {
+            return packedEquals(other.values);
+        } else if (other.packed != null) {
+            return other.packedEquals(values);
+        }
+        return Objects.equals(values, other.values);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(values, type);
+        return Objects.hash(packed == null ? values.hashCode() : packedHashCode(), type);
     }
 
     @Override
     public String toString() {
-        return "{values: " + values + ", " + super.toString() + "}";
+        return "{values: " + getValues() + ", " + super.toString() + "}";
+    }
+
+    // Equal to List#hashCode of the value expressions of the packed values.
+    private int packedHashCode() {
+        int size = Array.getLength(packed);
+        int typeHash = packedType.hashCode();
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            // Equal to ValueExpression#hashCode, which is Objects.hash(value, type).
+            hash = 31 * hash + 31 * (31 + getPackedHashCode(i)) + typeHash;
+        }
+        return hash;
+    }
+
+    private int getPackedHashCode(int i) {
+        switch (packedType) {
+            case INTEGER:
+                return Integer.hashCode(((int[]) packed)[i]);
+            case LONG:
+                return Long.hashCode(((long[]) packed)[i]);
+            case FLOAT:
+                return Float.hashCode(((float[]) packed)[i]);
+            case DOUBLE:
+                return Double.hashCode(((double[]) packed)[i]);
+            case BOOLEAN:
+                return Boolean.hashCode(((boolean[]) packed)[i]);
+            default:
+                return ((String[]) packed)[i].hashCode();
+        }
+    }
+
+    // Equal to comparing the value expressions of the packed values to the given ones.
+    private boolean packedEquals(List<Expression> others) {
+        int size = Array.getLength(packed);
+        if (others.size() != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            Expression other = others.get(i);
+            if (!(other instanceof ValueExpression) || other.type != packedType || !packedEquals(i, ((ValueExpression) other).getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean packedEquals(int i, Serializable value) {
+        switch (packedType) {
+            case INTEGER:
+                return value instanceof Integer && (Integer) value == ((int[]) packed)[i];
+            case LONG:
+                return value instanceof Long && (Long) value == ((long[]) packed)[i];
+            case FLOAT:
+                // The same as Float#equals
+                return value instanceof Float && Float.floatToIntBits((Float) value) == Float.floatToIntBits(((float[]) packed)[i]);
+            case DOUBLE:
+                return value instanceof Double && Double.doubleToLongBits((Double) value) == Double.doubleToLongBits(((double[]) packed)[i]);
+            case BOOLEAN:
+                return value instanceof Boolean && (Boolean) value == ((boolean[]) packed)[i];
+            default:
+                return ((String[]) packed)[i].equals(value);
+        }
+    }
+
+    private Serializable getPacked(int i) {
+        switch (packedType) {
+            case INTEGER:
+                return ((int[]) packed)[i];
+            case LONG:
+                return ((long[]) packed)[i];
+            case FLOAT:
+                return ((float[]) packed)[i];
+            case DOUBLE:
+                return ((double[]) packed)[i];
+            case BOOLEAN:
+                return ((boolean[]) packed)[i];
+            default:
+                return ((String[]) packed)[i];
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        Type packedType = null;
+        if (out instanceof SerializerDeserializer.CompactObjectOutputStream) {
+            packedType = packed != null ? this.packedType : getPackedType(values);
+        }
+        ObjectOutputStream.PutField fields = out.putFields();
+        // The values are null in the packed form. They are then written after the fields.
+        fields.put(VALUES, packedType == null ? getValues() : null);
+        out.writeFields();
+        if (packedType == null) {
+            return;
+        }
+        out.writeObject(packedType);
+        int size = packed != null ? Array.getLength(packed) : values.size();
+        out.writeInt(size);
+        long previous = 0L;
+        for (int i = 0; i < size; i++) {
+            Serializable value = packed != null ? getPacked(i) : ((ValueExpression) values.get(i)).getValue();
+            switch (packedType) {
+                case INTEGER:
+                case LONG:
+                    long current = ((Number) value).longValue();
+                    long delta = current - previous;
+                    // Zig-zag encodes the signed difference so that small negative ones are short too.
+                    writeVarLong(out, (delta << 1) ^ (delta >> 63));
+                    previous = current;
+                    break;
+                case FLOAT:
+                    out.writeFloat((Float) value);
+                    break;
+                case DOUBLE:
+                    out.writeDouble((Double) value);
+                    break;
+                case BOOLEAN:
+                    out.writeBoolean((Boolean) value);
+                    break;
+                default:
+                    out.writeUTF((String) value);
+                    break;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        values = (List<Expression>) fields.get(VALUES, null);
+        if (values != null) {
+            return;
+        }
+        Type packedType = (Type) in.readObject();
+        int size = in.readInt();
+        this.packedType = packedType;
+        long previous = 0L;
+        switch (packedType) {
+            case INTEGER:
+                int[] ints = new int[size];
+                for (int i = 0; i < size; i++) {
+                    previous += readDelta(in);
+                    ints[i] = (int) previous;
+                }
+                packed = ints;
+                break;
+            case LONG:
+                long[] longs = new long[size];
+                for (int i = 0; i < size; i++) {
+                    previous += readDelta(in);
+                    longs[i] = previous;
+                }
+                packed = longs;
+                break;
+            case FLOAT:
+                float[] floats = new float[size];
+                for (int i = 0; i < size; i++) {
+                    floats[i] = in.readFloat();
+                }
+                packed = floats;
+                break;
+            case DOUBLE:
+                double[] doubles = new double[size];
+                for (int i = 0; i < size; i++) {
+                    doubles[i] = in.readDouble();
+                }
+                packed = doubles;
+                break;
+            case BOOLEAN:
+                boolean[] booleans = new boolean[size];
+                for (int i = 0; i < size; i++) {
+                    booleans[i] = in.readBoolean();
+                }
+                packed = booleans;
+                break;
+            default:
+                String[] strings = new String[size];
+                for (int i = 0; i < size; i++) {
+                    strings[i] = in.readUTF();
+                }
+                packed = strings;
+                break;
+        }
+    }
+
+    private static long readDelta(ObjectInputStream in) throws IOException {
+        long zigZag = readVarLong(in);
+        return (zigZag >>> 1) ^ -(zigZag & 1L);
+    }
+
+    // The values can be packed if they are all plain value expressions of the same primitive type so that they can be
+    // recreated from their values.
+    private static Type getPackedType(List<Expression> values) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        Type type = null;
+        for (Expression expression : values) {
+            if (expression == null || expression.getClass() != ValueExpression.class) {
+                return null;
+            }
+            Serializable value = ((ValueExpression) expression).getValue();
+            Type valueType = expression.getType();
+            if (value == null || !Type.isPrimitive(valueType) || Type.getType(value) != valueType) {
+                return null;
+            }
+            if (type == null) {
+                type = valueType;
+            } else if (type != valueType) {
+                return null;
+            }
+            if (value instanceof String && ((String) value).length() > MAX_PACKED_STRING_LENGTH) {
+                return null;
+            }
+        }
+        return type;
     }
 }
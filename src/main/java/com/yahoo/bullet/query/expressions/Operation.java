@@ -53,6 +53,9 @@ public enum Operation {
     OR("OR"),
     XOR("XOR"),
     FILTER("FILTER"),
+    STARTS_WITH("STARTSWITH"),
+    ENDS_WITH("ENDSWITH"),
+    CONTAINS("CONTAINS"),
     NOT("NOT"),
     SIZE_OF("SIZEOF"),
     IS_NULL("IS NULL"),
@@ -66,7 +69,8 @@ public enum Operation {
     UNIX_TIMESTAMP("UNIXTIMESTAMP"),
     LOWER("LOWER"),
     UPPER("UPPER"),
-    HASH("HASH");
+    HASH("HASH"),
+    HASH64("HASH64");
 
     public static final Set<Operation> BINARY_OPERATIONS =
             new HashSet<>(asList(ADD, SUB, MUL, DIV, MOD,
@@ -75,8 +79,8 @@ public enum Operation {
                                  GREATER_THAN_OR_EQUALS, GREATER_THAN_OR_EQUALS_ANY, GREATER_THAN_OR_EQUALS_ALL,
                                  LESS_THAN_OR_EQUALS, LESS_THAN_OR_EQUALS_ANY, LESS_THAN_OR_EQUALS_ALL, REGEX_LIKE, REGEX_LIKE_ANY,
                                  NOT_REGEX_LIKE, NOT_REGEX_LIKE_ANY, SIZE_IS, CONTAINS_KEY, CONTAINS_VALUE, IN, NOT_IN,
-                                 AND, OR, XOR, FILTER));
-    public static final Set<Operation> UNARY_OPERATIONS = new HashSet<>(asList(NOT, SIZE_OF, IS_NULL, IS_NOT_NULL, TRIM, ABS, LOWER, UPPER, HASH));
+                                 AND, OR, XOR, FILTER, STARTS_WITH, ENDS_WITH, CONTAINS));
+    public static final Set<Operation> UNARY_OPERATIONS = new HashSet<>(asList(NOT, SIZE_OF, IS_NULL, IS_NOT_NULL, TRIM, ABS, LOWER, UPPER, HASH, HASH64));
     public static final Set<Operation> N_ARY_OPERATIONS = new HashSet<>(asList(AND, OR, IF, BETWEEN, NOT_BETWEEN, SUBSTRING, UNIX_TIMESTAMP));
 
     private String name;
@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.BulletError;
+import com.yahoo.bullet.result.Meta;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The error for a query that was killed because it exceeded its CPU or memory budget, or because it was among the
+ * heaviest queries when all the queries together exceeded the global budgets. See {@link QueryBudget}.
+ */
+public class BudgetError extends BulletError {
+    private static final long serialVersionUID = -8730427306452659136L;
+
+    public static final String QUERY = "query";
+    public static final String ALL_QUERIES = "all the queries";
+    public static final String CPU_ERROR_FORMAT = "Exceeded the CPU budget for %s: %.2f ms per second. " +
+                                                  "Current usage: %.2f ms per second";
+    public static final String MEMORY_ERROR_FORMAT = "Exceeded the memory budget for %s: %d bytes. " +
+                                                     "Current usage: %d bytes";
+    public static final String NARROW_FILTER = "Try using more filters to reduce the data";
+    public static final String SMALLER_AGGREGATION = "Try using a smaller aggregation or grouping by fewer values";
+    public static final List<String> RESOLUTIONS = Arrays.asList(NARROW_FILTER, SMALLER_AGGREGATION);
+
+    private BudgetError(String message) {
+        super(message, RESOLUTIONS);
+    }
+
+    /**
+     * Creates an instance of this for an exceeded CPU budget.
+     *
+     * @param subject Whether the budget was for the {@link #QUERY} or for {@link #ALL_QUERIES}.
+     * @param usage The CPU time used in milliseconds per second.
+     * @param budget The CPU budget in milliseconds per second.
+     * @return The error.
+     */
+    public static BudgetError cpu(String subject, double usage, double budget) {
+        return new BudgetError(String.format(CPU_ERROR_FORMAT, subject, budget, usage));
+    }
+
+    /**
+     * Creates an instance of this for an exceeded memory budget.
+     *
+     * @param subject Whether the budget was for the {@link #QUERY} or for {@link #ALL_QUERIES}.
+     * @param usage The approximate memory used in bytes.
+     * @param budget The memory budget in bytes.
+     * @return The error.
+     */
+    public static BudgetError memory(String subject, long usage, long budget) {
+        return new BudgetError(String.format(MEMORY_ERROR_FORMAT, subject, budget, usage));
+    }
+
+    /**
+     * Makes this into a {@link Meta} object.
+     *
+     * @return A meta object containing this error.
+     */
+    public Meta makeMeta() {
+        return new Meta().addErrors(Collections.singletonList(this));
+    }
+}
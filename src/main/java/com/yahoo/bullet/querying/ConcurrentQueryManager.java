@@ -0,0 +1,33 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.BulletConfig;
+
+/**
+ * A {@link QueryManager} whose queries and partitions can be added, removed, looked up, partitioned and categorized from
+ * many threads at once. It keeps them in concurrent maps and its statistics in
+ * {@link java.util.concurrent.atomic.LongAdder}. Sharing sub-expressions or scans across queries is not supported since
+ * the shared evaluators and scans hold the results for a single record. Queries are added and removed one at a time
+ * under a single lock so that the queries, partitions and deadlines always agree once the add or remove returns.
+ *
+ * The {@link Querier} instances themselves are not thread-safe, so this synchronizes on each {@link Querier} while it
+ * consumes records for it, categorizes it or enforces its budget. Records for the same query are then consumed one
+ * thread at a time. A {@link Querier} returned by {@link #getQuery(String)},
+ * {@link #partition(com.yahoo.bullet.record.BulletRecord)} or a {@link QueryCategorizer} must also be synchronized on
+ * while it is used if other threads may be categorizing records. Use a {@link ShardedQueryManager} instead to consume
+ * records on many threads without locking, with each {@link Querier} pinned to one of them.
+ */
+public class ConcurrentQueryManager extends QueryManager {
+    /**
+     * The constructor that takes a non-null {@link BulletConfig} instance that contains partitioning settings.
+     *
+     * @param config The non-null config.
+     */
+    public ConcurrentQueryManager(BulletConfig config) {
+        super(config, true);
+    }
+}
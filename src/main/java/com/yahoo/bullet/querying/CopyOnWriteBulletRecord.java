@@ -0,0 +1,144 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This {@link BulletRecord} is used by the {@link com.yahoo.bullet.query.Projection.Type#COPY} projection in place of
+ * {@link BulletRecord#copy()} when the record is not kept by the aggregation of the query. It reads through to the base
+ * record, which is never changed, and keeps the fields that are set or removed on top of it. Only those fields are
+ * copied instead of the whole record.
+ *
+ * It is not intended to be a fully-functional {@link BulletRecord} and does not implement the methods that set raw
+ * values. Use {@link #copy()} to get a full, independent copy of the record if it needs to be kept.
+ */
+@RequiredArgsConstructor
+@Getter(AccessLevel.PACKAGE)
+class CopyOnWriteBulletRecord extends BulletRecord {
+    private static final long serialVersionUID = -2293185290493373415L;
+
+    private final BulletRecord baseRecord;
+    // A field is never both set and removed.
+    private final Map<String, TypedObject> setFields = new HashMap<>();
+    private final Set<String> removedFields = new HashSet<>();
+
+    @Override
+    protected Serializable convert(Object object) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected BulletRecord rawSet(String field, Serializable object) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Map<String, Serializable> getRawDataMap() {
+        Map<String, Serializable> map = new HashMap<>(baseRecord.toUnmodifiableDataMap());
+        map.keySet().removeAll(removedFields);
+        setFields.forEach((field, object) -> map.put(field, object.getValue()));
+        return map;
+    }
+
+    @Override
+    public Serializable get(String field) {
+        if (removedFields.contains(field)) {
+            return null;
+        }
+        TypedObject object = setFields.get(field);
+        return object != null ? object.getValue() : baseRecord.get(field);
+    }
+
+    @Override
+    public boolean hasField(String field) {
+        return setFields.containsKey(field) || (!removedFields.contains(field) && baseRecord.hasField(field));
+    }
+
+    @Override
+    public int fieldCount() {
+        int count = baseRecord.fieldCount() - removedFields.size();
+        for (String field : setFields.keySet()) {
+            if (!baseRecord.hasField(field)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Serializable getAndRemove(String field) {
+        Serializable value = get(field);
+        remove(field);
+        return value;
+    }
+
+    @Override
+    public BulletRecord remove(String field) {
+        setFields.remove(field);
+        if (baseRecord.hasField(field)) {
+            removedFields.add(field);
+        }
+        return this;
+    }
+
+    @Override
+    public TypedObject typedGet(String field, Type hint) {
+        if (removedFields.contains(field)) {
+            return TypedObject.NULL;
+        }
+        TypedObject object = setFields.get(field);
+        return object != null ? object : baseRecord.typedGet(field, hint);
+    }
+
+    @Override
+    public BulletRecord typedSet(String field, TypedObject object) {
+        validateObject(object);
+        removedFields.remove(field);
+        setFields.put(field, object);
+        return this;
+    }
+
+    @Override
+    public BulletRecord rename(String field, String newName) {
+        if (hasField(field)) {
+            TypedObject object = typedGet(field);
+            remove(field);
+            typedSet(newName, object);
+        }
+        return this;
+    }
+
+    /**
+     * Copies the base record and applies the fields that were set and removed on top of it.
+     *
+     * @return A new {@link BulletRecord} of the same kind as the base record with the fields of this.
+     */
+    @Override
+    public BulletRecord copy() {
+        BulletRecord copy = baseRecord.copy();
+        removedFields.forEach(copy::remove);
+        setFields.forEach(copy::typedSet);
+        return copy;
+    }
+
+    @Override
+    public Iterator iterator() {
+        return getRawDataMap().entrySet().iterator();
+    }
+}
@@ -5,11 +5,14 @@
  */
 package com.yahoo.bullet.querying;
 
+import com.yahoo.bullet.common.metrics.NodeProfile;
 import com.yahoo.bullet.query.expressions.Expression;
 import com.yahoo.bullet.querying.evaluators.Evaluator;
+import com.yahoo.bullet.querying.evaluators.ExpressionCompiler;
+import com.yahoo.bullet.querying.evaluators.ProfiledEvaluator;
 import com.yahoo.bullet.record.BulletRecord;
-import com.yahoo.bullet.typesystem.Type;
-import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.util.List;
 
 /**
  * Filter consists of an evaluator built from the filter expression in the bullet query.
@@ -24,6 +27,25 @@ public class Filter {
         evaluator = filter.getEvaluator();
     }
 
+    /**
+     * Constructor that creates a Filter from the given expression using the given {@link ExpressionCompiler}.
+     *
+     * @param filter The non-null filter expression.
+     * @param compiler The non-null compiler to build the evaluator with.
+     */
+    public Filter(Expression filter, ExpressionCompiler compiler) {
+        evaluator = compiler.compileFilter(filter);
+    }
+
+    /**
+     * Records the runs of this filter in the given {@link NodeProfile}.
+     *
+     * @param profile The non-null profile to use.
+     */
+    void profile(NodeProfile profile) {
+        evaluator = new ProfiledEvaluator(evaluator, profile);
+    }
+
     /**
      * Checks whether the given record matches this filter.
      *
@@ -32,10 +54,27 @@ public class Filter {
      */
     public boolean match(BulletRecord record) {
         try {
-            TypedObject value = evaluator.evaluate(record);
-            return !value.isNull() && (Boolean) value.forceCast(Type.BOOLEAN).getValue();
+            boolean value = evaluator.evaluateBoolean(record);
+            return !evaluator.wasNull() && value;
         } catch (Exception e) {
             return false;
         }
     }
+
+    /**
+     * Checks which records of a batch match this filter. The indices of the matching records are written in increasing
+     * order to the start of the given selection vector, which can then be given to
+     * {@link Projection#project(List, int[], int, com.yahoo.bullet.record.BulletRecordProvider)}.
+     *
+     * @param records The non-null batch of records to check.
+     * @param selection The selection vector to write to. It must have at least as many elements as the batch.
+     * @return The number of records that match this filter.
+     */
+    public int match(List<BulletRecord> records, int[] selection) {
+        int size = records.size();
+        for (int i = 0; i < size; i++) {
+            selection[i] = i;
+        }
+        return evaluator.select(records, selection, size);
+    }
 }
@@ -0,0 +1,285 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.querying.partitioning.HashedKeys;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * An index of the queries by their hashed partitioning keys. It is an open addressing hash table of primitive long keys
+ * to arrays of queries that is copied on write. Adding and removing queries copies the table and publishes the copy,
+ * so looking up the queries for a record never locks or allocates and can be done from many threads at once while
+ * queries are added and removed. Queries are added and removed far less often than records are looked up. A query with
+ * more than one key can be found more than once for a record, so the queries are then deduplicated in a set that each
+ * thread reuses.
+ */
+final class PartitionIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final ThreadLocal<Seen> SEEN = ThreadLocal.withInitial(Seen::new);
+
+    private static final class Entry {
+        private final String id;
+        private final Querier querier;
+
+        private Entry(String id, Querier querier) {
+            this.id = id;
+            this.querier = querier;
+        }
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        // A null array marks an empty slot.
+        private final Entry[][] entries;
+        private int size;
+        // The number of queries with more than one key. Their queries must be deduplicated for each record.
+        private int multiKeyQueries;
+
+        private Table(int capacity, int size) {
+            this(new long[capacity], new Entry[capacity][], size);
+        }
+
+        private Table(long[] keys, Entry[][] entries, int size) {
+            this.keys = keys;
+            this.entries = entries;
+            this.size = size;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (key ^ key >>> 32) & mask;
+            while (entries[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private Entry[] get(long key) {
+            return entries[find(key)];
+        }
+
+        private Table put(long key, Entry[] values) {
+            int slot = find(key);
+            boolean isNew = entries[slot] == null;
+            if (isNew && (size + 1) * 2 > keys.length) {
+                return resize(keys.length << 1).put(key, values);
+            }
+            Table copy = new Table(keys.clone(), entries.clone(), isNew ? size + 1 : size);
+            copy.multiKeyQueries = multiKeyQueries;
+            copy.keys[slot] = key;
+            copy.entries[slot] = values;
+            return copy;
+        }
+
+        private Table remove(long key) {
+            // Removing from open addressing needs the following slots to be moved, so the table is rebuilt instead.
+            Table copy = new Table(keys.length, 0);
+            copy.multiKeyQueries = multiKeyQueries;
+            for (int i = 0; i < keys.length; i++) {
+                if (entries[i] != null && keys[i] != key) {
+                    copy.insert(keys[i], entries[i]);
+                }
+            }
+            return copy;
+        }
+
+        private Table resize(int capacity) {
+            Table copy = new Table(capacity, 0);
+            copy.multiKeyQueries = multiKeyQueries;
+            for (int i = 0; i < keys.length; i++) {
+                if (entries[i] != null) {
+                    copy.insert(keys[i], entries[i]);
+                }
+            }
+            return copy;
+        }
+
+        private void insert(long key, Entry[] values) {
+            // Only used while building a table that is not published yet.
+            int slot = find(key);
+            keys[slot] = key;
+            entries[slot] = values;
+            size++;
+        }
+    }
+
+    // A set of the IDs of the queries seen for a record that is reused across records. Only the slots that were used are
+    // cleared after each record.
+    private static final class Seen {
+        private String[] slots = new String[INITIAL_CAPACITY];
+        private int[] used = new int[INITIAL_CAPACITY / 2];
+        private int size;
+        private boolean inUse;
+
+        private boolean add(String id) {
+            if ((size + 1) * 2 > slots.length) {
+                grow();
+            }
+            int mask = slots.length - 1;
+            int hash = id.hashCode();
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (slots[slot] != null) {
+                if (slots[slot].equals(id)) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+            used[size++] = slot;
+            return true;
+        }
+
+        private void grow() {
+            String[] previous = slots;
+            int[] previousUsed = used;
+            int previousSize = size;
+            slots = new String[previous.length << 1];
+            used = new int[slots.length / 2];
+            size = 0;
+            for (int i = 0; i < previousSize; i++) {
+                add(previous[previousUsed[i]]);
+            }
+        }
+
+        private void clear() {
+            for (int i = 0; i < size; i++) {
+                slots[used[i]] = null;
+            }
+            size = 0;
+        }
+    }
+
+    private volatile Table table = new Table(INITIAL_CAPACITY, 0);
+
+    /**
+     * Adds a query for the given hashed keys. If a query with the same ID is already present for a key, it is replaced.
+     *
+     * @param keys The hashed keys of the query.
+     * @param id The ID of the query.
+     * @param querier The {@link Querier} of the query.
+     */
+    synchronized void add(long[] keys, String id, Querier querier) {
+        long[] distinct = Arrays.stream(keys).distinct().toArray();
+        Entry entry = new Entry(id, querier);
+        Table current = table;
+        for (long key : distinct) {
+            Entry[] existing = current.get(key);
+            Entry[] values = existing == null ? NO_ENTRIES : existing;
+            int index = indexOf(values, id);
+            if (index < 0) {
+                values = Arrays.copyOf(values, values.length + 1);
+                index = values.length - 1;
+            } else {
+                values = values.clone();
+            }
+            values[index] = entry;
+            current = current.put(key, values);
+        }
+        if (distinct.length > 1) {
+            // The table is a new copy that is not published yet.
+            current.multiKeyQueries++;
+        }
+        table = current;
+    }
+
+    /**
+     * Removes a query from the given hashed keys.
+     *
+     * @param keys The hashed keys of the query.
+     * @param id The ID of the query.
+     */
+    synchronized void remove(long[] keys, String id) {
+        long[] distinct = Arrays.stream(keys).distinct().toArray();
+        boolean removed = false;
+        Table current = table;
+        for (long key : distinct) {
+            Entry[] values = current.get(key);
+            int index = values == null ? -1 : indexOf(values, id);
+            if (index < 0) {
+                continue;
+            }
+            removed = true;
+            if (values.length == 1) {
+                current = current.remove(key);
+            } else {
+                Entry[] remaining = new Entry[values.length - 1];
+                System.arraycopy(values, 0, remaining, 0, index);
+                System.arraycopy(values, index + 1, remaining, index, remaining.length - index);
+                current = current.put(key, remaining);
+            }
+        }
+        if (removed && distinct.length > 1) {
+            current.multiKeyQueries--;
+        }
+        table = current;
+    }
+
+    /**
+     * Gives each query for any of the given hashed keys to the consumer once.
+     *
+     * @param keys The distinct hashed keys of a record.
+     * @param consumer The consumer of the query IDs and their {@link Querier} instances.
+     * @return The number of queries given to the consumer.
+     */
+    int forEach(HashedKeys keys, BiConsumer<String, Querier> consumer) {
+        Table current = table;
+        // A query can only be found more than once if it has more than one key.
+        if (current.multiKeyQueries == 0) {
+            return forEach(current, keys, null, consumer);
+        }
+        Seen seen = SEEN.get();
+        // The consumer may look up the queries for another record on this thread.
+        if (seen.inUse) {
+            return forEach(current, keys, new Seen(), consumer);
+        }
+        seen.inUse = true;
+        try {
+            return forEach(current, keys, seen, consumer);
+        } finally {
+            seen.clear();
+            seen.inUse = false;
+        }
+    }
+
+    /**
+     * Gets the number of distinct hashed keys in the index.
+     *
+     * @return The number of hashed keys with at least one query.
+     */
+    int size() {
+        return table.size;
+    }
+
+    private static int forEach(Table table, HashedKeys keys, Seen seen, BiConsumer<String, Querier> consumer) {
+        int count = 0;
+        int size = keys.getSize();
+        for (int i = 0; i < size; i++) {
+            Entry[] values = table.get(keys.get(i));
+            if (values == null) {
+                continue;
+            }
+            for (Entry entry : values) {
+                if (seen == null || seen.add(entry.id)) {
+                    consumer.accept(entry.id, entry.querier);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int indexOf(Entry[] values, String id) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].id.equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -5,12 +5,16 @@
  */
 package com.yahoo.bullet.querying;
 
+import com.yahoo.bullet.common.metrics.QueryProfile;
 import com.yahoo.bullet.query.Field;
 import com.yahoo.bullet.querying.evaluators.Evaluator;
+import com.yahoo.bullet.querying.evaluators.ExpressionCompiler;
+import com.yahoo.bullet.querying.evaluators.ProfiledEvaluator;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.record.BulletRecordProvider;
 import com.yahoo.bullet.typesystem.TypedObject;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +42,27 @@ public class Projection {
         evaluators = fields.stream().collect(Collectors.toMap(Field::getName, Projection::getEvaluator));
     }
 
+    /**
+     * Constructor that creates a Projection from the given fields using the given {@link ExpressionCompiler}.
+     *
+     * @param fields The non-null fields to create a Projection from.
+     * @param compiler The non-null compiler to build the evaluators with.
+     */
+    public Projection(List<Field> fields, ExpressionCompiler compiler) {
+        evaluators = fields.stream().collect(Collectors.toMap(Field::getName, field -> compiler.compile(field.getValue())));
+    }
+
+    /**
+     * Records the runs of each projected field in the {@link com.yahoo.bullet.common.metrics.NodeProfile} in the given
+     * {@link QueryProfile} named by the given prefix followed by the name of the field.
+     *
+     * @param profile The non-null profile to use.
+     * @param prefix The prefix of the names of the profiles.
+     */
+    void profile(QueryProfile profile, String prefix) {
+        evaluators.replaceAll((name, evaluator) -> new ProfiledEvaluator(evaluator, profile.get(prefix + name)));
+    }
+
     /**
      * Projects onto a new BulletRecord.
      *
@@ -80,6 +105,65 @@ public class Projection {
         return record;
     }
 
+    /**
+     * Projects the selected records of a batch onto new BulletRecords. Each projected field is evaluated on all the
+     * selected records before the next one.
+     *
+     * @param records The non-null batch of records to compute new fields from.
+     * @param selection The selection vector of the records to project, such as from {@link Filter#match(List, int[])}.
+     * @param size The number of selected records.
+     * @param provider The provider to get the new BulletRecords.
+     * @return The new BulletRecords in the order of the selection.
+     */
+    public List<BulletRecord> project(List<BulletRecord> records, int[] selection, int size, BulletRecordProvider provider) {
+        List<BulletRecord> projected = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            projected.add(provider.getInstance());
+        }
+        TypedObject[] values = new TypedObject[size];
+        evaluators.forEach((name, evaluator) -> {
+            evaluator.evaluate(records, selection, size, values);
+            for (int i = 0; i < size; i++) {
+                if (!isNull(values[i])) {
+                    projected.get(i).typedSet(name, values[i]);
+                }
+            }
+        });
+        return projected;
+    }
+
+    /**
+     * Projects the selected records of a batch onto themselves. Like {@link #project(BulletRecord)}, the fields of a
+     * record are all computed before any of them is projected onto it.
+     *
+     * @param records The non-null batch of records to compute new fields from and to project onto.
+     * @param selection The selection vector of the records to project, such as from {@link Filter#match(List, int[])}.
+     * @param size The number of selected records.
+     * @return The selected BulletRecords with new fields projected onto them in the order of the selection.
+     */
+    public List<BulletRecord> project(List<BulletRecord> records, int[] selection, int size) {
+        List<String> names = new ArrayList<>(evaluators.size());
+        List<TypedObject[]> columns = new ArrayList<>(evaluators.size());
+        evaluators.forEach((name, evaluator) -> {
+            TypedObject[] values = new TypedObject[size];
+            evaluator.evaluate(records, selection, size, values);
+            names.add(name);
+            columns.add(values);
+        });
+        List<BulletRecord> projected = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BulletRecord record = records.get(selection[i]);
+            for (int j = 0; j < names.size(); j++) {
+                TypedObject value = columns.get(j)[i];
+                if (!isNull(value)) {
+                    record.typedSet(names.get(j), value);
+                }
+            }
+            projected.add(record);
+        }
+        return projected;
+    }
+
     private static Evaluator getEvaluator(Field field) {
         return field.getValue().getEvaluator();
     }
@@ -6,14 +6,26 @@
 package com.yahoo.bullet.querying;
 
 import com.yahoo.bullet.pubsub.Metadata;
+import com.yahoo.bullet.query.Field;
+import com.yahoo.bullet.query.aggregations.AggregationType;
 import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.ExpressionOptimizer;
+import com.yahoo.bullet.query.postaggregations.Computation;
+import com.yahoo.bullet.query.postaggregations.Having;
+import com.yahoo.bullet.query.postaggregations.OrderBy;
 import com.yahoo.bullet.query.tablefunctions.TableFunction;
 import com.yahoo.bullet.querying.aggregations.Strategy;
+import com.yahoo.bullet.querying.evaluators.ExpressionCompiler;
+import com.yahoo.bullet.querying.evaluators.SharedEvaluators;
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.common.BulletError;
+import com.yahoo.bullet.common.Clock;
 import com.yahoo.bullet.common.Monoidal;
+import com.yahoo.bullet.common.metrics.MetricCollector;
+import com.yahoo.bullet.common.metrics.QueryProfile;
 import com.yahoo.bullet.query.Query;
 import com.yahoo.bullet.querying.postaggregations.PostStrategy;
+import com.yahoo.bullet.querying.postaggregations.ProfiledPostStrategy;
 import com.yahoo.bullet.query.postaggregations.PostAggregation;
 import com.yahoo.bullet.querying.tablefunctors.TableFunctor;
 import com.yahoo.bullet.record.BulletRecord;
@@ -23,11 +35,14 @@ import com.yahoo.bullet.result.Meta;
 import com.yahoo.bullet.result.Meta.Concept;
 import com.yahoo.bullet.windowing.Basic;
 import com.yahoo.bullet.windowing.Scheme;
+import com.yahoo.bullet.windowing.SlidingRecord;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -287,6 +302,11 @@ public class Querier implements Monoidal {
 
     public static final String TRY_AGAIN_LATER = "Please try again later";
 
+    // The names of the profiles of the parts of the query. Projected fields and post aggregations add suffixes.
+    public static final String FILTER_PROFILE = "Filter";
+    public static final String PROJECTION_PROFILE_PREFIX = "Projection.";
+    public static final String POST_AGGREGATION_PROFILE_PREFIX = "PostAggregation.";
+
     // For testing convenience
     @Getter(AccessLevel.PACKAGE) @Setter(AccessLevel.PACKAGE)
     private Scheme window;
@@ -300,6 +320,18 @@ public class Querier implements Monoidal {
 
     private Projection projection;
 
+    // The compiler and the optimized filter and projection fields. They are kept to rebuild the evaluators when shared.
+    private ExpressionCompiler compiler;
+    private ExpressionCompiler sharingCompiler;
+    private Expression filterExpression;
+    private List<Field> projectionFields;
+    // The scan shared with other queries with the same filter and projection, if any.
+    private SharedScans scans;
+    private SharedScans.Key scanKey;
+    private SharedScans.Scan scan;
+    // Whether the COPY projection can project onto a CopyOnWriteBulletRecord instead of a copy of the record.
+    private boolean copyOnWrite;
+
     // Transient field, DO NOT use it beyond constructor and initialize methods.
     private transient BulletConfig config;
 
@@ -314,8 +346,23 @@ public class Querier implements Monoidal {
 
     private List<PostStrategy> postStrategies;
 
+    // The aggregation is only kept to reset the aggregation of an outer query between the results of its inner query.
+    private Strategy strategy;
+    // The querier for the outer query, if any. It is created on the first result and reused for the next ones.
+    private Querier outerQuerier;
+
+    // Null unless profiling is enabled.
+    private QueryProfile profile;
+
+    // Null unless query budgets are enabled.
+    @Getter(AccessLevel.PACKAGE)
+    private QueryBudget budget;
+
     private BulletRecordProvider provider;
 
+    // The selection vector reused across the batches given to consume(List).
+    private int[] selection;
+
     /**
      * Constructor that takes a {@link RunningQuery} instance and a configuration to use. This also starts executing
      * the query.
@@ -359,13 +406,21 @@ public class Querier implements Monoidal {
             rateLimit = new RateLimiter(maxEmit, timeInterval);
         }
 
-        Query query = runningQuery.getQuery();
+        if (config.getAs(BulletConfig.QUERY_PROFILE_ENABLE, Boolean.class)) {
+            profile = new QueryProfile(config.getAs(BulletConfig.QUERY_PROFILE_SAMPLE_INTERVAL, Integer.class));
+        }
 
-        Expression filter = query.getFilter();
-        if (filter != null) {
-            this.filter = new Filter(filter);
+        if (config.getAs(BulletConfig.QUERY_BUDGET_ENABLE, Boolean.class)) {
+            budget = new QueryBudget(config.getAs(BulletConfig.QUERY_BUDGET_SAMPLE_INTERVAL, Integer.class));
         }
 
+        Query query = runningQuery.getQuery();
+
+        ExpressionOptimizer optimizer = new ExpressionOptimizer(config);
+        compiler = new ExpressionCompiler(config);
+
+        filterExpression = optimizer.optimize(query.getFilter());
+
         TableFunction tableFunction = query.getTableFunction();
         if (tableFunction != null) {
             tableFunctor = tableFunction.getTableFunctor();
@@ -373,21 +428,126 @@ public class Querier implements Monoidal {
 
         com.yahoo.bullet.query.Projection projection = query.getProjection();
         if (projection.getType() != PASS_THROUGH) {
-            this.projection = new Projection(projection.getFields());
+            projectionFields = optimize(projection.getFields(), optimizer);
         }
+        // Only RAW aggregations keep the records they consume. The others read the fields they need when consuming.
+        copyOnWrite = projection.getType() == COPY && query.getAggregation().getType() != AggregationType.RAW;
+
+        buildEvaluators(compiler);
 
         // Aggregation and Strategy are guaranteed to not be null.
-        Strategy strategy = query.getAggregation().getStrategy(config);
+        strategy = query.getAggregation().getStrategy(config);
 
         List<PostAggregation> postAggregations = query.getPostAggregations();
         if (postAggregations != null && !postAggregations.isEmpty()) {
-            postStrategies = postAggregations.stream().map(PostAggregation::getPostStrategy).collect(Collectors.toList());
+            postStrategies = postAggregations.stream().map(postAggregation -> optimize(postAggregation, optimizer))
+                                                      .map(PostAggregation::getPostStrategy)
+                                                      .collect(Collectors.toList());
+            if (profile != null) {
+                postStrategies = profile(postStrategies, postAggregations);
+            }
         }
 
         // Scheme is guaranteed to not be null. It is constructed in its "start" state.
         window = query.getWindow().getScheme(strategy, config);
     }
 
+    private void buildEvaluators(ExpressionCompiler compiler) {
+        if (filterExpression != null) {
+            filter = new Filter(filterExpression, compiler);
+            if (profile != null) {
+                filter.profile(profile.get(FILTER_PROFILE));
+            }
+        }
+        if (projectionFields != null) {
+            projection = new Projection(projectionFields, compiler);
+            if (profile != null) {
+                projection.profile(profile, PROJECTION_PROFILE_PREFIX);
+            }
+        }
+    }
+
+    private List<PostStrategy> profile(List<PostStrategy> strategies, List<PostAggregation> postAggregations) {
+        List<PostStrategy> profiled = new ArrayList<>();
+        for (int i = 0; i < strategies.size(); i++) {
+            String name = POST_AGGREGATION_PROFILE_PREFIX + i + "." + postAggregations.get(i).getType();
+            profiled.add(new ProfiledPostStrategy(strategies.get(i), profile.get(name)));
+        }
+        return profiled;
+    }
+
+    /**
+     * Rebuilds the evaluators of the filter and the projection so that they share sub-expressions with other queries
+     * through the given {@link SharedEvaluators}.
+     *
+     * @param shared The non-null shared evaluators to use.
+     */
+    void share(SharedEvaluators shared) {
+        unshare();
+        sharingCompiler = compiler.sharing(shared);
+        buildEvaluators(sharingCompiler);
+    }
+
+    /**
+     * Releases the sub-expressions shared with other queries, if any, and rebuilds the evaluators of the filter and the
+     * projection to not share them anymore.
+     */
+    void unshare() {
+        if (sharingCompiler == null) {
+            return;
+        }
+        sharingCompiler.release();
+        sharingCompiler = null;
+        buildEvaluators(compiler);
+    }
+
+    /**
+     * Filters and projects the records given to {@link #consume(BulletRecord)} with a scan shared through the given
+     * {@link SharedScans} with other queries with the same filter and projection. Queries with a table function or
+     * with neither a filter nor a projection do not share their scan.
+     *
+     * @param scans The non-null shared scans to use.
+     */
+    void shareScan(SharedScans scans) {
+        unshareScan();
+        if (tableFunctor != null || (filterExpression == null && projectionFields == null)) {
+            return;
+        }
+        this.scans = scans;
+        scanKey = new SharedScans.Key(filterExpression, runningQuery.getQuery().getProjection().getType(), projectionFields);
+        scan = scans.acquire(scanKey, compiler, provider);
+    }
+
+    /**
+     * Releases the scan shared with other queries, if any. The records are filtered and projected by this query after.
+     */
+    void unshareScan() {
+        if (scan == null) {
+            return;
+        }
+        scans.release(scanKey);
+        scans = null;
+        scanKey = null;
+        scan = null;
+    }
+
+    private static List<Field> optimize(List<Field> fields, ExpressionOptimizer optimizer) {
+        return fields.stream().map(field -> new Field(field.getName(), optimizer.optimize(field.getValue()))).collect(Collectors.toList());
+    }
+
+    private static PostAggregation optimize(PostAggregation postAggregation, ExpressionOptimizer optimizer) {
+        if (postAggregation instanceof Having) {
+            return new Having(optimizer.optimize(((Having) postAggregation).getExpression()));
+        } else if (postAggregation instanceof Computation) {
+            return new Computation(optimize(((Computation) postAggregation).getFields(), optimizer));
+        } else if (postAggregation instanceof OrderBy) {
+            return new OrderBy(((OrderBy) postAggregation).getFields().stream()
+                                                          .map(item -> new OrderBy.SortItem(optimizer.optimize(item.getExpression()), item.getDirection()))
+                                                          .collect(Collectors.toList()));
+        }
+        return postAggregation;
+    }
+
     /**
      * Forces a restart of a valid query to mark the
      * correct start of this object if it was previously created but delayed in starting it (by using the negation of
@@ -412,7 +572,107 @@ public class Querier implements Monoidal {
         if (isDone()) {
             return;
         }
+        if (budget == null) {
+            consumeRecord(record);
+            return;
+        }
+        if (budget.skip()) {
+            return;
+        }
+        long start = budget.start();
         consumeRecord(record);
+        budget.stop(start);
+    }
+
+    /**
+     * Consumes a batch of {@link BulletRecord} for this query. This is the same as calling
+     * {@link #consume(BulletRecord)} on each record in order but the filter and the projection are evaluated on the whole
+     * batch at once (see {@link Filter#match(List, int[])} and
+     * {@link Projection#project(List, int[], int, BulletRecordProvider)}). The records that are left after the query is
+     * done are not consumed. Like with {@link #consume(BulletRecord)}, the records after the window {@link #isClosed()}
+     * are still consumed into it since there is no {@link #reset()} in between. Give the records one at a time to a
+     * query that {@link #isRecordBased()} to reset it when its window closes (see
+     * {@link QueryManager#categorize(java.util.Collection, java.util.function.BiConsumer)}).
+     *
+     * @param records The non-null batch of BulletRecords to consume.
+     */
+    public void consume(List<BulletRecord> records) {
+        if (records.isEmpty() || isDone()) {
+            return;
+        }
+        if (budget == null) {
+            consumeBatch(records);
+            return;
+        }
+        List<BulletRecord> sampled = budget.sample(records);
+        if (sampled.isEmpty()) {
+            return;
+        }
+        long start = budget.start();
+        consumeBatch(sampled);
+        budget.stop(start);
+    }
+
+    private void consumeBatch(List<BulletRecord> records) {
+        List<BulletRecord> batch = records;
+        // The index of the record in the given batch that each record in the batch to process came from.
+        int[] origins = null;
+        if (tableFunctor != null) {
+            batch = new ArrayList<>();
+            origins = new int[records.size()];
+            for (int i = 0; i < records.size(); i++) {
+                List<BulletRecord> generated = tableFunctor.apply(records.get(i), provider);
+                if (batch.size() + generated.size() > origins.length) {
+                    origins = Arrays.copyOf(origins, Math.max(origins.length * 2, batch.size() + generated.size()));
+                }
+                for (BulletRecord record : generated) {
+                    origins[batch.size()] = i;
+                    batch.add(record);
+                }
+            }
+        }
+        int size = batch.size();
+        if (selection == null || selection.length < size) {
+            selection = new int[size];
+        }
+        if (filter != null) {
+            size = filter.match(batch, selection);
+        } else {
+            for (int i = 0; i < size; i++) {
+                selection[i] = i;
+            }
+        }
+        List<BulletRecord> projected;
+        try {
+            projected = project(batch, selection, size);
+        } catch (RuntimeException e) {
+            log.error("Unable to project a batch for query {}. Consuming it one record at a time", this);
+            // The records were already sampled if the query is degraded, so they are not given to consume again.
+            for (BulletRecord record : records) {
+                if (isDone()) {
+                    return;
+                }
+                consumeRecord(record);
+            }
+            return;
+        }
+        int last = -1;
+        for (int i = 0; i < size; i++) {
+            int origin = origins == null ? selection[i] : origins[selection[i]];
+            // Like consume(BulletRecord), the query checks if it is done before each record of the given batch.
+            if (origin != last && i > 0 && isDone()) {
+                return;
+            }
+            last = origin;
+            BulletRecord record = projected.get(i);
+            try {
+                window.consume(record);
+                hasNewData = true;
+            } catch (RuntimeException e) {
+                log.error("Unable to consume {} for query {}", record, this);
+                log.error("Skipping due to", e);
+            }
+        }
     }
 
     /**
@@ -423,6 +683,7 @@ public class Querier implements Monoidal {
      */
     @Override
     public void combine(byte[] data) {
+        long start = budget == null ? 0L : budget.start();
         try {
             window.combine(data);
             hasNewData = true;
@@ -430,6 +691,9 @@ public class Querier implements Monoidal {
             log.error("Unable to aggregate {} for query {}", data, this);
             log.error("Skipping due to", e);
         }
+        if (budget != null) {
+            budget.stop(start);
+        }
     }
 
     /**
@@ -459,6 +723,9 @@ public class Querier implements Monoidal {
     public List<BulletRecord> getRecords() {
         try {
             incrementRate();
+            if (canStreamToOuterQuery()) {
+                return outerQuery(window.getRecords(), new Meta()).getRecords();
+            }
             Clip result = new Clip();
             result.add(window.getRecords());
             result = postAggregate(result);
@@ -481,6 +748,7 @@ public class Querier implements Monoidal {
         try {
             meta = window.getMetadata();
             meta.merge(getResultMetadata());
+            meta.merge(getBudgetMetadata());
         } catch (RuntimeException e) {
             log.error("Unable to get metadata for query {}", this);
             meta = getErrorMeta(e);
@@ -495,17 +763,27 @@ public class Querier implements Monoidal {
      */
     @Override
     public Clip getResult() {
+        long start = budget == null ? 0L : budget.start();
         Clip result;
         try {
             incrementRate();
-            result = window.getResult();
-            result = postAggregate(result);
-            result = outerQuery(result);
+            if (canStreamToOuterQuery()) {
+                Meta meta = window.getMetadata();
+                result = outerQuery(window.getRecords(), meta);
+            } else {
+                result = window.getResult();
+                result = postAggregate(result);
+                result = outerQuery(result);
+            }
             result.add(getResultMetadata());
+            result.add(getBudgetMetadata());
         } catch (RuntimeException e) {
             log.error("Unable to get serialized data for query {}", this);
             result = Clip.of(getErrorMeta(e));
         }
+        if (budget != null) {
+            budget.stop(start);
+        }
         return result;
     }
 
@@ -520,6 +798,16 @@ public class Querier implements Monoidal {
         return mode == Mode.PARTITION ? window.isClosedForPartition() : window.isClosed();
     }
 
+    /**
+     * Returns whether the window of this query closes after a number of records (see {@link SlidingRecord}) rather
+     * than after some time. Such a window can close in the middle of a batch of records.
+     *
+     * @return A boolean denoting whether the window closes on records.
+     */
+    public boolean isRecordBased() {
+        return window instanceof SlidingRecord;
+    }
+
     /**
      * Resets this object. You should call this if you have called {@link #getResult()} or {@link #getData()} after
      * verifying whether this is {@link #isClosed()}.
@@ -551,8 +839,20 @@ public class Querier implements Monoidal {
      * @return A boolean denoting whether the query has expired.
      */
     public boolean isDone() {
-        // We're done with the query if this is the last window and it is closed or query has timed out.
-        return (isLastWindow() && window.isClosed()) || runningQuery.isTimedOut();
+        // We're done with the query if this is the last window and it is closed, query has timed out or was killed for
+        // exceeding its budget.
+        return (isLastWindow() && window.isClosed()) || runningQuery.isTimedOut() || isExceedingBudget();
+    }
+
+    /**
+     * Returns the earliest time in milliseconds at which this may become {@link #isClosed()} or {@link #isDone()}
+     * without consuming any more data. This is when a time based window closes or when the query times out, whichever
+     * comes first. It changes after {@link #reset()} or {@link #restart()}.
+     *
+     * @return The time of the next time based event for this query or {@link Long#MAX_VALUE} if there is none.
+     */
+    public long getNextDeadline() {
+        return Math.min(window.getNextCloseTime(), runningQuery.getExpiryTime());
     }
 
     /**
@@ -589,6 +889,55 @@ public class Querier implements Monoidal {
         return new RateLimitError(rateLimit.getCurrentRate(), rateLimit.getAbsoluteRateLimit());
     }
 
+    /**
+     * Returns whether this was killed for exceeding its CPU or memory budget (see {@link QueryManager#enforceBudgets()}).
+     * A query that exceeded its budget is also {@link #isDone()} and its results have the {@link BudgetError}.
+     *
+     * @return A boolean denoting whether we have exceeded the budget.
+     */
+    public boolean isExceedingBudget() {
+        return budget != null && budget.isExceeded();
+    }
+
+    /**
+     * Returns a {@link BudgetError} if this was killed for exceeding its budget.
+     *
+     * @return A budget error or null if the budget was not exceeded.
+     */
+    public BudgetError getBudgetError() {
+        return budget == null ? null : budget.getError();
+    }
+
+    /**
+     * Gets the approximate memory used by the data of this query. This is estimated by the {@link Strategy} of the
+     * query without serializing its data. See {@link Strategy#getRetainedSize()}.
+     *
+     * @return The approximate size in bytes of the data of this query.
+     */
+    public long getRetainedSize() {
+        try {
+            return window.getRetainedSize();
+        } catch (RuntimeException e) {
+            log.error("Unable to get the size of the data for query {}", this);
+            return 0L;
+        }
+    }
+
+    /**
+     * Adds the profile of this query since the last report to the given {@link MetricCollector} if profiling is
+     * enabled. The metrics are named by the given prefix, the name of the part of the query and the name of the count,
+     * separated by dots. For instance, prefix.Filter.invocations. Use the same prefix for all queries to aggregate
+     * them or a prefix with the query ID to keep them apart.
+     *
+     * @param collector The non-null collector to add the profile to.
+     * @param prefix The prefix of the names of the metrics.
+     */
+    public void reportProfile(MetricCollector collector, String prefix) {
+        if (profile != null) {
+            profile.report(collector, prefix);
+        }
+    }
+
     /**
      * Returns if this query should buffer before emitting the final results. You can use this to wait for the final
      * results in your Join or Combine stage after a query is {@link #isDone()}.
@@ -619,7 +968,9 @@ public class Querier implements Monoidal {
     // ********************************* Private helpers *********************************
 
     private void consumeRecord(BulletRecord record) {
-        if (tableFunctor == null) {
+        if (scan != null) {
+            processScanned(record);
+        } else if (tableFunctor == null) {
             process(record);
         } else {
             tableFunctor.apply(record, provider).forEach(this::process);
@@ -641,6 +992,21 @@ public class Querier implements Monoidal {
         }
     }
 
+    private void processScanned(BulletRecord record) {
+        try {
+            BulletRecord projected = scan.apply(record);
+            if (projected == null) {
+                return;
+            }
+            // The projected record is shared with the other queries and post aggregations change records in place.
+            window.consume(postStrategies == null ? projected : projected.copy());
+            hasNewData = true;
+        } catch (RuntimeException e) {
+            log.error("Unable to consume {} for query {}", record, this);
+            log.error("Skipping due to", e);
+        }
+    }
+
     private boolean filter(BulletRecord record) {
         if (filter == null) {
             return true;
@@ -652,12 +1018,36 @@ public class Querier implements Monoidal {
         if (projection == null) {
             return record;
         } else if (runningQuery.getQuery().getProjection().getType() == COPY) {
-            return projection.project(record.copy());
+            return projection.project(copyForProjection(record));
         } else {
             return projection.project(record, provider);
         }
     }
 
+    private BulletRecord copyForProjection(BulletRecord record) {
+        return copyOnWrite ? new CopyOnWriteBulletRecord(record) : record.copy();
+    }
+
+    private List<BulletRecord> project(List<BulletRecord> records, int[] selection, int size) {
+        if (projection == null) {
+            List<BulletRecord> selected = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                selected.add(records.get(selection[i]));
+            }
+            return selected;
+        } else if (runningQuery.getQuery().getProjection().getType() == COPY) {
+            List<BulletRecord> copies = new ArrayList<>(size);
+            int[] identity = new int[size];
+            for (int i = 0; i < size; i++) {
+                copies.add(copyForProjection(records.get(selection[i])));
+                identity[i] = i;
+            }
+            return projection.project(copies, identity, size);
+        } else {
+            return projection.project(records, selection, size, provider);
+        }
+    }
+
     private Clip postAggregate(Clip clip) {
         if (postStrategies == null) {
             return clip;
@@ -668,12 +1058,21 @@ public class Querier implements Monoidal {
         return clip;
     }
 
+    private boolean canStreamToOuterQuery() {
+        // Without post aggregations, the records of the window can be given to the outer query as is.
+        return postStrategies == null && runningQuery.getQuery().getOuterQuery() != null;
+    }
+
     private Clip outerQuery(Clip clip) {
         if (runningQuery.getQuery().getOuterQuery() == null) {
             return clip;
         }
-        Querier querier = new Querier(Mode.ALL, new RunningQuery(runningQuery.getId(), runningQuery.getQuery().getOuterQuery(), new Metadata()), config);
-        for (BulletRecord record : clip.getRecords()) {
+        return outerQuery(clip.getRecords(), clip.getMeta());
+    }
+
+    private Clip outerQuery(List<BulletRecord> records, Meta innerMeta) {
+        Querier querier = getOuterQuerier();
+        for (BulletRecord record : records) {
             // A bit inefficient since this is only needed for RAW aggregation queries
             if (querier.isClosed()) {
                 break;
@@ -681,10 +1080,24 @@ public class Querier implements Monoidal {
             querier.consumeRecord(record);
         }
         Clip result = querier.getResult();
-        result.getMeta().add(getInnerQueryMetaKey(), clip.getMeta().asMap());
+        result.getMeta().add(getInnerQueryMetaKey(), innerMeta.asMap());
         return result;
     }
 
+    private Querier getOuterQuerier() {
+        // The outer query is received when it is run like before so only its aggregation has to be started afresh.
+        RunningQuery outerQuery = new RunningQuery(runningQuery.getId(), runningQuery.getQuery().getOuterQuery(), new Metadata());
+        if (outerQuerier == null) {
+            outerQuerier = new Querier(Mode.ALL, outerQuery, config);
+        } else {
+            // Outer queries do not have windows, so the Basic window only proxies to the aggregation and is not reset.
+            outerQuerier.runningQuery = outerQuery;
+            outerQuerier.strategy.reset();
+            outerQuerier.hasNewData = false;
+        }
+        return outerQuerier;
+    }
+
     private Meta getResultMetadata() {
         String metaKey = getMetaKey();
         if (metaKey == null) {
@@ -695,13 +1108,29 @@ public class Querier implements Monoidal {
         addIfNonNull(meta, metaKeys, Concept.QUERY_OBJECT, runningQuery::toString);
         addIfNonNull(meta, metaKeys, Concept.QUERY_STRING, runningQuery::getQueryString);
         addIfNonNull(meta, metaKeys, Concept.QUERY_RECEIVE_TIME, runningQuery::getStartTime);
+        addIfNonNull(meta, metaKeys, Concept.QUERY_PROFILE, this::getProfileMetadata);
         return new Meta().add(metaKey, meta);
     }
 
+    private Meta getBudgetMetadata() {
+        if (budget == null) {
+            return null;
+        }
+        Meta meta = budget.isExceeded() ? budget.getError().makeMeta() : new Meta();
+        if (budget.getSampling() > 1) {
+            meta.add(Meta.SAMPLING_KEY, budget.getSampling());
+        }
+        return meta;
+    }
+
+    private Object getProfileMetadata() {
+        return profile == null ? null : profile.asMap();
+    }
+
     private void addFinishTime(Meta meta) {
         Map<String, Object> queryMeta = (Map<String, Object>) meta.asMap().get(getMetaKey());
         if (queryMeta != null) {
-            addIfNonNull(queryMeta, metaKeys, Concept.QUERY_FINISH_TIME, System::currentTimeMillis);
+            addIfNonNull(queryMeta, metaKeys, Concept.QUERY_FINISH_TIME, Clock::now);
         }
     }
 
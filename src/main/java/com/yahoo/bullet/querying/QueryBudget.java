@@ -0,0 +1,186 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.record.BulletRecord;
+import lombok.Getter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This accounts for the CPU time that a {@link Querier} spends consuming, combining and getting results and holds how
+ * it is throttled if it uses too much. The time is measured on one call in every sample interval and the time of the
+ * other calls is estimated from it. The {@link QueryManager} reads the time used since its last check with
+ * {@link #checkpoint()} and {@link #degrade(int)}s or {@link #exceed(BudgetError)}s queries that are over their budgets
+ * (see {@link QueryManager#enforceBudgets()}). The time is the CPU time of the calling thread if the JVM can measure
+ * it (see {@link ThreadMXBean#isCurrentThreadCpuTimeSupported()}) and the wall time of the call otherwise.
+ *
+ * A degraded query only consumes one in every {@link #getSampling()} records so its results are approximate and its
+ * counts and sums are too low. Its metadata has the sampling with the {@link com.yahoo.bullet.result.Meta#SAMPLING_KEY}.
+ * A query whose budget is exceeded is done and has the {@link BudgetError} in its metadata.
+ *
+ * The counts are not synchronized. A concurrent {@link QueryManager} locks the {@link Querier} while it uses them.
+ */
+public class QueryBudget {
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+    private static final double NANOS_PER_MS = 1000000.0;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean MEASURING_CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported() &&
+                                                      THREADS.isThreadCpuTimeEnabled();
+
+    @Getter
+    private final int sampleInterval;
+
+    // The counts since the last checkpoint.
+    private long calls = 0;
+    private long sampledCalls = 0;
+    private long sampledNanos = 0;
+
+    @Getter
+    private int sampling = 1;
+    private long records = 0;
+    @Getter
+    private BudgetError error;
+
+    /**
+     * Creates an instance of this that measures the time of one call in every given number of calls.
+     *
+     * @param sampleInterval The positive number of calls per measured call.
+     * @throws IllegalArgumentException if the sample interval was not positive.
+     */
+    public QueryBudget(int sampleInterval) throws IllegalArgumentException {
+        if (sampleInterval <= 0) {
+            throw new IllegalArgumentException("The sample interval must be positive: " + sampleInterval);
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Gets the estimated CPU time used since the last call to this and starts counting afresh.
+     *
+     * @return The estimated CPU time in milliseconds.
+     */
+    public double checkpoint() {
+        double estimate = sampledCalls == 0 ? 0.0 : sampledNanos / NANOS_PER_MS * calls / sampledCalls;
+        calls = 0;
+        sampledCalls = 0;
+        sampledNanos = 0;
+        return estimate;
+    }
+
+    /**
+     * Returns whether the budget was exceeded and the query should not run anymore.
+     *
+     * @return A boolean denoting whether this has a {@link BudgetError}.
+     */
+    public boolean isExceeded() {
+        return error != null;
+    }
+
+    /**
+     * Halves the fraction of the records that the query consumes, if that keeps it at no less than one in the given
+     * maximum sampling.
+     *
+     * @param maxSampling The maximum number of records per consumed record.
+     * @return A boolean denoting whether the query was degraded.
+     */
+    boolean degrade(int maxSampling) {
+        if (!canDegrade(maxSampling)) {
+            return false;
+        }
+        sampling *= 2;
+        return true;
+    }
+
+    /**
+     * Checks whether {@link #degrade(int)} would degrade the query.
+     *
+     * @param maxSampling The maximum number of records per consumed record.
+     * @return A boolean denoting whether the query can be degraded.
+     */
+    boolean canDegrade(int maxSampling) {
+        return sampling <= maxSampling / 2;
+    }
+
+    /**
+     * Marks the budget as exceeded.
+     *
+     * @param error The non-null error for the exceeded budget.
+     */
+    void exceed(BudgetError error) {
+        this.error = error;
+    }
+
+    /**
+     * Starts a call to measure.
+     *
+     * @return The value to give to {@link #stop(long)} after the call.
+     */
+    long start() {
+        return calls++ % sampleInterval == 0 ? now() : NOT_SAMPLED;
+    }
+
+    /**
+     * Stops a call started with {@link #start()}.
+     *
+     * @param start The value returned by {@link #start()}.
+     */
+    void stop(long start) {
+        if (start != NOT_SAMPLED) {
+            sampledNanos += now() - start;
+            sampledCalls++;
+        }
+    }
+
+    /**
+     * Returns whether the next record should be skipped because the query is degraded.
+     *
+     * @return A boolean denoting whether to skip the record.
+     */
+    boolean skip() {
+        return sampling > 1 && records++ % sampling != 0;
+    }
+
+    /**
+     * Gets the records of a batch that should not be skipped because the query is degraded.
+     *
+     * @param batch The batch of records.
+     * @return The batch itself if the query is not degraded or the records that should be consumed.
+     */
+    List<BulletRecord> sample(List<BulletRecord> batch) {
+        if (sampling == 1) {
+            return batch;
+        }
+        List<BulletRecord> sampled = new ArrayList<>(batch.size() / sampling + 1);
+        for (BulletRecord record : batch) {
+            if (!skip()) {
+                sampled.add(record);
+            }
+        }
+        return sampled;
+    }
+
+    /**
+     * Returns whether the time of calls is the CPU time of the calling thread rather than the wall time.
+     *
+     * @return A boolean denoting whether CPU time is measured.
+     */
+    static boolean isMeasuringCpuTime() {
+        return MEASURING_CPU_TIME;
+    }
+
+    /**
+     * Gets the current time in nanoseconds to measure calls with.
+     *
+     * @return The CPU time of the calling thread if it can be measured or the wall time otherwise.
+     */
+    static long now() {
+        return MEASURING_CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
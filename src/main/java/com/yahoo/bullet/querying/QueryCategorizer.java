@@ -53,9 +53,31 @@ public class QueryCategorizer {
         return this;
     }
 
+    /**
+     * Adds the queries categorized by another {@link QueryCategorizer} to this one.
+     *
+     * @param other The other categorizer.
+     * @return This object for chaining.
+     */
+    QueryCategorizer merge(QueryCategorizer other) {
+        rateLimited.putAll(other.rateLimited);
+        closed.putAll(other.closed);
+        done.putAll(other.done);
+        hasData.putAll(other.hasData);
+        return this;
+    }
+
     private void classify(Map.Entry<String, Querier> query) {
-        String id = query.getKey();
-        Querier querier = query.getValue();
+        classify(query.getKey(), query.getValue());
+    }
+
+    /**
+     * Categorizes a single query.
+     *
+     * @param id The ID of the query.
+     * @param querier The {@link Querier} of the query.
+     */
+    void classify(String id, Querier querier) {
         if (querier.isDone()) {
             done.put(id, querier);
         } else if (querier.isExceedingRateLimit()) {
@@ -6,13 +6,19 @@
 package com.yahoo.bullet.querying;
 
 import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.Clock;
 import com.yahoo.bullet.query.Query;
+import com.yahoo.bullet.querying.evaluators.SharedEvaluators;
+import com.yahoo.bullet.querying.partitioning.HashedKeys;
 import com.yahoo.bullet.querying.partitioning.Partitioner;
 import com.yahoo.bullet.record.BulletRecord;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -20,6 +26,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -30,16 +40,73 @@ import java.util.stream.Collectors;
  * relevant to your record (after applying any partitioner) using {@link #partition(BulletRecord)}. You can use the
  * {@link #addQuery(String, Querier)} to add a query to the manager and the {@link #removeAndGetQuery(String)} and
  * {@link #removeQueries(Set)} methods to remove a query from the manager.
+ *
+ * The queries are looked up for each record by the keys of the {@link Partitioner} hashed to longs (see
+ * {@link HashedKeys}) in an index that does not allocate. Use {@link #partition(BulletRecord, BiConsumer)} to get the
+ * queries for a record without creating a {@link Map} for every record.
+ *
+ * The first manager that is created in the JVM configures the {@link Clock} with its config (see
+ * {@link Clock#configure(BulletConfig)}). The managers created after it, and their configs, do not change the clock.
+ *
+ * The next window close or expiry time of each query (see {@link Querier#getNextDeadline()}) is tracked in a timer
+ * wheel. Use {@link #categorizeDue()} instead of {@link #categorize()} to only categorize the queries that may have
+ * closed or be done because time has passed, without looking at all the queries.
+ *
+ * If {@link BulletConfig#QUERY_EXPRESSION_SHARE_ENABLE} is true, structurally equal sub-expressions in the filters and
+ * projections of the queries in the manager share their evaluators (see {@link SharedEvaluators}) and are evaluated at
+ * most once per record. The records must then be given to the queries after {@link #partition(BulletRecord)} or
+ * {@link #categorize(BulletRecord)}, which start a new record for the shared evaluators.
+ *
+ * If {@link BulletConfig#QUERY_SCAN_SHARE_ENABLE} is true, the queries in the manager with structurally equal filters
+ * and projections share their scans (see {@link SharedScans}) and filter and project each record at most once. Each
+ * query still has its own window and aggregation. Like sharing sub-expressions, the records must then be given to the
+ * queries after {@link #partition(BulletRecord)} or {@link #categorize(BulletRecord)}.
+ *
+ * If {@link BulletConfig#QUERY_BUDGET_ENABLE} is true, the queries account for the CPU time they use (see
+ * {@link QueryBudget}). Call {@link #enforceBudgets()} periodically to throttle or kill the queries that are over their
+ * budgets or are the heaviest when all the queries together are over the global budgets.
+ *
+ * This manager is not thread-safe. See {@link ConcurrentQueryManager} for one that is and {@link ShardedQueryManager}
+ * for one that spreads the queries across threads. The {@link Querier} instances are not thread-safe either, so a
+ * concurrent manager locks each one while it consumes records for it or categorizes it.
  */
 @Slf4j
 public class QueryManager {
+    // The partitions by their names. Only used for the statistics. The records are partitioned using the index.
     private Map<String, Set<String>> partitioning;
+    private final PartitionIndex index = new PartitionIndex();
     private Map<String, Querier> queries;
     private Partitioner partitioner;
-    private long queriesSeen = 0;
-    private long expectedQueriesSeen = 0;
+    // Null if sharing sub-expressions is disabled. Exposed for testing.
+    @Getter(AccessLevel.PACKAGE)
+    private SharedEvaluators shared;
+    // Null if sharing scans is disabled. Exposed for testing.
+    @Getter(AccessLevel.PACKAGE)
+    private SharedScans scans;
+    private final boolean concurrent;
+    // Locked while a query is added or removed if concurrent.
+    private final Object updates = new Object();
+    private final LongAdder queriesSeen = new LongAdder();
+    private final LongAdder expectedQueriesSeen = new LongAdder();
+    // The batches of records for each query reused across the calls to categorize(Collection). Null if concurrent.
+    private final Map<String, QueryBatch> batches;
+    // The buffer for the hashed keys of a record. There is one per thread if concurrent.
+    private final HashedKeys keys;
+    private final ThreadLocal<HashedKeys> threadKeys;
+    // The query IDs by their next deadline. Guarded by itself.
+    private final TimerWheel<String> deadlines;
+    // The budgets. The CPU budgets are in ms per second and the memory budgets in bytes.
+    private final double cpuBudget;
+    private final double globalCPUBudget;
+    private final long memoryBudget;
+    private final long globalMemoryBudget;
+    private final int maxSampling;
+    private long lastBudgetCheck;
 
     public static final int QUANTILE_STEP = 10;
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    // Whether a manager has configured the clock. Only the first one does. Exposed for testing.
+    static final AtomicBoolean CLOCK_CONFIGURED = new AtomicBoolean(false);
 
     public enum PartitionStat {
         QUERY_COUNT, PARTITION_COUNT, ACTUAL_QUERIES_SEEN, EXPECTED_QUERIES_SEEN,
@@ -52,9 +119,9 @@ public class QueryManager {
         private final int count;
         static final String DELIMITER = " -> ";
 
-        private Partition(Map.Entry<String, Set<String>> partition) {
-            name = partition.getKey();
-            count = partition.getValue().size();
+        private Partition(String name, int count) {
+            this.name = name;
+            this.count = count;
         }
 
         @Override
@@ -68,8 +135,56 @@ public class QueryManager {
         }
     }
 
+    private static class QueryBatch {
+        private final Querier querier;
+        private final List<BulletRecord> records = new ArrayList<>();
+
+        private QueryBatch(Querier querier) {
+            this.querier = querier;
+        }
+    }
+
+    private static class QueryBatcher implements BiConsumer<String, Querier> {
+        private final Map<String, QueryBatch> batches;
+        private BulletRecord record;
+
+        private QueryBatcher(Map<String, QueryBatch> batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public void accept(String id, Querier querier) {
+            QueryBatch batch = batches.get(id);
+            if (batch == null) {
+                batch = new QueryBatch(querier);
+                batches.put(id, batch);
+            }
+            batch.records.add(record);
+        }
+    }
+
+    // The budget usage of a query and, once picked to be over the global budgets, the error to kill it with or null to
+    // degrade it.
+    static class Usage {
+        private final String id;
+        private final Querier querier;
+        private final double cpu;
+        private final long memory;
+        private final boolean degradable;
+        private BudgetError error;
+
+        private Usage(String id, Querier querier, double cpu, long memory, boolean degradable) {
+            this.id = id;
+            this.querier = querier;
+            this.cpu = cpu;
+            this.memory = memory;
+            this.degradable = degradable;
+        }
+    }
+
     private static class NoPartitioner implements Partitioner {
         private static final Set<String> EMPTY_KEYS = Collections.singleton("");
+        private static final long EMPTY_HASHED_KEY = 0L;
 
         @Override
         public Set<String> getKeys(Query query) {
@@ -80,6 +195,16 @@ public class QueryManager {
         public Set<String> getKeys(BulletRecord record) {
             return EMPTY_KEYS;
         }
+
+        @Override
+        public long[] getHashedKeys(Query query) {
+            return new long[] { EMPTY_HASHED_KEY };
+        }
+
+        @Override
+        public void getHashedKeys(BulletRecord record, HashedKeys keys) {
+            keys.add(EMPTY_HASHED_KEY);
+        }
     }
 
     /**
@@ -88,6 +213,23 @@ public class QueryManager {
      * @param config The non-null config.
      */
     public QueryManager(BulletConfig config) {
+        this(config, false);
+    }
+
+    /**
+     * The constructor that takes a non-null {@link BulletConfig} instance that contains partitioning settings and
+     * whether the queries and partitions can be added, removed and looked up from many threads at once. Sharing
+     * sub-expressions is not supported if they can.
+     *
+     * @param config The non-null config.
+     * @param concurrent Whether to use concurrent maps for the queries and partitions.
+     */
+    protected QueryManager(BulletConfig config, boolean concurrent) {
+        this.concurrent = concurrent;
+        if (CLOCK_CONFIGURED.compareAndSet(false, true)) {
+            Clock.configure(config);
+        }
+        deadlines = new TimerWheel<>(Clock.now());
         boolean enable = config.getAs(BulletConfig.QUERY_PARTITIONER_ENABLE, Boolean.class);
         if (enable) {
             partitioner = config.loadConfiguredClass(BulletConfig.QUERY_PARTITIONER_CLASS_NAME);
@@ -95,8 +237,33 @@ public class QueryManager {
         } else {
             partitioner = new NoPartitioner();
         }
-        partitioning = new HashMap<>();
-        queries = new HashMap<>();
+        if (config.getAs(BulletConfig.QUERY_EXPRESSION_SHARE_ENABLE, Boolean.class)) {
+            if (concurrent) {
+                log.warn("Sharing sub-expressions across queries is not supported by a concurrent query manager");
+            } else {
+                shared = new SharedEvaluators();
+                log.info("Sharing sub-expressions across queries is enabled");
+            }
+        }
+        if (config.getAs(BulletConfig.QUERY_SCAN_SHARE_ENABLE, Boolean.class)) {
+            if (concurrent) {
+                log.warn("Sharing scans across queries is not supported by a concurrent query manager");
+            } else {
+                scans = new SharedScans();
+                log.info("Sharing scans across queries is enabled");
+            }
+        }
+        partitioning = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        queries = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        batches = concurrent ? null : new HashMap<>();
+        keys = concurrent ? null : new HashedKeys();
+        threadKeys = concurrent ? ThreadLocal.withInitial(HashedKeys::new) : null;
+        cpuBudget = config.getAs(BulletConfig.QUERY_BUDGET_CPU_MS_PER_SECOND, Integer.class);
+        globalCPUBudget = config.getAs(BulletConfig.QUERY_BUDGET_GLOBAL_CPU_MS_PER_SECOND, Integer.class);
+        memoryBudget = config.getAs(BulletConfig.QUERY_BUDGET_MEMORY_MB, Integer.class) * BYTES_PER_MB;
+        globalMemoryBudget = config.getAs(BulletConfig.QUERY_BUDGET_GLOBAL_MEMORY_MB, Integer.class) * BYTES_PER_MB;
+        maxSampling = config.getAs(BulletConfig.QUERY_BUDGET_MAX_SAMPLING, Integer.class);
+        lastBudgetCheck = Clock.now();
     }
 
     /**
@@ -106,13 +273,15 @@ public class QueryManager {
      * @param querier A fully initialized {@link Querier} instance.
      */
     public void addQuery(String id, Querier querier) {
-        Query query = querier.getQuery();
-        Set<String> keys = partitioner.getKeys(query);
-        for (String key : keys) {
-            partitioning.computeIfAbsent(key, s -> new HashSet<>()).add(id);
-            log.debug("Added query: {} to partition: {}", id, key);
+        if (!concurrent) {
+            add(id, querier);
+            return;
+        }
+        // The query is added to the maps, the index and the deadlines in separate steps, which must not interleave with
+        // those of another add or remove.
+        synchronized (updates) {
+            add(id, querier);
         }
-        queries.put(id, querier);
     }
 
     /**
@@ -123,17 +292,65 @@ public class QueryManager {
      * @return The removed {@link Querier} instance.
      */
     public Querier removeAndGetQuery(String id) {
+        if (!concurrent) {
+            return remove(id);
+        }
+        synchronized (updates) {
+            return remove(id);
+        }
+    }
+
+    private void add(String id, Querier querier) {
+        Query query = querier.getQuery();
+        Set<String> keys = partitioner.getKeys(query);
+        if (shared != null) {
+            querier.share(shared);
+        }
+        if (scans != null) {
+            querier.shareScan(scans);
+        }
+        queries.put(id, querier);
+        index.add(partitioner.getHashedKeys(query), id, querier);
+        synchronized (deadlines) {
+            deadlines.schedule(id, querier.getNextDeadline());
+        }
+        for (String key : keys) {
+            partitioning.compute(key, (k, ids) -> {
+                Set<String> partition = ids == null ? newPartition() : ids;
+                partition.add(id);
+                return partition;
+            });
+            log.debug("Added query: {} to partition: {}", id, key);
+        }
+    }
+
+    private Querier remove(String id) {
         Querier querier = queries.remove(id);
+        if (batches != null) {
+            batches.remove(id);
+        }
         if (querier != null) {
+            synchronized (deadlines) {
+                deadlines.cancel(id);
+            }
+            if (shared != null) {
+                querier.unshare();
+            }
+            if (scans != null) {
+                querier.unshareScan();
+            }
             Query query = querier.getQuery();
+            index.remove(partitioner.getHashedKeys(query), id);
             Set<String> keys = partitioner.getKeys(query);
             for (String key : keys) {
-                Set<String> partition = partitioning.get(key);
-                partition.remove(id);
-                if (partition.isEmpty()) {
-                    log.debug("Partition: {} is empty. Removing...", key);
-                    partitioning.remove(key);
-                }
+                partitioning.computeIfPresent(key, (k, partition) -> {
+                    partition.remove(id);
+                    if (partition.isEmpty()) {
+                        log.debug("Partition: {} is empty. Removing...", key);
+                        return null;
+                    }
+                    return partition;
+                });
                 log.debug("Removed query: {} from partition: {}", id, key);
             }
         }
@@ -198,18 +415,36 @@ public class QueryManager {
      * @return The non-null {@link Map} of matching queries for the record.
      */
     public Map<String, Querier> partition(BulletRecord record) {
-        Set<String> keys = partitioner.getKeys(record);
         Map<String, Querier> queriers = new HashMap<>();
-        for (String key : keys) {
-            Set<String> queryIDs = partitioning.getOrDefault(key, Collections.emptySet());
-            queryIDs.forEach(id -> queriers.put(id, queries.get(id)));
+        partition(record, queriers::put);
+        return queriers;
+    }
+
+    /**
+     * Takes a {@link BulletRecord} instance and gives each of the matching queries (according to the
+     * {@link Partitioner}) for it to the consumer once. Unlike {@link #partition(BulletRecord)}, this does not
+     * allocate if the {@link Partitioner} does not (see {@link Partitioner#getHashedKeys(BulletRecord, HashedKeys)}).
+     *
+     * @param record The non-null {@link BulletRecord} instance.
+     * @param consumer The non-null consumer of the query IDs and the {@link Querier} instances of the matching queries.
+     */
+    public void partition(BulletRecord record, BiConsumer<String, Querier> consumer) {
+        if (shared != null) {
+            shared.advance();
         }
-        int queriesSeen = queriers.size();
+        if (scans != null) {
+            scans.advance();
+        }
+        HashedKeys keys = concurrent ? threadKeys.get() : this.keys;
+        keys.clear();
+        partitioner.getHashedKeys(record, keys);
+        keys.distinct();
+        // The query may have just been removed by another thread if this is concurrent.
+        int queriesSeen = index.forEach(keys, consumer);
         int allQueries = queries.size();
-        this.queriesSeen += queriesSeen;
-        expectedQueriesSeen += allQueries;
+        this.queriesSeen.add(queriesSeen);
+        expectedQueriesSeen.add(allQueries);
         log.trace("Retrieved {}/{} queries for record: {}", queriesSeen, allQueries, record);
-        return queriers;
     }
 
     /**
@@ -221,6 +456,37 @@ public class QueryManager {
         return categorize(queries);
     }
 
+    /**
+     * Categorizes only the queries whose next window close or expiry time (see {@link Querier#getNextDeadline()}) has
+     * passed, using a {@link QueryCategorizer}. Unlike {@link #categorize()}, this does not look at the other queries,
+     * so it only finds the queries that are closed or done because of time. Use {@link #categorize(BulletRecord)} to
+     * find the queries that have new data, are exceeding their rate limits or are closed or done because of the data
+     * they consumed.
+     *
+     * A query is found again until its deadline moves on, for instance when it is {@link Querier#reset()}, or it is
+     * removed from the manager.
+     *
+     * @return The {@link QueryCategorizer} instance with the queries in the manager whose deadline has passed.
+     */
+    public QueryCategorizer categorizeDue() {
+        long now = Clock.now();
+        Map<String, Querier> due = new HashMap<>();
+        synchronized (deadlines) {
+            for (String id : deadlines.advance(now)) {
+                Querier querier = queries.get(id);
+                if (querier == null) {
+                    continue;
+                }
+                long deadline = querier.getNextDeadline();
+                deadlines.schedule(id, deadline);
+                if (deadline <= now) {
+                    due.put(id, querier);
+                }
+            }
+        }
+        return categorize(due);
+    }
+
     /**
      * Categorizes only the queries for the {@link BulletRecord} after partitioning using the {@link QueryCategorizer}.
      *
@@ -228,7 +494,212 @@ public class QueryManager {
      * @return The {@link QueryCategorizer} instance with the categorized queries in the manager after partitioning.
      */
     public QueryCategorizer categorize(BulletRecord record) {
-        return categorize(record, partition(record));
+        QueryCategorizer categorizer = new QueryCategorizer();
+        partition(record, (id, querier) -> {
+            if (concurrent) {
+                // The query may be consuming records on another thread too.
+                synchronized (querier) {
+                    consume(id, querier, record, categorizer);
+                }
+            } else {
+                consume(id, querier, record, categorizer);
+            }
+        });
+        return categorizer;
+    }
+
+    /**
+     * Categorizes the queries for a batch of {@link BulletRecord} after partitioning each record using the
+     * {@link QueryCategorizer}. The records for each query are grouped and given to it with
+     * {@link Querier#consume(List)} in order and the queries are categorized once for the whole batch. The counts of
+     * queries seen are the same as if each record was given to {@link #categorize(BulletRecord)}.
+     *
+     * If sub-expressions or scans are shared, the records are instead given to the queries one at a time like
+     * {@link #categorize(BulletRecord)} does, so that the shared evaluators and scans are evaluated once per record.
+     *
+     * A query whose window closes after a number of records (see {@link Querier#isRecordBased()}) can close in the
+     * middle of the batch. Its window then also gets the rest of the records, like with
+     * {@link #categorize(BulletRecord)} if the query was not reset in between. Use
+     * {@link #categorize(Collection, BiConsumer)} to emit and reset these queries when their window closes instead.
+     *
+     * @param records The {@link Collection} of {@link BulletRecord} to consume for the partitioned queries.
+     * @return The {@link QueryCategorizer} instance with the queries that saw any of the records after partitioning.
+     */
+    public QueryCategorizer categorize(Collection<BulletRecord> records) {
+        return categorize(records, null);
+    }
+
+    /**
+     * Categorizes the queries for a batch of {@link BulletRecord} like {@link #categorize(Collection)} but splits the
+     * batch where the windows that close after a number of records close (see {@link Querier#isRecordBased()}). These
+     * queries are given their records one at a time. When the window of one closes, the query is given to the consumer
+     * before it gets the next record so that the consumer can emit its results and {@link Querier#reset()} it like it
+     * would after {@link #categorize(BulletRecord)}. The windows then get the same records as with
+     * {@link #categorize(BulletRecord)}. A query whose window was already closed before the batch is not given to the
+     * consumer.
+     *
+     * @param records The {@link Collection} of {@link BulletRecord} to consume for the partitioned queries.
+     * @param onClose The consumer of the query IDs and the {@link Querier} instances whose window closed in the middle
+     *                of the batch or null to not split the batch. It must not add or remove queries.
+     * @return The {@link QueryCategorizer} instance with the queries that saw any of the records after partitioning.
+     */
+    public QueryCategorizer categorize(Collection<BulletRecord> records, BiConsumer<String, Querier> onClose) {
+        Map<String, Querier> seen = new HashMap<>();
+        if (shared != null || scans != null) {
+            for (BulletRecord record : records) {
+                partition(record, (id, querier) -> {
+                    consume(id, querier, record, onClose);
+                    seen.put(id, querier);
+                });
+            }
+            return categorize(seen);
+        }
+        Map<String, QueryBatch> batches = this.batches != null ? this.batches : new HashMap<>();
+        QueryBatcher batcher = new QueryBatcher(batches);
+        for (BulletRecord record : records) {
+            batcher.record = record;
+            partition(record, batcher);
+        }
+        for (Map.Entry<String, QueryBatch> entry : batches.entrySet()) {
+            QueryBatch batch = entry.getValue();
+            if (!batch.records.isEmpty()) {
+                if (concurrent) {
+                    synchronized (batch.querier) {
+                        consume(entry.getKey(), batch, onClose);
+                    }
+                } else {
+                    consume(entry.getKey(), batch, onClose);
+                }
+                batch.records.clear();
+                seen.put(entry.getKey(), batch.querier);
+            }
+        }
+        return categorize(seen);
+    }
+
+    /**
+     * Enforces the CPU and memory budgets of the queries that have them (see {@link QueryBudget}). The CPU time that
+     * each query used since the last call is divided by the time since then. A query over its memory budget is killed.
+     * A query over its CPU budget is degraded to consume half as many records, unless it is already consuming only
+     * one in {@link BulletConfig#QUERY_BUDGET_MAX_SAMPLING} records, in which case it is killed. If all the queries
+     * together are still over the global memory budget, the largest ones are killed, and if they are over the global
+     * CPU budget, the heaviest ones are degraded or killed, until they are not.
+     *
+     * A killed query is {@link Querier#isDone()}, has the {@link BudgetError} in the {@link com.yahoo.bullet.result.Meta}
+     * of its results and is not given records anymore. It is not removed from the manager. Call this periodically, for
+     * instance every few seconds. The memory of each query is estimated by {@link Querier#getRetainedSize()}.
+     *
+     * @return The {@link QueryCategorizer} instance with the queries that were killed.
+     */
+    public synchronized QueryCategorizer enforceBudgets() {
+        Map<String, Querier> killed = new HashMap<>();
+        List<Usage> usages = checkBudgets(killed);
+        applyGlobalBudgets(selectOverGlobalBudgets(usages), killed);
+        return new QueryCategorizer().categorize(killed);
+    }
+
+    /**
+     * Enforces the budgets of each query on its own and gets the usages of the queries that are still running. See
+     * {@link #enforceBudgets()}.
+     *
+     * @param killed The {@link Map} to add the killed queries to.
+     * @return The {@link List} of the usages of the queries that were not killed.
+     */
+    synchronized List<Usage> checkBudgets(Map<String, Querier> killed) {
+        long now = Clock.now();
+        long elapsed = Math.max(now - lastBudgetCheck, 1L);
+        lastBudgetCheck = now;
+        List<Usage> usages = new ArrayList<>();
+        for (Map.Entry<String, Querier> entry : queries.entrySet()) {
+            Querier querier = entry.getValue();
+            QueryBudget budget = querier.getBudget();
+            if (budget == null || budget.isExceeded()) {
+                continue;
+            }
+            double cpu;
+            long memory;
+            // The query may be consuming records on another thread if this is concurrent.
+            synchronized (querier) {
+                cpu = budget.checkpoint() * 1000.0 / elapsed;
+                memory = querier.getRetainedSize();
+            }
+            if (memory > memoryBudget) {
+                kill(entry.getKey(), querier, BudgetError.memory(BudgetError.QUERY, memory, memoryBudget), killed);
+            } else if (cpu > cpuBudget && !degrade(entry.getKey(), querier)) {
+                kill(entry.getKey(), querier, BudgetError.cpu(BudgetError.QUERY, cpu, cpuBudget), killed);
+            } else {
+                // A degraded query is expected to use half as much from now on.
+                boolean degradable;
+                synchronized (querier) {
+                    degradable = budget.canDegrade(maxSampling);
+                }
+                usages.add(new Usage(entry.getKey(), querier, cpu > cpuBudget ? cpu / 2 : cpu, memory, degradable));
+            }
+        }
+        return usages;
+    }
+
+    /**
+     * Picks the queries to kill or degrade so that the given usages, which may be from many managers, are under the
+     * global budgets of this manager. The largest queries are killed while they are over the global memory budget and
+     * the heaviest are then degraded or killed while they are over the global CPU budget. Nothing is changed yet. See
+     * {@link #applyGlobalBudgets(List, Map)}.
+     *
+     * @param usages The {@link List} of the usages of all the queries that are still running.
+     * @return The {@link List} of the usages that were picked.
+     */
+    List<Usage> selectOverGlobalBudgets(List<Usage> usages) {
+        List<Usage> selected = new ArrayList<>();
+        long totalMemory = usages.stream().mapToLong(usage -> usage.memory).sum();
+        if (totalMemory > globalMemoryBudget) {
+            usages.sort((a, b) -> Long.compare(b.memory, a.memory));
+            BudgetError error = BudgetError.memory(BudgetError.ALL_QUERIES, totalMemory, globalMemoryBudget);
+            while (totalMemory > globalMemoryBudget && !usages.isEmpty()) {
+                Usage usage = usages.remove(0);
+                usage.error = error;
+                selected.add(usage);
+                totalMemory -= usage.memory;
+            }
+        }
+        double totalCPU = usages.stream().mapToDouble(usage -> usage.cpu).sum();
+        if (totalCPU > globalCPUBudget) {
+            usages.sort((a, b) -> Double.compare(b.cpu, a.cpu));
+            BudgetError error = BudgetError.cpu(BudgetError.ALL_QUERIES, totalCPU, globalCPUBudget);
+            for (Usage usage : usages) {
+                if (totalCPU <= globalCPUBudget) {
+                    break;
+                }
+                if (usage.degradable) {
+                    totalCPU -= usage.cpu / 2;
+                } else {
+                    usage.error = error;
+                    totalCPU -= usage.cpu;
+                }
+                selected.add(usage);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Kills or degrades the queries of this manager that were picked by {@link #selectOverGlobalBudgets(List)}. The
+     * usages of queries that are not in this manager are ignored.
+     *
+     * @param selected The {@link List} of the usages that were picked.
+     * @param killed The {@link Map} to add the killed queries to.
+     */
+    synchronized void applyGlobalBudgets(List<Usage> selected, Map<String, Querier> killed) {
+        for (Usage usage : selected) {
+            // The query may be in another manager or have been removed since.
+            if (queries.get(usage.id) != usage.querier) {
+                continue;
+            }
+            if (usage.error != null) {
+                kill(usage.id, usage.querier, usage.error, killed);
+            } else {
+                degrade(usage.id, usage.querier);
+            }
+        }
     }
 
     /**
@@ -237,10 +708,44 @@ public class QueryManager {
      * @return A {@link Map} of {@link PartitionStat} to their values for the current state of the manager.
      */
     public Map<PartitionStat, Object> getStats() {
+        return getStats(getPartitionSizes(), queries.size(), getQueriesSeen(), getExpectedQueriesSeen());
+    }
+
+    /**
+     * Gets the number of queries in each partition.
+     *
+     * @return A {@link Map} of partition names to the number of queries in them.
+     */
+    Map<String, Integer> getPartitionSizes() {
+        Map<String, Integer> sizes = new HashMap<>();
+        partitioning.forEach((key, ids) -> sizes.put(key, ids.size()));
+        return sizes;
+    }
+
+    long getQueriesSeen() {
+        return queriesSeen.sum();
+    }
+
+    long getExpectedQueriesSeen() {
+        return expectedQueriesSeen.sum();
+    }
+
+    /**
+     * Computes the {@link PartitionStat} from the sizes of the partitions and the counts of queries.
+     *
+     * @param partitionSizes The {@link Map} of partition names to the number of queries in them.
+     * @param queryCount The number of queries.
+     * @param queriesSeen The number of queries that records were given to after partitioning.
+     * @param expectedQueriesSeen The number of queries that records would have been given to without partitioning.
+     * @return A {@link Map} of {@link PartitionStat} to their values.
+     */
+    static Map<PartitionStat, Object> getStats(Map<String, Integer> partitionSizes, int queryCount, long queriesSeen,
+                                               long expectedQueriesSeen) {
         Map<PartitionStat, Object> stats = new HashMap<>();
-        List<Partition> sorted = partitioning.entrySet().stream().map(Partition::new).sorted().collect(Collectors.toList());
+        List<Partition> sorted = partitionSizes.entrySet().stream().map(e -> new Partition(e.getKey(), e.getValue()))
+                                               .sorted().collect(Collectors.toList());
         int size = sorted.size();
-        stats.put(PartitionStat.QUERY_COUNT, queries.size());
+        stats.put(PartitionStat.QUERY_COUNT, queryCount);
         stats.put(PartitionStat.PARTITION_COUNT, size);
         stats.put(PartitionStat.ACTUAL_QUERIES_SEEN, queriesSeen);
         stats.put(PartitionStat.EXPECTED_QUERIES_SEEN, expectedQueriesSeen);
@@ -254,7 +759,7 @@ public class QueryManager {
         return stats;
     }
 
-    private List<String> getDistributions(List<Partition> sorted) {
+    private static List<String> getDistributions(List<Partition> sorted) {
         int size = sorted.size();
         int step = size <= QUANTILE_STEP ? 1 : size / QUANTILE_STEP;
         List<Partition> quantiles = new ArrayList<>();
@@ -264,11 +769,65 @@ public class QueryManager {
         return quantiles.stream().map(Partition::toString).collect(Collectors.toList());
     }
 
-    private QueryCategorizer categorize(Map<String, Querier> queries) {
-        return new QueryCategorizer().categorize(queries);
+    private boolean degrade(String id, Querier querier) {
+        synchronized (querier) {
+            if (!querier.getBudget().degrade(maxSampling)) {
+                return false;
+            }
+        }
+        log.info("Degraded query {} to consume one in {} records", id, querier.getBudget().getSampling());
+        return true;
+    }
+
+    private static void kill(String id, Querier querier, BudgetError error, Map<String, Querier> killed) {
+        synchronized (querier) {
+            querier.getBudget().exceed(error);
+        }
+        killed.put(id, querier);
+        log.warn("Killed query {}: {}", id, error.getError());
     }
 
-    private QueryCategorizer categorize(BulletRecord record, Map<String, Querier> queries) {
-        return new QueryCategorizer().categorize(record, queries);
+    private Set<String> newPartition() {
+        return concurrent ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+    }
+
+    private static void consume(String id, Querier querier, BulletRecord record, QueryCategorizer categorizer) {
+        querier.consume(record);
+        categorizer.classify(id, querier);
+    }
+
+    private static void consume(String id, QueryBatch batch, BiConsumer<String, Querier> onClose) {
+        if (onClose == null || !batch.querier.isRecordBased()) {
+            batch.querier.consume(batch.records);
+            return;
+        }
+        for (BulletRecord record : batch.records) {
+            consume(id, batch.querier, record, onClose);
+        }
+    }
+
+    // Consumes the record and gives the query to the consumer if its window closes on this record.
+    private static void consume(String id, Querier querier, BulletRecord record, BiConsumer<String, Querier> onClose) {
+        if (onClose == null || !querier.isRecordBased() || querier.isClosed()) {
+            querier.consume(record);
+            return;
+        }
+        querier.consume(record);
+        if (querier.isClosed()) {
+            onClose.accept(id, querier);
+        }
+    }
+
+    private QueryCategorizer categorize(Map<String, Querier> queries) {
+        if (!concurrent) {
+            return new QueryCategorizer().categorize(queries);
+        }
+        QueryCategorizer categorizer = new QueryCategorizer();
+        queries.forEach((id, querier) -> {
+            synchronized (querier) {
+                categorizer.classify(id, querier);
+            }
+        });
+        return categorizer;
     }
 }
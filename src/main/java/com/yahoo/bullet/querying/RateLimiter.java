@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.querying;
 
+import com.yahoo.bullet.common.Clock;
 import lombok.Getter;
 
 /**
@@ -59,7 +60,7 @@ public class RateLimiter {
         this.timeInterval = timeInterval;
         this.absoluteRateLimit = maximum / (double) timeInterval;
 
-        lastCheckTime = System.currentTimeMillis();
+        lastCheckTime = Clock.now();
     }
 
     /**
@@ -93,7 +94,7 @@ public class RateLimiter {
         if (exceededRate) {
             return true;
         }
-        long timeNow = System.currentTimeMillis();
+        long timeNow = Clock.now();
         // Do nothing if too early
         if (isTooEarly(timeNow)) {
             return false;
@@ -113,7 +114,7 @@ public class RateLimiter {
      * @return A double representing the current absolute rate (per ms).
      */
     public double getCurrentRate() {
-        return getCurrentRate(System.currentTimeMillis());
+        return getCurrentRate(Clock.now());
     }
 
     /**
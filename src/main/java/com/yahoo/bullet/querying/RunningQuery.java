@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.querying;
 
+import com.yahoo.bullet.common.Clock;
 import com.yahoo.bullet.pubsub.Metadata;
 import com.yahoo.bullet.query.Query;
 import lombok.Getter;
@@ -46,6 +47,16 @@ public class RunningQuery {
      */
     public boolean isTimedOut() {
         // Never add to query.getDuration() since it can be infinite (Long.MAX_VALUE)
-        return System.currentTimeMillis() - startTime >= query.getDuration();
+        return Clock.now() - startTime >= query.getDuration();
+    }
+
+    /**
+     * Returns the time in milliseconds at which this running query times out.
+     *
+     * @return The time at which this query times out or {@link Long#MAX_VALUE} if it does not within a long.
+     */
+    public long getExpiryTime() {
+        long duration = query.getDuration();
+        return duration > Long.MAX_VALUE - startTime ? Long.MAX_VALUE : startTime + duration;
     }
 }
@@ -0,0 +1,352 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.record.BulletRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This spreads the queries across a number of shards that each have their own {@link QueryManager} and their own
+ * worker thread. A query is pinned to the shard for its ID and its {@link Querier} is only ever added, consumed,
+ * categorized and removed on the thread of that shard, so the {@link Querier} instances stay single-threaded. The records
+ * given to {@link #categorize(Collection)} are consumed by all the shards in parallel. This lets one JVM use many cores
+ * with a single copy of each query. Each call hands the records to every shard and waits for them, so give the records
+ * in batches rather than one at a time.
+ *
+ * Since the same records are read by all the shards at once, they must be safe to read from many threads. Records that
+ * deserialize their data lazily on the first read, such as the Avro records, are made to read it on the calling thread
+ * before they are handed to the shards. The queries only read the records they are given.
+ *
+ * A {@link Querier} returned by {@link #getQuery(String)} or in a {@link QueryCategorizer} still belongs to the thread
+ * of its shard. Callers must not consume records with it and must only use it, for instance to get its results, while
+ * no other thread is calling this manager. A {@link Querier} returned by {@link #removeAndGetQuery(String)} is not in a
+ * shard anymore and can be used freely.
+ *
+ * Each shard has its own partitioner and, if {@link BulletConfig#QUERY_EXPRESSION_SHARE_ENABLE} is true, shares
+ * sub-expressions among its own queries. Unlike {@link QueryManager}, all the methods of this class are thread-safe.
+ * They block until the shards are done. Use {@link #close()} to stop the worker threads once this is not used anymore.
+ */
+@Slf4j
+public class ShardedQueryManager implements AutoCloseable {
+    private final QueryManager[] shards;
+    private final ExecutorService[] workers;
+    private final Map<String, Querier> queries = new ConcurrentHashMap<>();
+
+    /**
+     * The constructor that takes a non-null {@link BulletConfig} instance that contains partitioning settings and the
+     * number of shards.
+     *
+     * @param config The non-null config.
+     * @param shards The positive number of shards and worker threads.
+     */
+    public ShardedQueryManager(BulletConfig config, int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("The number of shards must be positive: " + shards);
+        }
+        this.shards = new QueryManager[shards];
+        this.workers = new ExecutorService[shards];
+        for (int i = 0; i < shards; i++) {
+            String name = "bullet-query-shard-" + i;
+            this.shards[i] = new QueryManager(config);
+            this.workers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        log.info("Sharding queries across {} threads", shards);
+    }
+
+    /**
+     * Adds a configured, initialized query instance {@link Querier} to the shard for its ID.
+     *
+     * @param id The query ID.
+     * @param querier A fully initialized {@link Querier} instance.
+     */
+    public void addQuery(String id, Querier querier) {
+        int shard = getShard(id);
+        run(shard, manager -> {
+            manager.addQuery(id, querier);
+            return null;
+        });
+        queries.put(id, querier);
+    }
+
+    /**
+     * Removes and returns a {@link Querier} from its shard.
+     *
+     * @param id The query ID to remove.
+     * @return The removed {@link Querier} instance.
+     */
+    public Querier removeAndGetQuery(String id) {
+        if (queries.remove(id) == null) {
+            return null;
+        }
+        return run(getShard(id), manager -> manager.removeAndGetQuery(id));
+    }
+
+    /**
+     * Removes and returns the {@link List} of {@link Querier} instances for the given non-null query IDs.
+     *
+     * @param ids The non-null {@link Set} of query IDs to remove.
+     * @return The removed {@link List} of {@link Querier} instances.
+     */
+    public List<Querier> removeAndGetQueries(Set<String> ids) {
+        return ids.stream().map(this::removeAndGetQuery).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Removes all the queries for the given non-null {@link Set} of query IDs.
+     *
+     * @param ids The non-null {@link Set} of query IDs to remove.
+     */
+    public void removeQueries(Set<String> ids) {
+        ids.forEach(this::removeAndGetQuery);
+    }
+
+    /**
+     * Retrieves a query stored in the manager or null, if not found. The {@link Querier} belongs to the thread of its
+     * shard. It must not be given records and must not be used at all while another thread is calling this manager.
+     *
+     * @param id The ID of the query.
+     * @return The {@link Querier} instance or null, if not present.
+     */
+    public Querier getQuery(String id) {
+        return queries.get(id);
+    }
+
+    /**
+     * Checks to see if the given ID is stored in the manager.
+     *
+     * @param id The ID of the query.
+     * @return A boolean denoting whether this query is in the manager.
+     */
+    public boolean hasQuery(String id) {
+        return queries.containsKey(id);
+    }
+
+    /**
+     * Returns the size of the queries in the manager.
+     *
+     * @return An int representing the number of queries in the manager.
+     */
+    public int size() {
+        return queries.size();
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return The number of shards and worker threads.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Takes a {@link BulletRecord} instance and returns the IDs of the matching queries (according to the partitioner)
+     * of all the shards. See {@link QueryManager#partition(BulletRecord)}. Only the IDs are returned since the
+     * {@link Querier} instances must only be given records on the threads of their shards.
+     *
+     * @param record The non-null {@link BulletRecord} instance.
+     * @return The non-null {@link Set} of the IDs of the matching queries for the record.
+     */
+    public Set<String> partition(BulletRecord record) {
+        read(record);
+        Set<String> ids = new HashSet<>();
+        runAll(manager -> manager.partition(record).keySet()).forEach(ids::addAll);
+        return ids;
+    }
+
+    /**
+     * Categorizes all the queries in the manager regardless of partitioning, using a {@link QueryCategorizer}.
+     *
+     * @return The {@link QueryCategorizer} instance with all the categorized queries in the manager.
+     */
+    public QueryCategorizer categorize() {
+        return merge(runAll(QueryManager::categorize));
+    }
+
+    /**
+     * Categorizes only the queries of all the shards whose deadline has passed. See {@link QueryManager#categorizeDue()}.
+     *
+     * @return The {@link QueryCategorizer} instance with the queries in the manager whose deadline has passed.
+     */
+    public QueryCategorizer categorizeDue() {
+        return merge(runAll(QueryManager::categorizeDue));
+    }
+
+    /**
+     * Enforces the budgets of the queries of all the shards. See {@link QueryManager#enforceBudgets()}. The budgets of
+     * each query are enforced on the thread of its shard. The global budgets apply to the queries of all the shards
+     * together, so the usages of all the shards are gathered before the queries over them are picked.
+     *
+     * @return The {@link QueryCategorizer} instance with the queries that were killed.
+     */
+    public synchronized QueryCategorizer enforceBudgets() {
+        Map<String, Querier> killed = new ConcurrentHashMap<>();
+        List<QueryManager.Usage> usages = new ArrayList<>();
+        runAll(manager -> manager.checkBudgets(killed)).forEach(usages::addAll);
+        List<QueryManager.Usage> selected = shards[0].selectOverGlobalBudgets(usages);
+        if (!selected.isEmpty()) {
+            runAll(manager -> {
+                manager.applyGlobalBudgets(selected, killed);
+                return null;
+            });
+        }
+        return new QueryCategorizer().categorize(killed);
+    }
+
+    /**
+     * Makes the queries of each shard consume the {@link BulletRecord} on the thread of the shard and categorizes them.
+     * This is a batch of one record for {@link #categorize(Collection)}, so it waits for every shard for each record.
+     * Prefer giving the records in batches.
+     *
+     * @param record The {@link BulletRecord} to consume for the partitioned queries.
+     * @return The {@link QueryCategorizer} instance with the categorized queries in the manager after partitioning.
+     */
+    public QueryCategorizer categorize(BulletRecord record) {
+        return categorize(Collections.singletonList(record));
+    }
+
+    /**
+     * Makes the queries of each shard consume a batch of {@link BulletRecord} on the thread of the shard and categorizes
+     * them. See {@link QueryManager#categorize(Collection)}.
+     *
+     * @param records The {@link Collection} of {@link BulletRecord} to consume for the partitioned queries.
+     * @return The {@link QueryCategorizer} instance with the queries that saw any of the records after partitioning.
+     */
+    public QueryCategorizer categorize(Collection<BulletRecord> records) {
+        records.forEach(ShardedQueryManager::read);
+        return merge(runAll(manager -> manager.categorize(records)));
+    }
+
+    /**
+     * Makes the queries of each shard consume a batch of {@link BulletRecord} on the thread of the shard and categorizes
+     * them, splitting the batch where the windows that close on records close. See
+     * {@link QueryManager#categorize(Collection, BiConsumer)}. The consumer is called on the threads of the shards, so
+     * it can be called for queries of different shards at the same time.
+     *
+     * @param records The {@link Collection} of {@link BulletRecord} to consume for the partitioned queries.
+     * @param onClose The thread-safe consumer of the query IDs and the {@link Querier} instances whose window closed in
+     *                the middle of the batch or null to not split the batch. It must not add or remove queries.
+     * @return The {@link QueryCategorizer} instance with the queries that saw any of the records after partitioning.
+     */
+    public QueryCategorizer categorize(Collection<BulletRecord> records, BiConsumer<String, Querier> onClose) {
+        records.forEach(ShardedQueryManager::read);
+        return merge(runAll(manager -> manager.categorize(records, onClose)));
+    }
+
+    /**
+     * Gets some statistics about the current state of partitioning and queries in all the shards. The partitions with
+     * the same name in different shards are counted as one.
+     *
+     * @return A {@link Map} of {@link QueryManager.PartitionStat} to their values for the current state of the manager.
+     */
+    public Map<QueryManager.PartitionStat, Object> getStats() {
+        Map<String, Integer> sizes = new HashMap<>();
+        for (Map<String, Integer> shardSizes : runAll(QueryManager::getPartitionSizes)) {
+            shardSizes.forEach((key, size) -> sizes.merge(key, size, Integer::sum));
+        }
+        long queriesSeen = 0;
+        long expectedQueriesSeen = 0;
+        for (QueryManager shard : shards) {
+            queriesSeen += shard.getQueriesSeen();
+            expectedQueriesSeen += shard.getExpectedQueriesSeen();
+        }
+        return QueryManager.getStats(sizes, queries.size(), queriesSeen, expectedQueriesSeen);
+    }
+
+    /**
+     * Stops the worker threads of the shards. The queries that are still in the manager are left as is.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    /**
+     * Gets the shard that the query with the given ID is pinned to.
+     *
+     * @param id The ID of the query.
+     * @return The index of the shard.
+     */
+    int getShard(String id) {
+        return Math.floorMod(id.hashCode(), shards.length);
+    }
+
+    private <T> T run(int shard, Function<QueryManager, T> task) {
+        QueryManager manager = shards[shard];
+        return await(workers[shard].submit(() -> task.apply(manager)));
+    }
+
+    private <T> List<T> runAll(Function<QueryManager, T> task) {
+        List<Future<T>> futures = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            QueryManager manager = shards[i];
+            futures.add(workers[i].submit(() -> task.apply(manager)));
+        }
+        List<T> results = new ArrayList<>(shards.length);
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // Any field access makes a lazy record deserialize its data. Doing it here means the shards only read the data that
+    // this thread wrote before handing them the record. A record that cannot be read fails the same way in the shards.
+    private static void read(BulletRecord record) {
+        try {
+            record.fieldCount();
+        } catch (RuntimeException ignored) {
+            // A failed read does not change the record, so the shards can safely try again.
+        }
+    }
+
+    private static QueryCategorizer merge(List<QueryCategorizer> categorizers) {
+        QueryCategorizer merged = new QueryCategorizer();
+        categorizers.forEach(merged::merge);
+        return merged;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.query.Field;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.querying.evaluators.ExpressionCompiler;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.BulletRecordProvider;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.yahoo.bullet.query.Projection.Type.COPY;
+
+/**
+ * Holds the scans that are shared across queries. A scan is the filter and the projection of a query. Queries with
+ * structurally equal filters and projections (according to {@link Expression#equals(Object)} and
+ * {@link Field#equals(Object)}) get the same {@link Scan}, which filters and projects each record at most once. Each
+ * query still gives the projected record to its own window and aggregation, so the queries can differ in those and in
+ * when they started. Call {@link #advance()} before giving a new record to the queries to invalidate the result of the
+ * previous record. The scans are reference counted and dropped once no query uses them anymore.
+ *
+ * This is not thread-safe.
+ */
+final class SharedScans {
+    /**
+     * The structural identity of a scan.
+     */
+    static final class Key {
+        private final Expression filter;
+        private final com.yahoo.bullet.query.Projection.Type type;
+        private final List<Field> fields;
+
+        Key(Expression filter, com.yahoo.bullet.query.Projection.Type type, List<Field> fields) {
+            this.filter = filter;
+            this.type = type;
+            this.fields = fields;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Objects.equals(filter, other.filter) && type == other.type && Objects.equals(fields, other.fields);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(filter, type, fields);
+        }
+    }
+
+    /**
+     * A filter and a projection that remember their result for the last record they were applied to. The remembered
+     * result is only used for the same record instance in the same epoch of {@link SharedScans}.
+     */
+    static final class Scan {
+        private final SharedScans scans;
+        private final Filter filter;
+        private final Projection projection;
+        private final boolean copy;
+        private final BulletRecordProvider provider;
+        private int references;
+
+        private long epoch = -1L;
+        private BulletRecord record;
+        private BulletRecord result;
+        private RuntimeException error;
+
+        private Scan(SharedScans scans, Key key, ExpressionCompiler compiler, BulletRecordProvider provider) {
+            this.scans = scans;
+            this.provider = provider;
+            filter = key.filter == null ? null : new Filter(key.filter, compiler);
+            projection = key.fields == null ? null : new Projection(key.fields, compiler);
+            copy = key.type == COPY;
+        }
+
+        /**
+         * Filters and projects the given record or returns the result for it if it was already done in this epoch.
+         *
+         * @param record The record to filter and project.
+         * @return The projected record or null if the record does not match the filter.
+         * @throws RuntimeException If the projection failed.
+         */
+        BulletRecord apply(BulletRecord record) {
+            if (this.record != record || epoch != scans.epoch) {
+                this.record = record;
+                epoch = scans.epoch;
+                try {
+                    result = scan(record);
+                    error = null;
+                } catch (RuntimeException e) {
+                    result = null;
+                    error = e;
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+            return result;
+        }
+
+        private BulletRecord scan(BulletRecord record) {
+            if (filter != null && !filter.match(record)) {
+                return null;
+            }
+            if (projection == null) {
+                return record;
+            }
+            return copy ? projection.project(record.copy()) : projection.project(record, provider);
+        }
+    }
+
+    private final Map<Key, Scan> scans = new HashMap<>();
+    // The current record. Scans only use their last result if it was computed in this epoch.
+    private long epoch = 0L;
+
+    /**
+     * Starts a new epoch. This must be called for every new record so that the results of the scans are not reused.
+     */
+    void advance() {
+        epoch++;
+    }
+
+    /**
+     * Gets the number of scans that are currently shared.
+     *
+     * @return The number of distinct shared scans.
+     */
+    int size() {
+        return scans.size();
+    }
+
+    /**
+     * Gets the shared scan for the given key and increments its reference count. If there is none, it is built with the
+     * given compiler and provider.
+     *
+     * @param key The key of the scan.
+     * @param compiler The compiler for the filter and the projection of the scan if it is not shared yet.
+     * @param provider The provider of the projected records if it is not shared yet.
+     * @return The shared scan.
+     */
+    Scan acquire(Key key, ExpressionCompiler compiler, BulletRecordProvider provider) {
+        Scan scan = scans.computeIfAbsent(key, k -> new Scan(this, k, compiler, provider));
+        scan.references++;
+        return scan;
+    }
+
+    /**
+     * Releases the scan for the given key that was acquired by a query. The scan is dropped if no query uses it after.
+     *
+     * @param key The key of the scan.
+     */
+    void release(Key key) {
+        Scan scan = scans.get(key);
+        if (scan != null && --scan.references <= 0) {
+            scans.remove(key);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hierarchical timer wheel of keys by their deadlines in milliseconds. Each level has 64 buckets and each bucket of a
+ * level spans all the buckets of the level below it. The buckets of the lowest level are about a second wide and those
+ * of the highest about 199 days. Keys with far away deadlines are put in the higher levels and are cascaded down to the
+ * lower ones as time passes, so {@link #advance(long)} only looks at the buckets that time has moved past and at the
+ * keys in them. Scheduling and cancelling are constant time.
+ *
+ * This is not thread-safe.
+ */
+final class TimerWheel<K> {
+    private static final int BUCKETS = 64;
+    private static final int MASK = BUCKETS - 1;
+    // The log2 of the width in milliseconds of a bucket on each level. A level spans 64 buckets, i.e. 6 more bits.
+    private static final int[] SHIFTS = { 10, 16, 22, 28, 34 };
+    private static final int LEVEL_BITS = 6;
+
+    private static final class Node<K> {
+        private final K key;
+        private long deadline;
+        private Node<K> previous;
+        private Node<K> next;
+
+        private Node(K key) {
+            this.key = key;
+        }
+    }
+
+    // Each bucket is a circular doubly linked list with a sentinel node.
+    private final Node<K>[][] wheel;
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private long time;
+
+    /**
+     * Creates an empty wheel at the given time.
+     *
+     * @param time The current time in milliseconds.
+     */
+    @SuppressWarnings("unchecked")
+    TimerWheel(long time) {
+        this.time = time;
+        wheel = new Node[SHIFTS.length][BUCKETS];
+        for (Node<K>[] level : wheel) {
+            for (int i = 0; i < BUCKETS; i++) {
+                Node<K> sentinel = new Node<>(null);
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+                level[i] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Schedules a key at a deadline, replacing its previous deadline if it was scheduled. A key with a deadline of
+     * {@link Long#MAX_VALUE} is cancelled instead since it is never due.
+     *
+     * @param key The non-null key to schedule.
+     * @param deadline The time in milliseconds at or after which the key is due.
+     */
+    void schedule(K key, long deadline) {
+        if (deadline == Long.MAX_VALUE) {
+            cancel(key);
+            return;
+        }
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        } else {
+            unlink(node);
+        }
+        node.deadline = deadline;
+        link(node);
+    }
+
+    /**
+     * Cancels a key if it is scheduled.
+     *
+     * @param key The key to cancel.
+     */
+    void cancel(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Moves the wheel to the given time and removes and returns the keys that are due by then. Nothing is due if time
+     * goes backwards.
+     *
+     * @param now The current time in milliseconds.
+     * @return The {@link List} of keys with deadlines at or before the given time.
+     */
+    List<K> advance(long now) {
+        List<K> due = new ArrayList<>();
+        if (now < time) {
+            return due;
+        }
+        long previous = time;
+        time = now;
+        for (int level = 0; level < SHIFTS.length; level++) {
+            long previousTicks = previous >>> SHIFTS[level];
+            long delta = (now >>> SHIFTS[level]) - previousTicks;
+            // The current bucket of the lowest level is always checked since it holds the keys that are due soonest.
+            if (delta == 0 && level > 0) {
+                break;
+            }
+            int steps = (int) Math.min(delta + 1, BUCKETS);
+            for (int i = 0; i < steps; i++) {
+                expire(wheel[level][(int) ((previousTicks + i) & MASK)], due);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Gets the number of scheduled keys.
+     *
+     * @return The number of keys in the wheel.
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    private void expire(Node<K> sentinel, List<K> due) {
+        if (sentinel.next == sentinel) {
+            return;
+        }
+        // Detach the bucket first since the keys that are not due yet may be put back in it.
+        Node<K> node = sentinel.next;
+        sentinel.previous.next = null;
+        sentinel.next = sentinel;
+        sentinel.previous = sentinel;
+        while (node != null) {
+            Node<K> next = node.next;
+            if (node.deadline <= time) {
+                nodes.remove(node.key);
+                due.add(node.key);
+            } else {
+                link(node);
+            }
+            node = next;
+        }
+    }
+
+    private void link(Node<K> node) {
+        // Deadlines in the past go in the current bucket of the lowest level.
+        long deadline = Math.max(node.deadline, time);
+        long delta = deadline - time;
+        int level = 0;
+        while (level < SHIFTS.length - 1 && delta >= 1L << (SHIFTS[level] + LEVEL_BITS)) {
+            level++;
+        }
+        Node<K> sentinel = wheel[level][(int) ((deadline >>> SHIFTS[level]) & MASK)];
+        node.previous = sentinel.previous;
+        node.next = sentinel;
+        sentinel.previous.next = node;
+        sentinel.previous = node;
+    }
+
+    private static <K> void unlink(Node<K> node) {
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+    }
+}
@@ -105,6 +105,21 @@ public class RawStrategy implements Strategy {
         return SerializerDeserializer.toBytes(aggregate);
     }
 
+    /**
+     * Estimates the retained size from the serialized size of the first record since serializing all the records
+     * whenever this is called is expensive.
+     *
+     * @return The approximate size in bytes of the records so far.
+     */
+    @Override
+    public long getRetainedSize() {
+        if (aggregate.isEmpty()) {
+            return 0L;
+        }
+        byte[] record = SerializerDeserializer.toBytes(aggregate.get(0));
+        return record == null ? 0L : (long) record.length * aggregate.size();
+    }
+
     /**
      * Gets the aggregated records so far since the last call to {@link #reset()}. The records have a size that is at
      * most the maximum specified by the {@link Aggregation}.
@@ -63,6 +63,11 @@ public abstract class SketchingStrategy<S extends Sketch> implements Strategy {
         return sketch.serialize();
     }
 
+    @Override
+    public long getRetainedSize() {
+        return sketch.getRetainedSize();
+    }
+
     @Override
     public Clip getResult() {
         return sketch.getResult(getMetaKey(), metadataKeys);
@@ -29,5 +29,17 @@ public interface Strategy extends Monoidal {
     default Meta getMetadata() {
         return new Meta();
     }
+
+    /**
+     * Estimates the memory in bytes retained by the data in this Strategy so far. This should be cheap enough to call
+     * periodically on every running query. By default, returns the size of the serialized data, so override this if
+     * {@link #getData()} is expensive.
+     *
+     * @return The approximate size in bytes of the data in this Strategy.
+     */
+    default long getRetainedSize() {
+        byte[] data = getData();
+        return data == null ? 0L : data.length;
+    }
 }
 
@@ -16,6 +16,7 @@ public abstract class DualSketch extends Sketch {
     private boolean updated = false;
     private boolean unioned = false;
     private boolean mustMerge = true;
+    private long unionedSize = 0L;
 
     /**
      * This method must be called after an update operation.
@@ -27,10 +28,23 @@ public abstract class DualSketch extends Sketch {
 
     /**
      * This method must be called after a {@link #union(byte[])}.
+     *
+     * @param size The size in bytes of the serialized sketch that was unioned.
      */
-    protected void union() {
+    protected void union(int size) {
         unioned = true;
         mustMerge = true;
+        unionedSize += size;
+    }
+
+    /**
+     * Gets the total size of the serialized sketches unioned since the last {@link #merge()}. The union sketch holds
+     * at most this much data, so this can be used to estimate its size without collecting it.
+     *
+     * @return The size in bytes of the sketches that were unioned and not yet merged.
+     */
+    protected long getUnionedSize() {
+        return unionedSize;
     }
 
     /**
@@ -58,6 +72,7 @@ public abstract class DualSketch extends Sketch {
         } else {
             mergeUpdateSketch();
         }
+        unionedSize = 0L;
         mustMerge = false;
     }
 
@@ -93,6 +108,7 @@ public abstract class DualSketch extends Sketch {
     public void reset() {
         updated = false;
         unioned = false;
+        unionedSize = 0L;
         // If reset, must merge again since old merged result is thrown away and recreated.
         mustMerge = true;
     }
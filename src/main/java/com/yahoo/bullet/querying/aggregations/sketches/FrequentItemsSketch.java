@@ -32,6 +32,10 @@ public class FrequentItemsSketch extends Sketch {
     private final long threshold;
     private final int maxSize;
 
+    // The serialized size and the number of the items presented to the sketch for estimating the size of an item
+    private long itemsSize = 0L;
+    private long itemsCount = 0L;
+
     // No state -> static
     private static final ArrayOfItemsSerDe<String> SER_DE = new ArrayOfUtf16StringsSerDe();
 
@@ -75,12 +79,26 @@ public class FrequentItemsSketch extends Sketch {
      */
     public void update(String item) {
         sketch.update(item);
+        if (item != null) {
+            itemsSize += Integer.BYTES + Character.BYTES * item.length();
+            itemsCount++;
+        }
     }
 
     @Override
     public void union(byte[] serialized) {
         ItemsSketch<String> other = ItemsSketch.getInstance(new NativeMemory(serialized), SER_DE);
         sketch.merge(other);
+        itemsSize += serialized.length;
+        itemsCount += other.getNumActiveItems();
+    }
+
+    @Override
+    public long getRetainedSize() {
+        if (itemsCount == 0L) {
+            return 0L;
+        }
+        return sketch.getNumActiveItems() * (Long.BYTES + itemsSize / itemsCount);
     }
 
     @Override
@@ -122,6 +140,8 @@ public class FrequentItemsSketch extends Sketch {
     @Override
     public void reset() {
         sketch.reset();
+        itemsSize = 0L;
+        itemsCount = 0L;
     }
 
     @Override
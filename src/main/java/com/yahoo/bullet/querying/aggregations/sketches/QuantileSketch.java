@@ -109,7 +109,7 @@ public class QuantileSketch extends DualSketch {
     public void union(byte[] serialized) {
         DoublesSketch sketch = DoublesSketch.heapify(new NativeMemory(serialized));
         unionSketch.update(sketch);
-        super.union();
+        super.union(serialized.length);
     }
 
     @Override
@@ -149,6 +149,12 @@ public class QuantileSketch extends DualSketch {
         super.reset();
     }
 
+    @Override
+    public long getRetainedSize() {
+        long size = updateSketch.getStorageBytes() + getUnionedSize();
+        return result == null ? size : size + result.getStorageBytes();
+    }
+
     @Override
     protected void mergeBothSketches() {
         unionSketch.update(updateSketch);
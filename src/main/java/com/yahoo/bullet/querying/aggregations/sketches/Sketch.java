@@ -55,6 +55,14 @@ public abstract class Sketch {
      */
     public abstract void reset();
 
+    /**
+     * Estimates the memory in bytes retained by this sketch without collecting or serializing it. Unlike
+     * {@link #getSize()}, this can be called at any time and is cheap enough to be called periodically.
+     *
+     * @return The approximate size in bytes of the sketch.
+     */
+    public abstract long getRetainedSize();
+
     /**
      * Gets the result from the data presented to the sketch as a {@link Clip}. Also adds {@link Meta} if
      * asked for.
@@ -64,7 +64,7 @@ public class ThetaSketch extends KMVSketch {
     public void union(byte[] serialized) {
         Sketch deserialized = Sketches.wrapSketch(new NativeMemory(serialized));
         unionSketch.update(deserialized);
-        super.union();
+        super.union(serialized.length);
     }
 
     @Override
@@ -96,6 +96,12 @@ public class ThetaSketch extends KMVSketch {
         super.reset();
     }
 
+    @Override
+    public long getRetainedSize() {
+        long size = updateSketch.getCurrentBytes(false) + getUnionedSize();
+        return result == null ? size : size + result.getCurrentBytes(true);
+    }
+
     @Override
     protected void mergeBothSketches() {
         unionSketch.update(updateSketch.compact(false, null));
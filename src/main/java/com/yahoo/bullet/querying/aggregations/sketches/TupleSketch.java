@@ -74,7 +74,7 @@ public class TupleSketch extends KMVSketch {
     public void union(byte[] serialized) {
         Sketch<GroupDataSummary> deserialized = Sketches.heapifySketch(new NativeMemory(serialized));
         unionSketch.update(deserialized);
-        super.union();
+        super.union(serialized.length);
     }
 
     @Override
@@ -111,6 +111,11 @@ public class TupleSketch extends KMVSketch {
         super.reset();
     }
 
+    @Override
+    public long getRetainedSize() {
+        return getRetainedSize(updateSketch) + getUnionedSize() + getRetainedSize(result);
+    }
+
     @Override
     protected void mergeBothSketches() {
         unionSketch.update(updateSketch.compact());
@@ -177,6 +182,24 @@ public class TupleSketch extends KMVSketch {
         return result.getUpperBound(standardDeviation);
     }
 
+    /**
+     * Estimates the size of a sketch from its key and the serialized size of its first summary since the summaries
+     * are arbitrarily large.
+     *
+     * @param sketch The sketch to estimate. It may be null.
+     * @return The approximate size in bytes of the sketch.
+     */
+    private static long getRetainedSize(Sketch<GroupDataSummary> sketch) {
+        if (sketch == null) {
+            return 0L;
+        }
+        SketchIterator<GroupDataSummary> iterator = sketch.iterator();
+        if (!iterator.next()) {
+            return 0L;
+        }
+        return (long) sketch.getRetainedEntries() * (Long.BYTES + iterator.getSummary().toByteArray().length);
+    }
+
     /**
      * Returns the estimate of the uniques in the Sketch. Only applicable after {@link #merge()}.
      *
@@ -0,0 +1,137 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A compiled evaluator for the chain of ANDs at the root of a filter that reorders its operands as it runs. Every so
+ * often, a record is sampled: all the operands are evaluated on it and timed, and it is noted which ones rejected the
+ * record (by not being true). After a number of samples, the operands are sorted by their average cost per rejection so
+ * that the cheapest, most selective operands short-circuit first. Operands that are equally good keep their order.
+ *
+ * The result of an AND with three-valued logic does not depend on the order of its operands: it is false if any operand
+ * is false, null if no operand is false and any is null, and true otherwise. However, an operand that fails with an
+ * exception might be skipped if a false operand is moved before it, and vice versa. This is why this is only used at
+ * the root of a filter, where a failure, a false and a null all mean that the record does not match.
+ */
+final class AdaptiveAndEvaluator extends Evaluator {
+    private static final long serialVersionUID = -1302764624004262305L;
+
+    static final int DEFAULT_SAMPLE_INTERVAL = 64;
+    static final int DEFAULT_REORDER_INTERVAL = 32;
+
+    final Evaluator[] operands;
+    // The indices of the operands in the order they are evaluated.
+    int[] order;
+
+    private final int sampleInterval;
+    private final int reorderInterval;
+    private final long[] rejections;
+    private final long[] nanos;
+    private long samples;
+    private long count;
+
+    AdaptiveAndEvaluator(List<Evaluator> operands) {
+        this(operands, DEFAULT_SAMPLE_INTERVAL, DEFAULT_REORDER_INTERVAL);
+    }
+
+    /**
+     * Constructor that creates an adaptive AND.
+     *
+     * @param operands The operands in the order they were written.
+     * @param sampleInterval One in this many records is sampled.
+     * @param reorderInterval The operands are reordered after this many samples.
+     */
+    AdaptiveAndEvaluator(List<Evaluator> operands, int sampleInterval, int reorderInterval) {
+        this.operands = operands.toArray(new Evaluator[0]);
+        this.order = IntStream.range(0, this.operands.length).toArray();
+        this.sampleInterval = sampleInterval;
+        this.reorderInterval = reorderInterval;
+        this.rejections = new long[this.operands.length];
+        this.nanos = new long[this.operands.length];
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        boolean result = evaluateBoolean(record);
+        return wasNull ? TypedObject.NULL : TypedObject.valueOf(result);
+    }
+
+    @Override
+    public boolean evaluateBoolean(BulletRecord record) {
+        if (++count % sampleInterval == 0) {
+            return sample(record);
+        }
+        boolean hasNull = false;
+        for (int i : order) {
+            Evaluator operand = operands[i];
+            boolean value = operand.evaluateBoolean(record);
+            if (operand.wasNull) {
+                hasNull = true;
+            } else if (!value) {
+                wasNull = false;
+                return false;
+            }
+        }
+        wasNull = hasNull;
+        return !hasNull;
+    }
+
+    private boolean sample(BulletRecord record) {
+        boolean hasNull = false;
+        boolean isFalse = false;
+        RuntimeException error = null;
+        for (int i : order) {
+            Evaluator operand = operands[i];
+            long start = System.nanoTime();
+            try {
+                boolean value = operand.evaluateBoolean(record);
+                if (operand.wasNull) {
+                    hasNull = true;
+                    rejections[i]++;
+                } else if (!value) {
+                    // The result is the first false or failure in the current order, like it would be without sampling.
+                    isFalse |= error == null;
+                    rejections[i]++;
+                }
+            } catch (RuntimeException e) {
+                if (!isFalse && error == null) {
+                    error = e;
+                }
+                rejections[i]++;
+            }
+            nanos[i] += System.nanoTime() - start;
+        }
+        if (++samples % reorderInterval == 0) {
+            reorder();
+        }
+        if (error != null) {
+            throw error;
+        }
+        wasNull = !isFalse && hasNull;
+        return !isFalse && !hasNull;
+    }
+
+    private void reorder() {
+        double[] ranks = new double[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+            // The expected cost to reject a record. Operands that never reject go last.
+            ranks[i] = rejections[i] == 0 ? Double.POSITIVE_INFINITY : (double) nanos[i] / rejections[i];
+            // Older samples weigh less so that the order follows changes in the data.
+            rejections[i] >>= 1;
+            nanos[i] >>= 1;
+        }
+        // Sorting is stable so ties keep their current order.
+        order = Arrays.stream(order).boxed().sorted(Comparator.comparingDouble(i -> ranks[i])).mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+/**
+ * A compiled evaluator for the arithmetic operations (+, -, *, /, %). It computes its result in primitives using the
+ * same result type promotion as {@link BinaryOperations} and only wraps it in a {@link TypedObject} when called through
+ * {@link #evaluate(BulletRecord)}. Nested arithmetic and the primitive entry points do not allocate.
+ */
+final class ArithmeticEvaluator extends Evaluator {
+    private static final long serialVersionUID = 6725461932816357474L;
+
+    final Evaluator left;
+    final Evaluator right;
+    final Operation op;
+
+    private final NumericValue leftValue = new NumericValue();
+    private final NumericValue rightValue = new NumericValue();
+    private final NumericValue result = new NumericValue();
+
+    ArithmeticEvaluator(Evaluator left, Evaluator right, Operation op) {
+        if (!isArithmetic(op)) {
+            throw new UnsupportedOperationException("Not an arithmetic operation: " + op);
+        }
+        this.left = left;
+        this.right = right;
+        this.op = op;
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        return compute(record, result) ? result.toTypedObject() : TypedObject.NULL;
+    }
+
+    @Override
+    public long evaluateLong(BulletRecord record) {
+        wasNull = !compute(record, result);
+        return wasNull ? 0L : result.longValue();
+    }
+
+    @Override
+    public double evaluateDouble(BulletRecord record) {
+        wasNull = !compute(record, result);
+        return wasNull ? 0.0 : result.doubleValue();
+    }
+
+    /**
+     * Computes the result of this evaluator into the given holder.
+     *
+     * @param record The record to evaluate on.
+     * @param output The holder to store the result in.
+     * @return False if the result was null and true otherwise.
+     */
+    boolean compute(BulletRecord record, NumericValue output) {
+        if (!leftValue.load(left, record) || !rightValue.load(right, record)) {
+            return false;
+        }
+        Type type = BinaryOperations.getArithmeticResultType(leftValue.type, rightValue.type);
+        switch (type) {
+            case DOUBLE:
+                output.set(Type.DOUBLE, apply(leftValue.doubleValue(), rightValue.doubleValue()));
+                break;
+            case FLOAT:
+                output.set(Type.FLOAT, (double) apply(leftValue.floatValue(), rightValue.floatValue()));
+                break;
+            case LONG:
+                output.set(Type.LONG, apply(leftValue.longValue(), rightValue.longValue()));
+                break;
+            default:
+                output.set(Type.INTEGER, (long) apply(leftValue.intValue(), rightValue.intValue()));
+        }
+        return true;
+    }
+
+    static boolean isArithmetic(Operation op) {
+        switch (op) {
+            case ADD:
+            case SUB:
+            case MUL:
+            case DIV:
+            case MOD:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private double apply(double a, double b) {
+        switch (op) {
+            case ADD:
+                return a + b;
+            case SUB:
+                return a - b;
+            case MUL:
+                return a * b;
+            case DIV:
+                return a / b;
+            default:
+                return a % b;
+        }
+    }
+
+    private float apply(float a, float b) {
+        switch (op) {
+            case ADD:
+                return a + b;
+            case SUB:
+                return a - b;
+            case MUL:
+                return a * b;
+            case DIV:
+                return a / b;
+            default:
+                return a % b;
+        }
+    }
+
+    private long apply(long a, long b) {
+        switch (op) {
+            case ADD:
+                return a + b;
+            case SUB:
+                return a - b;
+            case MUL:
+                return a * b;
+            case DIV:
+                return a / b;
+            default:
+                return a % b;
+        }
+    }
+
+    private int apply(int a, int b) {
+        switch (op) {
+            case ADD:
+                return a + b;
+            case SUB:
+                return a - b;
+            case MUL:
+                return a * b;
+            case DIV:
+                return a / b;
+            default:
+                return a % b;
+        }
+    }
+}
@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.query.expressions.BinaryExpression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.typesystem.TypedObject;
@@ -27,7 +28,14 @@ public class BinaryEvaluator extends Evaluator {
     public BinaryEvaluator(BinaryExpression binaryExpression) {
         left = binaryExpression.getLeft().getEvaluator();
         right = binaryExpression.getRight().getEvaluator();
-        op = BinaryOperations.BINARY_OPERATORS.get(binaryExpression.getOp());
+        op = BinaryOperations.getOperator(binaryExpression.getOp(), right, BulletConfig.DEFAULT_QUERY_EXPRESSION_REGEX_CACHE_SIZE, false);
+    }
+
+    // The constant list operand of an operator that looks values up in a ConstantSet is not used and is null.
+    BinaryEvaluator(Evaluator left, Evaluator right, BinaryOperations.BinaryOperator op) {
+        this.left = left;
+        this.right = right;
+        this.op = op;
     }
 
     @Override
@@ -18,6 +18,7 @@ import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -71,6 +72,64 @@ public class BinaryOperations {
         BINARY_OPERATORS.put(Operation.OR, BinaryOperations::or);
         BINARY_OPERATORS.put(Operation.XOR, BinaryOperations::xor);
         BINARY_OPERATORS.put(Operation.FILTER, BinaryOperations::filter);
+        BINARY_OPERATORS.put(Operation.STARTS_WITH, BinaryOperations::startsWith);
+        BINARY_OPERATORS.put(Operation.ENDS_WITH, BinaryOperations::endsWith);
+        BINARY_OPERATORS.put(Operation.CONTAINS, BinaryOperations::contains);
+    }
+
+    /**
+     * Gets the operator to use for a binary operation given its right operand. The regex operations get their own
+     * operator that holds their compiled patterns. If the patterns are constant, they are compiled once here. The
+     * patterns of a constant list are matched all at once by a {@link MultiPatternMatcher}. Otherwise, the patterns that
+     * come from the record are kept in a {@link RegexCache}. IN, NOT IN, = ANY and != ALL against a constant list look
+     * values up in a {@link ConstantSet} built once here. All other operations use the shared operators in
+     * {@link #BINARY_OPERATORS}.
+     *
+     * @param op The binary operation.
+     * @param right The right operand of the operation.
+     * @param regexCacheSize The maximum number of non-constant patterns to cache.
+     * @param fastRegex Whether to use the faster matchers for simple patterns. See {@link RegexMatcher}.
+     * @return The operator to use.
+     */
+    static BinaryOperator getOperator(Operation op, Evaluator right, int regexCacheSize, boolean fastRegex) {
+        return getOperator(op, null, right, regexCacheSize, fastRegex, 0);
+    }
+
+    /**
+     * Gets the operator to use for a binary operation given its operands. This is the same as
+     * {@link #getOperator(Operation, Evaluator, int, boolean)} except that CONTAINS_VALUE of a constant list also looks
+     * values up in a {@link ConstantSet} and that the constant lists with at least the given number of elements are kept
+     * in a compact set.
+     *
+     * @param op The binary operation.
+     * @param left The left operand of the operation or null if it is not known.
+     * @param right The right operand of the operation.
+     * @param regexCacheSize The maximum number of non-constant patterns to cache.
+     * @param fastRegex Whether to use the faster matchers for simple patterns. See {@link RegexMatcher}.
+     * @param compactSetSize The minimum size of the constant lists to keep in a compact set or 0 to never use them.
+     * @return The operator to use.
+     */
+    static BinaryOperator getOperator(Operation op, Evaluator left, Evaluator right, int regexCacheSize, boolean fastRegex,
+                                      int compactSetSize) {
+        switch (op) {
+            case REGEX_LIKE:
+                return regexLike(right, regexCacheSize, fastRegex, false);
+            case NOT_REGEX_LIKE:
+                return regexLike(right, regexCacheSize, fastRegex, true);
+            case REGEX_LIKE_ANY:
+                return regexLikeAny(right, regexCacheSize, fastRegex, false);
+            case NOT_REGEX_LIKE_ANY:
+                return regexLikeAny(right, regexCacheSize, fastRegex, true);
+            case IN:
+            case NOT_IN:
+            case EQUALS_ANY:
+            case NOT_EQUALS_ALL:
+                return inConstants(op, right, compactSetSize);
+            case CONTAINS_VALUE:
+                return containsConstants(left, compactSetSize);
+            default:
+                return BINARY_OPERATORS.get(op);
+        }
     }
 
     static TypedObject add(Evaluator left, Evaluator right, BulletRecord record) {
@@ -264,6 +323,223 @@ public class BinaryOperations {
         return (Boolean) result.getValue() ? TypedObject.FALSE : TypedObject.TRUE;
     }
 
+    private static BinaryOperator regexLike(Evaluator right, int cacheSize, boolean fast, boolean negate) {
+        RegexMatcher constant = compileConstant(right, fast);
+        if (constant != null) {
+            return (left, ignored, record) -> {
+                TypedObject leftValue = left.evaluate(record);
+                if (isNull(leftValue)) {
+                    return TypedObject.NULL;
+                }
+                return TypedObject.valueOf(negate != constant.matches((String) leftValue.getValue()));
+            };
+        }
+        RegexCache cache = new RegexCache(cacheSize, fast);
+        return (left, rightOperand, record) -> {
+            TypedObject leftValue = left.evaluate(record);
+            if (isNull(leftValue)) {
+                return TypedObject.NULL;
+            }
+            TypedObject rightValue = rightOperand.evaluate(record);
+            if (isNull(rightValue)) {
+                return TypedObject.NULL;
+            }
+            RegexMatcher matcher = cache.get((String) rightValue.getValue());
+            return TypedObject.valueOf(negate != matcher.matches((String) leftValue.getValue()));
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BinaryOperator regexLikeAny(Evaluator right, int cacheSize, boolean fast, boolean negate) {
+        ConstantPatterns constants = compileConstants(right, fast);
+        if (constants != null) {
+            MultiPatternMatcher matcher = constants.matcher;
+            boolean containsNull = constants.containsNull;
+            return (left, ignored, record) -> {
+                TypedObject leftValue = left.evaluate(record);
+                if (isNull(leftValue)) {
+                    return TypedObject.NULL;
+                }
+                if (matcher.matches((String) leftValue.getValue())) {
+                    return TypedObject.valueOf(!negate);
+                }
+                return containsNull ? TypedObject.NULL : TypedObject.valueOf(negate);
+            };
+        }
+        RegexCache cache = new RegexCache(cacheSize, fast);
+        return (left, rightOperand, record) -> {
+            TypedObject leftValue = left.evaluate(record);
+            if (isNull(leftValue)) {
+                return TypedObject.NULL;
+            }
+            TypedObject rightValue = rightOperand.evaluate(record);
+            if (isNull(rightValue)) {
+                return TypedObject.NULL;
+            }
+            String value = (String) leftValue.getValue();
+            boolean containsNull = false;
+            for (Serializable object : (List<? extends Serializable>) rightValue.getValue()) {
+                if (object == null) {
+                    containsNull = true;
+                } else if (cache.get((String) object).matches(value)) {
+                    return TypedObject.valueOf(!negate);
+                }
+            }
+            return containsNull ? TypedObject.NULL : TypedObject.valueOf(negate);
+        };
+    }
+
+    /**
+     * Compiles the pattern in the given evaluator if it is a constant, non-null string that compiles.
+     *
+     * @param evaluator The evaluator for the pattern.
+     * @param fast Whether to use the faster matchers.
+     * @return The compiled matcher or null if the pattern is not constant or could not be compiled.
+     */
+    private static RegexMatcher compileConstant(Evaluator evaluator, boolean fast) {
+        if (!(evaluator instanceof ValueEvaluator)) {
+            return null;
+        }
+        Serializable pattern = ((ValueEvaluator) evaluator).value.getValue();
+        if (!(pattern instanceof String)) {
+            return null;
+        }
+        try {
+            return RegexMatcher.compile((String) pattern, fast);
+        } catch (PatternSyntaxException ignored) {
+            // Let the invalid pattern fail on evaluation like it would otherwise.
+            return null;
+        }
+    }
+
+    /**
+     * The patterns of a constant list compiled into a single {@link MultiPatternMatcher}. A value that does not match
+     * any of them is compared to the null patterns as well, which makes the result null.
+     */
+    private static final class ConstantPatterns {
+        private final MultiPatternMatcher matcher;
+        private final boolean containsNull;
+
+        private ConstantPatterns(MultiPatternMatcher matcher, boolean containsNull) {
+            this.matcher = matcher;
+            this.containsNull = containsNull;
+        }
+    }
+
+    /**
+     * Compiles the patterns in the given evaluator if it is a list of constant strings or nulls that all compile. Since
+     * RLIKE ANY is true as soon as any pattern matches, the non-null patterns are matched all at once.
+     *
+     * @param evaluator The evaluator for the patterns.
+     * @param fast Whether to use the faster matchers.
+     * @return The compiled patterns or null if the patterns could not all be compiled.
+     */
+    private static ConstantPatterns compileConstants(Evaluator evaluator, boolean fast) {
+        if (!(evaluator instanceof ListEvaluator)) {
+            return null;
+        }
+        List<String> patterns = new ArrayList<>();
+        boolean containsNull = false;
+        for (Evaluator element : ((ListEvaluator) evaluator).evaluators) {
+            if (!(element instanceof ValueEvaluator)) {
+                return null;
+            }
+            Serializable pattern = ((ValueEvaluator) element).value.getValue();
+            if (pattern == null) {
+                containsNull = true;
+            } else if (pattern instanceof String) {
+                patterns.add((String) pattern);
+            } else {
+                return null;
+            }
+        }
+        try {
+            return new ConstantPatterns(MultiPatternMatcher.compile(patterns, fast), containsNull);
+        } catch (PatternSyntaxException ignored) {
+            // Let the invalid pattern fail on evaluation like it would otherwise.
+            return null;
+        }
+    }
+
+    private static BinaryOperator inConstants(Operation op, Evaluator right, int compactSetSize) {
+        ConstantSet set = ConstantSet.from(right, compactSetSize);
+        return set == null ? BINARY_OPERATORS.get(op) : getOperator(op, set);
+    }
+
+    private static BinaryOperator containsConstants(Evaluator left, int compactSetSize) {
+        ConstantSet set = left == null ? null : ConstantSet.from(left, compactSetSize);
+        return set == null ? BINARY_OPERATORS.get(Operation.CONTAINS_VALUE) : getOperator(Operation.CONTAINS_VALUE, set);
+    }
+
+    /**
+     * Gets the operator for IN, NOT IN, = ANY, != ALL or CONTAINS_VALUE that looks values up in the given set of the
+     * constant list operand. The operator never evaluates the constant list operand, which is the right operand or the
+     * left one for CONTAINS_VALUE, so it can be null.
+     *
+     * @param op The binary operation.
+     * @param set The {@link ConstantSet} of the constant list operand.
+     * @return The operator to use.
+     */
+    static BinaryOperator getOperator(Operation op, ConstantSet set) {
+        if (op == Operation.CONTAINS_VALUE) {
+            // CONTAINS_VALUE of a constant list is IN with the operands swapped.
+            return (list, right, record) -> {
+                TypedObject rightValue = right.evaluate(record);
+                if (isNull(rightValue)) {
+                    return TypedObject.NULL;
+                }
+                return find(Operation.IN, set, rightValue, false);
+            };
+        }
+        // NOT IN and != ALL are the negations of IN and = ANY.
+        boolean negate = op == Operation.NOT_IN || op == Operation.NOT_EQUALS_ALL;
+        return (left, list, record) -> {
+            TypedObject leftValue = left.evaluate(record);
+            if (isNull(leftValue)) {
+                return TypedObject.NULL;
+            }
+            return find(op, set, leftValue, negate);
+        };
+    }
+
+    private static TypedObject find(Operation op, ConstantSet set, TypedObject value, boolean negate) {
+        int found = set.find(value);
+        if (found == ConstantSet.UNDECIDED) {
+            return inList(op, value, set.fallback);
+        } else if (found == ConstantSet.FOUND) {
+            return TypedObject.valueOf(!negate);
+        }
+        return set.hasNull ? TypedObject.NULL : TypedObject.valueOf(negate);
+    }
+
+    private static TypedObject inList(Operation op, TypedObject leftValue, TypedObject list) {
+        switch (op) {
+            case IN:
+            case NOT_IN:
+                Boolean result = list.containsValue(leftValue);
+                return result == null ? TypedObject.NULL : TypedObject.valueOf(op == Operation.IN ? result : !result);
+            case EQUALS_ANY:
+                return ternaryAnyMatch(leftValue, list, i -> i == 0);
+            default:
+                return ternaryAllMatch(leftValue, list, i -> i != 0);
+        }
+    }
+
+    static TypedObject startsWith(Evaluator left, Evaluator right, BulletRecord record) {
+        return checkNull(left, right, record, (leftValue, rightValue) ->
+                TypedObject.valueOf(((String) leftValue.getValue()).startsWith((String) rightValue.getValue())));
+    }
+
+    static TypedObject endsWith(Evaluator left, Evaluator right, BulletRecord record) {
+        return checkNull(left, right, record, (leftValue, rightValue) ->
+                TypedObject.valueOf(((String) leftValue.getValue()).endsWith((String) rightValue.getValue())));
+    }
+
+    static TypedObject contains(Evaluator left, Evaluator right, BulletRecord record) {
+        return checkNull(left, right, record, (leftValue, rightValue) ->
+                TypedObject.valueOf(((String) leftValue.getValue()).contains((String) rightValue.getValue())));
+    }
+
     static TypedObject sizeIs(Evaluator left, Evaluator right, BulletRecord record) {
         return checkNull(left, right, record, (leftValue, rightValue) -> TypedObject.valueOf(leftValue.size() == (int) rightValue.getValue()));
     }
@@ -388,7 +664,7 @@ public class BinaryOperations {
         return !hasNull ? TypedObject.TRUE : TypedObject.NULL;
     }
 
-    private static Type getArithmeticResultType(Type left, Type right) {
+    static Type getArithmeticResultType(Type left, Type right) {
         if (left == Type.DOUBLE || right == Type.DOUBLE) {
             return Type.DOUBLE;
         }
@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+/**
+ * A minimal Bloom filter over 64-bit hashes. It uses about a byte per value and three probes, which rejects roughly 97%
+ * of the values that were not added. It is not serializable since it can always be rebuilt from the values it filters.
+ */
+final class BloomFilter {
+    private static final int BITS_PER_VALUE = 8;
+    private static final int PROBES = 3;
+    private static final int MINIMUM_BITS = 64;
+
+    private final long[] bits;
+    private final int mask;
+
+    /**
+     * Constructor that creates a filter sized for the given number of values.
+     *
+     * @param expectedSize The number of values that are expected to be added.
+     */
+    BloomFilter(int expectedSize) {
+        long size = MINIMUM_BITS;
+        while (size < (long) expectedSize * BITS_PER_VALUE && size < (1L << 31)) {
+            size <<= 1;
+        }
+        bits = new long[(int) (size >>> 6)];
+        mask = (int) (size - 1);
+    }
+
+    /**
+     * Adds a hash to the filter.
+     *
+     * @param hash The hash of the value to add. See {@link #hash(long)}.
+     */
+    void add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Checks if a hash might have been added to the filter.
+     *
+     * @param hash The hash of the value to look for. See {@link #hash(long)}.
+     * @return False if the hash was definitely not added and true if it might have been.
+     */
+    boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Spreads the bits of a value into a hash for the filter. Sequential ids and the bits of doubles are well spread.
+     *
+     * @param value The value to hash.
+     * @return The 64-bit hash of the value.
+     */
+    static long hash(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -29,6 +29,11 @@ public class CastEvaluator extends Evaluator {
         castType = castExpression.getCastType();
     }
 
+    CastEvaluator(Evaluator value, Type castType) {
+        this.value = value;
+        this.castType = castType;
+    }
+
     @Override
     public TypedObject evaluate(BulletRecord record) {
         return value.evaluate(record).forceCast(castType);
@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import static com.yahoo.bullet.common.SerializerDeserializer.readVarLong;
+import static com.yahoo.bullet.common.SerializerDeserializer.writeVarLong;
+
+/**
+ * A read-only set of primitive longs for very large constant lists. The values are kept in a sorted array, which takes
+ * a quarter of the memory of a {@link LongHashSet}, and a {@link BloomFilter} rejects most of the values that are not
+ * in the set before the array is binary searched. The set is serialized as the gaps between its sorted values in a
+ * variable-length encoding, and the filter is rebuilt when it is deserialized.
+ */
+final class CompactLongSet implements LongSet {
+    private static final long serialVersionUID = -3304807307290779524L;
+
+    private transient long[] values;
+    private transient BloomFilter filter;
+
+    /**
+     * Constructor that creates a set of the given values.
+     *
+     * @param values The values, in any order and possibly with duplicates. The array is not modified.
+     */
+    CompactLongSet(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        initialize(size == sorted.length ? sorted : Arrays.copyOf(sorted, size));
+    }
+
+    private void initialize(long[] sorted) {
+        values = sorted;
+        filter = new BloomFilter(sorted.length);
+        for (long value : sorted) {
+            filter.add(BloomFilter.hash(value));
+        }
+    }
+
+    @Override
+    public boolean contains(long value) {
+        return filter.mightContain(BloomFilter.hash(value)) && Arrays.binarySearch(values, value) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(values.length);
+        long previous = 0L;
+        for (long value : values) {
+            // The values are sorted so the gaps are positive when treated as unsigned, even if they overflow.
+            writeVarLong(out, value - previous);
+            previous = value;
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        long[] sorted = new long[in.readInt()];
+        long previous = 0L;
+        for (int i = 0; i < sorted.length; i++) {
+            previous += readVarLong(in);
+            sorted[i] = previous;
+        }
+        initialize(sorted);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A read-only set of strings for very large constant lists. The strings are kept in a sorted array instead of the
+ * entries of a hash set and a {@link BloomFilter} on their hash codes rejects most of the strings that are not in the set
+ * before the array is binary searched. Only the array is serialized and the filter is rebuilt when it is deserialized.
+ */
+final class CompactStringSet implements Serializable {
+    private static final long serialVersionUID = 4707364720436581384L;
+
+    private final String[] values;
+    private transient BloomFilter filter;
+
+    /**
+     * Constructor that creates a set of the given strings.
+     *
+     * @param values The non-null strings, in any order and possibly with duplicates.
+     */
+    CompactStringSet(Collection<String> values) {
+        String[] sorted = values.stream().sorted().distinct().toArray(String[]::new);
+        this.values = sorted;
+        initialize();
+    }
+
+    private void initialize() {
+        filter = new BloomFilter(values.length);
+        for (String value : values) {
+            filter.add(BloomFilter.hash(value.hashCode()));
+        }
+    }
+
+    /**
+     * Checks if a string is in the set.
+     *
+     * @param value The non-null string to look for.
+     * @return True if the string is in the set and false otherwise.
+     */
+    boolean contains(String value) {
+        return filter.mightContain(BloomFilter.hash(value.hashCode())) && Arrays.binarySearch(values, value) >= 0;
+    }
+
+    /**
+     * Gets the number of strings in the set.
+     *
+     * @return The number of distinct strings in the set.
+     */
+    int size() {
+        return values.length;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        initialize();
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.io.Serializable;
+import java.util.List;
+
+import static com.yahoo.bullet.common.Utilities.isNull;
+
+/**
+ * A compiled evaluator for the scalar comparisons (=, !=, &gt;, &lt;, &gt;=, &lt;=). It fuses the null checks, the
+ * comparison and the test of its result into a single node and compares the common primitive cases directly instead of
+ * going through {@link TypedObject#compareTo(TypedObject)}. The results are identical to those of the corresponding
+ * {@link BinaryOperations}.
+ *
+ * On a batch of records, each side is evaluated on the whole batch at once and the right side only on the records for
+ * which the left side is not null. The values are then compared in a single loop that writes the results to primitive
+ * boolean arrays (see {@link #evaluateBooleans(List, int[], int, boolean[], boolean[])}). The values of arithmetic
+ * sides are kept in primitive long and double arrays without being wrapped. A constant side that is not arithmetic is
+ * evaluated once per batch.
+ */
+final class ComparisonEvaluator extends Evaluator {
+    private static final long serialVersionUID = 3284935213542085379L;
+
+    @FunctionalInterface
+    interface ComparisonTest extends Serializable {
+        boolean test(int comparison);
+    }
+
+    final Evaluator left;
+    final Evaluator right;
+    final ComparisonTest test;
+    // If either side is arithmetic, its result is compared in primitives instead of being wrapped.
+    final boolean numeric;
+
+    private final NumericValue leftValue = new NumericValue();
+    private final NumericValue rightValue = new NumericValue();
+
+    // The buffers for evaluating batches, which grow to the largest batch.
+    private transient TypedObject[] leftValues;
+    private transient TypedObject[] rightValues;
+    private transient NumericColumn leftColumn;
+    private transient NumericColumn rightColumn;
+    private transient int[] rightSelection;
+    private transient int[] positions;
+    private transient boolean[] booleanResults;
+    private transient boolean[] nullResults;
+
+    /**
+     * The numeric values of one side for a batch of records, stored as the fields of {@link NumericValue} in primitive
+     * arrays. A null type marks a null value or one that failed to evaluate.
+     */
+    private static final class NumericColumn {
+        private final Type[] types;
+        private final TypedObject[] sources;
+        private final long[] longs;
+        private final double[] doubles;
+
+        private NumericColumn(int size) {
+            types = new Type[size];
+            sources = new TypedObject[size];
+            longs = new long[size];
+            doubles = new double[size];
+        }
+
+        private static NumericColumn grow(NumericColumn column, int size) {
+            return column != null && column.types.length >= size ? column : new NumericColumn(size);
+        }
+
+        /**
+         * Loads the values of the given evaluator on the selected records. If a selection is given, the selected
+         * records whose values are not null are written to it along with their positions.
+         *
+         * @return The number of values that are not null.
+         */
+        private int load(Evaluator evaluator, List<BulletRecord> records, int[] selection, int size, NumericValue value,
+                         int[] nonNullSelection, int[] nonNullPositions) {
+            int nonNull = 0;
+            for (int i = 0; i < size; i++) {
+                boolean loaded;
+                try {
+                    loaded = value.load(evaluator, records.get(selection[i]));
+                } catch (RuntimeException e) {
+                    loaded = false;
+                }
+                if (!loaded) {
+                    types[i] = null;
+                    sources[i] = null;
+                    continue;
+                }
+                types[i] = value.type;
+                sources[i] = value.source;
+                longs[i] = value.longResult;
+                doubles[i] = value.doubleResult;
+                if (nonNullSelection != null) {
+                    nonNullSelection[nonNull] = selection[i];
+                    nonNullPositions[nonNull] = i;
+                }
+                nonNull++;
+            }
+            return nonNull;
+        }
+
+        private void get(int i, NumericValue value) {
+            value.type = types[i];
+            value.source = sources[i];
+            value.longResult = longs[i];
+            value.doubleResult = doubles[i];
+        }
+    }
+
+    ComparisonEvaluator(Evaluator left, Evaluator right, Operation op) {
+        this.left = left;
+        this.right = right;
+        this.test = getTest(op);
+        this.numeric = left instanceof ArithmeticEvaluator || right instanceof ArithmeticEvaluator;
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        boolean result = evaluateBoolean(record);
+        return wasNull ? TypedObject.NULL : TypedObject.valueOf(result);
+    }
+
+    @Override
+    public boolean evaluateBoolean(BulletRecord record) {
+        if (numeric) {
+            wasNull = !leftValue.load(left, record) || !rightValue.load(right, record);
+            return !wasNull && test.test(NumericValue.compare(leftValue, rightValue));
+        }
+        TypedObject leftObject = left.evaluate(record);
+        if (isNull(leftObject)) {
+            wasNull = true;
+            return false;
+        }
+        TypedObject rightObject = right.evaluate(record);
+        if (isNull(rightObject)) {
+            wasNull = true;
+            return false;
+        }
+        wasNull = false;
+        return test.test(compare(leftObject, rightObject));
+    }
+
+    @Override
+    public int select(List<BulletRecord> records, int[] selection, int size) {
+        booleanResults = grow(booleanResults, size);
+        nullResults = grow(nullResults, size);
+        evaluateBooleans(records, selection, size, booleanResults, nullResults);
+        int selected = 0;
+        for (int i = 0; i < size; i++) {
+            if (!nullResults[i] && booleanResults[i]) {
+                selection[selected++] = selection[i];
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public void evaluate(List<BulletRecord> records, int[] selection, int size, TypedObject[] results) {
+        booleanResults = grow(booleanResults, size);
+        nullResults = grow(nullResults, size);
+        evaluateBooleans(records, selection, size, booleanResults, nullResults);
+        for (int i = 0; i < size; i++) {
+            results[i] = nullResults[i] ? TypedObject.NULL : TypedObject.valueOf(booleanResults[i]);
+        }
+    }
+
+    @Override
+    public void evaluateBooleans(List<BulletRecord> records, int[] selection, int size, boolean[] results, boolean[] nulls) {
+        // The records whose left value is not null are selected for the right side, along with where their results go.
+        rightSelection = grow(rightSelection, size);
+        positions = grow(positions, size);
+        int remaining;
+        if (numeric) {
+            leftColumn = NumericColumn.grow(leftColumn, size);
+            remaining = leftColumn.load(left, records, selection, size, leftValue, rightSelection, positions);
+            rightColumn = NumericColumn.grow(rightColumn, remaining);
+            rightColumn.load(right, records, rightSelection, remaining, rightValue, null, null);
+        } else {
+            leftValues = grow(leftValues, size);
+            left.evaluate(records, selection, size, leftValues);
+            remaining = 0;
+            for (int i = 0; i < size; i++) {
+                if (!isNull(leftValues[i])) {
+                    rightSelection[remaining] = selection[i];
+                    positions[remaining++] = i;
+                }
+            }
+            rightValues = grow(rightValues, remaining);
+            right.evaluate(records, rightSelection, remaining, rightValues);
+        }
+        for (int i = 0; i < size; i++) {
+            results[i] = false;
+            nulls[i] = true;
+        }
+        for (int i = 0; i < remaining; i++) {
+            int position = positions[i];
+            try {
+                if (numeric) {
+                    if (rightColumn.types[i] != null) {
+                        leftColumn.get(position, leftValue);
+                        rightColumn.get(i, rightValue);
+                        results[position] = test.test(NumericValue.compare(leftValue, rightValue));
+                        nulls[position] = false;
+                    }
+                } else if (!isNull(rightValues[i])) {
+                    results[position] = test.test(compare(leftValues[position], rightValues[i]));
+                    nulls[position] = false;
+                }
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+
+    private static TypedObject[] grow(TypedObject[] buffer, int size) {
+        return buffer != null && buffer.length >= size ? buffer : new TypedObject[size];
+    }
+
+    private static int[] grow(int[] buffer, int size) {
+        return buffer != null && buffer.length >= size ? buffer : new int[size];
+    }
+
+    private static boolean[] grow(boolean[] buffer, int size) {
+        return buffer != null && buffer.length >= size ? buffer : new boolean[size];
+    }
+
+    /**
+     * Compares two non-null {@link TypedObject} exactly like {@link TypedObject#compareTo(TypedObject)} does but without
+     * boxing the result for the common cases where both sides have the same primitive numeric type.
+     *
+     * @param leftValue The non-null left value.
+     * @param rightValue The non-null right value.
+     * @return The result of the comparison.
+     */
+    static int compare(TypedObject leftValue, TypedObject rightValue) {
+        Type type = leftValue.getType();
+        if (type == rightValue.getType()) {
+            Object a = leftValue.getValue();
+            Object b = rightValue.getValue();
+            if (type == Type.LONG && a instanceof Long && b instanceof Long) {
+                return Long.compare((Long) a, (Long) b);
+            } else if (type == Type.INTEGER && a instanceof Integer && b instanceof Integer) {
+                return Integer.compare((Integer) a, (Integer) b);
+            } else if (type == Type.DOUBLE && a instanceof Double && b instanceof Double) {
+                return Double.compare((Double) a, (Double) b);
+            }
+        }
+        return leftValue.compareTo(rightValue);
+    }
+
+    static boolean isComparison(Operation op) {
+        switch (op) {
+            case EQUALS:
+            case NOT_EQUALS:
+            case GREATER_THAN:
+            case LESS_THAN:
+            case GREATER_THAN_OR_EQUALS:
+            case LESS_THAN_OR_EQUALS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static ComparisonTest getTest(Operation op) {
+        switch (op) {
+            case EQUALS:
+                return i -> i == 0;
+            case NOT_EQUALS:
+                return i -> i != 0;
+            case GREATER_THAN:
+                return i -> i > 0;
+            case LESS_THAN:
+                return i -> i < 0;
+            case GREATER_THAN_OR_EQUALS:
+                return i -> i >= 0;
+            case LESS_THAN_OR_EQUALS:
+                return i -> i <= 0;
+            default:
+                throw new UnsupportedOperationException("Not a comparison: " + op);
+        }
+    }
+}
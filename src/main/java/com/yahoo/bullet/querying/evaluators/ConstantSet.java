@@ -0,0 +1,243 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A hash set built once from a constant list of values to look up values in it without going through the list. A value
+ * is found in the set if and only if it is equal to an element in the list according to
+ * {@link TypedObject#compareTo(TypedObject)}, which is how IN and = ANY compare values. Integral values are kept in a
+ * primitive set of longs and floating point values as their bits. Every numeric list also keeps the bits of the double
+ * values of its elements to look up numbers of other types. Strings and booleans are kept in a regular set.
+ *
+ * Lists with at least a given number of elements can be kept in a compact set instead. The values are then kept in
+ * sorted arrays behind a Bloom filter (see {@link CompactLongSet} and {@link CompactStringSet}), which take a fraction of
+ * the memory of the hash sets, and the list itself is not kept.
+ *
+ * The values that cannot be looked up in the set are those that fail to compare to every element of the list in the
+ * same way, for instance because their type cannot be compared to the type of the list or their value does not have the
+ * class of their type. They compare to the first non-null element like they would to the list, so a compact set only
+ * keeps that element, and a null if the list has any, in {@link #fallback} to compare them to.
+ */
+final class ConstantSet implements Serializable {
+    private static final long serialVersionUID = -2815016004683718012L;
+
+    static final int NOT_FOUND = 0;
+    static final int FOUND = 1;
+    // The value cannot be compared to the elements like this. The list itself should be used instead.
+    static final int UNDECIDED = -1;
+
+    // The constant list this set was built from or null if the set is compact.
+    final TypedObject list;
+    // The list to compare the values that are UNDECIDED to. It is the list itself or, if the set is compact, a list of
+    // its first non-null element and a null if it has any.
+    final TypedObject fallback;
+    final Type type;
+    final boolean hasNull;
+
+    // For integral types, the values. For floating point types, their bits.
+    private final LongSet values;
+    // For numeric types, the bits of the double values.
+    private final LongSet doubles;
+    // For strings and booleans, the values.
+    private final Set<Serializable> objects;
+    // For strings in a compact set, the values.
+    private final CompactStringSet strings;
+
+    @SuppressWarnings("unchecked")
+    private ConstantSet(TypedObject list, Type type, boolean compact) {
+        this.list = compact ? null : list;
+        this.type = type;
+        List<? extends Serializable> elements = (List<? extends Serializable>) list.getValue();
+        boolean containsNull = false;
+        for (Serializable element : elements) {
+            containsNull |= element == null;
+        }
+        hasNull = containsNull;
+        fallback = compact ? makeFallback(list.getType(), elements, containsNull) : list;
+        if (Type.isNumeric(type)) {
+            objects = null;
+            strings = null;
+            if (compact) {
+                long[] valueBits = new long[elements.size()];
+                long[] doubleBits = new long[elements.size()];
+                int size = 0;
+                for (Serializable element : elements) {
+                    if (element != null) {
+                        valueBits[size] = toBits(type, element);
+                        doubleBits[size++] = toDoubleBits(element);
+                    }
+                }
+                values = new CompactLongSet(Arrays.copyOf(valueBits, size));
+                doubles = new CompactLongSet(Arrays.copyOf(doubleBits, size));
+            } else {
+                LongHashSet valueSet = new LongHashSet(elements.size());
+                LongHashSet doubleSet = new LongHashSet(elements.size());
+                for (Serializable element : elements) {
+                    if (element != null) {
+                        valueSet.add(toBits(type, element));
+                        doubleSet.add(toDoubleBits(element));
+                    }
+                }
+                values = valueSet;
+                doubles = doubleSet;
+            }
+        } else if (compact && type == Type.STRING) {
+            values = null;
+            doubles = null;
+            objects = null;
+            List<String> nonNull = new ArrayList<>(elements.size());
+            for (Serializable element : elements) {
+                if (element != null) {
+                    nonNull.add((String) element);
+                }
+            }
+            strings = new CompactStringSet(nonNull);
+        } else {
+            values = null;
+            doubles = null;
+            strings = null;
+            objects = new HashSet<>();
+            for (Serializable element : elements) {
+                if (element != null) {
+                    objects.add(element);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a set from the given evaluator if it is a list of constant values of the same primitive type.
+     *
+     * @param evaluator The evaluator for the list.
+     * @return The set or null if the evaluator is not a list of constants that can be put in a set.
+     */
+    static ConstantSet from(Evaluator evaluator) {
+        return from(evaluator, 0);
+    }
+
+    /**
+     * Builds a set from the given evaluator if it is a list of constant values of the same primitive type. If the list
+     * has at least the given number of elements, the set is compact and does not keep the list.
+     *
+     * @param evaluator The evaluator for the list.
+     * @param compactSize The minimum size of the lists to keep in a compact set or 0 to never use compact sets.
+     * @return The set or null if the evaluator is not a list of constants that can be put in a set.
+     */
+    @SuppressWarnings("unchecked")
+    static ConstantSet from(Evaluator evaluator, int compactSize) {
+        if (!(evaluator instanceof ListEvaluator)) {
+            return null;
+        }
+        if (!((ListEvaluator) evaluator).evaluators.stream().allMatch(element -> element instanceof ValueEvaluator)) {
+            return null;
+        }
+        // The values are constant so the list is the same for every record.
+        TypedObject list = evaluator.evaluate(null);
+        if (!Type.isPrimitiveList(list.getType())) {
+            return null;
+        }
+        Type type = list.getType().getSubType();
+        Class underlyingClass = type.getUnderlyingClass();
+        boolean allNull = true;
+        for (Serializable element : (List<? extends Serializable>) list.getValue()) {
+            if (element == null) {
+                continue;
+            }
+            // The elements are compared as if they had the type of the list so they must have its class.
+            if (!underlyingClass.isInstance(element)) {
+                return null;
+            }
+            allNull = false;
+        }
+        if (allNull) {
+            return null;
+        }
+        int size = ((List<? extends Serializable>) list.getValue()).size();
+        return new ConstantSet(list, type, compactSize > 0 && size >= compactSize);
+    }
+
+    /**
+     * Looks up a non-null value in this set.
+     *
+     * @param value The non-null value to look up.
+     * @return {@link #FOUND} or {@link #NOT_FOUND} or {@link #UNDECIDED} if the list should be used instead.
+     */
+    int find(TypedObject value) {
+        Type valueType = value.getType();
+        Serializable object = value.getValue();
+        if (valueType == type) {
+            if (type == Type.STRING && !(object instanceof String)) {
+                // A string with a value of another class is compared to strings as its toString.
+                object = object.toString();
+            } else if (!type.getUnderlyingClass().isInstance(object)) {
+                return UNDECIDED;
+            }
+            boolean found;
+            if (values != null) {
+                found = values.contains(toBits(type, object));
+            } else if (strings != null) {
+                found = strings.contains((String) object);
+            } else {
+                found = objects.contains(object);
+            }
+            return found ? FOUND : NOT_FOUND;
+        }
+        // Numbers of different types are compared as doubles.
+        if (doubles != null && Type.isNumeric(valueType) && object instanceof Number) {
+            return doubles.contains(toDoubleBits(object)) ? FOUND : NOT_FOUND;
+        }
+        return UNDECIDED;
+    }
+
+    /**
+     * Checks if this set is compact and does not keep the list it was built from.
+     *
+     * @return True if the set is compact.
+     */
+    boolean isCompact() {
+        return list == null;
+    }
+
+    private static TypedObject makeFallback(Type listType, List<? extends Serializable> elements, boolean hasNull) {
+        ArrayList<Serializable> fallback = new ArrayList<>(2);
+        for (Serializable element : elements) {
+            if (element != null) {
+                fallback.add(element);
+                break;
+            }
+        }
+        if (hasNull) {
+            fallback.add(null);
+        }
+        return new TypedObject(listType, fallback);
+    }
+
+    // Two values of the same numeric type compare equal if and only if these are equal.
+    private static long toBits(Type type, Serializable value) {
+        switch (type) {
+            case FLOAT:
+                return Float.floatToIntBits((Float) value);
+            case DOUBLE:
+                return Double.doubleToLongBits((Double) value);
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
+    private static long toDoubleBits(Serializable value) {
+        return Double.doubleToLongBits(((Number) value).doubleValue());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import java.io.Serializable;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache of {@link DateTimeFormatter} by pattern. Formatters are not serializable so the
+ * cache starts empty again after being deserialized. It is not thread-safe and is meant to be owned by a single
+ * evaluator.
+ */
+public class DateTimeFormatterCache implements Serializable {
+    private static final long serialVersionUID = -4962730117519094655L;
+
+    private static class LRUMap extends LinkedHashMap<String, DateTimeFormatter> {
+        private static final long serialVersionUID = 6452093387104823174L;
+        private final int maxSize;
+
+        private LRUMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DateTimeFormatter> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private final int maxSize;
+    private transient LRUMap cache;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize The maximum number of formatters to keep.
+     */
+    public DateTimeFormatterCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the formatter for the given pattern, building and caching it if needed.
+     *
+     * @param pattern The non-null pattern.
+     * @return The {@link DateTimeFormatter} for the pattern.
+     * @throws IllegalArgumentException if the pattern is invalid.
+     */
+    public DateTimeFormatter get(String pattern) {
+        if (cache == null) {
+            cache = new LRUMap(maxSize);
+        }
+        DateTimeFormatter formatter = cache.get(pattern);
+        if (formatter == null) {
+            formatter = DateTimeFormatter.ofPattern(pattern);
+            cache.put(pattern, formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * Gets the number of formatters currently cached.
+     *
+     * @return The size of the cache.
+     */
+    public int size() {
+        return cache == null ? 0 : cache.size();
+    }
+}
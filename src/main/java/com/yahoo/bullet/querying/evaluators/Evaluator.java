@@ -6,17 +6,35 @@
 package com.yahoo.bullet.querying.evaluators;
 
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 
 import java.io.Serializable;
+import java.util.List;
+
+import static com.yahoo.bullet.common.Utilities.isNull;
 
 /**
  * Evaluators are built from expressions. They are evaluated given a {@link BulletRecord} and will throw exceptions on
  * any errors which are most likely to be the result of missing fields or incorrect types.
+ *
+ * Besides {@link #evaluate(BulletRecord)}, evaluators have primitive entry points for callers that only need a boolean,
+ * a long or a double. These return a default value if the result was null and set a separate null flag that can be
+ * read with {@link #wasNull()} right after. By default, they unwrap the result of {@link #evaluate(BulletRecord)}.
+ * Evaluators that can produce their result without allocating a {@link TypedObject} override them. Like the rest of
+ * the querying, an evaluator must only be used by one thread at a time.
+ *
+ * Evaluators can also be evaluated on a batch of records at once. The records to evaluate are given by a selection
+ * vector: an array whose first size elements are the increasing indices of the selected records in the batch. See
+ * {@link #select(List, int[], int)}, {@link #evaluate(List, int[], int, TypedObject[])} and
+ * {@link #evaluateBooleans(List, int[], int, boolean[], boolean[])}, which writes primitive results. By default, these
+ * evaluate the records one at a time. Evaluators that can process a batch faster override them.
  */
 public abstract class Evaluator implements Serializable {
     private static final long serialVersionUID = 8998958368200061680L;
 
+    protected transient boolean wasNull;
+
     /**
      * Evaluates this evaluator on the given {@link BulletRecord}.
      *
@@ -24,4 +42,133 @@ public abstract class Evaluator implements Serializable {
      * @return The result of this evaluator on the given Bullet record.
      */
     public abstract TypedObject evaluate(BulletRecord record);
+
+    /**
+     * Evaluates this evaluator on the given {@link BulletRecord} and casts the result to a boolean.
+     *
+     * @param record The Bullet record to evaluate this evaluator on.
+     * @return The boolean result of this evaluator or false if the result was null.
+     */
+    public boolean evaluateBoolean(BulletRecord record) {
+        TypedObject value = evaluate(record);
+        wasNull = isNull(value);
+        return !wasNull && toBoolean(value);
+    }
+
+    /**
+     * Evaluates this evaluator on the given {@link BulletRecord} and returns the result as a long.
+     *
+     * @param record The Bullet record to evaluate this evaluator on.
+     * @return The numeric result of this evaluator as a long or 0 if the result was null.
+     */
+    public long evaluateLong(BulletRecord record) {
+        TypedObject value = evaluate(record);
+        wasNull = isNull(value);
+        return wasNull ? 0L : ((Number) value.getValue()).longValue();
+    }
+
+    /**
+     * Evaluates this evaluator on the given {@link BulletRecord} and returns the result as a double.
+     *
+     * @param record The Bullet record to evaluate this evaluator on.
+     * @return The numeric result of this evaluator as a double or 0 if the result was null.
+     */
+    public double evaluateDouble(BulletRecord record) {
+        TypedObject value = evaluate(record);
+        wasNull = isNull(value);
+        return wasNull ? 0.0 : ((Number) value.getValue()).doubleValue();
+    }
+
+    /**
+     * Evaluates this evaluator as a boolean on the selected records of a batch and keeps only the records for which
+     * the result is true. The records for which the result is null or false or for which the evaluation fails are
+     * removed from the selection.
+     *
+     * @param records The non-null batch of records.
+     * @param selection The selection vector. The kept indices are written back to its start in the same order.
+     * @param size The number of selected records.
+     * @return The number of records that are still selected.
+     */
+    public int select(List<BulletRecord> records, int[] selection, int size) {
+        int selected = 0;
+        for (int i = 0; i < size; i++) {
+            int index = selection[i];
+            try {
+                boolean value = evaluateBoolean(records.get(index));
+                if (!wasNull && value) {
+                    selection[selected++] = index;
+                }
+            } catch (RuntimeException ignored) {
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Evaluates this evaluator on the selected records of a batch. The result for the i-th selected record is written
+     * to the i-th element of the results. The result for a record for which the evaluation fails is
+     * {@link TypedObject#NULL}.
+     *
+     * @param records The non-null batch of records.
+     * @param selection The selection vector.
+     * @param size The number of selected records.
+     * @param results The array to write the results to. It must have at least size elements.
+     */
+    public void evaluate(List<BulletRecord> records, int[] selection, int size, TypedObject[] results) {
+        for (int i = 0; i < size; i++) {
+            try {
+                results[i] = evaluate(records.get(selection[i]));
+            } catch (RuntimeException e) {
+                results[i] = TypedObject.NULL;
+            }
+        }
+    }
+
+    /**
+     * Evaluates this evaluator as a boolean on the selected records of a batch. The result for the i-th selected record
+     * is written to the i-th element of the results and whether it was null to the i-th element of the nulls. A record
+     * for which the evaluation fails is null.
+     *
+     * @param records The non-null batch of records.
+     * @param selection The selection vector.
+     * @param size The number of selected records.
+     * @param results The array to write the results to, which are false if null. It must have at least size elements.
+     * @param nulls The array to write whether the results were null to. It must have at least size elements.
+     */
+    public void evaluateBooleans(List<BulletRecord> records, int[] selection, int size, boolean[] results, boolean[] nulls) {
+        for (int i = 0; i < size; i++) {
+            try {
+                results[i] = evaluateBoolean(records.get(selection[i]));
+                nulls[i] = wasNull;
+            } catch (RuntimeException e) {
+                results[i] = false;
+                nulls[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the result of the last call to {@link #evaluateBoolean(BulletRecord)},
+     * {@link #evaluateLong(BulletRecord)} or {@link #evaluateDouble(BulletRecord)} was null.
+     *
+     * @return A boolean denoting whether the last primitive result was null.
+     */
+    public boolean wasNull() {
+        return wasNull;
+    }
+
+    /**
+     * Casts a non-null {@link TypedObject} to a boolean. This avoids the copy made by
+     * {@link TypedObject#forceCast(Type)} when the value is already a boolean.
+     *
+     * @param value The non-null value to cast.
+     * @return The boolean value.
+     */
+    static boolean toBoolean(TypedObject value) {
+        Object object = value.getValue();
+        if (value.getType() == Type.BOOLEAN && object instanceof Boolean) {
+            return (Boolean) object;
+        }
+        return (Boolean) value.forceCast(Type.BOOLEAN).getValue();
+    }
 }
@@ -0,0 +1,355 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.CastExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Builds evaluators for expressions. If compilation is disabled, this simply returns {@link Expression#getEvaluator()}.
+ * Otherwise, the expression tree is compiled once into a tree of specialized evaluators. Chains of ANDs and ORs, binary
+ * or n-ary, are flattened into a single {@link LogicalEvaluator}, scalar comparisons are fused into a
+ * {@link ComparisonEvaluator} and arithmetic is computed in primitives by an {@link ArithmeticEvaluator}. Regex
+ * operations can use faster matchers for simple patterns (see {@link RegexMatcher}). Comparisons of LOWER, UPPER or
+ * SUBSTRING to a constant string do not create the new string (see {@link StringViewEvaluator}). HASH64 is computed as
+ * a primitive long (see {@link HashEvaluator}). The compiled nodes also implement the primitive entry points of
+ * {@link Evaluator} without allocating. The remaining nodes reuse the interpreted evaluators over compiled children.
+ * The compiled tree has the same results, null semantics and evaluation order as the interpreted one. If compilation
+ * fails for any reason, the interpreted evaluator is used instead.
+ *
+ * A compiler can also share sub-expressions through {@link SharedEvaluators} (see {@link #sharing(SharedEvaluators)}).
+ * The tree is then built node by node even if compilation is disabled, with the interpreted evaluators for each node,
+ * so that the shareable nodes can be looked up. Use {@link #release()} once the evaluators are not used anymore.
+ *
+ * If reordering is enabled, the chain of ANDs at the root of a filter compiled with {@link #compileFilter(Expression)}
+ * reorders its operands based on how selective and expensive they are (see {@link AdaptiveAndEvaluator}).
+ *
+ * If guarding is enabled, the tree is also built node by node and the fields with a known type are wrapped so that a
+ * value of another kind of type is treated as null instead of making the operations on it fail (see
+ * {@link GuardedEvaluator}).
+ *
+ * The constant lists that values are looked up in are only evaluated once into a set (see {@link ConstantSet}) and their
+ * evaluators are not kept. If compact sets are enabled, the large ones are kept in a compact set.
+ */
+@Slf4j
+public class ExpressionCompiler {
+    private final boolean enabled;
+    private final int regexCacheSize;
+    private final boolean fastRegex;
+    private final boolean reorder;
+    private final boolean guard;
+    private final int compactSetSize;
+    private final SharedEvaluators shared;
+    // The shared expressions that were acquired by this compiler.
+    private final List<Expression> acquired = new ArrayList<>();
+
+    /**
+     * Constructor that creates an expression compiler from a {@link BulletConfig}.
+     *
+     * @param config The validated config to use.
+     */
+    public ExpressionCompiler(BulletConfig config) {
+        this(config.getAs(BulletConfig.QUERY_EXPRESSION_COMPILE_ENABLE, Boolean.class),
+             config.getAs(BulletConfig.QUERY_EXPRESSION_REGEX_CACHE_SIZE, Integer.class),
+             config.getAs(BulletConfig.QUERY_EXPRESSION_REGEX_FAST_MATCH_ENABLE, Boolean.class),
+             config.getAs(BulletConfig.QUERY_EXPRESSION_REORDER_ENABLE, Boolean.class),
+             config.getAs(BulletConfig.QUERY_EXPRESSION_GUARD_ENABLE, Boolean.class),
+             config.getAs(BulletConfig.QUERY_EXPRESSION_COMPACT_SET_ENABLE, Boolean.class) ?
+                 config.getAs(BulletConfig.QUERY_EXPRESSION_COMPACT_SET_MIN_SIZE, Integer.class) : 0);
+    }
+
+    /**
+     * Constructor that creates an expression compiler with the default regex settings.
+     *
+     * @param enabled Whether expressions should be compiled or simply use the interpreted evaluators.
+     */
+    public ExpressionCompiler(boolean enabled) {
+        this(enabled, BulletConfig.DEFAULT_QUERY_EXPRESSION_REGEX_CACHE_SIZE, BulletConfig.DEFAULT_QUERY_EXPRESSION_REGEX_FAST_MATCH_ENABLE);
+    }
+
+    /**
+     * Constructor that creates an expression compiler.
+     *
+     * @param enabled Whether expressions should be compiled or simply use the interpreted evaluators.
+     * @param regexCacheSize The maximum number of patterns from records each regex operation caches.
+     * @param fastRegex Whether regex operations use the faster matchers for simple patterns.
+     */
+    public ExpressionCompiler(boolean enabled, int regexCacheSize, boolean fastRegex) {
+        this(enabled, regexCacheSize, fastRegex, false);
+    }
+
+    /**
+     * Constructor that creates an expression compiler.
+     *
+     * @param enabled Whether expressions should be compiled or simply use the interpreted evaluators.
+     * @param regexCacheSize The maximum number of patterns from records each regex operation caches.
+     * @param fastRegex Whether regex operations use the faster matchers for simple patterns.
+     * @param reorder Whether the operands of the AND at the root of a filter are reordered as it runs.
+     */
+    public ExpressionCompiler(boolean enabled, int regexCacheSize, boolean fastRegex, boolean reorder) {
+        this(enabled, regexCacheSize, fastRegex, reorder, false);
+    }
+
+    /**
+     * Constructor that creates an expression compiler.
+     *
+     * @param enabled Whether expressions should be compiled or simply use the interpreted evaluators.
+     * @param regexCacheSize The maximum number of patterns from records each regex operation caches.
+     * @param fastRegex Whether regex operations use the faster matchers for simple patterns.
+     * @param reorder Whether the operands of the AND at the root of a filter are reordered as it runs.
+     * @param guard Whether the fields with a known type are treated as null when they have another kind of type.
+     */
+    public ExpressionCompiler(boolean enabled, int regexCacheSize, boolean fastRegex, boolean reorder, boolean guard) {
+        this(enabled, regexCacheSize, fastRegex, reorder, guard, 0);
+    }
+
+    /**
+     * Constructor that creates an expression compiler.
+     *
+     * @param enabled Whether expressions should be compiled or simply use the interpreted evaluators.
+     * @param regexCacheSize The maximum number of patterns from records each regex operation caches.
+     * @param fastRegex Whether regex operations use the faster matchers for simple patterns.
+     * @param reorder Whether the operands of the AND at the root of a filter are reordered as it runs.
+     * @param guard Whether the fields with a known type are treated as null when they have another kind of type.
+     * @param compactSetSize The minimum size of the constant lists to keep in a compact set or 0 to never use them.
+     */
+    public ExpressionCompiler(boolean enabled, int regexCacheSize, boolean fastRegex, boolean reorder, boolean guard,
+                              int compactSetSize) {
+        this(enabled, regexCacheSize, fastRegex, reorder, guard, compactSetSize, null);
+    }
+
+    private ExpressionCompiler(boolean enabled, int regexCacheSize, boolean fastRegex, boolean reorder, boolean guard,
+                               int compactSetSize, SharedEvaluators shared) {
+        this.enabled = enabled;
+        this.regexCacheSize = regexCacheSize;
+        this.fastRegex = fastRegex;
+        this.reorder = reorder;
+        this.guard = guard;
+        this.compactSetSize = compactSetSize;
+        this.shared = shared;
+    }
+
+    /**
+     * Gets a new compiler with the same settings as this one that shares sub-expressions through the given
+     * {@link SharedEvaluators}.
+     *
+     * @param shared The non-null shared evaluators to use.
+     * @return A new compiler that shares sub-expressions.
+     */
+    public ExpressionCompiler sharing(SharedEvaluators shared) {
+        return new ExpressionCompiler(enabled, regexCacheSize, fastRegex, reorder, guard, compactSetSize, shared);
+    }
+
+    /**
+     * Releases the shared sub-expressions acquired by the evaluators built by this compiler. This does nothing if this
+     * compiler does not share sub-expressions.
+     */
+    public void release() {
+        if (shared != null) {
+            shared.release(acquired);
+            acquired.clear();
+        }
+    }
+
+    /**
+     * Gets an evaluator for the given expression.
+     *
+     * @param expression The non-null expression to get an evaluator for.
+     * @return A newly-constructed evaluator for the expression.
+     */
+    public Evaluator compile(Expression expression) {
+        if (!enabled && shared == null && !guard) {
+            return expression.getEvaluator();
+        }
+        try {
+            return build(expression);
+        } catch (Exception e) {
+            log.warn("Could not compile expression {}. Falling back to the interpreted evaluator.", expression, e);
+            return expression.getEvaluator();
+        }
+    }
+
+    /**
+     * Gets an evaluator for the given filter expression. This is the same as {@link #compile(Expression)} except that
+     * if reordering is enabled and the expression is an AND, its operands may be reordered as it runs. The evaluator
+     * may then fail or return false or null for a record that does not match where the one from
+     * {@link #compile(Expression)} would have returned another of these.
+     *
+     * @param expression The non-null filter expression to get an evaluator for.
+     * @return A newly-constructed evaluator for the filter.
+     */
+    public Evaluator compileFilter(Expression expression) {
+        if (!reorder || !isAnd(expression)) {
+            return compile(expression);
+        }
+        try {
+            List<Evaluator> operands = new ArrayList<>();
+            flatten(expression, Operation.AND, operands);
+            return new AdaptiveAndEvaluator(operands);
+        } catch (Exception e) {
+            log.warn("Could not compile filter {}. Falling back to the interpreted evaluator.", expression, e);
+            return expression.getEvaluator();
+        }
+    }
+
+    private static boolean isAnd(Expression expression) {
+        return (expression instanceof BinaryExpression && ((BinaryExpression) expression).getOp() == Operation.AND) ||
+               (expression instanceof NAryExpression && ((NAryExpression) expression).getOp() == Operation.AND);
+    }
+
+    private Evaluator build(Expression expression) {
+        if (shared != null && SharedEvaluators.isShareable(expression)) {
+            Evaluator evaluator = shared.acquire(expression, () -> buildNode(expression));
+            acquired.add(expression);
+            return evaluator;
+        }
+        return buildNode(expression);
+    }
+
+    private Evaluator buildNode(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            return buildBinary((BinaryExpression) expression);
+        } else if (expression instanceof UnaryExpression) {
+            UnaryExpression unary = (UnaryExpression) expression;
+            if (enabled && unary.getOp() == Operation.HASH64) {
+                return new HashEvaluator(build(unary.getOperand()));
+            }
+            return new UnaryEvaluator(build(unary.getOperand()), UnaryOperations.UNARY_OPERATORS.get(unary.getOp()));
+        } else if (expression instanceof NAryExpression) {
+            NAryExpression nAry = (NAryExpression) expression;
+            Operation op = nAry.getOp();
+            if (enabled && (op == Operation.AND || op == Operation.OR)) {
+                List<Evaluator> operands = new ArrayList<>();
+                flatten(nAry, op, operands);
+                return new LogicalEvaluator(operands, op);
+            }
+            List<Evaluator> operands = buildAll(nAry.getOperands());
+            return new NAryEvaluator(operands, NAryOperations.getOperator(op, operands));
+        } else if (expression instanceof ListExpression) {
+            return new ListEvaluator(buildAll(((ListExpression) expression).getValues()));
+        } else if (expression instanceof CastExpression) {
+            CastExpression cast = (CastExpression) expression;
+            return new CastEvaluator(build(cast.getValue()), cast.getCastType());
+        } else if (guard && expression instanceof FieldExpression && GuardedEvaluator.isGuardable(expression.getType())) {
+            return new GuardedEvaluator(expression.getEvaluator(), expression.getType());
+        }
+        // Values and fields are already leaves with nothing to specialize.
+        return expression.getEvaluator();
+    }
+
+    private Evaluator buildBinary(BinaryExpression binary) {
+        Operation op = binary.getOp();
+        if (!enabled) {
+            // Only the nodes are built to share or guard them. The operations are the interpreted ones.
+            Evaluator left = build(binary.getLeft());
+            Evaluator right = build(binary.getRight());
+            return new BinaryEvaluator(left, right, BinaryOperations.getOperator(op, right, BulletConfig.DEFAULT_QUERY_EXPRESSION_REGEX_CACHE_SIZE, false));
+        }
+        if (op == Operation.AND || op == Operation.OR) {
+            List<Evaluator> operands = new ArrayList<>();
+            flatten(binary, op, operands);
+            return new LogicalEvaluator(operands, op);
+        }
+        Evaluator view = buildStringView(binary);
+        if (view != null) {
+            return view;
+        }
+        Evaluator lookup = buildConstantSet(binary);
+        if (lookup != null) {
+            return lookup;
+        }
+        Evaluator left = build(binary.getLeft());
+        Evaluator right = build(binary.getRight());
+        if (ComparisonEvaluator.isComparison(op)) {
+            return new ComparisonEvaluator(left, right, op);
+        } else if (ArithmeticEvaluator.isArithmetic(op)) {
+            return new ArithmeticEvaluator(left, right, op);
+        }
+        return new BinaryEvaluator(left, right, BinaryOperations.getOperator(op, left, right, regexCacheSize, fastRegex, compactSetSize));
+    }
+
+    private Evaluator buildConstantSet(BinaryExpression binary) {
+        Operation op = binary.getOp();
+        Expression constant;
+        switch (op) {
+            case IN:
+            case NOT_IN:
+            case EQUALS_ANY:
+            case NOT_EQUALS_ALL:
+                constant = binary.getRight();
+                break;
+            case CONTAINS_VALUE:
+                constant = binary.getLeft();
+                break;
+            default:
+                return null;
+        }
+        if (!(constant instanceof ListExpression)) {
+            return null;
+        }
+        // The list is evaluated once to build the set. The operator never evaluates it again so it is not kept.
+        ConstantSet set = ConstantSet.from(constant.getEvaluator(), compactSetSize);
+        if (set == null) {
+            return null;
+        }
+        BinaryOperations.BinaryOperator operator = BinaryOperations.getOperator(op, set);
+        if (op == Operation.CONTAINS_VALUE) {
+            return new BinaryEvaluator(null, build(binary.getRight()), operator);
+        }
+        return new BinaryEvaluator(build(binary.getLeft()), null, operator);
+    }
+
+    private Evaluator buildStringView(BinaryExpression binary) {
+        Operation op = binary.getOp();
+        if (!StringViewEvaluator.isSupported(op)) {
+            return null;
+        }
+        StringViewEvaluator.View view = StringViewEvaluator.getView(binary.getLeft());
+        String constant = StringViewEvaluator.getConstant(binary.getRight());
+        if (view != null && constant != null) {
+            List<Evaluator> operands = buildAll(StringViewEvaluator.getViewOperands(binary.getLeft()));
+            return new StringViewEvaluator(operands, view, op, constant, false);
+        }
+        // Only comparisons can be flipped around.
+        view = StringViewEvaluator.getView(binary.getRight());
+        constant = StringViewEvaluator.getConstant(binary.getLeft());
+        if (ComparisonEvaluator.isComparison(op) && view != null && constant != null) {
+            List<Evaluator> operands = buildAll(StringViewEvaluator.getViewOperands(binary.getRight()));
+            return new StringViewEvaluator(operands, view, op, constant, true);
+        }
+        return null;
+    }
+
+    private void flatten(Expression expression, Operation op, List<Evaluator> operands) {
+        if (expression instanceof BinaryExpression && ((BinaryExpression) expression).getOp() == op) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            flatten(binary.getLeft(), op, operands);
+            flatten(binary.getRight(), op, operands);
+        } else if (expression instanceof NAryExpression && ((NAryExpression) expression).getOp() == op) {
+            for (Expression operand : ((NAryExpression) expression).getOperands()) {
+                flatten(operand, op, operands);
+            }
+        } else {
+            operands.add(build(expression));
+        }
+    }
+
+    private List<Evaluator> buildAll(List<Expression> expressions) {
+        return expressions.stream().map(this::build).collect(Collectors.toList());
+    }
+}
@@ -12,6 +12,7 @@ import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 
 import java.io.Serializable;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -26,6 +27,38 @@ public class FieldEvaluator extends Evaluator {
         TypedObject extract(BulletRecord record);
     }
 
+    /**
+     * Extracts a top-level field. If the record is an {@link IndexedBulletRecord}, the index of the field is looked up
+     * once per layout and the field is read by index.
+     */
+    private static final class TopLevelFieldExtractor implements FieldExtractor {
+        private static final long serialVersionUID = 2093826047117434914L;
+
+        private final String field;
+        private final Type type;
+        private transient Object layout;
+        private transient int index;
+
+        private TopLevelFieldExtractor(String field, Type type) {
+            this.field = field;
+            this.type = type;
+        }
+
+        @Override
+        public TypedObject extract(BulletRecord record) {
+            if (!(record instanceof IndexedBulletRecord)) {
+                return record.typedGet(field, type);
+            }
+            IndexedBulletRecord indexed = (IndexedBulletRecord) record;
+            Object recordLayout = indexed.getFieldLayout();
+            if (recordLayout != layout) {
+                index = indexed.getFieldIndex(field);
+                layout = recordLayout;
+            }
+            return index >= 0 ? indexed.typedGet(index, type) : record.typedGet(field, type);
+        }
+    }
+
     private final FieldExtractor fieldExtractor;
 
     /**
@@ -42,15 +75,32 @@ public class FieldEvaluator extends Evaluator {
         return fieldExtractor.extract(record);
     }
 
+    @Override
+    public void evaluate(List<BulletRecord> records, int[] selection, int size, TypedObject[] results) {
+        FieldExtractor extractor = fieldExtractor;
+        for (int i = 0; i < size; i++) {
+            try {
+                results[i] = extractor.extract(records.get(selection[i]));
+            } catch (RuntimeException e) {
+                results[i] = TypedObject.NULL;
+            }
+        }
+    }
+
     private static FieldExtractor getFieldExtractor(FieldExpression fieldExpression) {
         final String field = fieldExpression.getField();
         final Serializable key = fieldExpression.getKey();
         final Serializable subKey = fieldExpression.getSubKey();
         final Type fieldType = fieldExpression.getType() != null ? fieldExpression.getType() : Type.UNKNOWN;
+        // The types of the containers of the field are resolved once here instead of for every record.
+        final Type mapType = getSuperType(Type.MAPS, fieldType);
+        final Type listType = getSuperType(Type.LISTS, fieldType);
+        final Type complexMapType = getSuperSuperType(Type.COMPLEX_MAPS, fieldType);
+        final Type complexListType = getSuperSuperType(Type.COMPLEX_LISTS, fieldType);
 
         if (key instanceof String) {
             if (subKey instanceof String) {
-                return record -> record.typedGet(field, (String) key, (String) subKey, getSuperSuperType(Type.COMPLEX_MAPS, fieldType));
+                return record -> record.typedGet(field, (String) key, (String) subKey, complexMapType);
             } else if (subKey instanceof Expression) {
                 final Evaluator subKeyEvaluator = ((Expression) subKey).getEvaluator();
                 return record -> {
@@ -58,14 +108,14 @@ public class FieldEvaluator extends Evaluator {
                     if (subKeyArg.isNull()) {
                         return TypedObject.NULL;
                     }
-                    return record.typedGet(field, (String) key, (String) subKeyArg.getValue(), getSuperSuperType(Type.COMPLEX_MAPS, fieldType));
+                    return record.typedGet(field, (String) key, (String) subKeyArg.getValue(), complexMapType);
                 };
             } else {
-                return record -> record.typedGet(field, (String) key, getSuperType(Type.MAPS, fieldType));
+                return record -> record.typedGet(field, (String) key, mapType);
             }
         } else if (key instanceof Integer) {
             if (subKey instanceof String) {
-                return record -> record.typedGet(field, (Integer) key, (String) subKey, getSuperSuperType(Type.COMPLEX_LISTS, fieldType));
+                return record -> record.typedGet(field, (Integer) key, (String) subKey, complexListType);
             } else if (subKey instanceof Expression) {
                 final Evaluator subKeyEvaluator = ((Expression) subKey).getEvaluator();
                 return record -> {
@@ -73,10 +123,10 @@ public class FieldEvaluator extends Evaluator {
                     if (subKeyArg.isNull()) {
                         return TypedObject.NULL;
                     }
-                    return record.typedGet(field, (Integer) key, (String) subKeyArg.getValue(), getSuperSuperType(Type.COMPLEX_LISTS, fieldType));
+                    return record.typedGet(field, (Integer) key, (String) subKeyArg.getValue(), complexListType);
                 };
             } else {
-                return record -> record.typedGet(field, (Integer) key, getSuperType(Type.LISTS, fieldType));
+                return record -> record.typedGet(field, (Integer) key, listType);
             }
         } else if (key instanceof Expression) {
             final Evaluator keyEvaluator = ((Expression) key).getEvaluator();
@@ -88,9 +138,9 @@ public class FieldEvaluator extends Evaluator {
                     }
                     Type type = keyArg.getType();
                     if (Type.isNumeric(type)) {
-                        return record.typedGet(field, ((Number) keyArg.getValue()).intValue(), (String) subKey, getSuperSuperType(Type.COMPLEX_LISTS, fieldType));
+                        return record.typedGet(field, ((Number) keyArg.getValue()).intValue(), (String) subKey, complexListType);
                     } else {
-                        return record.typedGet(field, (String) keyArg.getValue(), (String) subKey, getSuperSuperType(Type.COMPLEX_MAPS, fieldType));
+                        return record.typedGet(field, (String) keyArg.getValue(), (String) subKey, complexMapType);
                     }
                 };
             } else if (subKey instanceof Expression) {
@@ -106,9 +156,9 @@ public class FieldEvaluator extends Evaluator {
                     }
                     Type type = keyArg.getType();
                     if (Type.isNumeric(type)) {
-                        return record.typedGet(field, ((Number) keyArg.getValue()).intValue(), (String) subKeyArg.getValue(), getSuperSuperType(Type.COMPLEX_LISTS, fieldType));
+                        return record.typedGet(field, ((Number) keyArg.getValue()).intValue(), (String) subKeyArg.getValue(), complexListType);
                     } else {
-                        return record.typedGet(field, (String) keyArg.getValue(), (String) subKeyArg.getValue(), getSuperSuperType(Type.COMPLEX_MAPS, fieldType));
+                        return record.typedGet(field, (String) keyArg.getValue(), (String) subKeyArg.getValue(), complexMapType);
                     }
                 };
             } else {
@@ -119,14 +169,14 @@ public class FieldEvaluator extends Evaluator {
                     }
                     Type type = keyArg.getType();
                     if (Type.isNumeric(type)) {
-                        return record.typedGet(field, ((Number) keyArg.getValue()).intValue(), getSuperType(Type.LISTS, fieldType));
+                        return record.typedGet(field, ((Number) keyArg.getValue()).intValue(), listType);
                     } else {
-                        return record.typedGet(field, (String) keyArg.getValue(), getSuperType(Type.MAPS, fieldType));
+                        return record.typedGet(field, (String) keyArg.getValue(), mapType);
                     }
                 };
             }
         } else {
-            return record -> record.typedGet(field, fieldType);
+            return new TopLevelFieldExtractor(field, fieldType);
         }
     }
 
@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.yahoo.bullet.common.Utilities.isNull;
+
+/**
+ * An evaluator that wraps the evaluator of a field with a known type and returns {@link TypedObject#NULL} if the value
+ * of the field in a record is not of that kind of type. Numbers of any numeric type are accepted for a numeric field
+ * but a string, for instance, is not. The operations on the field can then rely on its type instead of failing with a
+ * {@link ClassCastException} for records where it has another type.
+ *
+ * For a list or a map, only the first element, or the first value of the map, is checked against the type of the
+ * elements, recursively for lists and maps of maps. Checking every element would cost as much as the operation itself,
+ * so a container whose elements have mixed types can still pass the guard if its first element has the right type.
+ */
+final class GuardedEvaluator extends Evaluator {
+    private static final long serialVersionUID = -3366105183604711862L;
+
+    final Evaluator evaluator;
+    final Type type;
+
+    /**
+     * Constructor that wraps an evaluator.
+     *
+     * @param evaluator The non-null evaluator to guard.
+     * @param type The type the results of the evaluator should have. See {@link #isGuardable(Type)}.
+     */
+    GuardedEvaluator(Evaluator evaluator, Type type) {
+        this.evaluator = evaluator;
+        this.type = type;
+    }
+
+    /**
+     * Checks whether the results of an expression of the given type can be guarded.
+     *
+     * @param type The type of the expression. Can be null.
+     * @return True if the type is a primitive, a list or a map type.
+     */
+    static boolean isGuardable(Type type) {
+        return type != null && (Type.isPrimitive(type) || Type.isList(type) || Type.isMap(type));
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        TypedObject value = evaluator.evaluate(record);
+        return isNull(value) || matches(value) ? value : TypedObject.NULL;
+    }
+
+    private boolean matches(TypedObject value) {
+        Type actual = value.getType();
+        if (Type.isNumeric(type)) {
+            return Type.isNumeric(actual) && matches(type, value.getValue());
+        } else if (Type.isList(type)) {
+            return Type.isList(actual) && matches(type, value.getValue());
+        } else if (Type.isMap(type)) {
+            return Type.isMap(actual) && matches(type, value.getValue());
+        }
+        return actual == type && matches(type, value.getValue());
+    }
+
+    private static boolean matches(Type type, Object object) {
+        if (Type.isNumeric(type)) {
+            return object instanceof Number;
+        } else if (type == Type.STRING) {
+            return object instanceof String;
+        } else if (type == Type.BOOLEAN) {
+            return object instanceof Boolean;
+        } else if (Type.isList(type)) {
+            if (!(object instanceof List)) {
+                return false;
+            }
+            List<?> list = (List<?>) object;
+            return list.isEmpty() || matchesElement(type.getSubType(), list.get(0));
+        } else if (Type.isMap(type)) {
+            if (!(object instanceof Map)) {
+                return false;
+            }
+            Map<?, ?> map = (Map<?, ?>) object;
+            return map.isEmpty() || matchesElement(type.getSubType(), map.values().iterator().next());
+        }
+        return false;
+    }
+
+    private static boolean matchesElement(Type type, Object element) {
+        return element == null || matches(type, element);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import static com.yahoo.bullet.common.Utilities.isNull;
+
+/**
+ * A compiled evaluator for HASH64. It computes the same {@link XXHash64} as the interpreted operation, with the sign bit
+ * cleared so that the remainder of a division is never negative, but implements {@link #evaluateLong(BulletRecord)} so
+ * that the hash is a primitive long. Strings are encoded to UTF-8 into a buffer
+ * that is reused across records instead of a new byte array for each one. Along with {@link ArithmeticEvaluator} and
+ * {@link ComparisonEvaluator}, a sampling filter like HASH64(x) % 100 &lt; 5 does not allocate.
+ */
+final class HashEvaluator extends Evaluator {
+    private static final long serialVersionUID = 2398745873163712036L;
+
+    private static final int INITIAL_BUFFER_SIZE = 64;
+
+    final Evaluator operand;
+    private transient byte[] buffer;
+
+    /**
+     * Constructor that creates an evaluator that hashes the result of another evaluator.
+     *
+     * @param operand The evaluator to hash the result of.
+     */
+    HashEvaluator(Evaluator operand) {
+        this.operand = operand;
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        long result = evaluateLong(record);
+        return wasNull ? TypedObject.NULL : TypedObject.valueOf(result);
+    }
+
+    @Override
+    public long evaluateLong(BulletRecord record) {
+        TypedObject value = operand.evaluate(record);
+        wasNull = isNull(value);
+        if (wasNull) {
+            return 0L;
+        }
+        Object object = value.getValue();
+        if (!(object instanceof String)) {
+            return XXHash64.hash(object) & Long.MAX_VALUE;
+        }
+        String string = (String) object;
+        // A char is at most 3 bytes in UTF-8. A surrogate pair is 4 bytes for 2 chars.
+        int maxLength = string.length() * 3;
+        if (buffer == null || buffer.length < maxLength) {
+            buffer = new byte[Math.max(INITIAL_BUFFER_SIZE, Integer.highestOneBit(maxLength) << 1)];
+        }
+        return XXHash64.hash(buffer, 0, encode(string, buffer)) & Long.MAX_VALUE;
+    }
+
+    @Override
+    public double evaluateDouble(BulletRecord record) {
+        return evaluateLong(record);
+    }
+
+    /**
+     * Encodes a string to UTF-8 exactly like {@link String#getBytes(java.nio.charset.Charset)} does. Unpaired
+     * surrogates are replaced by '?'.
+     *
+     * @param string The string to encode.
+     * @param bytes The buffer to encode into. It must have at least 3 bytes per char of the string.
+     * @return The number of bytes written.
+     */
+    static int encode(String string, byte[] bytes) {
+        int length = 0;
+        int size = string.length();
+        for (int i = 0; i < size; i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(string.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                bytes[length++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                bytes[length++] = '?';
+            } else {
+                bytes[length++] = (byte) (0xE0 | c >> 12);
+                bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+/**
+ * An optional interface for {@link BulletRecord} implementations that store their fields in slots whose positions are
+ * known from a schema, such as records built from a configured record schema. A {@link FieldEvaluator} for a top-level
+ * field resolves the index of its field once per layout and then reads the field by index instead of by name.
+ */
+public interface IndexedBulletRecord {
+    /**
+     * Gets the layout of the fields of this record. Records that return the same (identical) layout must have their
+     * fields at the same indices. This is typically the schema of the record.
+     *
+     * @return The non-null layout of this record.
+     */
+    Object getFieldLayout();
+
+    /**
+     * Gets the index of the given field in the layout of this record.
+     *
+     * @param field The name of the field.
+     * @return The index of the field or a negative number if it is not in the layout.
+     */
+    int getFieldIndex(String field);
+
+    /**
+     * Gets the field at the given index like {@link BulletRecord#typedGet(String, Type)} would for its name.
+     *
+     * @param index The index of the field in the layout of this record.
+     * @param hint The type of the field if known or {@link Type#UNKNOWN}.
+     * @return The value of the field or {@link TypedObject#NULL} if it is not set.
+     */
+    TypedObject typedGet(int index, Type hint);
+}
@@ -31,6 +31,10 @@ public class ListEvaluator extends Evaluator {
         evaluators = listExpression.getValues().stream().map(Expression::getEvaluator).collect(Collectors.toList());
     }
 
+    ListEvaluator(List<Evaluator> evaluators) {
+        this.evaluators = evaluators;
+    }
+
     @Override
     public TypedObject evaluate(BulletRecord record) {
         return new TypedObject(evaluators.stream().map(e -> e.evaluate(record).getValue()).collect(Collectors.toCollection(ArrayList::new)));
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.util.List;
+
+/**
+ * A compiled evaluator for a chain of ANDs or ORs. Nested binary ANDs (or ORs) are flattened into a single node that
+ * evaluates its operands in order and short-circuits on the first FALSE (or TRUE). The three-valued logic and the
+ * evaluation order are the same as those of the nested {@link BinaryOperations#and(Evaluator, Evaluator, BulletRecord)}
+ * and {@link BinaryOperations#or(Evaluator, Evaluator, BulletRecord)}.
+ *
+ * On a batch of records, a chain of ANDs selects the records operand by operand so that each operand only evaluates
+ * the records that all the previous operands kept.
+ */
+final class LogicalEvaluator extends Evaluator {
+    private static final long serialVersionUID = -5340237745163427317L;
+
+    final Evaluator[] operands;
+    // The value that short-circuits the chain: false for AND and true for OR.
+    final boolean dominant;
+
+    LogicalEvaluator(List<Evaluator> operands, Operation op) {
+        if (op != Operation.AND && op != Operation.OR) {
+            throw new UnsupportedOperationException("Not a logical operation: " + op);
+        }
+        this.operands = operands.toArray(new Evaluator[0]);
+        this.dominant = op == Operation.OR;
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        boolean result = evaluateBoolean(record);
+        return wasNull ? TypedObject.NULL : TypedObject.valueOf(result);
+    }
+
+    @Override
+    public boolean evaluateBoolean(BulletRecord record) {
+        boolean hasNull = false;
+        for (Evaluator operand : operands) {
+            boolean value = operand.evaluateBoolean(record);
+            if (operand.wasNull) {
+                hasNull = true;
+            } else if (value == dominant) {
+                wasNull = false;
+                return dominant;
+            }
+        }
+        wasNull = hasNull;
+        return !hasNull && !dominant;
+    }
+
+    @Override
+    public int select(List<BulletRecord> records, int[] selection, int size) {
+        if (dominant) {
+            return super.select(records, selection, size);
+        }
+        // A record is true for the AND if and only if it is true for every operand without failing. If the AND is
+        // false, null or fails on it instead, it is not selected either way.
+        for (int i = 0; i < operands.length && size > 0; i++) {
+            size = operands[i].select(records, selection, size);
+        }
+        return size;
+    }
+}
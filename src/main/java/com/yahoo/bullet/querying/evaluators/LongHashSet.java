@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+/**
+ * A minimal open-addressing hash set of primitive longs. It does not box its values and only supports adding and
+ * looking them up. Doubles and floats can be stored as their bits.
+ */
+final class LongHashSet implements LongSet {
+    private static final long serialVersionUID = 2385012640581337105L;
+
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MINIMUM_CAPACITY = 8;
+
+    // 0 marks an empty slot. The value 0 itself is tracked separately.
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+
+    /**
+     * Constructor that creates a set sized for the given number of values.
+     *
+     * @param expectedSize The number of values that are expected to be added.
+     */
+    LongHashSet(int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value to add.
+     */
+    void add(long value) {
+        if (value == 0L) {
+            hasZero = true;
+            return;
+        }
+        if (size + 1 > table.length * LOAD_FACTOR) {
+            grow();
+        }
+        if (insert(table, mask, value)) {
+            size++;
+        }
+    }
+
+    /**
+     * Checks if a value is in the set.
+     *
+     * @param value The value to look for.
+     * @return True if the value was added to the set and false otherwise.
+     */
+    @Override
+    public boolean contains(long value) {
+        if (value == 0L) {
+            return hasZero;
+        }
+        for (int i = index(value, mask); ; i = (i + 1) & mask) {
+            long slot = table[i];
+            if (slot == value) {
+                return true;
+            } else if (slot == 0L) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of values in the set.
+     *
+     * @return The number of distinct values added.
+     */
+    @Override
+    public int size() {
+        return hasZero ? size + 1 : size;
+    }
+
+    private void grow() {
+        long[] grown = new long[table.length << 1];
+        int grownMask = grown.length - 1;
+        for (long value : table) {
+            if (value != 0L) {
+                insert(grown, grownMask, value);
+            }
+        }
+        table = grown;
+        mask = grownMask;
+    }
+
+    private static boolean insert(long[] table, int mask, long value) {
+        for (int i = index(value, mask); ; i = (i + 1) & mask) {
+            long slot = table[i];
+            if (slot == value) {
+                return false;
+            } else if (slot == 0L) {
+                table[i] = value;
+                return true;
+            }
+        }
+    }
+
+    private static int index(long value, int mask) {
+        // Spread the bits so that sequential ids and the bits of doubles do not cluster.
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import java.io.Serializable;
+
+/**
+ * A set of primitive longs that values can be looked up in without boxing them.
+ */
+interface LongSet extends Serializable {
+    /**
+     * Checks if a value is in the set.
+     *
+     * @param value The value to look for.
+     * @return True if the value is in the set and false otherwise.
+     */
+    boolean contains(long value);
+
+    /**
+     * Gets the number of values in the set.
+     *
+     * @return The number of distinct values in the set.
+     */
+    int size();
+}
@@ -0,0 +1,339 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a whole string against many regexes at once. A string matches if and only if it matches at least one of the
+ * regexes like {@link RegexMatcher} would, but the string is not matched against each regex one after another.
+ *
+ * If fast matching is enabled, the literal regexes are looked up in a hash set and the literals of the prefix, suffix
+ * and contains regexes (see {@link RegexMatcher#compile(String, boolean)}) are put in tries. The prefix and suffix
+ * tries are walked once from either end of the string and the contains trie is an Aho-Corasick automaton that scans the
+ * string once no matter how many literals it has. All the other regexes are combined into a single alternation that is
+ * matched once. The few regexes that cannot be put in an alternation without changing their meaning, such as the ones
+ * with back references, are matched one after another.
+ */
+final class MultiPatternMatcher implements Serializable {
+    private static final long serialVersionUID = -4404212860123599185L;
+
+    private final Set<String> literals;
+    private final Trie prefixes;
+    private final Trie suffixes;
+    private final Trie contains;
+    private final Pattern alternation;
+    private final RegexMatcher[] others;
+
+    private MultiPatternMatcher(Set<String> literals, Trie prefixes, Trie suffixes, Trie contains, Pattern alternation,
+                                RegexMatcher[] others) {
+        this.literals = literals;
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+        this.contains = contains;
+        this.alternation = alternation;
+        this.others = others;
+    }
+
+    /**
+     * Compiles regexes into a {@link MultiPatternMatcher}.
+     *
+     * @param regexes The non-null regexes to compile.
+     * @param fast Whether to match the literal, prefix, suffix and contains regexes without {@link java.util.regex}.
+     * @return A matcher for the regexes.
+     * @throws java.util.regex.PatternSyntaxException if any of the regexes is invalid.
+     */
+    static MultiPatternMatcher compile(Collection<String> regexes, boolean fast) {
+        Set<String> literals = new HashSet<>();
+        List<String> prefixes = new ArrayList<>();
+        List<String> suffixes = new ArrayList<>();
+        List<String> contains = new ArrayList<>();
+        List<String> alternatives = new ArrayList<>();
+        List<RegexMatcher> others = new ArrayList<>();
+        for (String regex : regexes) {
+            // Fails on an invalid regex before it can be combined with the others.
+            Pattern.compile(regex);
+            if (fast && addLiteral(regex, literals, prefixes, suffixes, contains)) {
+                continue;
+            }
+            if (isCombinable(regex)) {
+                alternatives.add(regex);
+            } else {
+                others.add(RegexMatcher.compile(regex, false));
+            }
+        }
+        Pattern alternation = null;
+        if (!alternatives.isEmpty()) {
+            StringBuilder builder = new StringBuilder();
+            for (String alternative : alternatives) {
+                builder.append(builder.length() == 0 ? "" : "|").append("(?:").append(alternative).append(')');
+            }
+            alternation = Pattern.compile(builder.toString());
+        }
+        return new MultiPatternMatcher(literals.isEmpty() ? null : literals, Trie.of(prefixes, false, false),
+                                       Trie.of(suffixes, true, false), Trie.of(contains, false, true), alternation,
+                                       others.toArray(new RegexMatcher[0]));
+    }
+
+    /**
+     * Checks if the given string matches any of the regexes.
+     *
+     * @param value The non-null string to match.
+     * @return True if the whole string matches at least one of the regexes and false otherwise.
+     */
+    boolean matches(String value) {
+        if (literals != null && literals.contains(value)) {
+            return true;
+        }
+        // Like .*, the tries do not match strings with line terminators.
+        if ((prefixes != null || suffixes != null || contains != null) && !RegexMatcher.hasLineTerminator(value)) {
+            if (prefixes != null && prefixes.matchesPrefix(value)) {
+                return true;
+            }
+            if (suffixes != null && suffixes.matchesSuffix(value)) {
+                return true;
+            }
+            if (contains != null && contains.matchesAnywhere(value)) {
+                return true;
+            }
+        }
+        if (alternation != null && alternation.matcher(value).matches()) {
+            return true;
+        }
+        for (RegexMatcher other : others) {
+            if (other.matches(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean addLiteral(String regex, Set<String> literals, List<String> prefixes, List<String> suffixes,
+                                      List<String> contains) {
+        boolean anyPrefix = regex.startsWith(RegexMatcher.ANY);
+        int start = anyPrefix ? RegexMatcher.ANY.length() : 0;
+        boolean anySuffix = regex.length() - start >= RegexMatcher.ANY.length() && regex.endsWith(RegexMatcher.ANY);
+        int end = anySuffix ? regex.length() - RegexMatcher.ANY.length() : regex.length();
+        String literal = regex.substring(start, end);
+        if (!RegexMatcher.isLiteral(literal)) {
+            return false;
+        }
+        if (anyPrefix && anySuffix) {
+            contains.add(literal);
+        } else if (anyPrefix) {
+            suffixes.add(literal);
+        } else if (anySuffix) {
+            prefixes.add(literal);
+        } else {
+            literals.add(literal);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the given valid regex means the same thing as an alternative of an alternation. Quotes that are not
+     * closed, back references and named groups depend on the rest of the pattern, and inline flags could turn on
+     * comments that swallow the end of the alternative.
+     *
+     * @param regex The valid regex to check.
+     * @return True if the regex can be combined with others.
+     */
+    static boolean isCombinable(String regex) {
+        for (int i = 0; i < regex.length() - 1; i++) {
+            char c = regex.charAt(i);
+            char next = regex.charAt(i + 1);
+            if (c == '\\') {
+                if (next == 'Q' || next == 'k' || Character.isDigit(next)) {
+                    return false;
+                }
+                // Skips the escaped character.
+                i++;
+            } else if (c == '(' && next == '?' && i + 2 < regex.length()) {
+                char kind = regex.charAt(i + 2);
+                boolean lookbehind = kind == '<' && i + 3 < regex.length() && (regex.charAt(i + 3) == '=' || regex.charAt(i + 3) == '!');
+                if ((kind == '<' && !lookbehind) || kind == '-' || Character.isLetter(kind)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A trie of literals that can be walked from either end of a string or, if it is linked, scanned through it as an
+     * Aho-Corasick automaton. The children of each node are kept in sorted arrays.
+     */
+    private static final class Trie implements Serializable {
+        private static final long serialVersionUID = 6210473308207741826L;
+
+        private static final int ROOT = 0;
+        private static final int NONE = -1;
+
+        private final char[][] keys;
+        private final int[][] children;
+        // Whether a literal ends at the node or, if linked, at any node on its failure chain.
+        private final boolean[] output;
+        private final int[] failures;
+
+        private Trie(char[][] keys, int[][] children, boolean[] output, int[] failures) {
+            this.keys = keys;
+            this.children = children;
+            this.output = output;
+            this.failures = failures;
+        }
+
+        private static Trie of(List<String> literals, boolean reversed, boolean linked) {
+            if (literals.isEmpty()) {
+                return null;
+            }
+            List<TreeMap<Character, Integer>> nodes = new ArrayList<>();
+            List<Boolean> ends = new ArrayList<>();
+            nodes.add(new TreeMap<>());
+            ends.add(false);
+            for (String literal : literals) {
+                int node = ROOT;
+                for (int i = 0; i < literal.length(); i++) {
+                    char c = literal.charAt(reversed ? literal.length() - 1 - i : i);
+                    Integer child = nodes.get(node).get(c);
+                    if (child == null) {
+                        child = nodes.size();
+                        nodes.get(node).put(c, child);
+                        nodes.add(new TreeMap<>());
+                        ends.add(false);
+                    }
+                    node = child;
+                }
+                ends.set(node, true);
+            }
+            int size = nodes.size();
+            char[][] keys = new char[size][];
+            int[][] children = new int[size][];
+            boolean[] output = new boolean[size];
+            for (int node = 0; node < size; node++) {
+                Map<Character, Integer> edges = nodes.get(node);
+                keys[node] = new char[edges.size()];
+                children[node] = new int[edges.size()];
+                int i = 0;
+                for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                    keys[node][i] = edge.getKey();
+                    children[node][i] = edge.getValue();
+                    i++;
+                }
+                output[node] = ends.get(node);
+            }
+            Trie trie = new Trie(keys, children, output, linked ? new int[size] : null);
+            if (linked) {
+                trie.link();
+            }
+            return trie;
+        }
+
+        // Links each node to the node of its longest proper suffix in the trie, breadth first from the root.
+        private void link() {
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int child : children[ROOT]) {
+                failures[child] = ROOT;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int i = 0; i < keys[node].length; i++) {
+                    int child = children[node][i];
+                    int failure = failures[node];
+                    while (failure != ROOT && next(failure, keys[node][i]) == NONE) {
+                        failure = failures[failure];
+                    }
+                    int target = next(failure, keys[node][i]);
+                    failures[child] = target == NONE ? ROOT : target;
+                    output[child] |= output[failures[child]];
+                    queue.add(child);
+                }
+            }
+        }
+
+        private int next(int node, char c) {
+            char[] edges = keys[node];
+            int low = 0;
+            int high = edges.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char key = edges[middle];
+                if (key < c) {
+                    low = middle + 1;
+                } else if (key > c) {
+                    high = middle - 1;
+                } else {
+                    return children[node][middle];
+                }
+            }
+            return NONE;
+        }
+
+        private boolean matchesPrefix(String value) {
+            int node = ROOT;
+            if (output[node]) {
+                return true;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                node = next(node, value.charAt(i));
+                if (node == NONE) {
+                    return false;
+                }
+                if (output[node]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesSuffix(String value) {
+            int node = ROOT;
+            if (output[node]) {
+                return true;
+            }
+            for (int i = value.length() - 1; i >= 0; i--) {
+                node = next(node, value.charAt(i));
+                if (node == NONE) {
+                    return false;
+                }
+                if (output[node]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesAnywhere(String value) {
+            int node = ROOT;
+            if (output[node]) {
+                return true;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                int child = next(node, c);
+                while (child == NONE && node != ROOT) {
+                    node = failures[node];
+                    child = next(node, c);
+                }
+                node = child == NONE ? ROOT : child;
+                if (output[node]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -29,7 +29,12 @@ public class NAryEvaluator extends Evaluator {
      */
     public NAryEvaluator(NAryExpression nAryExpression) {
         operands = nAryExpression.getOperands().stream().map(Expression::getEvaluator).collect(Collectors.toList());
-        op = NAryOperations.N_ARY_OPERATORS.get(nAryExpression.getOp());
+        op = NAryOperations.getOperator(nAryExpression.getOp(), operands);
+    }
+
+    NAryEvaluator(List<Evaluator> operands, NAryOperations.NAryOperator op) {
+        this.operands = operands;
+        this.op = op;
     }
 
     @Override
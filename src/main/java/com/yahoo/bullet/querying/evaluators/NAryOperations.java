@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.common.Clock;
 import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.typesystem.Type;
@@ -13,8 +14,10 @@ import com.yahoo.bullet.typesystem.TypedObject;
 import java.io.Serializable;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneRules;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +31,8 @@ public class NAryOperations {
     }
 
     static final Map<Operation, NAryOperator> N_ARY_OPERATORS = new EnumMap<>(Operation.class);
+    // The maximum number of formatters for patterns that are not constant that each UNIXTIMESTAMP keeps.
+    static final int FORMATTER_CACHE_SIZE = 64;
 
     static {
         N_ARY_OPERATORS.put(Operation.AND, NAryOperations::allMatch);
@@ -39,6 +44,31 @@ public class NAryOperations {
         N_ARY_OPERATORS.put(Operation.UNIX_TIMESTAMP, NAryOperations::unixTimestamp);
     }
 
+    /**
+     * Gets the operator to use for an n-ary operation given its operands. UNIXTIMESTAMP gets its own operator that
+     * parses dates in the default layout with a {@link TimestampParser} and keeps its formatters. If the pattern is
+     * constant, its formatter is built once here. Otherwise, the formatters for the patterns that come from the record
+     * are kept in a {@link DateTimeFormatterCache}. All other operations use the shared operators in
+     * {@link #N_ARY_OPERATORS}.
+     *
+     * @param op The n-ary operation.
+     * @param operands The operands of the operation.
+     * @return The operator to use.
+     */
+    static NAryOperator getOperator(Operation op, List<Evaluator> operands) {
+        if (op != Operation.UNIX_TIMESTAMP) {
+            return N_ARY_OPERATORS.get(op);
+        }
+        switch (operands.size()) {
+            case 1:
+                return unixTimestamp(ZoneId.systemDefault().getRules());
+            case 2:
+                return unixTimestampWithPattern(operands.get(1));
+            default:
+                return N_ARY_OPERATORS.get(op);
+        }
+    }
+
     static TypedObject allMatch(List<Evaluator> evaluators, BulletRecord record) {
         boolean containsNull = false;
         for (Evaluator evaluator : evaluators) {
@@ -132,12 +162,27 @@ public class NAryOperations {
             }
         }
         String string = (String) stringArg.getValue();
+        long bounds = substringBounds(string, startArg, lengthArg);
+        return TypedObject.valueOf(string.substring(substringBegin(bounds), substringEnd(bounds)));
+    }
+
+    /**
+     * Computes where the substring of a string starts and ends given the non-null arguments of SUBSTRING. The bounds
+     * are packed in a long to not allocate. See {@link #substringBegin(long)} and {@link #substringEnd(long)}. Like
+     * {@link String#substring(int, int)}, the end may be before the start if the length overflows.
+     *
+     * @param string The non-null string.
+     * @param startArg The non-null 1-indexed start of the substring. If negative, it is counted from the end.
+     * @param lengthArg The non-null length of the substring or null if it goes to the end of the string.
+     * @return The packed bounds of the substring.
+     */
+    static long substringBounds(String string, TypedObject startArg, TypedObject lengthArg) {
         if (string.isEmpty()) {
-            return TypedObject.valueOf("");
+            return 0L;
         }
         int start = ((Number) startArg.getValue()).intValue();
         if (start == 0 || Math.abs(start) > string.length()) {
-            return TypedObject.valueOf("");
+            return 0L;
         }
         // Change start to 0-index
         if (start > 0) {
@@ -145,15 +190,26 @@ public class NAryOperations {
         } else {
             start += string.length();
         }
-        if (evaluators.size() == 2) {
-            return TypedObject.valueOf(string.substring(start));
+        if (lengthArg == null) {
+            return bounds(start, string.length());
         }
         int length = ((Number) lengthArg.getValue()).intValue();
         if (length <= 0) {
-            return TypedObject.valueOf("");
+            return 0L;
         }
-        int end = Math.min(start + length, string.length());
-        return TypedObject.valueOf(string.substring(start, end));
+        return bounds(start, Math.min(start + length, string.length()));
+    }
+
+    static int substringBegin(long bounds) {
+        return (int) (bounds >>> 32);
+    }
+
+    static int substringEnd(long bounds) {
+        return (int) bounds;
+    }
+
+    private static long bounds(int begin, int end) {
+        return ((long) begin << 32) | (end & 0xFFFFFFFFL);
     }
 
     static TypedObject unixTimestamp(List<Evaluator> evaluators, BulletRecord record) {
@@ -179,6 +235,76 @@ public class NAryOperations {
             LocalDateTime localDateTime = LocalDateTime.parse(date, DateTimeFormatter.ofPattern(pattern));
             return TypedObject.valueOf(localDateTime.toEpochSecond(ZoneOffset.UTC));
         }
-        return TypedObject.valueOf(System.currentTimeMillis() / 1000);
+        return TypedObject.valueOf(Clock.now() / 1000);
+    }
+
+    /**
+     * The one argument UNIXTIMESTAMP. Dates in the default layout are parsed directly if they would be parsed the same
+     * way by {@link Timestamp#valueOf(String)} in the given time zone.
+     */
+    private static NAryOperator unixTimestamp(ZoneRules rules) {
+        return (evaluators, record) -> {
+            TypedObject dateArg = evaluators.get(0).evaluate(record);
+            if (isNull(dateArg)) {
+                return TypedObject.NULL;
+            }
+            String date = (String) dateArg.getValue();
+            long seconds = TimestampParser.parse(date, true, rules);
+            if (seconds != TimestampParser.INVALID) {
+                return TypedObject.valueOf(seconds);
+            }
+            Timestamp timestamp = Timestamp.valueOf(date);
+            return TypedObject.valueOf(timestamp.toLocalDateTime().toEpochSecond(ZoneOffset.UTC));
+        };
+    }
+
+    private static NAryOperator unixTimestampWithPattern(Evaluator patternOperand) {
+        String constant = getConstantPattern(patternOperand);
+        DateTimeFormatterCache cache = new DateTimeFormatterCache(constant != null ? 1 : FORMATTER_CACHE_SIZE);
+        if (constant != null) {
+            cache.get(constant);
+        }
+        return (evaluators, record) -> {
+            TypedObject dateArg = evaluators.get(0).evaluate(record);
+            if (isNull(dateArg)) {
+                return TypedObject.NULL;
+            }
+            String pattern = constant;
+            if (pattern == null) {
+                TypedObject patternArg = evaluators.get(1).evaluate(record);
+                if (isNull(patternArg)) {
+                    return TypedObject.NULL;
+                }
+                pattern = (String) patternArg.getValue();
+            }
+            // First argument can be a number
+            String date = Type.isNumeric(dateArg.getType()) ? Long.toString(((Number) dateArg.getValue()).longValue()) : (String) dateArg.getValue();
+            if (TimestampParser.DEFAULT_PATTERN.equals(pattern)) {
+                long seconds = TimestampParser.parse(date, false, null);
+                if (seconds != TimestampParser.INVALID) {
+                    return TypedObject.valueOf(seconds);
+                }
+            }
+            LocalDateTime localDateTime = LocalDateTime.parse(date, cache.get(pattern));
+            return TypedObject.valueOf(localDateTime.toEpochSecond(ZoneOffset.UTC));
+        };
+    }
+
+    // The constant pattern in the given evaluator if it is a non-null string that is a valid pattern.
+    private static String getConstantPattern(Evaluator evaluator) {
+        if (!(evaluator instanceof ValueEvaluator)) {
+            return null;
+        }
+        Serializable pattern = ((ValueEvaluator) evaluator).value.getValue();
+        if (!(pattern instanceof String)) {
+            return null;
+        }
+        try {
+            DateTimeFormatter.ofPattern((String) pattern);
+            return (String) pattern;
+        } catch (IllegalArgumentException ignored) {
+            // Let the invalid pattern fail on evaluation like it would otherwise.
+            return null;
+        }
     }
 }
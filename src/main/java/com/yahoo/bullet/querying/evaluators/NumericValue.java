@@ -0,0 +1,162 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.io.Serializable;
+
+import static com.yahoo.bullet.common.Utilities.isNull;
+
+/**
+ * A reusable, mutable holder for an intermediate numeric result. It either wraps the {@link TypedObject} produced by a
+ * regular evaluator or holds the primitive result of an {@link ArithmeticEvaluator} along with its {@link Type}. This
+ * lets arithmetic and comparisons be chained without allocating intermediate {@link TypedObject}. The conversions
+ * mirror the {@link Number} conversions the interpreted operations use.
+ */
+final class NumericValue implements Serializable {
+    private static final long serialVersionUID = -6198244962218566014L;
+
+    Type type;
+    // The wrapped value if this was loaded from a regular evaluator and null if it holds a computed result.
+    TypedObject source;
+    // Computed INTEGER and LONG results.
+    long longResult;
+    // Computed FLOAT and DOUBLE results.
+    double doubleResult;
+
+    /**
+     * Loads the result of the given evaluator on the given record into this holder.
+     *
+     * @param evaluator The evaluator to load the result of.
+     * @param record The record to evaluate on.
+     * @return False if the result was null and true otherwise.
+     */
+    boolean load(Evaluator evaluator, BulletRecord record) {
+        if (evaluator instanceof ArithmeticEvaluator) {
+            source = null;
+            return ((ArithmeticEvaluator) evaluator).compute(record, this);
+        } else if (evaluator instanceof HashEvaluator) {
+            long result = evaluator.evaluateLong(record);
+            if (evaluator.wasNull()) {
+                return false;
+            }
+            set(Type.LONG, result);
+            return true;
+        }
+        TypedObject value = evaluator.evaluate(record);
+        if (isNull(value)) {
+            return false;
+        }
+        source = value;
+        type = value.getType();
+        return true;
+    }
+
+    void set(Type type, long result) {
+        this.type = type;
+        this.source = null;
+        this.longResult = result;
+    }
+
+    void set(Type type, double result) {
+        this.type = type;
+        this.source = null;
+        this.doubleResult = result;
+    }
+
+    int intValue() {
+        if (source != null) {
+            return ((Number) source.getValue()).intValue();
+        }
+        return isIntegral() ? (int) longResult : (int) doubleResult;
+    }
+
+    long longValue() {
+        if (source != null) {
+            return ((Number) source.getValue()).longValue();
+        }
+        return isIntegral() ? longResult : (long) doubleResult;
+    }
+
+    float floatValue() {
+        if (source != null) {
+            return ((Number) source.getValue()).floatValue();
+        }
+        return isIntegral() ? (float) longResult : (float) doubleResult;
+    }
+
+    double doubleValue() {
+        if (source != null) {
+            return ((Number) source.getValue()).doubleValue();
+        }
+        return isIntegral() ? (double) longResult : doubleResult;
+    }
+
+    /**
+     * Wraps this value in a {@link TypedObject}. This allocates if the value was computed.
+     *
+     * @return The value as a {@link TypedObject}.
+     */
+    TypedObject toTypedObject() {
+        if (source != null) {
+            return source;
+        }
+        switch (type) {
+            case DOUBLE:
+                return new TypedObject(Type.DOUBLE, doubleResult);
+            case FLOAT:
+                return new TypedObject(Type.FLOAT, (float) doubleResult);
+            case LONG:
+                return new TypedObject(Type.LONG, longResult);
+            default:
+                return new TypedObject(Type.INTEGER, (int) longResult);
+        }
+    }
+
+    /**
+     * Compares two non-null values exactly like {@link TypedObject#compareTo(TypedObject)} would compare them.
+     *
+     * @param a The first value.
+     * @param b The second value.
+     * @return The result of the comparison.
+     */
+    static int compare(NumericValue a, NumericValue b) {
+        if (a.source != null && b.source != null) {
+            return ComparisonEvaluator.compare(a.source, b.source);
+        }
+        if (!Type.canCompare(a.type, b.type)) {
+            throw new UnsupportedOperationException("Types are not comparable for " + a.toTypedObject() + " with " + b.toTypedObject());
+        }
+        if (a.type != b.type) {
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        if (!a.isNative() || !b.isNative()) {
+            return a.toTypedObject().compareTo(b.toTypedObject());
+        }
+        switch (a.type) {
+            case INTEGER:
+                return Integer.compare(a.intValue(), b.intValue());
+            case LONG:
+                return Long.compare(a.longValue(), b.longValue());
+            case FLOAT:
+                return Float.compare(a.floatValue(), b.floatValue());
+            default:
+                return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+    }
+
+    // Whether a wrapped value is of the class its type says it should be. Computed results always are.
+    private boolean isNative() {
+        return source == null || type.getUnderlyingClass().isInstance(source.getValue());
+    }
+
+    private boolean isIntegral() {
+        return type == Type.INTEGER || type == Type.LONG;
+    }
+}
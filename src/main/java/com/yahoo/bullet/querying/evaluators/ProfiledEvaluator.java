@@ -0,0 +1,109 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.metrics.NodeProfile;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import static com.yahoo.bullet.common.Utilities.isNull;
+
+/**
+ * An evaluator that wraps another evaluator and records each of its runs in a {@link NodeProfile}. A run passes if
+ * it returns true. Every entry point is forwarded to the wrapped evaluator so it keeps its primitive fast paths.
+ */
+public class ProfiledEvaluator extends Evaluator {
+    private static final long serialVersionUID = -1658432305764936301L;
+
+    private final Evaluator evaluator;
+    private final NodeProfile profile;
+
+    /**
+     * Constructor that wraps an evaluator.
+     *
+     * @param evaluator The non-null evaluator to profile.
+     * @param profile The non-null profile to record the runs in.
+     */
+    public ProfiledEvaluator(Evaluator evaluator, NodeProfile profile) {
+        this.evaluator = evaluator;
+        this.profile = profile;
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        long start = profile.begin();
+        try {
+            TypedObject value = evaluator.evaluate(record);
+            if (isNull(value)) {
+                profile.recordNull();
+            } else if (Boolean.TRUE.equals(value.getValue())) {
+                profile.recordPass();
+            }
+            return value;
+        } catch (RuntimeException e) {
+            profile.recordFailure();
+            throw e;
+        } finally {
+            profile.end(start);
+        }
+    }
+
+    @Override
+    public boolean evaluateBoolean(BulletRecord record) {
+        long start = profile.begin();
+        try {
+            boolean value = evaluator.evaluateBoolean(record);
+            wasNull = evaluator.wasNull();
+            if (wasNull) {
+                profile.recordNull();
+            } else if (value) {
+                profile.recordPass();
+            }
+            return value;
+        } catch (RuntimeException e) {
+            profile.recordFailure();
+            throw e;
+        } finally {
+            profile.end(start);
+        }
+    }
+
+    @Override
+    public long evaluateLong(BulletRecord record) {
+        long start = profile.begin();
+        try {
+            long value = evaluator.evaluateLong(record);
+            wasNull = evaluator.wasNull();
+            if (wasNull) {
+                profile.recordNull();
+            }
+            return value;
+        } catch (RuntimeException e) {
+            profile.recordFailure();
+            throw e;
+        } finally {
+            profile.end(start);
+        }
+    }
+
+    @Override
+    public double evaluateDouble(BulletRecord record) {
+        long start = profile.begin();
+        try {
+            double value = evaluator.evaluateDouble(record);
+            wasNull = evaluator.wasNull();
+            if (wasNull) {
+                profile.recordNull();
+            }
+            return value;
+        } catch (RuntimeException e) {
+            profile.recordFailure();
+            throw e;
+        } finally {
+            profile.end(start);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache of compiled regexes. This is used for patterns that are not constant and come
+ * from the record instead. It is not thread-safe and is meant to be owned by a single evaluator.
+ */
+public class RegexCache implements Serializable {
+    private static final long serialVersionUID = 2806207946373153925L;
+
+    private static class LRUMap extends LinkedHashMap<String, RegexMatcher> {
+        private static final long serialVersionUID = -3390254367049346735L;
+        private final int maxSize;
+
+        private LRUMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RegexMatcher> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private final LRUMap cache;
+    private final boolean fast;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize The maximum number of compiled regexes to keep.
+     * @param fast Whether to use the faster matchers for simple regexes. See {@link RegexMatcher#compile(String, boolean)}.
+     */
+    public RegexCache(int maxSize, boolean fast) {
+        this.cache = new LRUMap(maxSize);
+        this.fast = fast;
+    }
+
+    /**
+     * Gets the compiled matcher for the given regex, compiling and caching it if needed.
+     *
+     * @param regex The non-null regex.
+     * @return The compiled {@link RegexMatcher}.
+     */
+    public RegexMatcher get(String regex) {
+        RegexMatcher matcher = cache.get(regex);
+        if (matcher == null) {
+            matcher = RegexMatcher.compile(regex, fast);
+            cache.put(regex, matcher);
+        }
+        return matcher;
+    }
+
+    /**
+     * Gets the number of compiled regexes currently cached.
+     *
+     * @return The size of the cache.
+     */
+    public int size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import java.io.Serializable;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a whole string against a compiled regex. This has the same semantics as
+ * {@code Pattern.compile(regex).matcher(value).matches()}.
+ */
+@FunctionalInterface
+public interface RegexMatcher extends Serializable {
+    String META_CHARACTERS = "\\^$.|?*+()[]{}";
+    String ANY = ".*";
+
+    /**
+     * Checks if the given string matches the regex.
+     *
+     * @param value The non-null string to match.
+     * @return True if the whole string matches and false otherwise.
+     */
+    boolean matches(String value);
+
+    /**
+     * Compiles a regex into a {@link RegexMatcher}.
+     *
+     * If fast matching is enabled and the regex is a literal, optionally preceded and/or followed by {@code .*}, the
+     * matcher uses {@link String#equals(Object)}, {@link String#startsWith(String)}, {@link String#endsWith(String)} or
+     * {@link String#contains(CharSequence)} instead of {@link java.util.regex}. Since {@code .} does not match line
+     * terminators, these matchers do not match strings with line terminators outside the literal either.
+     *
+     * @param regex The non-null regex to compile.
+     * @param fast Whether to use the faster matchers for literal, prefix, suffix and contains regexes.
+     * @return A matcher for the regex.
+     * @throws java.util.regex.PatternSyntaxException if the regex is invalid.
+     */
+    static RegexMatcher compile(String regex, boolean fast) {
+        if (fast) {
+            boolean anyPrefix = regex.startsWith(ANY);
+            int start = anyPrefix ? ANY.length() : 0;
+            boolean anySuffix = regex.length() - start >= ANY.length() && regex.endsWith(ANY);
+            int end = anySuffix ? regex.length() - ANY.length() : regex.length();
+            String literal = regex.substring(start, end);
+            if (isLiteral(literal)) {
+                if (anyPrefix && anySuffix) {
+                    return value -> !hasLineTerminator(value) && value.contains(literal);
+                } else if (anyPrefix) {
+                    return value -> !hasLineTerminator(value) && value.endsWith(literal);
+                } else if (anySuffix) {
+                    return value -> !hasLineTerminator(value) && value.startsWith(literal);
+                }
+                return literal::equals;
+            }
+        }
+        Pattern pattern = Pattern.compile(regex);
+        return value -> pattern.matcher(value).matches();
+    }
+
+    /**
+     * Checks if the given string can be matched verbatim. It must have no regex meta characters, line terminators or
+     * surrogates, which a regex would match as whole code points.
+     *
+     * @param string The string to check.
+     * @return True if the string is a literal.
+     */
+    static boolean isLiteral(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (META_CHARACTERS.indexOf(c) >= 0 || isLineTerminator(c) || Character.isSurrogate(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the given string has any of the characters that {@code .} does not match.
+     *
+     * @param string The string to check.
+     * @return True if the string has a line terminator.
+     */
+    static boolean hasLineTerminator(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (isLineTerminator(string.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the given character is a line terminator as defined by {@link Pattern}.
+     *
+     * @param c The character to check.
+     * @return True if the character is a line terminator.
+     */
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+/**
+ * An evaluator for a sub-expression that is shared by multiple queries in {@link SharedEvaluators}. It remembers the
+ * result (or the exception) of its evaluator for the last record it was evaluated on, so that the evaluator runs at
+ * most once per record. The remembered result is only used for the same record instance in the same epoch of
+ * {@link SharedEvaluators}, which is advanced for every new record.
+ */
+final class SharedEvaluator extends Evaluator {
+    private static final long serialVersionUID = 5102479328816543066L;
+
+    final Evaluator evaluator;
+    private final SharedEvaluators shared;
+
+    private transient long epoch = -1L;
+    private transient BulletRecord record;
+    private transient TypedObject result;
+    private transient RuntimeException error;
+
+    SharedEvaluator(Evaluator evaluator, SharedEvaluators shared) {
+        this.evaluator = evaluator;
+        this.shared = shared;
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        if (this.record != record || epoch != shared.epoch) {
+            this.record = record;
+            epoch = shared.epoch;
+            try {
+                result = evaluator.evaluate(record);
+                error = null;
+            } catch (RuntimeException e) {
+                result = null;
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return result;
+    }
+}
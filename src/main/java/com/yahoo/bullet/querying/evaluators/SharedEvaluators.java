@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.CastExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Holds the evaluators for sub-expressions that are shared across queries. Structurally equal expressions (according to
+ * {@link Expression#equals(Object)}) that are compiled by an {@link ExpressionCompiler} sharing this instance get the
+ * same evaluator, which is evaluated at most once per record. Call {@link #advance()} before evaluating the queries on
+ * a new record to invalidate the results of the previous record. The evaluators are reference counted and dropped once
+ * no query uses them anymore.
+ *
+ * Only operations are shared. Values, fields and lists are cheap to evaluate or need to be seen as is by their parents.
+ * Arithmetic is not shared either since it is computed in primitives when compiled.
+ */
+public class SharedEvaluators implements Serializable {
+    private static final long serialVersionUID = -3403460567316424335L;
+
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = 1943245806214040384L;
+
+        private final SharedEvaluator evaluator;
+        private int references;
+
+        private Entry(SharedEvaluator evaluator) {
+            this.evaluator = evaluator;
+        }
+    }
+
+    private final Map<Expression, Entry> entries = new HashMap<>();
+    // The current record. Shared evaluators only use their last result if it was computed in this epoch.
+    long epoch = 0L;
+
+    /**
+     * Starts a new epoch. This must be called for every new record so that shared results are not reused.
+     */
+    public void advance() {
+        epoch++;
+    }
+
+    /**
+     * Gets the number of sub-expressions that are currently shared.
+     *
+     * @return The number of distinct shared sub-expressions.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Releases the given expressions that were acquired by a query. Evaluators that are not used by any query after are
+     * dropped.
+     *
+     * @param expressions The expressions to release.
+     */
+    public void release(Collection<Expression> expressions) {
+        for (Expression expression : expressions) {
+            Entry entry = entries.get(expression);
+            if (entry != null && --entry.references <= 0) {
+                entries.remove(expression);
+            }
+        }
+    }
+
+    /**
+     * Gets the shared evaluator for the given expression and increments its reference count. If there is none, it is
+     * built with the given builder.
+     *
+     * @param expression The shareable expression.
+     * @param builder The builder for the evaluator of the expression if it is not shared yet.
+     * @return The shared evaluator.
+     */
+    Evaluator acquire(Expression expression, Supplier<Evaluator> builder) {
+        Entry entry = entries.get(expression);
+        if (entry == null) {
+            // The builder may acquire the sub-expressions so this cannot use computeIfAbsent.
+            entry = new Entry(new SharedEvaluator(builder.get(), this));
+            entries.put(expression, entry);
+        }
+        entry.references++;
+        return entry.evaluator;
+    }
+
+    /**
+     * Checks whether the given expression can be shared.
+     *
+     * @param expression The expression to check.
+     * @return True if the expression is an operation that is not arithmetic.
+     */
+    static boolean isShareable(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            return !ArithmeticEvaluator.isArithmetic(((BinaryExpression) expression).getOp());
+        }
+        return expression instanceof UnaryExpression || expression instanceof NAryExpression || expression instanceof CastExpression;
+    }
+}
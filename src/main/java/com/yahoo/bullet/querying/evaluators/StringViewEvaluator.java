@@ -0,0 +1,238 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static com.yahoo.bullet.common.Utilities.isNull;
+
+/**
+ * A compiled evaluator for the comparisons (=, !=, &gt;, &lt;, &gt;=, &lt;=), STARTSWITH, ENDSWITH and CONTAINS of
+ * LOWER(x), UPPER(x) or SUBSTRING(x, ...) against a constant string. Instead of creating the lower case, upper case or
+ * substring of x for every record, it compares the constant to the characters of x in place. Strings that are not all
+ * ASCII, or all strings if the default locale has its own case mappings, are lower or upper cased with
+ * {@link String#toLowerCase()} and {@link String#toUpperCase()} first since their case mappings may change their length.
+ * The results, null semantics and evaluation order are identical to those of the corresponding operations.
+ */
+final class StringViewEvaluator extends Evaluator {
+    private static final long serialVersionUID = -6160839612941669281L;
+
+    enum View {
+        NONE, LOWER, UPPER
+    }
+
+    // The operands of the LOWER, UPPER or SUBSTRING.
+    final List<Evaluator> operands;
+    // The case mapping for LOWER and UPPER or NONE for SUBSTRING.
+    final View view;
+    final Operation op;
+    final String constant;
+    // Whether the constant is the left operand of a comparison.
+    final boolean reversed;
+    private final ComparisonEvaluator.ComparisonTest test;
+
+    /**
+     * Constructor that creates an evaluator that compares a view of a string to a constant.
+     *
+     * @param operands The operands of the LOWER, UPPER or SUBSTRING.
+     * @param view The case mapping for LOWER and UPPER or NONE for SUBSTRING.
+     * @param op The comparison, STARTSWITH, ENDSWITH or CONTAINS.
+     * @param constant The non-null constant string.
+     * @param reversed Whether the constant is the left operand of a comparison.
+     */
+    StringViewEvaluator(List<Evaluator> operands, View view, Operation op, String constant, boolean reversed) {
+        this.operands = operands;
+        this.view = view;
+        this.op = op;
+        this.constant = constant;
+        this.reversed = reversed;
+        this.test = ComparisonEvaluator.isComparison(op) ? ComparisonEvaluator.getTest(op) : null;
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        boolean result = evaluateBoolean(record);
+        return wasNull ? TypedObject.NULL : TypedObject.valueOf(result);
+    }
+
+    @Override
+    public boolean evaluateBoolean(BulletRecord record) {
+        TypedObject stringArg = operands.get(0).evaluate(record);
+        if (isNull(stringArg)) {
+            wasNull = true;
+            return false;
+        }
+        if (view != View.NONE) {
+            wasNull = false;
+            String string = (String) stringArg.getValue();
+            if (!isAsciiMappable(string)) {
+                string = view == View.LOWER ? string.toLowerCase() : string.toUpperCase();
+                return matches(string, 0, string.length(), View.NONE);
+            }
+            return matches(string, 0, string.length(), view);
+        }
+        TypedObject startArg = operands.get(1).evaluate(record);
+        if (isNull(startArg)) {
+            wasNull = true;
+            return false;
+        }
+        TypedObject lengthArg = null;
+        if (operands.size() > 2) {
+            lengthArg = operands.get(2).evaluate(record);
+            if (isNull(lengthArg)) {
+                wasNull = true;
+                return false;
+            }
+        }
+        wasNull = false;
+        String string = (String) stringArg.getValue();
+        long bounds = NAryOperations.substringBounds(string, startArg, lengthArg);
+        int begin = NAryOperations.substringBegin(bounds);
+        int end = NAryOperations.substringEnd(bounds);
+        if (end < begin) {
+            // Fails like the substring would.
+            string.substring(begin, end);
+        }
+        return matches(string, begin, end, View.NONE);
+    }
+
+    private boolean matches(String string, int begin, int end, View mapping) {
+        int length = end - begin;
+        int constantLength = constant.length();
+        switch (op) {
+            case STARTS_WITH:
+                return length >= constantLength && regionMatches(string, begin, mapping, constantLength);
+            case ENDS_WITH:
+                return length >= constantLength && regionMatches(string, end - constantLength, mapping, constantLength);
+            case CONTAINS:
+                for (int i = begin; i <= end - constantLength; i++) {
+                    if (regionMatches(string, i, mapping, constantLength)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                int comparison = compare(string, begin, end, mapping);
+                return test.test(reversed ? -Integer.signum(comparison) : comparison);
+        }
+    }
+
+    private boolean regionMatches(String string, int offset, View mapping, int length) {
+        for (int i = 0; i < length; i++) {
+            if (map(string.charAt(offset + i), mapping) != constant.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Compares like String#compareTo does.
+    private int compare(String string, int begin, int end, View mapping) {
+        int length = end - begin;
+        int limit = Math.min(length, constant.length());
+        for (int i = 0; i < limit; i++) {
+            char a = map(string.charAt(begin + i), mapping);
+            char b = constant.charAt(i);
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - constant.length();
+    }
+
+    private static char map(char c, View mapping) {
+        if (mapping == View.LOWER && c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        } else if (mapping == View.UPPER && c >= 'a' && c <= 'z') {
+            return (char) (c - ('a' - 'A'));
+        }
+        return c;
+    }
+
+    /**
+     * Checks if the case mapping of the given string in the default locale is the ASCII one character by character.
+     *
+     * @param string The string to check.
+     * @return True if the string is all ASCII and the default locale does not have its own case mappings.
+     */
+    static boolean isAsciiMappable(String string) {
+        String language = Locale.getDefault().getLanguage();
+        if ("tr".equals(language) || "az".equals(language) || "lt".equals(language)) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the given operation can compare a view of a string to a constant.
+     *
+     * @param op The operation to check.
+     * @return True if the operation is a comparison, STARTSWITH, ENDSWITH or CONTAINS.
+     */
+    static boolean isSupported(Operation op) {
+        return ComparisonEvaluator.isComparison(op) || op == Operation.STARTS_WITH || op == Operation.ENDS_WITH ||
+               op == Operation.CONTAINS;
+    }
+
+    /**
+     * Gets the view of the given expression if it is LOWER(x), UPPER(x) or SUBSTRING(x, start[, length]).
+     *
+     * @param expression The expression to check.
+     * @return The case mapping of the view, {@link View#NONE} for a substring or null if the expression is not a view.
+     */
+    static View getView(Expression expression) {
+        if (expression instanceof UnaryExpression) {
+            Operation op = ((UnaryExpression) expression).getOp();
+            return op == Operation.LOWER ? View.LOWER : op == Operation.UPPER ? View.UPPER : null;
+        } else if (expression instanceof NAryExpression) {
+            NAryExpression nAry = (NAryExpression) expression;
+            int size = nAry.getOperands().size();
+            return nAry.getOp() == Operation.SUBSTRING && (size == 2 || size == 3) ? View.NONE : null;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the operands of a view. See {@link #getView(Expression)}.
+     *
+     * @param expression The view.
+     * @return The operands of the LOWER, UPPER or SUBSTRING.
+     */
+    static List<Expression> getViewOperands(Expression expression) {
+        if (expression instanceof UnaryExpression) {
+            return Collections.singletonList(((UnaryExpression) expression).getOperand());
+        }
+        return ((NAryExpression) expression).getOperands();
+    }
+
+    /**
+     * Gets the constant string of the given expression.
+     *
+     * @param expression The expression to check.
+     * @return The string if the expression is a constant string or null otherwise.
+     */
+    static String getConstant(Expression expression) {
+        if (expression instanceof ValueExpression && ((ValueExpression) expression).getValue() instanceof String) {
+            return (String) ((ValueExpression) expression).getValue();
+        }
+        return null;
+    }
+}
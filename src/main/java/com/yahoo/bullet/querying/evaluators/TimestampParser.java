@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import java.time.LocalDateTime;
+import java.time.zone.ZoneRules;
+
+/**
+ * A parser for dates in the default layout of UNIXTIMESTAMP, yyyy-MM-dd HH:mm:ss, optionally followed by a fraction of a
+ * second. It reads the digits directly instead of going through {@link java.sql.Timestamp#valueOf(String)} or a
+ * {@link java.time.format.DateTimeFormatter}. It only accepts dates that are exactly in this layout with valid fields
+ * and a year from 1600 to 9999. For everything else, it returns {@link #INVALID} and the date should be parsed like it
+ * would be otherwise, so that the results and errors stay the same.
+ */
+final class TimestampParser {
+    static final long INVALID = Long.MIN_VALUE;
+    static final String DEFAULT_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    private static final int LENGTH = DEFAULT_PATTERN.length();
+    private static final int MAX_FRACTION_LENGTH = 9;
+    private static final int MIN_YEAR = 1600;
+    private static final long SECONDS_PER_DAY = 86400L;
+    private static final long DAYS_0000_TO_1970 = 719528L;
+
+    private TimestampParser() {
+    }
+
+    /**
+     * Parses the given date in the default layout into seconds since the epoch in UTC.
+     *
+     * @param date The non-null date to parse.
+     * @param allowFraction Whether the date can be followed by a period and 1 to 9 digits of a fraction of a second.
+     * @param rules The rules of the time zone the date is interpreted in before being converted back or null if it is
+     *              not. Local times that do not exist in the zone because of a gap are not parsed.
+     * @return The seconds since the epoch or {@link #INVALID} if the date could not be parsed here.
+     */
+    static long parse(String date, boolean allowFraction, ZoneRules rules) {
+        int length = date.length();
+        if (length != LENGTH && (!allowFraction || !isFraction(date, length))) {
+            return INVALID;
+        }
+        if (date.charAt(4) != '-' || date.charAt(7) != '-' || date.charAt(10) != ' ' || date.charAt(13) != ':' || date.charAt(16) != ':') {
+            return INVALID;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        int hour = digits(date, 11, 13);
+        int minute = digits(date, 14, 16);
+        int second = digits(date, 17, 19);
+        if (year < MIN_YEAR || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) ||
+            hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return INVALID;
+        }
+        if (rules != null && !rules.isFixedOffset()) {
+            LocalDateTime localDateTime = LocalDateTime.of(year, month, day, hour, minute, second);
+            if (rules.getValidOffsets(localDateTime).isEmpty()) {
+                return INVALID;
+            }
+        }
+        return toEpochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+    }
+
+    private static boolean isFraction(String date, int length) {
+        if (length <= LENGTH + 1 || length > LENGTH + 1 + MAX_FRACTION_LENGTH || date.charAt(LENGTH) != '.') {
+            return false;
+        }
+        return digits(date, LENGTH + 1, length) >= 0;
+    }
+
+    // Returns -1 if any character is not a digit.
+    private static int digits(String date, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = date.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // The same computation as LocalDate#toEpochDay for positive years.
+    private static long toEpochDay(int year, int month, int day) {
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
@@ -28,6 +28,11 @@ public class UnaryEvaluator extends Evaluator {
         op = UnaryOperations.UNARY_OPERATORS.get(unaryExpression.getOp());
     }
 
+    UnaryEvaluator(Evaluator operand, UnaryOperations.UnaryOperator op) {
+        this.operand = operand;
+        this.op = op;
+    }
+
     @Override
     public TypedObject evaluate(BulletRecord record) {
         return op.apply(operand, record);
@@ -38,6 +38,7 @@ public class UnaryOperations {
         UNARY_OPERATORS.put(Operation.LOWER, UnaryOperations::lower);
         UNARY_OPERATORS.put(Operation.UPPER, UnaryOperations::upper);
         UNARY_OPERATORS.put(Operation.HASH, UnaryOperations::hash);
+        UNARY_OPERATORS.put(Operation.HASH64, UnaryOperations::hash64);
     }
 
     static TypedObject not(Evaluator evaluator, BulletRecord record) {
@@ -97,6 +98,10 @@ public class UnaryOperations {
         return TypedObject.valueOf(Objects.hashCode(evaluator.evaluate(record).getValue()));
     }
 
+    static TypedObject hash64(Evaluator evaluator, BulletRecord record) {
+        return checkNull(evaluator, record, value -> TypedObject.valueOf(XXHash64.hash(value.getValue()) & Long.MAX_VALUE));
+    }
+
     private static TypedObject checkNull(Evaluator evaluator, BulletRecord record, Function<TypedObject, TypedObject> operator) {
         TypedObject value = evaluator.evaluate(record);
         if (Utilities.isNull(value)) {
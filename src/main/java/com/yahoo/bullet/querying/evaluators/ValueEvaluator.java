@@ -9,6 +9,9 @@ import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.typesystem.TypedObject;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * An evaluator that returns a constant value.
  */
@@ -30,4 +33,9 @@ public class ValueEvaluator extends Evaluator {
     public TypedObject evaluate(BulletRecord record) {
         return value;
     }
+
+    @Override
+    public void evaluate(List<BulletRecord> records, int[] selection, int size, TypedObject[] results) {
+        Arrays.fill(results, 0, size, value);
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The 64-bit xxHash (XXH64) with a seed of 0. It is fast, well distributed and specified byte for byte so the same
+ * value hashes to the same long on every worker. Strings are hashed over their UTF-8 bytes. Booleans and integral
+ * numbers are hashed as the 8 little-endian bytes of their long value, floating point numbers as those of the bits of
+ * their double value and any other value as those of its {@link Object#hashCode()}.
+ */
+final class XXHash64 {
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+    private XXHash64() {
+    }
+
+    /**
+     * Hashes a non-null value. See {@link XXHash64}.
+     *
+     * @param value The non-null value to hash.
+     * @return The 64-bit hash of the value.
+     */
+    static long hash(Object value) {
+        if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            return hash(bytes, 0, bytes.length);
+        } else if (value instanceof Boolean) {
+            return hash((Boolean) value ? 1L : 0L);
+        } else if (value instanceof Double || value instanceof Float) {
+            return hash(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Number) {
+            return hash(((Number) value).longValue());
+        }
+        return hash((long) value.hashCode());
+    }
+
+    /**
+     * Hashes the 8 little-endian bytes of a long.
+     *
+     * @param value The long to hash.
+     * @return The 64-bit hash of the long.
+     */
+    static long hash(long value) {
+        long hash = PRIME_5 + Long.BYTES;
+        hash ^= round(0L, value);
+        hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+        return avalanche(hash);
+    }
+
+    /**
+     * Hashes a range of bytes.
+     *
+     * @param bytes The bytes to hash.
+     * @param offset The start of the range.
+     * @param length The number of bytes in the range.
+     * @return The 64-bit hash of the bytes.
+     */
+    static long hash(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        long hash;
+        if (length >= 32) {
+            long v1 = PRIME_1 + PRIME_2;
+            long v2 = PRIME_2;
+            long v3 = 0L;
+            long v4 = -PRIME_1;
+            for (; i <= end - 32; i += 32) {
+                v1 = round(v1, readLong(bytes, i));
+                v2 = round(v2, readLong(bytes, i + 8));
+                v3 = round(v3, readLong(bytes, i + 16));
+                v4 = round(v4, readLong(bytes, i + 24));
+            }
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = PRIME_5;
+        }
+        hash += length;
+        for (; i <= end - 8; i += 8) {
+            hash ^= round(0L, readLong(bytes, i));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+        }
+        if (i <= end - 4) {
+            hash ^= (readInt(bytes, i) & 0xFFFFFFFFL) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            i += 4;
+        }
+        for (; i < end; i++) {
+            hash ^= (bytes[i] & 0xFFL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+        }
+        return avalanche(hash);
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME_1;
+    }
+
+    private static long merge(long hash, long accumulator) {
+        hash ^= round(0L, accumulator);
+        return hash * PRIME_1 + PRIME_4;
+    }
+
+    private static long avalanche(long hash) {
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long readLong(byte[] bytes, int i) {
+        return (bytes[i] & 0xFFL) | (bytes[i + 1] & 0xFFL) << 8 | (bytes[i + 2] & 0xFFL) << 16 |
+               (bytes[i + 3] & 0xFFL) << 24 | (bytes[i + 4] & 0xFFL) << 32 | (bytes[i + 5] & 0xFFL) << 40 |
+               (bytes[i + 6] & 0xFFL) << 48 | (bytes[i + 7] & 0xFFL) << 56;
+    }
+
+    private static int readInt(byte[] bytes, int i) {
+        return (bytes[i] & 0xFF) | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF) << 16 | (bytes[i + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, growable buffer of the 64-bit hashed partitioning keys of a record. It is filled by
+ * {@link Partitioner#getHashedKeys(com.yahoo.bullet.record.BulletRecord, HashedKeys)} and is meant to be cleared and
+ * reused for every record by a single thread so that looking up the partitions of a record does not allocate.
+ *
+ * Two different keys may hash to the same long. This is harmless since partitioning only narrows down the queries a
+ * record is given to and the queries still apply their own filters.
+ */
+public final class HashedKeys {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    @Getter
+    private int size;
+
+    /**
+     * Adds a key.
+     *
+     * @param key The hashed key to add.
+     */
+    public void add(long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size << 1);
+        }
+        keys[size++] = key;
+    }
+
+    /**
+     * Gets the key at the given index.
+     *
+     * @param index The index of the key. It must be less than {@link #getSize()}.
+     * @return The hashed key.
+     */
+    public long get(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Removes all the keys. The buffer is kept.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the keys and removes the duplicates.
+     */
+    public void distinct() {
+        if (size < 2) {
+            return;
+        }
+        Arrays.sort(keys, 0, size);
+        int distinct = 1;
+        for (int i = 1; i < size; i++) {
+            if (keys[i] != keys[distinct - 1]) {
+                keys[distinct++] = keys[i];
+            }
+        }
+        size = distinct;
+    }
+
+    /**
+     * Hashes a partitioning key to a long. This is what {@link Partitioner} uses by default for its String keys.
+     *
+     * @param key The non-null key to hash.
+     * @return The 64-bit hash of the key.
+     */
+    public static long hash(CharSequence key) {
+        long hash = FNV_OFFSET;
+        int length = key.length();
+        for (int i = 0; i < length; i++) {
+            hash = step(hash, key.charAt(i));
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Hashes the decimal representation of a long exactly like {@link #hash(CharSequence)} hashes
+     * {@link Long#toString(long)} but without creating the String.
+     *
+     * @param value The long to hash.
+     * @return The 64-bit hash of the decimal representation of the long.
+     */
+    static long hashDecimal(long value) {
+        long hash = FNV_OFFSET;
+        // Work with a non-positive value so that Long.MIN_VALUE does not overflow
+        long negative = value;
+        if (value < 0) {
+            hash = step(hash, '-');
+        } else {
+            negative = -value;
+        }
+        long divisor = 1;
+        while (negative / divisor <= -10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            hash = step(hash, (char) ('0' - (negative / divisor) % 10));
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Finalizes a hash so that all its bits depend on all the bits of the input (the finalizer of MurmurHash3).
+     *
+     * @param hash The hash to mix.
+     * @return The mixed hash.
+     */
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long step(long hash, char c) {
+        return (hash ^ c) * FNV_PRIME;
+    }
+}
@@ -26,4 +26,30 @@ public interface Partitioner {
      * @return A non-null {@link Set} of Strings representing the keys for this record.
      */
     Set<String> getKeys(BulletRecord record);
+
+    /**
+     * Returns the hashed partitioning keys for this {@link Query} instance. A record must be given to the query if the
+     * hashed keys of the record contain any of these. By default, this hashes the keys from {@link #getKeys(Query)}
+     * with {@link HashedKeys#hash(CharSequence)}.
+     *
+     * @param query The query to partition for.
+     * @return A non-null array of the hashed keys for this query.
+     */
+    default long[] getHashedKeys(Query query) {
+        return getKeys(query).stream().mapToLong(HashedKeys::hash).toArray();
+    }
+
+    /**
+     * Adds the hashed partitioning keys for this {@link BulletRecord} instance to the given {@link HashedKeys}. This is
+     * called for every record, so implementations should not allocate. The keys added may contain duplicates. By
+     * default, this hashes the keys from {@link #getKeys(BulletRecord)} with {@link HashedKeys#hash(CharSequence)}.
+     *
+     * @param record The record to partition.
+     * @param keys The non-null {@link HashedKeys} to add the hashed keys for this record to.
+     */
+    default void getHashedKeys(BulletRecord record, HashedKeys keys) {
+        for (String key : getKeys(record)) {
+            keys.add(HashedKeys.hash(key));
+        }
+    }
 }
@@ -9,7 +9,10 @@ import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.query.Query;
 import com.yahoo.bullet.query.expressions.BinaryExpression;
 import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.ExpressionOptimizer;
 import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
 import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.record.BulletRecord;
@@ -65,6 +68,9 @@ import static com.yahoo.bullet.common.Utilities.isNull;
  *
  * Using these keys and presenting the record to all the queries with the same key will ensure that the record is
  * seen by exactly only the queries that need to see it.
+ *
+ * The {@link #getHashedKeys(Query)} and {@link #getHashedKeys(BulletRecord, HashedKeys)} return the same keys hashed
+ * to longs. The hashed keys for a record are generated without building any of the Strings above.
  */
 public class SimpleEqualityPartitioner implements Partitioner {
     /*
@@ -77,17 +83,30 @@ public class SimpleEqualityPartitioner implements Partitioner {
     private static final int ZERO = 0;
     // This appends this char to all non-null values to disambiguate them if they actually had NO_FIELD as their values
     public static final char DISAMBIGUATOR = '.';
+    // The hashes used for NULL and ANY in the hashed keys. Any value that hashes to these only costs extra work.
+    private static final long NULL_HASH = 0x6E756C6C6E756C6CL;
+    private static final long ANY_HASH = 0x2A2A2A2A2A2A2A2AL;
+    private static final long POSITION_MULTIPLIER = 0x9E3779B97F4A7C15L;
 
     private List<String> fields;
     private Set<String> fieldSet;
     private String delimiter;
     private final Set<String> defaultKeys;
+    private final ExpressionOptimizer optimizer;
+    // Whether each field has a sub-field
+    private final boolean[] nested;
+    // The term for ANY for each field and the hashed key with ANY for all of them
+    private final long[] anyTerms;
+    private final long defaultHashedKey;
 
     /**
      * Constructor that takes a {@link BulletConfig} instance with definitions for the various settings this needs.
      * Delimiter: {@link BulletConfig#EQUALITY_PARTITIONER_DELIMITER} and
      * Fields to partition on: {@link BulletConfig#EQUALITY_PARTITIONER_FIELDS}
      *
+     * If {@link BulletConfig#QUERY_EXPRESSION_OPTIMIZE_ENABLE} is enabled, the filter is optimized before it is looked
+     * at (see {@link ExpressionOptimizer}), which can expose more equality filters.
+     *
      * @param config The non-null config containing settings for this class.
      */
     public SimpleEqualityPartitioner(BulletConfig config) {
@@ -96,6 +115,17 @@ public class SimpleEqualityPartitioner implements Partitioner {
         fieldSet = new HashSet<>(fields);
         String defaultKey = Collections.nCopies(fields.size(), ANY).stream().collect(Collectors.joining(delimiter));
         defaultKeys = Collections.singleton(defaultKey);
+        optimizer = new ExpressionOptimizer(config);
+        int size = fields.size();
+        nested = new boolean[size];
+        anyTerms = new long[size];
+        long key = 0L;
+        for (int i = 0; i < size; i++) {
+            nested[i] = fields.get(i).indexOf('.') >= 0;
+            anyTerms[i] = term(i, ANY_HASH);
+            key += anyTerms[i];
+        }
+        defaultHashedKey = key;
     }
 
     /**
@@ -109,21 +139,8 @@ public class SimpleEqualityPartitioner implements Partitioner {
      */
     @Override
     public Set<String> getKeys(Query query) {
-        Objects.requireNonNull(query);
-
-        Expression filter = query.getFilter();
-
-        // If no filter, default partition
-        if (filter == null) {
-            return defaultKeys;
-        }
-
-        // Map each field to the values that it is checked for equality against
-        Map<String, Set<Serializable>> equalityClauses = new HashMap<>();
-        mapFieldsToValues(filter, equalityClauses);
-
-        // If not exactly one equality per field, default partition
-        if (equalityClauses.values().stream().anyMatch(set -> set.size() != 1)) {
+        Map<String, Set<Serializable>> equalityClauses = getEqualityClauses(query);
+        if (equalityClauses == null) {
             return defaultKeys;
         }
 
@@ -145,7 +162,78 @@ public class SimpleEqualityPartitioner implements Partitioner {
         return IntStream.range(0, 1 << fields.size()).mapToObj(i -> binaryToKey(i, values)).collect(Collectors.toSet());
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The hashed key is the sum over the fields of a hash of the position of the field and its value (or ANY). This
+     * matches exactly when {@link #getKeys(Query)} would.
+     *
+     * @param query {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public long[] getHashedKeys(Query query) {
+        Map<String, Set<Serializable>> equalityClauses = getEqualityClauses(query);
+        if (equalityClauses == null) {
+            return new long[] { defaultHashedKey };
+        }
+        long key = 0L;
+        for (int i = 0; i < fields.size(); i++) {
+            Set<Serializable> values = equalityClauses.get(fields.get(i));
+            key += values == null ? anyTerms[i] : term(i, hashValue(values.iterator().next()));
+        }
+        return new long[] { key };
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Since the hashed key is a sum of a term for each field, the 2^(# of fields) keys are generated by doubling the
+     * keys for each field: once as is (ANY for the field) and once with the term for its value added instead. Each field
+     * is only extracted once and nothing is allocated for String and integral values.
+     *
+     * @param record {@inheritDoc}
+     * @param keys {@inheritDoc}
+     */
+    @Override
+    public void getHashedKeys(BulletRecord record, HashedKeys keys) {
+        int start = keys.getSize();
+        keys.add(defaultHashedKey);
+        for (int i = 0; i < fields.size(); i++) {
+            long delta = term(i, hashValue(getFieldValue(record, i))) - anyTerms[i];
+            int end = keys.getSize();
+            for (int j = start; j < end; j++) {
+                keys.add(keys.get(j) + delta);
+            }
+        }
+    }
+
+    private Map<String, Set<Serializable>> getEqualityClauses(Query query) {
+        Objects.requireNonNull(query);
+
+        Expression filter = optimizer.optimize(query.getFilter());
+
+        // If no filter, default partition
+        if (filter == null) {
+            return null;
+        }
+
+        // Map each field to the values that it is checked for equality against
+        Map<String, Set<Serializable>> equalityClauses = new HashMap<>();
+        mapFieldsToValues(filter, equalityClauses);
+
+        // If not exactly one equality per field, default partition
+        if (equalityClauses.values().stream().anyMatch(set -> set.size() != 1)) {
+            return null;
+        }
+        return equalityClauses;
+    }
+
     private void mapFieldsToValues(Expression expression, Map<String, Set<Serializable>> mapping) {
+        if (expression instanceof NAryExpression && ((NAryExpression) expression).getOp() == Operation.AND) {
+            ((NAryExpression) expression).getOperands().forEach(operand -> mapFieldsToValues(operand, mapping));
+            return;
+        }
         if (!(expression instanceof BinaryExpression)) {
             return;
         }
@@ -153,6 +241,10 @@ public class SimpleEqualityPartitioner implements Partitioner {
         if (binary.getOp() == Operation.AND) {
             mapFieldsToValues(binary.getLeft(), mapping);
             mapFieldsToValues(binary.getRight(), mapping);
+        } else if (binary.getOp() == Operation.IN && binary.getLeft() instanceof FieldExpression && isSingleValue(binary.getRight())) {
+            // An IN with a single value is an equality.
+            ValueExpression value = (ValueExpression) ((ListExpression) binary.getRight()).getValues().get(0);
+            addFieldToMapping((FieldExpression) binary.getLeft(), value, mapping);
         } else if (binary.getOp() == Operation.EQUALS) {
             if (binary.getLeft() instanceof FieldExpression && binary.getRight() instanceof ValueExpression) {
                 addFieldToMapping((FieldExpression) binary.getLeft(), (ValueExpression) binary.getRight(), mapping);
@@ -162,6 +254,14 @@ public class SimpleEqualityPartitioner implements Partitioner {
         }
     }
 
+    private static boolean isSingleValue(Expression expression) {
+        if (!(expression instanceof ListExpression)) {
+            return false;
+        }
+        List<Expression> values = ((ListExpression) expression).getValues();
+        return values.size() == 1 && values.get(0) instanceof ValueExpression;
+    }
+
     private void addFieldToMapping(FieldExpression fieldExpression, ValueExpression valueExpression, Map<String, Set<Serializable>> mapping) {
         if (fieldExpression.getKey() instanceof Expression || fieldExpression.getSubKey() instanceof Expression) {
             return;
@@ -207,4 +307,30 @@ public class SimpleEqualityPartitioner implements Partitioner {
     private String makeKeyEntry(String value) {
         return value + DISAMBIGUATOR;
     }
+
+    private Object getFieldValue(BulletRecord record, int index) {
+        // Fields without a sub-field are read as is to avoid wrapping them in a TypedObject if they are not already
+        Object value = nested[index] ? record.typedExtract(fields.get(index)) : record.get(fields.get(index));
+        if (value instanceof TypedObject) {
+            TypedObject typedObject = (TypedObject) value;
+            return isNull(typedObject) ? null : typedObject.getValue();
+        }
+        return value;
+    }
+
+    private static long hashValue(Object value) {
+        // Hashes the same String that makeKeyEntry uses for the value without creating it for the common types
+        if (value == null) {
+            return NULL_HASH;
+        } else if (value instanceof String) {
+            return HashedKeys.hash((String) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return HashedKeys.hashDecimal(((Number) value).longValue());
+        }
+        return HashedKeys.hash(value.toString());
+    }
+
+    private static long term(int index, long hash) {
+        return HashedKeys.mix(hash + (index + 1) * POSITION_MULTIPLIER);
+    }
 }
@@ -8,7 +8,6 @@ package com.yahoo.bullet.querying.postaggregations;
 import com.yahoo.bullet.query.postaggregations.Having;
 import com.yahoo.bullet.querying.evaluators.Evaluator;
 import com.yahoo.bullet.result.Clip;
-import com.yahoo.bullet.typesystem.Type;
 
 public class HavingStrategy implements PostStrategy {
     private final Evaluator evaluator;
@@ -26,7 +25,8 @@ public class HavingStrategy implements PostStrategy {
     public Clip execute(Clip clip) {
         clip.getRecords().removeIf(record -> {
             try {
-                return !((Boolean) evaluator.evaluate(record).forceCast(Type.BOOLEAN).getValue());
+                boolean value = evaluator.evaluateBoolean(record);
+                return evaluator.wasNull() || !value;
             } catch (Exception ignored) {
                 return true;
             }
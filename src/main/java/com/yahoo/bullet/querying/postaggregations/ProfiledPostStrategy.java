@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.postaggregations;
+
+import com.yahoo.bullet.common.metrics.NodeProfile;
+import com.yahoo.bullet.result.Clip;
+
+/**
+ * A {@link PostStrategy} that wraps another one and records each of its runs in a {@link NodeProfile}. A run passes
+ * if it returns at least one record.
+ */
+public class ProfiledPostStrategy implements PostStrategy {
+    private final PostStrategy postStrategy;
+    private final NodeProfile profile;
+
+    /**
+     * Constructor that wraps a post strategy.
+     *
+     * @param postStrategy The non-null post strategy to profile.
+     * @param profile The non-null profile to record the runs in.
+     */
+    public ProfiledPostStrategy(PostStrategy postStrategy, NodeProfile profile) {
+        this.postStrategy = postStrategy;
+        this.profile = profile;
+    }
+
+    @Override
+    public Clip execute(Clip clip) {
+        long start = profile.begin();
+        try {
+            Clip result = postStrategy.execute(clip);
+            if (!result.getRecords().isEmpty()) {
+                profile.recordPass();
+            }
+            return result;
+        } catch (RuntimeException e) {
+            profile.recordFailure();
+            throw e;
+        } finally {
+            profile.end(start);
+        }
+    }
+}
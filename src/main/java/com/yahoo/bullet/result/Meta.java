@@ -32,6 +32,7 @@ public class Meta {
         QUERY_OBJECT("Query Object"),
         QUERY_STRING("Query String"),
         INNER_QUERY_METADATA("Inner Query Metadata"),
+        QUERY_PROFILE("Query Profile"),
 
         // Sketching metadata
         SKETCH_METADATA("Sketch Metadata"),
@@ -85,6 +86,9 @@ public class Meta {
 
     // This is not a Concept because it is not configurable. It will be returned no matter what with this key.
     public static final String ERROR_KEY = "errors";
+    // Like the errors, this is returned no matter what for a query that only consumed one in this many records because
+    // it was over its budget. Its counts and sums are then too low.
+    public static final String SAMPLING_KEY = "sampling";
 
     /**
      * Returns a backing view of the meta information as a Map.
@@ -7,6 +7,7 @@ package com.yahoo.bullet.windowing;
 
 import com.yahoo.bullet.querying.aggregations.Strategy;
 import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.Clock;
 import com.yahoo.bullet.query.Window;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.Clip;
@@ -43,7 +44,7 @@ public class Basic extends Scheme {
         Map<String, Object> meta = new HashMap<>();
         addIfNonNull(meta, metadataKeys, Meta.Concept.WINDOW_NAME, this::name);
         addIfNonNull(meta, metadataKeys, Meta.Concept.WINDOW_NUMBER, this::count);
-        addIfNonNull(meta, metadataKeys, Meta.Concept.WINDOW_EMIT_TIME, System::currentTimeMillis);
+        addIfNonNull(meta, metadataKeys, Meta.Concept.WINDOW_EMIT_TIME, Clock::now);
         return meta;
     }
 
@@ -71,6 +71,25 @@ public abstract class Scheme implements Monoidal {
      */
     public abstract void start();
 
+    /**
+     * Returns the time in milliseconds at which this window closes by itself, regardless of the data it consumes. By
+     * default, windows only close depending on the data they consume and this returns {@link Long#MAX_VALUE}.
+     *
+     * @return The time at which this window closes or {@link Long#MAX_VALUE} if it is not time based.
+     */
+    public long getNextCloseTime() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Estimates the memory in bytes retained by the data in this window. See {@link Strategy#getRetainedSize()}.
+     *
+     * @return The approximate size in bytes of the data in this window.
+     */
+    public long getRetainedSize() {
+        return aggregation.getRetainedSize();
+    }
+
     /**
      * Return any {@link Meta} for this windowing scheme and the {@link Strategy}.
      *
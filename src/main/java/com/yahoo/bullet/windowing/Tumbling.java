@@ -7,6 +7,7 @@ package com.yahoo.bullet.windowing;
 
 import com.yahoo.bullet.querying.aggregations.Strategy;
 import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.Clock;
 import com.yahoo.bullet.query.Window;
 import com.yahoo.bullet.result.Meta;
 
@@ -30,7 +31,7 @@ public class Tumbling extends Basic {
     public Tumbling(Strategy aggregation, Window window, BulletConfig config) {
         super(aggregation, window, config);
         windowLength = (long) window.getEmitEvery();
-        nextCloseTime = System.currentTimeMillis() + windowLength;
+        nextCloseTime = Clock.now() + windowLength;
     }
 
     @Override
@@ -48,7 +49,7 @@ public class Tumbling extends Basic {
 
     @Override
     public boolean isClosed() {
-        return System.currentTimeMillis() >= nextCloseTime;
+        return Clock.now() >= nextCloseTime;
     }
 
     @Override
@@ -57,9 +58,14 @@ public class Tumbling extends Basic {
         return isClosed();
     }
 
+    @Override
+    public long getNextCloseTime() {
+        return nextCloseTime;
+    }
+
     @Override
     public void start() {
-        nextCloseTime = System.currentTimeMillis() + windowLength;
+        nextCloseTime = Clock.now() + windowLength;
     }
 
     @Override
@@ -0,0 +1,43 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CachedClockTest {
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveResolution() {
+        new CachedClock(0);
+    }
+
+    @Test
+    public void testTicking() throws Exception {
+        long before = System.currentTimeMillis();
+        try (CachedClock clock = new CachedClock(1)) {
+            Assert.assertEquals(clock.getResolution(), 1);
+            long start = clock.currentTimeMillis();
+            Assert.assertTrue(start >= before);
+            // The background thread moves the time forward on its own
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (clock.currentTimeMillis() == start && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assert.assertTrue(clock.currentTimeMillis() > start);
+        }
+    }
+
+    @Test
+    public void testClosing() throws Exception {
+        CachedClock clock = new CachedClock(60000);
+        long start = clock.currentTimeMillis();
+        clock.close();
+        Thread.sleep(5);
+        Assert.assertEquals(clock.currentTimeMillis(), start);
+        clock.tick();
+        Assert.assertTrue(clock.currentTimeMillis() > start);
+    }
+}
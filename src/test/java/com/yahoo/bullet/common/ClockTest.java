@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class ClockTest {
+    @AfterMethod
+    public void teardown() {
+        Clock clock = Clock.use(Clock.SYSTEM);
+        if (clock instanceof CachedClock) {
+            ((CachedClock) clock).close();
+        }
+    }
+
+    private static BulletConfig makeConfig(boolean enable, int resolution) {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.CLOCK_CACHE_ENABLE, enable);
+        config.set(BulletConfig.CLOCK_CACHE_RESOLUTION_MS, resolution);
+        config.validate();
+        return config;
+    }
+
+    @Test
+    public void testDefaults() {
+        Assert.assertSame(Clock.get(), Clock.SYSTEM);
+        long before = System.currentTimeMillis();
+        long now = Clock.now();
+        Assert.assertTrue(now >= before);
+        Assert.assertTrue(now <= System.currentTimeMillis());
+
+        BulletConfig config = new BulletConfig();
+        Assert.assertFalse(config.getAs(BulletConfig.CLOCK_CACHE_ENABLE, Boolean.class));
+        Assert.assertEquals(config.getAs(BulletConfig.CLOCK_CACHE_RESOLUTION_MS, Integer.class), (Integer) 1);
+        Clock.configure(config);
+        Assert.assertSame(Clock.get(), Clock.SYSTEM);
+    }
+
+    @Test
+    public void testUsingAClock() {
+        ManualClock clock = new ManualClock(42L);
+        Assert.assertSame(Clock.use(clock), Clock.SYSTEM);
+        Assert.assertSame(Clock.get(), clock);
+        Assert.assertEquals(Clock.now(), 42L);
+        clock.advance(1L);
+        Assert.assertEquals(Clock.now(), 43L);
+    }
+
+    @Test
+    public void testConfiguringACachedClock() {
+        Clock.configure(makeConfig(true, 5));
+        Clock clock = Clock.get();
+        Assert.assertTrue(clock instanceof CachedClock);
+        Assert.assertEquals(((CachedClock) clock).getResolution(), 5);
+
+        // The same resolution keeps the clock
+        Clock.configure(makeConfig(true, 5));
+        Assert.assertSame(Clock.get(), clock);
+
+        // Disabling does not change the clock in use
+        Clock.configure(makeConfig(false, 5));
+        Assert.assertSame(Clock.get(), clock);
+
+        // A different resolution replaces it
+        Clock.configure(makeConfig(true, 10));
+        Assert.assertNotSame(Clock.get(), clock);
+        Assert.assertEquals(((CachedClock) Clock.get()).getResolution(), 10);
+    }
+
+    @Test
+    public void testConfiguringDoesNotReplaceAChosenClock() {
+        ManualClock clock = new ManualClock(42L);
+        Clock.use(clock);
+        Clock.configure(makeConfig(true, 5));
+        Assert.assertSame(Clock.get(), clock);
+    }
+
+    @Test
+    public void testInvalidResolutionIsDefaulted() {
+        Clock.configure(makeConfig(true, -1));
+        Assert.assertEquals(((CachedClock) Clock.get()).getResolution(), 1);
+    }
+}
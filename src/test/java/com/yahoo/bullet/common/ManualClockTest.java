@@ -0,0 +1,31 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ManualClockTest {
+    @Test
+    public void testDefaultsToSystemTime() {
+        long before = System.currentTimeMillis();
+        ManualClock clock = new ManualClock();
+        Assert.assertTrue(clock.currentTimeMillis() >= before);
+        Assert.assertTrue(clock.currentTimeMillis() <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void testSettingAndAdvancing() {
+        ManualClock clock = new ManualClock(42L);
+        Assert.assertEquals(clock.currentTimeMillis(), 42L);
+        Assert.assertEquals(clock.currentTimeMillis(), 42L);
+        Assert.assertEquals(clock.advance(8L), 50L);
+        Assert.assertEquals(clock.currentTimeMillis(), 50L);
+        Assert.assertEquals(clock.advance(-10L), 40L);
+        clock.set(1000L);
+        Assert.assertEquals(clock.currentTimeMillis(), 1000L);
+    }
+}
@@ -10,9 +10,13 @@ import org.testng.annotations.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -77,6 +81,19 @@ public class SerializerDeserializerTest {
         Assert.assertEquals(remade.contents, Collections.singletonMap("foo", 42.0));
     }
 
+    @Test
+    public void testCompactSerialization() {
+        SampleObject data = new SampleObject();
+        data.contents.put("foo", 42.0);
+
+        byte[] serialized = SerializerDeserializer.toBytes(data, true);
+        Assert.assertEquals(serialized, SerializerDeserializer.toBytes(data));
+
+        SampleObject remade = make(serialized);
+        Assert.assertEquals(remade.contents, Collections.singletonMap("foo", 42.0));
+        Assert.assertNull(SerializerDeserializer.toBytes(new UnserializableSampleObject(), true));
+    }
+
     @Test
     public void testDeserializationFailing() {
         Assert.assertNull(SerializerDeserializer.fromBytes(null));
@@ -96,4 +113,27 @@ public class SerializerDeserializerTest {
         Assert.assertEquals(remade.contents.get("foo"), 42.0);
         Assert.assertEquals(remade.contents.get("bar"), 84.0);
     }
+
+    @Test
+    public void testVarLongs() throws IOException {
+        long[] values = {0L, 1L, 127L, 128L, 300L, Integer.MAX_VALUE, Long.MAX_VALUE, -1L, Long.MIN_VALUE};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (long value : values) {
+            SerializerDeserializer.writeVarLong(out, value);
+        }
+        // 1 + 1 + 1 + 2 + 2 + 5 + 9 + 10 + 10
+        Assert.assertEquals(bytes.size(), 41);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (long value : values) {
+            Assert.assertEquals(SerializerDeserializer.readVarLong(in), value);
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testMalformedVarLong() throws IOException {
+        byte[] bytes = new byte[11];
+        Arrays.fill(bytes, (byte) 0x80);
+        SerializerDeserializer.readVarLong(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+public class NodeProfileTest {
+    @Test
+    public void testEmptyProfile() {
+        NodeProfile profile = new NodeProfile(1);
+        Map<String, Object> map = profile.asMap();
+        Assert.assertEquals(map.get(NodeProfile.INVOCATIONS), 0L);
+        Assert.assertEquals(map.get(NodeProfile.NULL_RATE), 0.0);
+        Assert.assertEquals(map.get(NodeProfile.PASS_RATE), 0.0);
+        Assert.assertEquals(map.get(NodeProfile.FAILURE_RATE), 0.0);
+        Assert.assertEquals(map.get(NodeProfile.AVERAGE_NANOS), 0.0);
+    }
+
+    @Test
+    public void testCounting() {
+        NodeProfile profile = new NodeProfile(1);
+        profile.end(profile.begin());
+        long start = profile.begin();
+        profile.recordNull();
+        profile.end(start);
+        start = profile.begin();
+        profile.recordPass();
+        profile.end(start);
+        start = profile.begin();
+        profile.recordFailure();
+        profile.end(start);
+
+        Assert.assertEquals(profile.getInvocations(), 4L);
+        Assert.assertEquals(profile.getNulls(), 1L);
+        Assert.assertEquals(profile.getPasses(), 1L);
+        Assert.assertEquals(profile.getFailures(), 1L);
+        Assert.assertEquals(profile.getSamples(), 4L);
+        Assert.assertTrue(profile.getSampledNanos() >= 0L);
+
+        Map<String, Object> map = profile.asMap();
+        Assert.assertEquals(map.get(NodeProfile.INVOCATIONS), 4L);
+        Assert.assertEquals(map.get(NodeProfile.NULL_RATE), 0.25);
+        Assert.assertEquals(map.get(NodeProfile.PASS_RATE), 0.25);
+        Assert.assertEquals(map.get(NodeProfile.FAILURE_RATE), 0.25);
+    }
+
+    @Test
+    public void testSampling() {
+        NodeProfile profile = new NodeProfile(4);
+        for (int i = 0; i < 10; i++) {
+            long start = profile.begin();
+            Assert.assertEquals(start == NodeProfile.NOT_SAMPLED, i % 4 != 0);
+            profile.end(start);
+        }
+        Assert.assertEquals(profile.getInvocations(), 10L);
+        Assert.assertEquals(profile.getSamples(), 3L);
+    }
+
+    @Test
+    public void testReportingOnlyAddsNewCounts() {
+        NodeProfile profile = new NodeProfile(1);
+        profile.end(profile.begin());
+        profile.recordPass();
+
+        MetricCollector collector = new MetricCollector();
+        profile.report(collector, "node");
+        Map<String, Number> metrics = collector.extractMetrics();
+        Assert.assertEquals(metrics.get("node." + NodeProfile.INVOCATIONS_METRIC), 1L);
+        Assert.assertEquals(metrics.get("node." + NodeProfile.PASSES_METRIC), 1L);
+        Assert.assertEquals(metrics.get("node." + NodeProfile.NULLS_METRIC), 0L);
+        Assert.assertEquals(metrics.get("node." + NodeProfile.FAILURES_METRIC), 0L);
+        Assert.assertEquals(metrics.get("node." + NodeProfile.SAMPLES_METRIC), 1L);
+        Assert.assertTrue(metrics.containsKey("node." + NodeProfile.SAMPLED_NANOS_METRIC));
+
+        profile.end(profile.begin());
+        profile.recordNull();
+        profile.report(collector, "node");
+        metrics = collector.extractMetrics();
+        Assert.assertEquals(metrics.get("node." + NodeProfile.INVOCATIONS_METRIC), 1L);
+        Assert.assertEquals(metrics.get("node." + NodeProfile.PASSES_METRIC), 0L);
+        Assert.assertEquals(metrics.get("node." + NodeProfile.NULLS_METRIC), 1L);
+        Assert.assertEquals(profile.getInvocations(), 2L);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+public class QueryProfileTest {
+    @Test
+    public void testGettingProfiles() {
+        QueryProfile profile = new QueryProfile(8);
+        NodeProfile filter = profile.get("Filter");
+        Assert.assertSame(profile.get("Filter"), filter);
+        Assert.assertEquals(filter.getSampleInterval(), 8);
+        Assert.assertNotSame(profile.get("Projection.a"), filter);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAsMap() {
+        QueryProfile profile = new QueryProfile(1);
+        Assert.assertTrue(profile.asMap().isEmpty());
+
+        profile.get("b").end(profile.get("b").begin());
+        profile.get("a");
+        Map<String, Object> map = profile.asMap();
+        Assert.assertEquals(new ArrayList<>(map.keySet()), Arrays.asList("b", "a"));
+        Assert.assertEquals(((Map<String, Object>) map.get("b")).get(NodeProfile.INVOCATIONS), 1L);
+        Assert.assertEquals(((Map<String, Object>) map.get("a")).get(NodeProfile.INVOCATIONS), 0L);
+    }
+
+    @Test
+    public void testReporting() {
+        QueryProfile profile = new QueryProfile(1);
+        profile.get("a").end(profile.get("a").begin());
+        profile.get("b").recordPass();
+
+        MetricCollector collector = new MetricCollector();
+        profile.report(collector, "query");
+        Map<String, Number> metrics = collector.extractMetrics();
+        Assert.assertEquals(metrics.get("query.a.invocations"), 1L);
+        Assert.assertEquals(metrics.get("query.b.invocations"), 0L);
+        Assert.assertEquals(metrics.get("query.b.passes"), 1L);
+    }
+}
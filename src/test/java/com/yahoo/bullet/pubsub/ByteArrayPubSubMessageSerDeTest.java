@@ -5,15 +5,22 @@
  */
 package com.yahoo.bullet.pubsub;
 
+import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.common.SerializerDeserializer;
 import com.yahoo.bullet.query.Projection;
 import com.yahoo.bullet.query.Query;
 import com.yahoo.bullet.query.Window;
 import com.yahoo.bullet.query.aggregations.AggregationType;
 import com.yahoo.bullet.query.aggregations.Raw;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ByteArrayPubSubMessageSerDeTest {
     @Test
     public void testConvertingQuery() {
@@ -59,4 +66,34 @@ public class ByteArrayPubSubMessageSerDeTest {
         Assert.assertEquals(revertedByteArray, SerializerDeserializer.toBytes(query));
         Assert.assertSame(reverted.getContent(), revertedByteArray);
     }
+
+    @Test
+    public void testCompactQuery() {
+        List<Expression> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            values.add(new ValueExpression(i));
+        }
+        Query query = new Query(new Projection(), new ListExpression(values), new Raw(1), null, new Window(), 1L);
+
+        BulletConfig config = new BulletConfig();
+        Assert.assertEquals(new ByteArrayPubSubMessageSerDe(config).toMessage("id", query, "foo").getContent(),
+                            SerializerDeserializer.toBytes(query));
+
+        config.set(BulletConfig.QUERY_EXPRESSION_LIST_PACK_ENABLE, true);
+        config.validate();
+        ByteArrayPubSubMessageSerDe serDe = new ByteArrayPubSubMessageSerDe(config);
+        PubSubMessage message = serDe.toMessage("id", query, "foo");
+        Assert.assertEquals(message.getContent(), SerializerDeserializer.toBytes(query, true));
+
+        Query converted = serDe.fromMessage(message).getContentAsQuery();
+        Assert.assertEquals(converted.getFilter(), query.getFilter());
+        Assert.assertEquals(message.getContentAsByteArray(), SerializerDeserializer.toBytes(query, true));
+
+        // A message that is passed on is written in the default form
+        PubSubMessage copy = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(message));
+        copy.getContentAsQuery();
+        byte[] bytes = copy.getContentAsByteArray();
+        Assert.assertTrue(bytes.length > SerializerDeserializer.toBytes(query, true).length);
+        Assert.assertEquals(((Query) SerializerDeserializer.fromBytes(bytes)).getFilter(), query.getFilter());
+    }
 }
@@ -0,0 +1,216 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.query.expressions;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.SerializerDeserializer;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ExpressionOptimizerTest {
+    private static final ExpressionOptimizer OPTIMIZER = new ExpressionOptimizer(true);
+
+    private static ValueExpression value(Serializable value) {
+        return new ValueExpression(value);
+    }
+
+    private static FieldExpression field(String name) {
+        return new FieldExpression(name);
+    }
+
+    private static BinaryExpression binary(Expression left, Expression right, Operation op) {
+        return new BinaryExpression(left, right, op);
+    }
+
+    private static UnaryExpression not(Expression operand) {
+        return new UnaryExpression(operand, Operation.NOT);
+    }
+
+    private static ListExpression list(Expression... values) {
+        return new ListExpression(Arrays.asList(values));
+    }
+
+    private static NAryExpression nAry(Operation op, Expression... operands) {
+        return new NAryExpression(Arrays.asList(operands), op);
+    }
+
+    private static void assertSameResults(Expression expression, List<BulletRecord> records) {
+        Expression optimized = OPTIMIZER.optimize(expression);
+        for (BulletRecord record : records) {
+            TypedObject expected = expression.getEvaluator().evaluate(record);
+            TypedObject actual = optimized.getEvaluator().evaluate(record);
+            Assert.assertEquals(actual.getType(), expected.getType(), "For " + expression + " on " + record);
+            Assert.assertEquals(actual.getValue(), expected.getValue(), "For " + expression + " on " + record);
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        Expression expression = binary(value(1), value(2), Operation.ADD);
+        Assert.assertSame(new ExpressionOptimizer(false).optimize(expression), expression);
+        Assert.assertSame(new ExpressionOptimizer(new BulletConfig()).optimize(expression), expression);
+    }
+
+    @Test
+    public void testNullAndLeaves() {
+        Assert.assertNull(OPTIMIZER.optimize(null));
+        Expression field = field("a");
+        Expression value = value(1);
+        Assert.assertSame(OPTIMIZER.optimize(field), field);
+        Assert.assertSame(OPTIMIZER.optimize(value), value);
+    }
+
+    @Test
+    public void testOptimizedExpressionIsANewExpression() {
+        BinaryExpression expression = binary(field("a"), binary(value(1), value(2), Operation.ADD), Operation.ADD);
+        Expression optimized = OPTIMIZER.optimize(expression);
+        Assert.assertEquals(optimized, binary(field("a"), value(3), Operation.ADD));
+        Assert.assertEquals(expression.getRight(), binary(value(1), value(2), Operation.ADD));
+    }
+
+    @Test
+    public void testConstantFolding() {
+        Assert.assertEquals(OPTIMIZER.optimize(binary(binary(value(1), value(2), Operation.ADD), value(3L), Operation.MUL)), value(9L));
+        Assert.assertEquals(OPTIMIZER.optimize(new CastExpression(value(5), Type.DOUBLE)), value(5.0));
+        Assert.assertEquals(OPTIMIZER.optimize(new UnaryExpression(value(null), Operation.IS_NULL)), value(true));
+        Assert.assertEquals(OPTIMIZER.optimize(binary(value(1), list(value(1), value(2)), Operation.IN)), value(true));
+        Assert.assertEquals(OPTIMIZER.optimize(nAry(Operation.IF, value(false), value("a"), value("b"))), value("b"));
+        Assert.assertEquals(OPTIMIZER.optimize(binary(value(1), value(null), Operation.ADD)), value(null));
+        Assert.assertEquals(OPTIMIZER.optimize(not(not(value(false)))), value(false));
+    }
+
+    @Test
+    public void testNoFoldingIfNotConstant() {
+        Expression expression = binary(field("a"), value(1), Operation.ADD);
+        Assert.assertEquals(OPTIMIZER.optimize(expression), expression);
+
+        // The current time is not a constant
+        expression = nAry(Operation.UNIX_TIMESTAMP);
+        Assert.assertEquals(OPTIMIZER.optimize(expression), expression);
+
+        // Lists are not primitives
+        expression = list(value(1), binary(value(1), value(2), Operation.ADD));
+        Assert.assertEquals(OPTIMIZER.optimize(expression), list(value(1), value(3)));
+    }
+
+    @Test
+    public void testNoFoldingIfEvaluationFails() {
+        Expression expression = binary(value(1), value(0), Operation.DIV);
+        Assert.assertEquals(OPTIMIZER.optimize(expression), expression);
+
+        expression = binary(value("foo"), value("[a-"), Operation.REGEX_LIKE);
+        Assert.assertEquals(OPTIMIZER.optimize(expression), expression);
+    }
+
+    @Test
+    public void testFlatteningAndsAndOrs() {
+        Expression a = binary(field("a"), value(1), Operation.GREATER_THAN);
+        Expression b = binary(field("b"), value(1), Operation.GREATER_THAN);
+        Expression c = binary(field("c"), value(1), Operation.GREATER_THAN);
+        Expression d = binary(field("d"), value(1), Operation.GREATER_THAN);
+
+        Assert.assertEquals(OPTIMIZER.optimize(binary(a, b, Operation.AND)), nAry(Operation.AND, a, b));
+        Assert.assertEquals(OPTIMIZER.optimize(binary(binary(a, b, Operation.AND), binary(c, d, Operation.AND), Operation.AND)),
+                            nAry(Operation.AND, a, b, c, d));
+        Assert.assertEquals(OPTIMIZER.optimize(nAry(Operation.OR, binary(a, b, Operation.OR), nAry(Operation.OR, c, d))),
+                            nAry(Operation.OR, a, b, c, d));
+        Assert.assertEquals(OPTIMIZER.optimize(binary(binary(a, b, Operation.OR), binary(c, d, Operation.OR), Operation.AND)),
+                            nAry(Operation.AND, nAry(Operation.OR, a, b), nAry(Operation.OR, c, d)));
+    }
+
+    @Test
+    public void testFlatteningKeepsTypes() {
+        BinaryExpression expression = binary(field("a"), field("b"), Operation.AND);
+        expression.setType(Type.BOOLEAN);
+        NAryExpression expected = nAry(Operation.AND, field("a"), field("b"));
+        expected.setType(Type.BOOLEAN);
+        Assert.assertEquals(OPTIMIZER.optimize(expression), expected);
+    }
+
+    @Test
+    public void testRemovingDoubleNots() {
+        Expression equals = binary(field("a"), value(1), Operation.EQUALS);
+        Assert.assertEquals(OPTIMIZER.optimize(not(not(equals))), equals);
+        Assert.assertEquals(OPTIMIZER.optimize(not(not(not(equals)))), not(equals));
+        Assert.assertEquals(OPTIMIZER.optimize(not(not(not(not(equals))))), equals);
+
+        // NOT NOT a is a cast of a to a boolean
+        Expression expression = not(not(field("a")));
+        Assert.assertEquals(OPTIMIZER.optimize(expression), expression);
+    }
+
+    @Test
+    public void testRewritingEqualitiesIntoIn() {
+        Expression a1 = binary(field("a"), value(1), Operation.EQUALS);
+        Expression a2 = binary(value(2), field("a"), Operation.EQUALS);
+        Expression a3 = binary(field("a"), value(3), Operation.EQUALS);
+        Expression b1 = binary(field("b"), value(1), Operation.EQUALS);
+
+        Assert.assertEquals(OPTIMIZER.optimize(binary(a1, a2, Operation.OR)), binary(field("a"), list(value(1), value(2)), Operation.IN));
+        Assert.assertEquals(OPTIMIZER.optimize(binary(binary(a1, a2, Operation.OR), binary(a3, b1, Operation.OR), Operation.OR)),
+                            nAry(Operation.OR, binary(field("a"), list(value(1), value(2), value(3)), Operation.IN), b1));
+        Assert.assertEquals(OPTIMIZER.optimize(binary(binary(field("a"), list(value(1), value(2)), Operation.IN), a3, Operation.OR)),
+                            binary(field("a"), list(value(1), value(2), value(3)), Operation.IN));
+        // Only consecutive equalities are merged
+        Assert.assertEquals(OPTIMIZER.optimize(nAry(Operation.OR, a1, b1, a3)), nAry(Operation.OR, a1, b1, a3));
+        // Not within ANDs
+        Assert.assertEquals(OPTIMIZER.optimize(binary(a1, a2, Operation.AND)), nAry(Operation.AND, a1, a2));
+    }
+
+    @Test
+    public void testNotRewritingEqualitiesIntoIn() {
+        Expression a1 = binary(field("a"), value(1), Operation.EQUALS);
+        Expression aLong = binary(field("a"), value(2L), Operation.EQUALS);
+        Expression aNull = binary(field("a"), value(null), Operation.EQUALS);
+        Expression aField = binary(field("a"), field("b"), Operation.EQUALS);
+        Expression aNotEquals = binary(field("a"), value(2), Operation.NOT_EQUALS);
+
+        Assert.assertEquals(OPTIMIZER.optimize(binary(a1, aLong, Operation.OR)), nAry(Operation.OR, a1, aLong));
+        Assert.assertEquals(OPTIMIZER.optimize(binary(a1, aNull, Operation.OR)), nAry(Operation.OR, a1, aNull));
+        Assert.assertEquals(OPTIMIZER.optimize(binary(a1, aField, Operation.OR)), nAry(Operation.OR, a1, aField));
+        Assert.assertEquals(OPTIMIZER.optimize(binary(a1, aNotEquals, Operation.OR)), nAry(Operation.OR, a1, aNotEquals));
+    }
+
+    @Test
+    public void testKeepingPackedLists() {
+        ListExpression packed = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(list(value(1), value(2)), true));
+        BinaryExpression optimized = (BinaryExpression) OPTIMIZER.optimize(binary(field("a"), packed, Operation.IN));
+        Assert.assertSame(optimized.getRight(), packed);
+    }
+
+    @Test
+    public void testOptimizedExpressionsHaveSameResults() {
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().getRecord(),
+                                                   RecordBox.get().add("a", 1).add("b", 2L).add("c", true).getRecord(),
+                                                   RecordBox.get().add("a", 2).add("b", 5L).add("c", false).getRecord(),
+                                                   RecordBox.get().add("a", 3.0).add("b", 3L).getRecord(),
+                                                   RecordBox.get().add("a", 4L).add("c", true).getRecord(),
+                                                   RecordBox.get().add("a", 2).getRecord());
+        Expression a1 = binary(field("a"), value(1), Operation.EQUALS);
+        Expression a2 = binary(field("a"), value(2), Operation.EQUALS);
+        Expression a3 = binary(value(3), field("a"), Operation.EQUALS);
+        Expression bigB = binary(field("b"), binary(value(1L), value(2), Operation.ADD), Operation.GREATER_THAN);
+        Expression cTrue = binary(field("c"), value(true), Operation.EQUALS);
+
+        assertSameResults(binary(binary(a1, a2, Operation.OR), a3, Operation.OR), records);
+        assertSameResults(binary(binary(a1, bigB, Operation.OR), binary(a2, a3, Operation.OR), Operation.AND), records);
+        assertSameResults(binary(not(not(binary(a1, a2, Operation.OR))), bigB, Operation.AND), records);
+        assertSameResults(binary(cTrue, binary(a2, a3, Operation.OR), Operation.OR), records);
+        assertSameResults(nAry(Operation.IF, cTrue, binary(value(1), value(2), Operation.ADD), field("a")), records);
+        assertSameResults(binary(binary(a1, value(null), Operation.OR), binary(value(true), value(null), Operation.AND), Operation.AND), records);
+        assertSameResults(new UnaryExpression(binary(a1, binary(value(2), value(2), Operation.EQUALS), Operation.OR), Operation.IS_NULL),
+                          Collections.singletonList(RecordBox.get().getRecord()));
+    }
+}
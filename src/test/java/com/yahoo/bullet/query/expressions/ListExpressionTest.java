@@ -5,13 +5,18 @@
  */
 package com.yahoo.bullet.query.expressions;
 
+import com.yahoo.bullet.common.SerializerDeserializer;
 import com.yahoo.bullet.querying.evaluators.ListEvaluator;
 import com.yahoo.bullet.typesystem.Type;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class ListExpressionTest {
     @Test
@@ -39,4 +44,149 @@ public class ListExpressionTest {
                                               new ListExpression(Arrays.asList(new ValueExpression(1))),
                                               expression);
     }
+
+    private static ListExpression copy(ListExpression expression) {
+        return SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(expression, true));
+    }
+
+    private static ListExpression valueList(Object... values) {
+        List<Expression> expressions = new ArrayList<>();
+        for (Object value : values) {
+            expressions.add(new ValueExpression((Serializable) value));
+        }
+        return new ListExpression(expressions);
+    }
+
+    @Test
+    public void testSerialization() {
+        List<ListExpression> expressions = Arrays.asList(new ListExpression(new ArrayList<>()),
+                                                         valueList(1, -5, Integer.MAX_VALUE, Integer.MIN_VALUE, 0),
+                                                         valueList(3000000000L, Long.MIN_VALUE, Long.MAX_VALUE, -1L),
+                                                         valueList(1.5f, Float.NaN), valueList(2.5, -0.0, Double.NaN),
+                                                         valueList(true, false), valueList("foo", "", "😀", "\ud800"),
+                                                         valueList(1, 2L), valueList(1, null),
+                                                         new ListExpression(Arrays.asList(new ValueExpression(1), new FieldExpression("a"))));
+        for (ListExpression expression : expressions) {
+            expression.setType(Type.INTEGER_LIST);
+            ListExpression copy = copy(expression);
+            Assert.assertEquals(copy, expression);
+            Assert.assertEquals(copy.getType(), Type.INTEGER_LIST);
+            Assert.assertEquals(copy.toString(), expression.toString());
+        }
+
+        ValueExpression retyped = new ValueExpression(1);
+        retyped.setType(Type.LONG);
+        ListExpression expression = new ListExpression(Arrays.asList(new ValueExpression(1), retyped));
+        Assert.assertEquals(copy(expression), expression);
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 30000; i++) {
+            builder.append('\u20AC');
+        }
+        expression = valueList("a", builder.toString());
+        Assert.assertEquals(copy(expression), expression);
+    }
+
+    @Test
+    public void testSerializationIsCompact() {
+        List<Expression> ids = new ArrayList<>();
+        for (long i = 0; i < 100000; i++) {
+            ids.add(new ValueExpression(5000000000L + i * 10));
+        }
+        byte[] bytes = SerializerDeserializer.toBytes(new ListExpression(ids), true);
+        // The gaps take a byte each
+        Assert.assertTrue(bytes.length < 101000);
+        Assert.assertEquals(((ListExpression) SerializerDeserializer.fromBytes(bytes)).getValues(), ids);
+    }
+
+    @Test
+    public void testSerializationIsNotPackedByDefault() {
+        ListExpression expression = valueList(1, 2, 3);
+        byte[] bytes = SerializerDeserializer.toBytes(expression);
+        ListExpression copy = SerializerDeserializer.fromBytes(bytes);
+        Assert.assertFalse(copy.isPacked());
+        Assert.assertEquals(copy, expression);
+        Assert.assertTrue(bytes.length > SerializerDeserializer.toBytes(expression, true).length);
+
+        // A packed list is written unpacked again too
+        copy = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(copy(expression)));
+        Assert.assertFalse(copy.isPacked());
+        Assert.assertEquals(copy, expression);
+    }
+
+    @Test
+    public void testReadingTheDefaultForm() throws Exception {
+        // The values field in the default serialized form of the versions before the packed form
+        ListExpression expression = new ListExpression(new ArrayList<>());
+        expression.setType(Type.INTEGER_LIST);
+        List<Expression> values = Arrays.asList(new ValueExpression(1), new ValueExpression(2));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos) {
+            {
+                enableReplaceObject(true);
+            }
+
+            @Override
+            protected Object replaceObject(Object object) {
+                return object instanceof ArrayList && ((ArrayList) object).isEmpty() ? new ArrayList<>(values) : object;
+            }
+        }) {
+            oos.writeObject(expression);
+        }
+        ListExpression copy = SerializerDeserializer.fromBytes(bos.toByteArray());
+        Assert.assertFalse(copy.isPacked());
+        Assert.assertEquals(copy.getValues(), values);
+        Assert.assertEquals(copy.getType(), Type.INTEGER_LIST);
+    }
+
+    @Test
+    public void testPackedAfterDeserialization() {
+        List<ListExpression> expressions = Arrays.asList(valueList(1, -5, Integer.MAX_VALUE), valueList(3000000000L, -1L),
+                                                         valueList(1.5f, Float.NaN), valueList(2.5, -0.0), valueList(true, false),
+                                                         valueList("foo", "bar"));
+        for (ListExpression expression : expressions) {
+            Assert.assertFalse(expression.isPacked());
+            ListExpression copy = copy(expression);
+            Assert.assertTrue(copy.isPacked());
+            Assert.assertEquals(copy.getValues(), expression.getValues());
+            Assert.assertEquals(copy.hashCode(), expression.hashCode());
+            Assert.assertEquals(copy(copy), copy);
+            Assert.assertEquals(copy(copy), expression);
+            Assert.assertEquals(copy.getEvaluator().evaluate(null), expression.getEvaluator().evaluate(null));
+            // The value expressions are only created once
+            Assert.assertSame(copy.getValues(), copy.getValues());
+        }
+        Assert.assertNotEquals(copy(valueList(1, 2)), copy(valueList(1L, 2L)));
+        Assert.assertNotEquals(copy(valueList(1, 2)), copy(valueList(1, 3)));
+        Assert.assertFalse(copy(valueList(1, null)).isPacked());
+        Assert.assertFalse(copy(new ListExpression(new ArrayList<>())).isPacked());
+    }
+
+    @Test
+    public void testPackedEqualsAndHashCode() {
+        List<ListExpression> expressions = Arrays.asList(valueList(1, -5, Integer.MAX_VALUE), valueList(3000000000L, -1L),
+                                                         valueList(1.5f, Float.NaN), valueList(2.5, -0.0), valueList(true, false),
+                                                         valueList("foo", "bar"));
+        for (ListExpression expression : expressions) {
+            ListExpression copy = copy(expression);
+            Assert.assertEquals(copy.hashCode(), expression.hashCode());
+            Assert.assertEquals(copy, expression);
+            Assert.assertEquals(expression, copy);
+            copy.toString();
+            // Still compared on the packed values once created
+            Assert.assertTrue(copy.isPacked());
+            Assert.assertEquals(copy.hashCode(), expression.hashCode());
+        }
+        Assert.assertNotEquals(copy(valueList(1, 2)), valueList(1L, 2L));
+        Assert.assertNotEquals(valueList(1, 2), copy(valueList(1, 3)));
+        Assert.assertNotEquals(copy(valueList(1, 2)), valueList(1, 2, 3));
+        Assert.assertNotEquals(copy(valueList(1.0, 2.0)), valueList(-0.0, 2.0));
+        Assert.assertNotEquals(copy(valueList("a")), new ListExpression(Arrays.asList(new FieldExpression("a"))));
+
+        ListExpression typed = valueList(1, 2);
+        typed.setType(Type.INTEGER_LIST);
+        Assert.assertNotEquals(copy(valueList(1, 2)), typed);
+        Assert.assertEquals(copy(typed), typed);
+        Assert.assertEquals(copy(typed).hashCode(), typed.hashCode());
+    }
 }
@@ -0,0 +1,44 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.BulletError;
+import com.yahoo.bullet.result.Meta;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.yahoo.bullet.TestHelpers.assertJSONEquals;
+
+public class BudgetErrorTest {
+    @Test
+    public void testCPUError() {
+        BudgetError error = BudgetError.cpu(BudgetError.QUERY, 312.5, 250.0);
+        Assert.assertEquals(error.getError(), "Exceeded the CPU budget for query: 250.00 ms per second. " +
+                                              "Current usage: 312.50 ms per second");
+        assertJSONEquals(error.asJSON(), "{'error': '" + error.getError() + "', " +
+                                          "'resolutions': ['" + BudgetError.NARROW_FILTER + "', '" + BudgetError.SMALLER_AGGREGATION + "']" +
+                                         "}");
+    }
+
+    @Test
+    public void testMemoryError() {
+        BudgetError error = BudgetError.memory(BudgetError.ALL_QUERIES, 2048L, 1024L);
+        Assert.assertEquals(error.getError(), "Exceeded the memory budget for all the queries: 1024 bytes. " +
+                                              "Current usage: 2048 bytes");
+        Assert.assertEquals(error.getResolutions(), BudgetError.RESOLUTIONS);
+    }
+
+    @Test
+    public void testMeta() {
+        BudgetError error = BudgetError.cpu(BudgetError.QUERY, 1.0, 2.0);
+        Map<String, Object> actual = error.makeMeta().asMap();
+        Assert.assertTrue(actual.containsKey(Meta.ERROR_KEY));
+        Assert.assertSame(((List<BulletError>) actual.get(Meta.ERROR_KEY)).get(0), error);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.Projection;
+import com.yahoo.bullet.query.Query;
+import com.yahoo.bullet.query.Window;
+import com.yahoo.bullet.query.aggregations.Raw;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import org.testng.Assert;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+public class ConcurrentQueryManagerTest {
+    static Query getQuery(String value) {
+        BinaryExpression expression = new BinaryExpression(new FieldExpression("A"), new ValueExpression(value), Operation.EQUALS);
+        expression.setType(Type.BOOLEAN);
+        expression.getLeft().setType(Type.STRING);
+        Query query = new Query(new Projection(), expression, new Raw(null), null, new Window(), null);
+        query.configure(new BulletConfig());
+        return query;
+    }
+
+    static Querier getQuerier(String value) {
+        Querier querier = QueryCategorizerTest.makeQuerier(false, false, false, false);
+        Query query = getQuery(value);
+        when(querier.getQuery()).thenReturn(query);
+        return querier;
+    }
+
+    static BulletConfig getPartitionedConfig() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_PARTITIONER_ENABLE, true);
+        config.set(BulletConfig.QUERY_PARTITIONER_CLASS_NAME, BulletConfig.DEFAULT_QUERY_PARTITIONER_CLASS_NAME);
+        config.set(BulletConfig.EQUALITY_PARTITIONER_FIELDS, asList("A"));
+        return config.validate();
+    }
+
+    @Test
+    public void testSharingIsNotSupported() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_EXPRESSION_SHARE_ENABLE, true);
+        config.validate();
+        Assert.assertNull(new ConcurrentQueryManager(config).getShared());
+        Assert.assertNotNull(new QueryManager(config).getShared());
+    }
+
+    @Test
+    public void testAddingAndRemovingQueries() {
+        QueryManager manager = new ConcurrentQueryManager(getPartitionedConfig());
+        Querier querierA = getQuerier("foo");
+        Querier querierB = getQuerier("foo");
+        Querier querierC = getQuerier("bar");
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+        manager.addQuery("idC", querierC);
+        Assert.assertEquals(manager.size(), 3);
+
+        BulletRecord record = RecordBox.get().add("A", "foo").getRecord();
+        Map<String, Querier> queries = manager.partition(record);
+        Assert.assertEquals(queries.size(), 2);
+        Assert.assertSame(queries.get("idA"), querierA);
+        Assert.assertSame(queries.get("idB"), querierB);
+
+        Assert.assertSame(manager.removeAndGetQuery("idA"), querierA);
+        Assert.assertNull(manager.removeAndGetQuery("idA"));
+        Assert.assertEquals(manager.partition(record).keySet(), Collections.singleton("idB"));
+        manager.removeQueries(Collections.singleton("idB"));
+        Assert.assertEquals(manager.getStats().get(QueryManager.PartitionStat.PARTITION_COUNT), 1);
+        Assert.assertEquals(manager.getStats().get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 3L);
+        Assert.assertEquals(manager.getStats().get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN), 5L);
+    }
+
+    @Test
+    public void testConcurrentUpdatesAndLookups() throws Exception {
+        QueryManager manager = new ConcurrentQueryManager(getPartitionedConfig());
+        BulletRecord record = RecordBox.get().add("A", "foo").getRecord();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        String id = thread + "-" + i;
+                        manager.addQuery(id, getQuerier(i % 2 == 0 ? "foo" : "bar"));
+                        manager.partition(record).values().forEach(Assert::assertNotNull);
+                        if (i % 4 == 0) {
+                            Assert.assertNotNull(manager.removeAndGetQuery(id));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(manager.size(), 4 * 150);
+        Assert.assertEquals(manager.partition(record).size(), 4 * 50);
+        Assert.assertEquals(manager.getStats().get(QueryManager.PartitionStat.PARTITION_COUNT), 2);
+    }
+
+    @Test
+    public void testConcurrentUpdatesOfTheSameQueries() throws Exception {
+        QueryManager manager = new ConcurrentQueryManager(getPartitionedConfig());
+        BulletRecord record = RecordBox.get().add("A", "foo").getRecord();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        String id = "id" + i % 10;
+                        if (i % 2 == 0) {
+                            manager.addQuery(id, getQuerier("foo"));
+                        } else {
+                            manager.removeAndGetQuery(id);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // Every query that is still in the index is in the manager
+        Map<String, Querier> partitioned = manager.partition(record);
+        partitioned.forEach((id, querier) -> Assert.assertSame(manager.getQuery(id), querier));
+        for (int i = 0; i < 10; i++) {
+            manager.removeAndGetQuery("id" + i);
+        }
+        Assert.assertEquals(manager.size(), 0);
+        Assert.assertTrue(manager.partition(record).isEmpty());
+        Assert.assertEquals(manager.getStats().get(QueryManager.PartitionStat.PARTITION_COUNT), 0);
+    }
+
+    @Test
+    public void testConcurrentCategorizingConsumesOneRecordAtATime() throws Exception {
+        QueryManager manager = new ConcurrentQueryManager(getPartitionedConfig());
+        AtomicInteger consuming = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        Querier querier = getQuerier("foo");
+        Answer<Void> answer = invocation -> {
+            if (consuming.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            Thread.yield();
+            consumed.incrementAndGet();
+            consuming.decrementAndGet();
+            return null;
+        };
+        doAnswer(answer).when(querier).consume(any(BulletRecord.class));
+        doAnswer(answer).when(querier).consume(anyList());
+        manager.addQuery("id", querier);
+        BulletRecord record = RecordBox.get().add("A", "foo").getRecord();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        if (i % 2 == 0) {
+                            manager.categorize(record);
+                        } else {
+                            manager.categorize(Collections.singletonList(record));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(consumed.get(), 4 * 500);
+        Assert.assertEquals(overlaps.get(), 0);
+    }
+}
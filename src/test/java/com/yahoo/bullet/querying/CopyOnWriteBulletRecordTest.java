@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.simple.UntypedSimpleBulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class CopyOnWriteBulletRecordTest {
+    private BulletRecord base;
+    private CopyOnWriteBulletRecord record;
+
+    @BeforeMethod
+    public void setup() {
+        base = new UntypedSimpleBulletRecord();
+        base.setString("a", "foo");
+        base.setInteger("b", 1);
+        record = new CopyOnWriteBulletRecord(base);
+    }
+
+    @Test
+    public void testReadingThrough() {
+        Assert.assertSame(record.getBaseRecord(), base);
+        Assert.assertEquals(record.typedGet("a").getValue(), "foo");
+        Assert.assertEquals(record.typedGet("b").getType(), Type.INTEGER);
+        Assert.assertEquals(record.get("b"), 1);
+        Assert.assertTrue(record.hasField("a"));
+        Assert.assertFalse(record.hasField("c"));
+        Assert.assertEquals(record.fieldCount(), 2);
+    }
+
+    @Test
+    public void testSettingAndRemovingDoNotChangeTheBase() {
+        record.typedSet("c", new TypedObject(Type.LONG, 5L));
+        record.typedSet("b", new TypedObject(Type.STRING, "bar"));
+        record.remove("a");
+        record.remove("d");
+
+        Assert.assertEquals(record.fieldCount(), 2);
+        Assert.assertFalse(record.hasField("a"));
+        Assert.assertEquals(record.typedGet("a"), TypedObject.NULL);
+        Assert.assertNull(record.get("a"));
+        Assert.assertEquals(record.typedGet("b").getValue(), "bar");
+        Assert.assertEquals(record.get("c"), 5L);
+
+        Assert.assertEquals(base.fieldCount(), 2);
+        Assert.assertEquals(base.typedGet("a").getValue(), "foo");
+        Assert.assertEquals(base.typedGet("b").getValue(), 1);
+        Assert.assertFalse(base.hasField("c"));
+    }
+
+    @Test
+    public void testSettingARemovedFieldAndRemovingASetField() {
+        record.remove("a");
+        record.typedSet("a", new TypedObject(Type.STRING, "bar"));
+        Assert.assertEquals(record.typedGet("a").getValue(), "bar");
+        Assert.assertEquals(record.fieldCount(), 2);
+
+        record.typedSet("c", new TypedObject(Type.LONG, 5L));
+        Assert.assertEquals(record.getAndRemove("c"), 5L);
+        Assert.assertEquals(record.getAndRemove("b"), 1);
+        Assert.assertFalse(record.hasField("c"));
+        Assert.assertFalse(record.hasField("b"));
+        Assert.assertEquals(record.fieldCount(), 1);
+    }
+
+    @Test
+    public void testRenaming() {
+        record.rename("a", "c");
+        Assert.assertFalse(record.hasField("a"));
+        Assert.assertEquals(record.typedGet("c").getValue(), "foo");
+        Assert.assertEquals(base.typedGet("a").getValue(), "foo");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSettingRawValues() {
+        record.setString("c", "bar");
+    }
+
+    @Test
+    public void testCopying() {
+        record.typedSet("c", new TypedObject(Type.LONG, 5L));
+        record.remove("a");
+        BulletRecord copy = record.copy();
+        Assert.assertTrue(copy instanceof UntypedSimpleBulletRecord);
+        Assert.assertEquals(copy.fieldCount(), 2);
+        Assert.assertFalse(copy.hasField("a"));
+        Assert.assertEquals(copy.typedGet("b").getValue(), 1);
+        Assert.assertEquals(copy.typedGet("c").getValue(), 5L);
+        Assert.assertEquals(base.fieldCount(), 2);
+    }
+
+    @Test
+    public void testCopyingATypedRecord() {
+        BulletRecord typed = RecordBox.get().add("a", "foo").getRecord();
+        CopyOnWriteBulletRecord record = new CopyOnWriteBulletRecord(typed);
+        record.typedSet("b", new TypedObject(Type.INTEGER, 1));
+        BulletRecord copy = record.copy();
+        Assert.assertEquals(copy.getClass(), typed.getClass());
+        Assert.assertEquals(copy.typedGet("a").getValue(), "foo");
+        Assert.assertEquals(copy.typedGet("b").getValue(), 1);
+        Assert.assertFalse(typed.hasField("b"));
+    }
+
+    @Test
+    public void testDataMapAndIterating() {
+        record.typedSet("c", new TypedObject(Type.LONG, 5L));
+        record.remove("a");
+        Map<String, Serializable> map = record.toUnmodifiableDataMap();
+        Assert.assertEquals(map.size(), 2);
+        Assert.assertEquals(map.get("b"), 1);
+        Assert.assertEquals(map.get("c"), 5L);
+
+        Map<String, Serializable> iterated = new HashMap<>();
+        Iterator<Map.Entry<String, Serializable>> iterator = record.iterator();
+        iterator.forEachRemaining(entry -> iterated.put(entry.getKey(), entry.getValue()));
+        Assert.assertEquals(iterated, map);
+    }
+}
@@ -6,14 +6,19 @@
 package com.yahoo.bullet.querying;
 
 import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
 import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.querying.evaluators.ExpressionCompiler;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.RecordBox;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class FilterTest {
     @Test
     public void testFilterMatch() {
@@ -28,10 +33,76 @@ public class FilterTest {
         Assert.assertFalse(filter.match(recordC));
     }
 
+    @Test
+    public void testCompiledFilterMatch() {
+        Filter filter = new Filter(new BinaryExpression(new FieldExpression("abc"), new ValueExpression(0), Operation.GREATER_THAN),
+                                   new ExpressionCompiler(true));
+
+        BulletRecord recordA = RecordBox.get().add("abc", 1).getRecord();
+        BulletRecord recordB = RecordBox.get().add("abc", 0).getRecord();
+        BulletRecord recordC = RecordBox.get().getRecord();
+
+        Assert.assertTrue(filter.match(recordA));
+        Assert.assertFalse(filter.match(recordB));
+        Assert.assertFalse(filter.match(recordC));
+    }
+
+    @Test
+    public void testReorderedFilterMatch() {
+        Expression expression = new BinaryExpression(new BinaryExpression(new FieldExpression("abc"), new ValueExpression(0), Operation.GREATER_THAN),
+                                                     new BinaryExpression(new FieldExpression("def"), new ValueExpression("foo"), Operation.EQUALS),
+                                                     Operation.AND);
+        Filter filter = new Filter(expression, new ExpressionCompiler(true, 64, false, true));
+
+        BulletRecord recordA = RecordBox.get().add("abc", 1).add("def", "foo").getRecord();
+        BulletRecord recordB = RecordBox.get().add("abc", 0).add("def", "foo").getRecord();
+        BulletRecord recordC = RecordBox.get().add("abc", 1).getRecord();
+        BulletRecord recordD = RecordBox.get().add("abc", 1).add("def", 1).getRecord();
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(filter.match(recordA));
+            Assert.assertFalse(filter.match(recordB));
+            Assert.assertFalse(filter.match(recordC));
+            Assert.assertFalse(filter.match(recordD));
+        }
+    }
+
     @Test
     public void testFilterMatchException() {
         Filter filter = new Filter(new FieldExpression("abc"));
 
         Assert.assertFalse(filter.match(null));
     }
+
+    @Test
+    public void testBatchMatch() {
+        Expression expression = new BinaryExpression(new BinaryExpression(new FieldExpression("abc"), new ValueExpression(0), Operation.GREATER_THAN),
+                                                     new BinaryExpression(new FieldExpression("def"), new ValueExpression("foo"), Operation.EQUALS),
+                                                     Operation.AND);
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().add("abc", 1).add("def", "foo").getRecord(),
+                                                   RecordBox.get().add("abc", 0).add("def", "foo").getRecord(),
+                                                   RecordBox.get().add("abc", 1).getRecord(),
+                                                   RecordBox.get().add("abc", 1).add("def", 1).getRecord(),
+                                                   RecordBox.get().add("abc", 2).add("def", "foo").getRecord());
+        for (Filter filter : Arrays.asList(new Filter(expression), new Filter(expression, new ExpressionCompiler(true)),
+                                           new Filter(expression, new ExpressionCompiler(true, 64, false, true)))) {
+            int[] selection = new int[records.size()];
+            int size = filter.match(records, selection);
+            Assert.assertEquals(size, 2);
+            Assert.assertEquals(selection[0], 0);
+            Assert.assertEquals(selection[1], 4);
+            for (int i = 0; i < records.size(); i++) {
+                int index = i;
+                Assert.assertEquals(Arrays.stream(selection, 0, size).anyMatch(selected -> selected == index), filter.match(records.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testBatchMatchException() {
+        Filter filter = new Filter(new FieldExpression("abc"));
+        int[] selection = new int[2];
+        Assert.assertEquals(filter.match(Arrays.asList(null, RecordBox.get().add("abc", true).getRecord()), selection), 1);
+        Assert.assertEquals(selection[0], 1);
+    }
 }
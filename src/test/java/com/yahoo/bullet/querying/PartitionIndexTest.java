@@ -0,0 +1,142 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.querying.partitioning.HashedKeys;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+
+public class PartitionIndexTest {
+    private static Map<String, Querier> lookup(PartitionIndex index, long... keys) {
+        HashedKeys hashedKeys = new HashedKeys();
+        for (long key : keys) {
+            hashedKeys.add(key);
+        }
+        Map<String, Querier> queriers = new HashMap<>();
+        int count = index.forEach(hashedKeys, (id, querier) -> Assert.assertNull(queriers.put(id, querier)));
+        Assert.assertEquals(count, queriers.size());
+        return queriers;
+    }
+
+    @Test
+    public void testAddingAndRemoving() {
+        PartitionIndex index = new PartitionIndex();
+        Querier querierA = mock(Querier.class);
+        Querier querierB = mock(Querier.class);
+        index.add(new long[] { 1L }, "idA", querierA);
+        index.add(new long[] { 1L }, "idB", querierB);
+        index.add(new long[] { 2L }, "idC", querierB);
+        Assert.assertEquals(index.size(), 2);
+
+        Map<String, Querier> queriers = lookup(index, 1L, 3L);
+        Assert.assertEquals(queriers.size(), 2);
+        Assert.assertSame(queriers.get("idA"), querierA);
+        Assert.assertSame(queriers.get("idB"), querierB);
+        Assert.assertEquals(lookup(index, 3L).size(), 0);
+
+        index.remove(new long[] { 1L }, "idA");
+        Assert.assertEquals(lookup(index, 1L).keySet(), Collections.singleton("idB"));
+        index.remove(new long[] { 1L }, "idB");
+        Assert.assertEquals(index.size(), 1);
+        Assert.assertEquals(lookup(index, 1L, 2L).keySet(), Collections.singleton("idC"));
+
+        // Removing what is not there does nothing
+        index.remove(new long[] { 1L, 2L }, "idA");
+        Assert.assertEquals(lookup(index, 1L, 2L).size(), 1);
+    }
+
+    @Test
+    public void testReplacing() {
+        PartitionIndex index = new PartitionIndex();
+        Querier querierA = mock(Querier.class);
+        Querier querierB = mock(Querier.class);
+        index.add(new long[] { 1L }, "idA", querierA);
+        index.add(new long[] { 1L }, "idA", querierB);
+        Map<String, Querier> queriers = lookup(index, 1L);
+        Assert.assertEquals(queriers.size(), 1);
+        Assert.assertSame(queriers.get("idA"), querierB);
+    }
+
+    @Test
+    public void testQueriesWithManyKeysAreFoundOnce() {
+        PartitionIndex index = new PartitionIndex();
+        Querier querier = mock(Querier.class);
+        index.add(new long[] { 1L, 2L, 2L }, "idA", querier);
+        index.add(new long[] { 2L }, "idB", querier);
+        Assert.assertEquals(index.size(), 2);
+        Assert.assertEquals(lookup(index, 1L, 2L).size(), 2);
+
+        index.remove(new long[] { 1L, 2L }, "idA");
+        Assert.assertEquals(index.size(), 1);
+        Assert.assertEquals(lookup(index, 1L, 2L).size(), 1);
+    }
+
+    @Test
+    public void testManyQueriesWithManyKeysAreFoundOnce() {
+        PartitionIndex index = new PartitionIndex();
+        Querier querier = mock(Querier.class);
+        for (int i = 0; i < 100; i++) {
+            index.add(new long[] { 1L, 2L, 3L }, "id" + i, querier);
+        }
+        // The set of seen queries is reused and must be empty again for each record
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(lookup(index, 1L, 2L, 3L).size(), 100);
+            Assert.assertEquals(lookup(index, 3L).size(), 100);
+        }
+        for (int i = 0; i < 100; i++) {
+            index.remove(new long[] { 1L, 2L, 3L }, "id" + i);
+        }
+        Assert.assertEquals(index.size(), 0);
+        index.add(new long[] { 1L }, "idA", querier);
+        Assert.assertEquals(lookup(index, 1L).size(), 1);
+    }
+
+    @Test
+    public void testLookingUpWhileLookingUp() {
+        PartitionIndex index = new PartitionIndex();
+        Querier querier = mock(Querier.class);
+        index.add(new long[] { 1L, 2L }, "idA", querier);
+        index.add(new long[] { 2L }, "idB", querier);
+        Map<String, Integer> counts = new HashMap<>();
+        HashedKeys keys = new HashedKeys();
+        keys.add(1L);
+        keys.add(2L);
+        index.forEach(keys, (id, q) -> {
+            counts.merge(id, 1, Integer::sum);
+            Assert.assertEquals(lookup(index, 1L, 2L).size(), 2);
+        });
+        Assert.assertEquals(counts.get("idA"), (Integer) 1);
+        Assert.assertEquals(counts.get("idB"), (Integer) 1);
+        Assert.assertEquals(lookup(index, 1L, 2L).size(), 2);
+    }
+
+    @Test
+    public void testGrowingAndRemoving() {
+        PartitionIndex index = new PartitionIndex();
+        Querier querier = mock(Querier.class);
+        // Keys that all start probing from the same slot
+        for (long i = 0; i < 1000; i++) {
+            index.add(new long[] { i << 32 | i }, "id" + i, querier);
+        }
+        Assert.assertEquals(index.size(), 1000);
+        for (long i = 0; i < 1000; i++) {
+            Assert.assertEquals(lookup(index, i << 32 | i).keySet(), Collections.singleton("id" + i));
+        }
+        for (long i = 0; i < 1000; i += 2) {
+            index.remove(new long[] { i << 32 | i }, "id" + i);
+        }
+        Assert.assertEquals(index.size(), 500);
+        for (long i = 0; i < 1000; i++) {
+            Assert.assertEquals(lookup(index, i << 32 | i).size(), i % 2 == 0 ? 0 : 1);
+        }
+    }
+}
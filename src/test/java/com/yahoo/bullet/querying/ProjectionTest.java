@@ -10,6 +10,7 @@ import com.yahoo.bullet.query.expressions.BinaryExpression;
 import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.querying.evaluators.ExpressionCompiler;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.record.avro.TypedAvroBulletRecordProvider;
 import com.yahoo.bullet.result.RecordBox;
@@ -46,6 +47,25 @@ public class ProjectionTest {
         Assert.assertEquals(newRecord.typedGet("e").getValue(), 24);
     }
 
+    @Test
+    public void testCompiledProjectNewRecord() {
+        BulletRecord record = RecordBox.get().add("a", 2)
+                                             .add("b", 4).getRecord();
+
+        List<Field> fields = Arrays.asList(new Field("d", new BinaryExpression(new FieldExpression("a"),
+                                                                               new FieldExpression("b"),
+                                                                               Operation.LESS_THAN)),
+                                           new Field("e", new BinaryExpression(new FieldExpression("b"),
+                                                                               new FieldExpression("c"),
+                                                                               Operation.AND)));
+
+        Projection projection = new Projection(fields, new ExpressionCompiler(true));
+        BulletRecord newRecord = projection.project(record, new TypedAvroBulletRecordProvider());
+
+        Assert.assertEquals(newRecord.fieldCount(), 1);
+        Assert.assertEquals(newRecord.typedGet("d").getValue(), true);
+    }
+
     @Test
     public void testProjectOldRecord() {
         BulletRecord record = RecordBox.get().add("a", 2)
@@ -77,4 +97,44 @@ public class ProjectionTest {
         Assert.assertEquals(oldRecord.typedGet("d").getValue(), 10);
         Assert.assertEquals(oldRecord, record);
     }
+
+    @Test
+    public void testBatchProjectNewRecords() {
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().add("a", 2).add("b", 4).getRecord(),
+                                                   RecordBox.get().add("a", 3).add("b", 5).getRecord(),
+                                                   RecordBox.get().add("a", 4).add("b", "foo").getRecord());
+        List<Field> fields = Arrays.asList(new Field("c", new BinaryExpression(new FieldExpression("a"), new FieldExpression("b"), Operation.ADD)),
+                                           new Field("d", new FieldExpression("a")),
+                                           new Field("e", new FieldExpression("e")));
+
+        for (Projection projection : Arrays.asList(new Projection(fields), new Projection(fields, new ExpressionCompiler(true)))) {
+            int[] selection = {0, 2};
+            List<BulletRecord> projected = projection.project(records, selection, 2, new TypedAvroBulletRecordProvider());
+            Assert.assertEquals(projected.size(), 2);
+            Assert.assertEquals(projected.get(0), projection.project(records.get(0), new TypedAvroBulletRecordProvider()));
+            Assert.assertEquals(projected.get(1), projection.project(records.get(2), new TypedAvroBulletRecordProvider()));
+            Assert.assertEquals(projected.get(0).fieldCount(), 2);
+            Assert.assertEquals(projected.get(0).typedGet("c").getValue(), 6);
+            Assert.assertEquals(projected.get(1).fieldCount(), 1);
+            Assert.assertEquals(projected.get(1).typedGet("d").getValue(), 4);
+        }
+    }
+
+    @Test
+    public void testBatchProjectOldRecords() {
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().add("a", 2).add("b", 4).getRecord(),
+                                                   RecordBox.get().add("a", 3).add("b", 5).getRecord());
+        // The fields are all computed before they are projected so b is the old b in c.
+        List<Field> fields = Arrays.asList(new Field("b", new BinaryExpression(new FieldExpression("a"), new FieldExpression("a"), Operation.MUL)),
+                                           new Field("c", new BinaryExpression(new FieldExpression("a"), new FieldExpression("b"), Operation.ADD)));
+        Projection projection = new Projection(fields);
+
+        List<BulletRecord> projected = projection.project(records, new int[] {1}, 1);
+        Assert.assertEquals(projected.size(), 1);
+        Assert.assertSame(projected.get(0), records.get(1));
+        Assert.assertEquals(records.get(1).typedGet("b").getValue(), 9);
+        Assert.assertEquals(records.get(1).typedGet("c").getValue(), 8);
+        Assert.assertEquals(records.get(0).typedGet("b").getValue(), 4);
+        Assert.assertFalse(records.get(0).hasField("c"));
+    }
 }
@@ -7,6 +7,9 @@ package com.yahoo.bullet.querying;
 
 import com.yahoo.bullet.common.BulletConfigTest;
 import com.yahoo.bullet.common.BulletError;
+import com.yahoo.bullet.common.Clock;
+import com.yahoo.bullet.common.metrics.MetricCollector;
+import com.yahoo.bullet.common.metrics.NodeProfile;
 import com.yahoo.bullet.pubsub.Metadata;
 import com.yahoo.bullet.query.Field;
 import com.yahoo.bullet.query.Projection;
@@ -18,6 +21,7 @@ import com.yahoo.bullet.query.aggregations.GroupAll;
 import com.yahoo.bullet.query.aggregations.GroupBy;
 import com.yahoo.bullet.query.aggregations.Raw;
 import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.CastExpression;
 import com.yahoo.bullet.query.expressions.Expression;
 import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.ListExpression;
@@ -26,6 +30,7 @@ import com.yahoo.bullet.query.expressions.UnaryExpression;
 import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.query.postaggregations.Computation;
 import com.yahoo.bullet.query.postaggregations.Culling;
+import com.yahoo.bullet.query.postaggregations.Having;
 import com.yahoo.bullet.query.postaggregations.OrderBy;
 import com.yahoo.bullet.query.tablefunctions.Explode;
 import com.yahoo.bullet.query.tablefunctions.LateralView;
@@ -38,6 +43,7 @@ import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.Clip;
 import com.yahoo.bullet.result.Meta;
 import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.windowing.AdditiveTumbling;
 import com.yahoo.bullet.windowing.Basic;
 import com.yahoo.bullet.windowing.Scheme;
@@ -48,9 +54,11 @@ import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.IntStream;
@@ -58,6 +66,7 @@ import java.util.stream.Stream;
 
 import static com.yahoo.bullet.TestHelpers.getListBytes;
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static org.mockito.Mockito.spy;
 
@@ -619,6 +628,24 @@ public class QuerierTest {
         Assert.assertTrue(querier.getMetadata().asMap().isEmpty());
     }
 
+    @Test
+    public void testNextDeadline() {
+        BulletConfig config = new BulletConfig();
+        Query query = new Query(new Projection(), null, new Raw(null), null, new Window(), 20000L);
+        query.configure(config);
+        Querier querier = make(Querier.Mode.ALL, query, config);
+        Assert.assertEquals(querier.getNextDeadline(), querier.getRunningQuery().getExpiryTime());
+
+        Window window = WindowUtils.makeTumblingWindow(2000);
+        query = new Query(new Projection(), null, new Raw(null), null, window, 20000L);
+        query.configure(config);
+        querier = make(Querier.Mode.ALL, query, config);
+        long closeTime = querier.getWindow().getNextCloseTime();
+        Assert.assertEquals(querier.getNextDeadline(), closeTime);
+        querier.reset();
+        Assert.assertEquals(querier.getNextDeadline(), closeTime + 2000);
+    }
+
     @Test
     public void testRawQueriesWithTimeWindowsAreNotChanged() {
         BulletConfig config = new BulletConfig();
@@ -856,6 +883,101 @@ public class QuerierTest {
         Assert.assertEquals(result.get(3).typedGet("b").getValue(), 3);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProfiling() {
+        Projection projection = new Projection(Arrays.asList(new Field("a", new FieldExpression("a")),
+                                                             new Field("b", new FieldExpression("b"))), false);
+        Expression filter = new BinaryExpression(new FieldExpression("a"), new ValueExpression(2), Operation.LESS_THAN);
+        Culling culling = new Culling(singleton("a"));
+        Query query = new Query(projection, filter, new Raw(500), Collections.singletonList(culling), new Window(), null);
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_PROFILE_ENABLE, true);
+        config.set(BulletConfig.QUERY_PROFILE_SAMPLE_INTERVAL, 1);
+        config.validate();
+        query.configure(config);
+
+        Querier querier = make(Querier.Mode.ALL, query, config);
+        IntStream.range(0, 4).forEach(i -> querier.consume(RecordBox.get().add("a", i).getRecord()));
+        Assert.assertEquals(querier.getResult().getRecords().size(), 2);
+
+        Map<String, Object> queryMeta = (Map<String, Object>) querier.getMetadata().asMap().get("Query");
+        Map<String, Object> profile = (Map<String, Object>) queryMeta.get("Profile");
+        Assert.assertEquals(profile.keySet(), new HashSet<>(Arrays.asList(Querier.FILTER_PROFILE, "Projection.a", "Projection.b",
+                                                                          "PostAggregation.0.CULLING")));
+
+        Map<String, Object> filterProfile = (Map<String, Object>) profile.get(Querier.FILTER_PROFILE);
+        Assert.assertEquals(filterProfile.get(NodeProfile.INVOCATIONS), 4L);
+        Assert.assertEquals(filterProfile.get(NodeProfile.PASS_RATE), 0.5);
+        Assert.assertEquals(filterProfile.get(NodeProfile.NULL_RATE), 0.0);
+        Map<String, Object> bProfile = (Map<String, Object>) profile.get("Projection.b");
+        Assert.assertEquals(bProfile.get(NodeProfile.INVOCATIONS), 2L);
+        Assert.assertEquals(bProfile.get(NodeProfile.NULL_RATE), 1.0);
+        Map<String, Object> cullingProfile = (Map<String, Object>) profile.get("PostAggregation.0.CULLING");
+        Assert.assertEquals(cullingProfile.get(NodeProfile.INVOCATIONS), 1L);
+
+        MetricCollector collector = new MetricCollector();
+        querier.reportProfile(collector, "profile");
+        Map<String, Number> metrics = collector.extractMetrics();
+        Assert.assertEquals(metrics.get("profile.Filter.invocations"), 4L);
+        Assert.assertEquals(metrics.get("profile.Filter.passes"), 2L);
+        Assert.assertEquals(metrics.get("profile.Projection.b.nulls"), 2L);
+        Assert.assertEquals(metrics.get("profile.PostAggregation.0.CULLING.samples"), 1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProfilingDisabled() {
+        Expression filter = new BinaryExpression(new FieldExpression("a"), new ValueExpression(2), Operation.LESS_THAN);
+        Query query = new Query(new Projection(), filter, new Raw(500), null, new Window(), null);
+        Querier querier = make(Querier.Mode.ALL, query);
+        querier.consume(RecordBox.get().add("a", 1).getRecord());
+
+        Map<String, Object> queryMeta = (Map<String, Object>) querier.getMetadata().asMap().get("Query");
+        Assert.assertFalse(queryMeta.containsKey("Profile"));
+
+        MetricCollector collector = new MetricCollector();
+        querier.reportProfile(collector, "profile");
+        Assert.assertTrue(collector.extractMetrics().isEmpty());
+    }
+
+    @Test
+    public void testOptimizedQuery() {
+        Projection projection = new Projection(Arrays.asList(new Field("a", new FieldExpression("a")),
+                                                             new Field("b", new BinaryExpression(new FieldExpression("b"),
+                                                                                                 new BinaryExpression(new ValueExpression(1), new ValueExpression(1), Operation.ADD),
+                                                                                                 Operation.MUL))), false);
+        Expression filter = new BinaryExpression(new BinaryExpression(new FieldExpression("a"), new ValueExpression(1), Operation.EQUALS),
+                                                 new BinaryExpression(new BinaryExpression(new FieldExpression("a"), new ValueExpression(2), Operation.EQUALS),
+                                                                      new BinaryExpression(new FieldExpression("a"), new ValueExpression(3), Operation.EQUALS),
+                                                                      Operation.OR),
+                                                 Operation.OR);
+        filter = new UnaryExpression(new UnaryExpression(filter, Operation.NOT), Operation.NOT);
+        Expression having = new BinaryExpression(new FieldExpression("b"), new BinaryExpression(new ValueExpression(1), new ValueExpression(2), Operation.ADD), Operation.GREATER_THAN);
+        Expression expression = new BinaryExpression(new FieldExpression("a"), new CastExpression(new ValueExpression(2), Type.LONG), Operation.ADD);
+        Computation computation = new Computation(Collections.singletonList(new Field("newName", expression)));
+        OrderBy orderBy = new OrderBy(Collections.singletonList(new OrderBy.SortItem(new UnaryExpression(new UnaryExpression(new FieldExpression("a"), Operation.ABS), Operation.ABS), OrderBy.Direction.DESC)));
+        Query query = new Query(projection, filter, new Raw(500), Arrays.asList(new Having(having), computation, orderBy), new Window(), null);
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_EXPRESSION_OPTIMIZE_ENABLE, true);
+        config.set(BulletConfig.QUERY_EXPRESSION_COMPILE_ENABLE, true);
+        config.validate();
+        query.configure(config);
+
+        Querier querier = make(Querier.Mode.ALL, query, config);
+
+        IntStream.range(0, 5).forEach(i -> querier.consume(RecordBox.get().add("a", i).add("b", i).getRecord()));
+
+        List<BulletRecord> result = querier.getResult().getRecords();
+        Assert.assertEquals(result.size(), 2);
+        Assert.assertEquals(result.get(0).typedGet("a").getValue(), 3);
+        Assert.assertEquals(result.get(0).typedGet("b").getValue(), 6);
+        Assert.assertEquals(result.get(0).typedGet("newName").getValue(), 5L);
+        Assert.assertEquals(result.get(1).typedGet("a").getValue(), 2);
+        Assert.assertEquals(result.get(1).typedGet("b").getValue(), 4);
+        Assert.assertEquals(result.get(1).typedGet("newName").getValue(), 4L);
+    }
+
     @Test
     public void testTableFunction() {
         TableFunction tableFunction = new LateralView(new Explode(new FieldExpression("map"), "key", "value", true));
@@ -895,6 +1017,68 @@ public class QuerierTest {
         Assert.assertEquals(result.get(3).typedGet("abc").getValue(), 3);
     }
 
+    private static List<BulletRecord> makeBatch() {
+        List<BulletRecord> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            RecordBox box = RecordBox.get().add("mid", String.valueOf(i % 3)).add("abc", i);
+            if (i % 4 == 0) {
+                box.addMap("map", Pair.of("a", i), Pair.of("b", i + 1));
+            }
+            records.add(box.getRecord());
+        }
+        return records;
+    }
+
+    private static void assertSameAsConsumingRecords(Querier.Mode mode, Query query, int batchSize) {
+        Querier expected = make(mode, query);
+        Querier actual = make(mode, query);
+        makeBatch().forEach(expected::consume);
+        List<BulletRecord> batch = makeBatch();
+        for (int i = 0; i < batch.size(); i += batchSize) {
+            actual.consume(batch.subList(i, Math.min(i + batchSize, batch.size())));
+        }
+        Assert.assertEquals(actual.isDone(), expected.isDone());
+        Assert.assertEquals(actual.isClosed(), expected.isClosed());
+        Assert.assertEquals(actual.hasNewData(), expected.hasNewData());
+        Assert.assertEquals(actual.getData(), expected.getData());
+    }
+
+    @Test
+    public void testConsumingBatches() {
+        Expression filter = new BinaryExpression(new FieldExpression("mid"), new ValueExpression("1"), Operation.NOT_EQUALS);
+        List<Field> fields = Arrays.asList(new Field("mid", new FieldExpression("mid")),
+                                           new Field("double", new BinaryExpression(new FieldExpression("abc"), new ValueExpression(2), Operation.MUL)));
+        TableFunction tableFunction = new LateralView(new Explode(new FieldExpression("map"), "key", "value", true));
+        List<Query> queries = Arrays.asList(new Query(new Projection(), null, new Raw(500), null, new Window(), null),
+                                            new Query(new Projection(), filter, new Raw(500), null, new Window(), null),
+                                            new Query(new Projection(fields, false), filter, new Raw(500), null, new Window(), null),
+                                            new Query(new Projection(fields, true), filter, new Raw(500), null, new Window(), null),
+                                            new Query(new Projection(fields, true), filter, new Raw(5), null, new Window(), null),
+                                            new Query(tableFunction, new Projection(fields, false), filter, new Raw(500), null, new Window(), null),
+                                            new Query(tableFunction, new Projection(), null, new Raw(7), null, new Window(), null));
+        for (Query query : queries) {
+            for (Querier.Mode mode : Querier.Mode.values()) {
+                for (int batchSize : Arrays.asList(1, 3, 20)) {
+                    assertSameAsConsumingRecords(mode, query, batchSize);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConsumingBatchesStopsWhenDone() {
+        Query query = new Query(new Projection(), null, new Raw(2), null, new Window(), null);
+        Querier querier = make(Querier.Mode.PARTITION, query);
+        querier.consume(Collections.emptyList());
+        Assert.assertFalse(querier.hasNewData());
+        querier.consume(makeBatch());
+        Assert.assertTrue(querier.isDone());
+        Assert.assertEquals(querier.getRecords().size(), 2);
+        Assert.assertEquals(querier.getRecords().get(1).typedGet("abc").getValue(), 1);
+        querier.consume(makeBatch());
+        Assert.assertEquals(querier.getRecords().size(), 2);
+    }
+
     @Test
     public void testOuterQuery() {
         Expression outerQueryFilter = new BinaryExpression(new FieldExpression("count"), new ValueExpression(1), Operation.GREATER_THAN);
@@ -936,4 +1120,197 @@ public class QuerierTest {
 
         Assert.assertTrue(metadata.containsKey("Inner Query"));
     }
+
+    @Test
+    public void testOuterQueryIsReusedAcrossResults() {
+        Expression outerQueryFilter = new BinaryExpression(new FieldExpression("x"), new ValueExpression("a"), Operation.EQUALS);
+        Query outerQuery = new Query(new Projection(), outerQueryFilter, new Raw(1), null, new Window(), null);
+        Query query = new Query(null, new Projection(), null, new Raw(null), null, outerQuery, new Window(), null);
+
+        Querier querier = make(Querier.Mode.ALL, query);
+        querier.consume(RecordBox.get().add("x", "b").add("n", 1).getRecord());
+        querier.consume(RecordBox.get().add("x", "a").add("n", 2).getRecord());
+        querier.consume(RecordBox.get().add("x", "a").add("n", 3).getRecord());
+
+        // The outer query starts afresh for each result even though it closed after the first record
+        for (int i = 0; i < 2; i++) {
+            Clip result = querier.getResult();
+            Assert.assertEquals(result.getRecords().size(), 1);
+            Assert.assertEquals(result.getRecords().get(0).typedGet("n").getValue(), 2);
+            Assert.assertTrue(result.getMeta().asMap().containsKey("Inner Query"));
+        }
+        List<BulletRecord> records = querier.getRecords();
+        Assert.assertEquals(records.size(), 1);
+        Assert.assertEquals(records.get(0).typedGet("n").getValue(), 2);
+
+        querier.reset();
+        Assert.assertEquals(querier.getResult().getRecords().size(), 0);
+        querier.consume(RecordBox.get().add("x", "a").add("n", 4).getRecord());
+        records = querier.getResult().getRecords();
+        Assert.assertEquals(records.size(), 1);
+        Assert.assertEquals(records.get(0).typedGet("n").getValue(), 4);
+    }
+
+    @Test
+    public void testOuterQueryWithPostAggregations() {
+        Expression outerQueryFilter = new BinaryExpression(new FieldExpression("m"), new ValueExpression(3), Operation.EQUALS);
+        Query outerQuery = new Query(new Projection(), outerQueryFilter, new Raw(null), null, new Window(), null);
+        Computation computation = new Computation(singletonList(new Field("m", new FieldExpression("n"))));
+        Query query = new Query(null, new Projection(), null, new Raw(null), singletonList(computation), outerQuery, new Window(), null);
+
+        Querier querier = make(Querier.Mode.ALL, query);
+        querier.consume(RecordBox.get().add("n", 2).getRecord());
+        querier.consume(RecordBox.get().add("n", 3).getRecord());
+
+        for (int i = 0; i < 2; i++) {
+            List<BulletRecord> records = querier.getResult().getRecords();
+            Assert.assertEquals(records.size(), 1);
+            Assert.assertEquals(records.get(0).typedGet("n").getValue(), 3);
+            Assert.assertEquals(querier.getRecords().size(), 1);
+        }
+    }
+
+    @Test
+    public void testCopyProjectionWithoutKeepingRecords() {
+        Field field = new Field("size", new UnaryExpression(new FieldExpression("color"), Operation.SIZE_OF));
+        GroupBy groupBy = new GroupBy(null, singletonMap("size", "size"), singleton(new GroupOperation(GroupOperation.GroupOperationType.COUNT, null, "count")));
+        Query query = new Query(new Projection(singletonList(field), true), null, groupBy, null, new Window(), null);
+
+        Querier querier = make(Querier.Mode.ALL, query);
+        BulletRecord red = RecordBox.get().add("color", "red").getRecord();
+        BulletRecord blue = RecordBox.get().add("color", "blue").getRecord();
+        querier.consume(red);
+        querier.consume(Arrays.asList(blue, RecordBox.get().add("color", "green").getRecord()));
+
+        // The records are projected without being copied or changed
+        Assert.assertFalse(red.hasField("size"));
+        Assert.assertFalse(blue.hasField("size"));
+        List<BulletRecord> records = querier.getResult().getRecords();
+        Assert.assertEquals(records.size(), 3);
+        Map<String, Object> counts = new HashMap<>();
+        records.forEach(record -> counts.put(record.typedGet("size").getValue().toString(), record.typedGet("count").getValue()));
+        Assert.assertEquals(counts.get("3"), 1L);
+        Assert.assertEquals(counts.get("4"), 1L);
+        Assert.assertEquals(counts.get("5"), 1L);
+    }
+
+    @Test
+    public void testCopyProjectionKeepingRecords() {
+        Field field = new Field("size", new UnaryExpression(new FieldExpression("color"), Operation.SIZE_OF));
+        Query query = new Query(new Projection(singletonList(field), true), null, new Raw(null), null, new Window(), null);
+
+        Querier querier = make(Querier.Mode.ALL, query);
+        BulletRecord red = RecordBox.get().add("color", "red").getRecord();
+        querier.consume(red);
+        querier.consume(singletonList(RecordBox.get().add("color", "blue").getRecord()));
+
+        Assert.assertFalse(red.hasField("size"));
+        List<BulletRecord> records = querier.getResult().getRecords();
+        Assert.assertEquals(records.size(), 2);
+        // RAW keeps the records so they are full copies
+        Assert.assertEquals(records.get(0).getClass(), red.getClass());
+        Assert.assertEquals(records.get(0).typedGet("size").getValue(), 3);
+        Assert.assertEquals(records.get(0).typedGet("color").getValue(), "red");
+        Assert.assertEquals(records.get(1).typedGet("size").getValue(), 4);
+    }
+
+    @Test
+    public void testBudgetIsDisabledByDefault() {
+        Querier querier = make(Querier.Mode.ALL, makeRawQuery());
+        Assert.assertNull(querier.getBudget());
+        Assert.assertFalse(querier.isExceedingBudget());
+        Assert.assertNull(querier.getBudgetError());
+    }
+
+    @Test
+    public void testDegradedQueryConsumesASample() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_BUDGET_ENABLE, true);
+        config.set(BulletConfig.QUERY_BUDGET_SAMPLE_INTERVAL, 1);
+        config.validate();
+        Query query = makeRawQuery();
+        query.configure(config);
+        Querier querier = make(Querier.Mode.ALL, query, config);
+        QueryBudget budget = querier.getBudget();
+        Assert.assertNotNull(budget);
+
+        querier.consume(RecordBox.get().add("i", 0).getRecord());
+        Assert.assertTrue(budget.checkpoint() >= 0.0);
+        budget.degrade(4);
+        budget.degrade(4);
+        for (int i = 1; i <= 8; i++) {
+            querier.consume(RecordBox.get().add("i", i).getRecord());
+        }
+        List<BulletRecord> batch = new ArrayList<>();
+        for (int i = 9; i <= 16; i++) {
+            batch.add(RecordBox.get().add("i", i).getRecord());
+        }
+        querier.consume(batch);
+
+        Clip result = querier.getResult();
+        Assert.assertEquals(result.getMeta().asMap().get(Meta.SAMPLING_KEY), 4);
+        Assert.assertEquals(querier.getMetadata().asMap().get(Meta.SAMPLING_KEY), 4);
+        List<BulletRecord> records = result.getRecords();
+        Assert.assertEquals(records.size(), 5);
+        Assert.assertEquals(records.get(0).typedGet("i").getValue(), 0);
+        Assert.assertEquals(records.get(1).typedGet("i").getValue(), 1);
+        Assert.assertEquals(records.get(2).typedGet("i").getValue(), 5);
+        Assert.assertEquals(records.get(3).typedGet("i").getValue(), 9);
+        Assert.assertEquals(records.get(4).typedGet("i").getValue(), 13);
+        Assert.assertTrue(querier.getRetainedSize() > 0L);
+    }
+
+    @Test
+    public void testQueryExceedingTheBudgetIsDone() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_BUDGET_ENABLE, true);
+        config.validate();
+        Query query = makeRawQuery();
+        query.configure(config);
+        Querier querier = make(Querier.Mode.ALL, query, config);
+        querier.consume(RecordBox.get().add("i", 0).getRecord());
+        Assert.assertFalse(querier.isDone());
+        Assert.assertFalse(querier.getMetadata().asMap().containsKey(Meta.ERROR_KEY));
+        Assert.assertFalse(querier.getMetadata().asMap().containsKey(Meta.SAMPLING_KEY));
+
+        BudgetError error = BudgetError.cpu(BudgetError.QUERY, 500.0, 250.0);
+        querier.getBudget().exceed(error);
+        Assert.assertTrue(querier.isExceedingBudget());
+        Assert.assertTrue(querier.isDone());
+        Assert.assertSame(querier.getBudgetError(), error);
+
+        querier.consume(RecordBox.get().add("i", 1).getRecord());
+        querier.consume(singletonList(RecordBox.get().add("i", 2).getRecord()));
+        Clip result = querier.getResult();
+        Assert.assertEquals(result.getRecords().size(), 1);
+        Assert.assertEquals(result.getMeta().asMap().get(Meta.ERROR_KEY), singletonList(error));
+        Assert.assertEquals(querier.getMetadata().asMap().get(Meta.ERROR_KEY), singletonList(error));
+    }
+
+    @Test
+    public void testCreatingDoesNotConfigureTheClock() {
+        Clock previous = Clock.use(Clock.SYSTEM);
+        try {
+            BulletConfig config = new BulletConfig();
+            config.set(BulletConfig.CLOCK_CACHE_ENABLE, true);
+            config.validate();
+            Query query = makeRawQuery();
+            query.configure(config);
+            make(Querier.Mode.ALL, query, config);
+            Assert.assertSame(Clock.get(), Clock.SYSTEM);
+        } finally {
+            Clock.use(previous);
+        }
+    }
+
+    @Test
+    public void testRetainedSizeWhenItCannotBeEstimated() {
+        Querier querier = make(Querier.Mode.ALL, makeRawQuery());
+        Scheme window = Mockito.mock(Scheme.class);
+        Mockito.when(window.getRetainedSize()).thenReturn(42L).thenThrow(new RuntimeException("Testing"));
+        querier.setWindow(window);
+        Assert.assertEquals(querier.getRetainedSize(), 42L);
+        Assert.assertEquals(querier.getRetainedSize(), 0L);
+        Mockito.verify(window, Mockito.never()).getData();
+    }
 }
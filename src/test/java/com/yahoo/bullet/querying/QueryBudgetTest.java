@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class QueryBudgetTest {
+    private static void spin(long nanos) {
+        // Busy waits so that the time passes whether the CPU time or the wall time is measured
+        long end = QueryBudget.now() + nanos;
+        while (QueryBudget.now() < end) {
+            Math.sqrt(end);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveSampleInterval() {
+        new QueryBudget(0);
+    }
+
+    @Test
+    public void testDefaults() {
+        QueryBudget budget = new QueryBudget(64);
+        Assert.assertEquals(budget.getSampleInterval(), 64);
+        Assert.assertEquals(budget.getSampling(), 1);
+        Assert.assertFalse(budget.isExceeded());
+        Assert.assertNull(budget.getError());
+        Assert.assertEquals(budget.checkpoint(), 0.0);
+        Assert.assertFalse(budget.skip());
+    }
+
+    @Test
+    public void testMeasuringEveryCall() {
+        QueryBudget budget = new QueryBudget(1);
+        for (int i = 0; i < 4; i++) {
+            long start = budget.start();
+            spin(1000000L);
+            budget.stop(start);
+        }
+        Assert.assertTrue(budget.checkpoint() >= 4.0);
+        // The counts start afresh after a checkpoint
+        Assert.assertEquals(budget.checkpoint(), 0.0);
+    }
+
+    @Test
+    public void testEstimatingTheCallsThatAreNotMeasured() {
+        QueryBudget budget = new QueryBudget(4);
+        long start = budget.start();
+        spin(2000000L);
+        budget.stop(start);
+        for (int i = 0; i < 3; i++) {
+            budget.stop(budget.start());
+        }
+        // The measured call is taken to be representative of the other three
+        Assert.assertTrue(budget.checkpoint() >= 8.0);
+    }
+
+    @Test
+    public void testWaitingIsNotMeasuredWithCPUTime() throws Exception {
+        QueryBudget budget = new QueryBudget(1);
+        long start = budget.start();
+        Thread.sleep(200L);
+        budget.stop(start);
+        double time = budget.checkpoint();
+        if (QueryBudget.isMeasuringCpuTime()) {
+            Assert.assertTrue(time < 200.0);
+        } else {
+            Assert.assertTrue(time >= 200.0);
+        }
+    }
+
+    @Test
+    public void testDegrading() {
+        QueryBudget budget = new QueryBudget(1);
+        Assert.assertTrue(budget.degrade(4));
+        Assert.assertEquals(budget.getSampling(), 2);
+        Assert.assertTrue(budget.canDegrade(4));
+        Assert.assertTrue(budget.degrade(4));
+        Assert.assertEquals(budget.getSampling(), 4);
+        Assert.assertFalse(budget.canDegrade(4));
+        Assert.assertFalse(budget.degrade(4));
+        Assert.assertEquals(budget.getSampling(), 4);
+        Assert.assertFalse(new QueryBudget(1).degrade(1));
+
+        int consumed = 0;
+        for (int i = 0; i < 16; i++) {
+            consumed += budget.skip() ? 0 : 1;
+        }
+        Assert.assertEquals(consumed, 4);
+    }
+
+    @Test
+    public void testSamplingBatches() {
+        QueryBudget budget = new QueryBudget(1);
+        List<BulletRecord> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batch.add(RecordBox.get().add("i", i).getRecord());
+        }
+        Assert.assertSame(budget.sample(batch), batch);
+
+        budget.degrade(2);
+        List<BulletRecord> sampled = budget.sample(batch);
+        Assert.assertEquals(sampled.size(), 3);
+        Assert.assertSame(sampled.get(0), batch.get(0));
+        Assert.assertSame(sampled.get(1), batch.get(2));
+        Assert.assertSame(sampled.get(2), batch.get(4));
+    }
+
+    @Test
+    public void testExceeding() {
+        QueryBudget budget = new QueryBudget(1);
+        BudgetError error = BudgetError.memory(BudgetError.QUERY, 2L, 1L);
+        budget.exceed(error);
+        Assert.assertTrue(budget.isExceeded());
+        Assert.assertSame(budget.getError(), error);
+    }
+}
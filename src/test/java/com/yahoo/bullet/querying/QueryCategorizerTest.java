@@ -11,7 +11,10 @@ import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.stream.IntStream;
 
@@ -204,4 +207,20 @@ public class QueryCategorizerTest {
             Mockito.verify(querier, times(1)).consume(record);
         }
     }
+
+    @Test
+    public void testMerging() {
+        QueryCategorizer first = new QueryCategorizer().categorize(make(makeQuerier(true, false, false, false),
+                                                                        makeQuerier(false, false, false, true)));
+        Map<String, Querier> others = new HashMap<>();
+        others.put("a", makeQuerier(false, true, false, false));
+        others.put("b", makeQuerier(false, false, true, false));
+        others.put("c", makeQuerier(false, false, false, true));
+        QueryCategorizer merged = first.merge(new QueryCategorizer().categorize(others));
+        Assert.assertSame(merged, first);
+        Assert.assertEquals(merged.getDone().keySet(), Collections.singleton("0"));
+        Assert.assertEquals(merged.getRateLimited().keySet(), Collections.singleton("a"));
+        Assert.assertEquals(merged.getClosed().keySet(), Collections.singleton("b"));
+        Assert.assertEquals(merged.getHasData().keySet(), new HashSet<>(Arrays.asList("1", "c")));
+    }
 }
@@ -6,6 +6,11 @@
 package com.yahoo.bullet.querying;
 
 import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.CachedClock;
+import com.yahoo.bullet.common.Clock;
+import com.yahoo.bullet.common.ManualClock;
+import com.yahoo.bullet.pubsub.Metadata;
+import com.yahoo.bullet.query.Field;
 import com.yahoo.bullet.query.Projection;
 import com.yahoo.bullet.query.Window;
 import com.yahoo.bullet.query.Query;
@@ -13,7 +18,13 @@ import com.yahoo.bullet.query.aggregations.Raw;
 import com.yahoo.bullet.query.expressions.BinaryExpression;
 import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
 import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.query.postaggregations.Computation;
+import com.yahoo.bullet.query.tablefunctions.Explode;
+import com.yahoo.bullet.query.tablefunctions.LateralView;
+import com.yahoo.bullet.querying.evaluators.SharedEvaluators;
+import com.yahoo.bullet.querying.partitioning.Partitioner;
 import com.yahoo.bullet.querying.partitioning.SimpleEqualityPartitioner;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.RecordBox;
@@ -24,15 +35,23 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static java.util.Arrays.asList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -79,6 +98,56 @@ public class QueryManagerTest {
         return query;
     }
 
+    private static final long MB = 1024L * 1024L;
+
+    private static Querier getBudgetedQuerier(double cpu, long memory, int degradations) {
+        QueryBudget budget = spy(new QueryBudget(1));
+        for (int i = 0; i < degradations; i++) {
+            budget.degrade(Integer.MAX_VALUE);
+        }
+        doReturn(cpu).when(budget).checkpoint();
+        Querier querier = getQuerier(getQuery());
+        when(querier.getBudget()).thenReturn(budget);
+        when(querier.getRetainedSize()).thenReturn(memory);
+        when(querier.isDone()).thenAnswer(invocation -> budget.isExceeded());
+        return querier;
+    }
+
+    private static BulletConfig getBudgetConfig() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_BUDGET_ENABLE, true);
+        config.set(BulletConfig.QUERY_BUDGET_CPU_MS_PER_SECOND, 100);
+        config.set(BulletConfig.QUERY_BUDGET_GLOBAL_CPU_MS_PER_SECOND, 300);
+        config.set(BulletConfig.QUERY_BUDGET_MEMORY_MB, 1);
+        config.set(BulletConfig.QUERY_BUDGET_GLOBAL_MEMORY_MB, 2);
+        config.set(BulletConfig.QUERY_BUDGET_MAX_SAMPLING, 4);
+        config.validate();
+        return config;
+    }
+
+    // Mockito keeps the reference to the batch, which is reused by the manager.
+    static List<List<BulletRecord>> captureBatches(Querier querier) {
+        List<List<BulletRecord>> batches = new ArrayList<>();
+        doAnswer(invocation -> batches.add(new ArrayList<>(invocation.getArgument(0)))).when(querier).consume(anyList());
+        return batches;
+    }
+
+    // Puts every query in two partitions and gives every record to three.
+    public static class OverlappingPartitioner implements Partitioner {
+        public OverlappingPartitioner(BulletConfig config) {
+        }
+
+        @Override
+        public Set<String> getKeys(Query query) {
+            return new HashSet<>(asList("a", "b"));
+        }
+
+        @Override
+        public Set<String> getKeys(BulletRecord record) {
+            return new HashSet<>(asList("a", "b", "c"));
+        }
+    }
+
     private static BulletConfig getEqualityPartitionerConfig(String... fields) {
         BulletConfig config = new BulletConfig();
         config.set(BulletConfig.QUERY_PARTITIONER_ENABLE, true);
@@ -216,6 +285,52 @@ public class QueryManagerTest {
         Assert.assertSame(partitionC.get("idC"), querierC);
     }
 
+    @Test
+    public void testPartitioningToConsumer() {
+        QueryManager manager = new QueryManager(getEqualityPartitionerConfig("A", "B"));
+        Querier querierA = getQuerier(getQuery(ImmutablePair.of("A", "foo")));
+        Querier querierB = getQuerier(getQuery(ImmutablePair.of("A", "foo"), ImmutablePair.of("B", "bar")));
+        Querier querierC = getQuerier(getQuery());
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+        manager.addQuery("idC", querierC);
+
+        BulletRecord record = RecordBox.get().add("A", "foo").add("B", 1).getRecord();
+        Map<String, Querier> queriers = new HashMap<>();
+        manager.partition(record, (id, querier) -> Assert.assertNull(queriers.put(id, querier)));
+        Assert.assertEquals(queriers, manager.partition(record));
+        Assert.assertEquals(queriers.keySet(), new HashSet<>(asList("idA", "idC")));
+
+        manager.removeAndGetQuery("idA");
+        queriers.clear();
+        manager.partition(record, queriers::put);
+        Assert.assertEquals(queriers.keySet(), Collections.singleton("idC"));
+        Assert.assertEquals(manager.getStats().get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 5L);
+    }
+
+    @Test
+    public void testPartitioningQueriesInManyPartitions() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_PARTITIONER_ENABLE, true);
+        config.set(BulletConfig.QUERY_PARTITIONER_CLASS_NAME, OverlappingPartitioner.class.getName());
+        QueryManager manager = new QueryManager(config.validate());
+        Querier querierA = getQuerier(getQuery());
+        Querier querierB = getQuerier(getQuery());
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+
+        BulletRecord record = RecordBox.get().getRecord();
+        Map<String, Querier> queriers = new HashMap<>();
+        manager.partition(record, (id, querier) -> Assert.assertNull(queriers.put(id, querier)));
+        Assert.assertEquals(queriers.size(), 2);
+        manager.categorize(record);
+        verify(querierA, times(1)).consume(record);
+
+        manager.removeAndGetQuery("idA");
+        Assert.assertEquals(manager.partition(record).keySet(), Collections.singleton("idB"));
+        Assert.assertEquals(manager.getStats().get(QueryManager.PartitionStat.PARTITION_COUNT), 2);
+    }
+
     @Test
     public void testCategorizingAll() {
         QueryManager manager = new QueryManager(new BulletConfig());
@@ -294,6 +409,135 @@ public class QueryManagerTest {
         verify(querierB, never()).consume(recordB);
     }
 
+    @Test
+    public void testCategorizingDue() {
+        QueryManager manager = new QueryManager(new BulletConfig());
+        Querier querierA = QueryCategorizerTest.makeQuerier(false, false, true, false);
+        Querier querierB = QueryCategorizerTest.makeQuerier(true, false, false, false);
+        Querier querierC = QueryCategorizerTest.makeQuerier(false, false, false, true);
+        Querier querierD = QueryCategorizerTest.makeQuerier(true, false, false, false);
+        long later = System.currentTimeMillis() + 3600000L;
+        when(querierA.getNextDeadline()).thenReturn(0L);
+        when(querierB.getNextDeadline()).thenReturn(1L);
+        when(querierC.getNextDeadline()).thenReturn(later);
+        when(querierD.getNextDeadline()).thenReturn(Long.MAX_VALUE);
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+        manager.addQuery("idC", querierC);
+        manager.addQuery("idD", querierD);
+
+        // Only the queries that are due are looked at
+        QueryCategorizer categorizer = manager.categorizeDue();
+        Assert.assertEquals(categorizer.getClosed().keySet(), Collections.singleton("idA"));
+        Assert.assertEquals(categorizer.getDone().keySet(), Collections.singleton("idB"));
+        Assert.assertEquals(categorizer.getHasData().size(), 0);
+        verify(querierC, never()).isDone();
+        verify(querierD, never()).isDone();
+
+        // A query is due until its deadline moves on or it is removed
+        when(querierA.getNextDeadline()).thenReturn(later);
+        manager.removeAndGetQuery("idB");
+        categorizer = manager.categorizeDue();
+        Assert.assertEquals(categorizer.getClosed().size(), 0);
+        Assert.assertEquals(categorizer.getDone().size(), 0);
+        verify(querierA, times(1)).isClosed();
+    }
+
+    @Test
+    public void testCategorizingBatches() {
+        QueryManager manager = new QueryManager(getEqualityPartitionerConfig("A", "B"));
+        Querier querierA = getQuerier(getQuery(ImmutablePair.of("A", "foo")));
+        Querier querierB = getQuerier(getQuery(ImmutablePair.of("A", "foo"), ImmutablePair.of("B", "bar")));
+        Querier querierC = getQuerier(getQuery());
+        Querier querierD = getQuerier(getQuery(ImmutablePair.of("A", "baz")));
+        when(querierB.isDone()).thenReturn(true);
+        List<List<BulletRecord>> batchesA = captureBatches(querierA);
+        List<List<BulletRecord>> batchesB = captureBatches(querierB);
+        List<List<BulletRecord>> batchesC = captureBatches(querierC);
+        List<List<BulletRecord>> batchesD = captureBatches(querierD);
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+        manager.addQuery("idC", querierC);
+        manager.addQuery("idD", querierD);
+
+        BulletRecord recordA = RecordBox.get().add("A", "foo").add("B", "bar").getRecord();
+        BulletRecord recordB = RecordBox.get().add("A", "foo").getRecord();
+        BulletRecord recordC = RecordBox.get().getRecord();
+
+        QueryCategorizer categorizer = manager.categorize(asList(recordA, recordB, recordC));
+        Assert.assertEquals(categorizer.getDone().keySet(), Collections.singleton("idB"));
+        Assert.assertEquals(batchesA, Collections.singletonList(asList(recordA, recordB)));
+        Assert.assertEquals(batchesB, Collections.singletonList(Collections.singletonList(recordA)));
+        Assert.assertEquals(batchesC, Collections.singletonList(asList(recordA, recordB, recordC)));
+        Assert.assertEquals(batchesD.size(), 0);
+        verify(querierA, never()).consume(any(BulletRecord.class));
+
+        Map<QueryManager.PartitionStat, Object> stats = manager.getStats();
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 6L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN), 12L);
+
+        // The batches are reused and a removed query does not get any more records
+        manager.removeAndGetQuery("idA");
+        categorizer = manager.categorize(Collections.singletonList(recordB));
+        Assert.assertEquals(categorizer.getDone().size(), 0);
+        Assert.assertEquals(batchesA.size(), 1);
+        Assert.assertEquals(batchesC.get(1), Collections.singletonList(recordB));
+        Assert.assertEquals(manager.categorize(Collections.emptyList()).getHasData().size(), 0);
+        Assert.assertEquals(batchesC.size(), 2);
+    }
+
+    @Test
+    public void testCategorizingBatchesLargerThanRecordWindows() {
+        BulletConfig config = new BulletConfig();
+        QueryManager manager = new QueryManager(config);
+        // Emits every 2 records and the other query has no window
+        Query sliding = new Query(new Projection(), null, new Raw(null), null, new Window(2, Window.Unit.RECORD), null);
+        Query windowless = new Query(new Projection(), null, new Raw(null), null, new Window(), null);
+        sliding.configure(config);
+        windowless.configure(config);
+        Querier querierA = new Querier(new RunningQuery("idA", sliding, new Metadata()), config);
+        Querier querierB = new Querier(new RunningQuery("idB", windowless, new Metadata()), config);
+        Assert.assertTrue(querierA.isRecordBased());
+        Assert.assertFalse(querierB.isRecordBased());
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+
+        List<BulletRecord> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            records.add(RecordBox.get().add("A", i).getRecord());
+        }
+        List<List<BulletRecord>> windows = new ArrayList<>();
+        QueryCategorizer categorizer = manager.categorize(records, (id, querier) -> {
+            Assert.assertEquals(id, "idA");
+            windows.add(querier.getResult().getRecords());
+            querier.reset();
+        });
+        // Each window has the same records as when categorizing one record at a time
+        Assert.assertEquals(windows.size(), 2);
+        Assert.assertEquals(windows.get(0), records.subList(0, 2));
+        Assert.assertEquals(windows.get(1), records.subList(2, 4));
+        Assert.assertFalse(categorizer.getClosed().containsKey("idA"));
+        Assert.assertEquals(querierA.getResult().getRecords(), records.subList(4, 5));
+        Assert.assertEquals(querierB.getResult().getRecords(), records);
+
+        // Without a consumer, the window gets the rest of the batch once it closes
+        querierA.reset();
+        categorizer = manager.categorize(records);
+        Assert.assertTrue(categorizer.getClosed().containsKey("idA"));
+        Assert.assertEquals(querierA.getResult().getRecords(), records);
+    }
+
+    @Test
+    public void testCategorizingBatchesConcurrently() {
+        QueryManager manager = new ConcurrentQueryManager(getEqualityPartitionerConfig("A"));
+        Querier querierA = getQuerier(getQuery(ImmutablePair.of("A", "foo")));
+        List<List<BulletRecord>> batches = captureBatches(querierA);
+        manager.addQuery("idA", querierA);
+        BulletRecord record = RecordBox.get().add("A", "foo").getRecord();
+        manager.categorize(asList(record, record));
+        Assert.assertEquals(batches, Collections.singletonList(asList(record, record)));
+    }
+
     @Test
     public void testSmallStatistics() {
         QueryManager manager = new QueryManager(getEqualityPartitionerConfig("A"));
@@ -431,4 +675,245 @@ public class QueryManagerTest {
         Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERY_COUNT), 0);
         Assert.assertEquals(stats.get(QueryManager.PartitionStat.PARTITION_COUNT), 0);
     }
+
+    @Test
+    public void testSharingDisabled() {
+        QueryManager manager = new QueryManager(new BulletConfig());
+        Assert.assertNull(manager.getShared());
+    }
+
+    @Test
+    public void testSharingExpressions() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_EXPRESSION_SHARE_ENABLE, true);
+        config.validate();
+        QueryManager manager = new QueryManager(config);
+        SharedEvaluators shared = manager.getShared();
+
+        UnaryExpression size = new UnaryExpression(new FieldExpression("A"), Operation.SIZE_OF);
+        Query queryA = new Query(new Projection(), new BinaryExpression(size, new ValueExpression(1), Operation.GREATER_THAN),
+                                 new Raw(null), null, new Window(), null);
+        Query queryB = new Query(new Projection(Collections.singletonList(new Field("size", size)), false),
+                                 new BinaryExpression(size, new ValueExpression(2), Operation.LESS_THAN),
+                                 new Raw(null), null, new Window(), null);
+        queryA.configure(config);
+        queryB.configure(config);
+        Querier querierA = new Querier(new RunningQuery("idA", queryA, new Metadata()), config);
+        Querier querierB = new Querier(new RunningQuery("idB", queryB, new Metadata()), config);
+
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+        // SIZEOF(A) and the two comparisons
+        Assert.assertEquals(shared.size(), 3);
+
+        manager.categorize(RecordBox.get().add("A", "a").getRecord());
+        manager.categorize(RecordBox.get().add("A", "ab").getRecord());
+        manager.categorize(RecordBox.get().add("A", "abc").getRecord());
+
+        List<BulletRecord> resultA = querierA.getResult().getRecords();
+        Assert.assertEquals(resultA.size(), 2);
+        Assert.assertEquals(resultA.get(0).typedGet("A").getValue(), "ab");
+        Assert.assertEquals(resultA.get(1).typedGet("A").getValue(), "abc");
+        List<BulletRecord> resultB = querierB.getResult().getRecords();
+        Assert.assertEquals(resultB.size(), 1);
+        Assert.assertEquals(resultB.get(0).typedGet("size").getValue(), 1);
+
+        Assert.assertSame(manager.removeAndGetQuery("idA"), querierA);
+        Assert.assertEquals(shared.size(), 2);
+        manager.removeAndGetQuery("idB");
+        Assert.assertEquals(shared.size(), 0);
+
+        // The removed querier does not share anymore but still works
+        querierA.consume(RecordBox.get().add("A", "abcd").getRecord());
+        Assert.assertEquals(querierA.getResult().getRecords().size(), 3);
+
+        // Batches are consumed one record at a time when sharing
+        manager.addQuery("idA", querierA);
+        Assert.assertEquals(shared.size(), 2);
+        querierA.reset();
+        manager.categorize(asList(RecordBox.get().add("A", "xy").getRecord(), RecordBox.get().add("A", "x").getRecord()));
+        Assert.assertEquals(querierA.getResult().getRecords().size(), 1);
+    }
+
+    @Test
+    public void testSharingScans() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_SCAN_SHARE_ENABLE, true);
+        config.validate();
+        QueryManager manager = new QueryManager(config);
+        SharedScans scans = manager.getScans();
+
+        UnaryExpression size = new UnaryExpression(new FieldExpression("A"), Operation.SIZE_OF);
+        BinaryExpression filter = new BinaryExpression(size, new ValueExpression(1), Operation.GREATER_THAN);
+        List<Field> fields = Collections.singletonList(new Field("size", size));
+        // The same scan with different aggregations and post aggregations
+        Query queryA = new Query(new Projection(fields, false), filter, new Raw(null), null, new Window(), null);
+        Query queryB = new Query(new Projection(fields, false), filter, new Raw(null), null, new Window(), null);
+        Query queryC = new Query(new Projection(fields, false), filter, new Raw(1), null, new Window(), null);
+        Query queryD = new Query(new Projection(fields, false), filter, new Raw(null),
+                                 Collections.singletonList(new Computation(Collections.singletonList(new Field("size", new BinaryExpression(new FieldExpression("size"), new ValueExpression(1), Operation.ADD))))),
+                                 new Window(), null);
+        // A different scan
+        Query queryE = new Query(new Projection(), filter, new Raw(null), null, new Window(), null);
+        // Queries without a filter and a projection or with a table function do not share
+        Query queryF = new Query(new Projection(), null, new Raw(null), null, new Window(), null);
+        Query queryG = new Query(new LateralView(new Explode(new FieldExpression("A"), "a", null, true)), new Projection(fields, false), filter, new Raw(null), null, new Window(), null);
+        Map<String, Querier> queriers = new HashMap<>();
+        List<Query> queries = asList(queryA, queryB, queryC, queryD, queryE, queryF, queryG);
+        for (int i = 0; i < queries.size(); i++) {
+            Query query = queries.get(i);
+            query.configure(config);
+            String id = "id" + (char) ('A' + i);
+            Querier querier = new Querier(new RunningQuery(id, query, new Metadata()), config);
+            queriers.put(id, querier);
+            manager.addQuery(id, querier);
+        }
+        Assert.assertEquals(scans.size(), 2);
+
+        manager.categorize(RecordBox.get().add("A", "a").getRecord());
+        manager.categorize(RecordBox.get().add("A", "ab").getRecord());
+        manager.categorize(RecordBox.get().add("A", "abc").getRecord());
+
+        List<BulletRecord> resultA = queriers.get("idA").getResult().getRecords();
+        List<BulletRecord> resultB = queriers.get("idB").getResult().getRecords();
+        List<BulletRecord> resultC = queriers.get("idC").getResult().getRecords();
+        List<BulletRecord> resultD = queriers.get("idD").getResult().getRecords();
+        Assert.assertEquals(resultA.size(), 2);
+        Assert.assertEquals(resultA.get(0).typedGet("size").getValue(), 2);
+        Assert.assertEquals(resultA.get(1).typedGet("size").getValue(), 3);
+        // The projected records are shared
+        Assert.assertSame(resultB.get(0), resultA.get(0));
+        Assert.assertSame(resultB.get(1), resultA.get(1));
+        Assert.assertEquals(resultC.size(), 1);
+        Assert.assertSame(resultC.get(0), resultA.get(0));
+        // Except with post aggregations, which do not change the others
+        Assert.assertEquals(resultD.size(), 2);
+        Assert.assertEquals(resultD.get(0).typedGet("size").getValue(), 3);
+        Assert.assertEquals(resultA.get(0).typedGet("size").getValue(), 2);
+        Assert.assertEquals(queriers.get("idE").getResult().getRecords().size(), 2);
+        Assert.assertEquals(queriers.get("idF").getResult().getRecords().size(), 3);
+
+        manager.removeAndGetQuery("idA");
+        manager.removeAndGetQuery("idB");
+        manager.removeAndGetQuery("idC");
+        Assert.assertEquals(scans.size(), 2);
+        manager.removeAndGetQuery("idD");
+        Assert.assertEquals(scans.size(), 1);
+
+        // The removed querier does not share anymore but still works
+        Querier querierA = queriers.get("idA");
+        querierA.consume(RecordBox.get().add("A", "abcd").getRecord());
+        Assert.assertEquals(querierA.getResult().getRecords().size(), 3);
+
+        // Batches are consumed one record at a time when sharing
+        querierA.reset();
+        manager.addQuery("idA", querierA);
+        Assert.assertEquals(scans.size(), 2);
+        manager.categorize(asList(RecordBox.get().add("A", "xy").getRecord(), RecordBox.get().add("A", "x").getRecord()));
+        Assert.assertEquals(querierA.getResult().getRecords().size(), 1);
+    }
+
+    @Test
+    public void testOnlyTheFirstManagerConfiguresTheClock() {
+        Clock previous = Clock.use(Clock.SYSTEM);
+        QueryManager.CLOCK_CONFIGURED.set(false);
+        try {
+            BulletConfig config = new BulletConfig();
+            config.set(BulletConfig.CLOCK_CACHE_ENABLE, true);
+            config.set(BulletConfig.CLOCK_CACHE_RESOLUTION_MS, 5);
+            new QueryManager(config.validate());
+            Clock clock = Clock.get();
+            Assert.assertTrue(clock instanceof CachedClock);
+            Assert.assertEquals(((CachedClock) clock).getResolution(), 5);
+
+            config.set(BulletConfig.CLOCK_CACHE_RESOLUTION_MS, 10);
+            new QueryManager(config.validate());
+            new ConcurrentQueryManager(config);
+            Assert.assertSame(Clock.get(), clock);
+            ((CachedClock) clock).close();
+
+            // A later manager does not configure it either even if the clock was changed since
+            Clock.use(Clock.SYSTEM);
+            new QueryManager(config);
+            Assert.assertSame(Clock.get(), Clock.SYSTEM);
+        } finally {
+            Clock.use(previous);
+        }
+    }
+
+    @Test
+    public void testEnforcingQueryBudgets() {
+        ManualClock clock = new ManualClock(0L);
+        Clock previous = Clock.use(clock);
+        try {
+            QueryManager manager = new QueryManager(getBudgetConfig());
+            // A query without a budget is left alone
+            Querier querierA = getQuerier(getQuery());
+            Querier querierB = getBudgetedQuerier(50.0, 100L, 0);
+            Querier querierC = getBudgetedQuerier(150.0, 100L, 0);
+            Querier querierD = getBudgetedQuerier(10.0, 2 * MB, 0);
+            Querier querierE = getBudgetedQuerier(150.0, 100L, 2);
+            manager.addQuery("idA", querierA);
+            manager.addQuery("idB", querierB);
+            manager.addQuery("idC", querierC);
+            manager.addQuery("idD", querierD);
+            manager.addQuery("idE", querierE);
+
+            clock.advance(1000L);
+            QueryCategorizer categorizer = manager.enforceBudgets();
+            Assert.assertEquals(categorizer.getDone().keySet(), new HashSet<>(asList("idD", "idE")));
+            Assert.assertEquals(querierB.getBudget().getSampling(), 1);
+            Assert.assertFalse(querierB.getBudget().isExceeded());
+            Assert.assertEquals(querierC.getBudget().getSampling(), 2);
+            Assert.assertFalse(querierC.getBudget().isExceeded());
+            Assert.assertEquals(querierD.getBudget().getError().getError(),
+                                BudgetError.memory(BudgetError.QUERY, 2 * MB, MB).getError());
+            Assert.assertEquals(querierE.getBudget().getError().getError(),
+                                BudgetError.cpu(BudgetError.QUERY, 150.0, 100.0).getError());
+            Assert.assertEquals(querierE.getBudget().getSampling(), 4);
+
+            // The CPU time used is divided by the two seconds since the last check. Killed queries are not checked again
+            // and stay in the manager until removed.
+            clock.advance(2000L);
+            Assert.assertEquals(manager.enforceBudgets().getDone().size(), 0);
+            Assert.assertEquals(querierC.getBudget().getSampling(), 2);
+            Assert.assertEquals(manager.size(), 5);
+        } finally {
+            Clock.use(previous);
+        }
+    }
+
+    @Test
+    public void testEnforcingGlobalBudgets() {
+        ManualClock clock = new ManualClock(0L);
+        Clock previous = Clock.use(clock);
+        try {
+            QueryManager manager = new QueryManager(getBudgetConfig());
+            Querier querierA = getBudgetedQuerier(10.0, MB - 1, 0);
+            Querier querierB = getBudgetedQuerier(96.0, MB / 2, 0);
+            Querier querierC = getBudgetedQuerier(95.0, MB / 2, 2);
+            Querier querierD = getBudgetedQuerier(90.0, MB / 2, 0);
+            Querier querierE = getBudgetedQuerier(90.0, 0L, 0);
+            manager.addQuery("idA", querierA);
+            manager.addQuery("idB", querierB);
+            manager.addQuery("idC", querierC);
+            manager.addQuery("idD", querierD);
+            manager.addQuery("idE", querierE);
+
+            clock.advance(1000L);
+            QueryCategorizer categorizer = manager.enforceBudgets();
+            // The largest query is killed for memory. Then the heaviest queries are degraded or killed for CPU.
+            Assert.assertEquals(categorizer.getDone().keySet(), new HashSet<>(asList("idA", "idC")));
+            Assert.assertEquals(querierA.getBudget().getError().getError(),
+                                BudgetError.memory(BudgetError.ALL_QUERIES, 5 * MB / 2 - 1, 2 * MB).getError());
+            Assert.assertEquals(querierB.getBudget().getSampling(), 2);
+            Assert.assertFalse(querierB.getBudget().isExceeded());
+            Assert.assertEquals(querierC.getBudget().getError().getError(),
+                                BudgetError.cpu(BudgetError.ALL_QUERIES, 371.0, 300.0).getError());
+            Assert.assertEquals(querierD.getBudget().getSampling(), 1);
+            Assert.assertEquals(querierE.getBudget().getSampling(), 1);
+        } finally {
+            Clock.use(previous);
+        }
+    }
 }
@@ -43,6 +43,20 @@ public class RunningQueryTest {
         Assert.assertFalse(runningQuery.isTimedOut());
     }
 
+    @Test
+    public void testExpiryTime() {
+        BulletConfig config = new BulletConfig();
+        Query query = new Query(new Projection(), null, new Raw(null), null, new Window(), 1000L);
+        query.configure(config);
+        RunningQuery runningQuery = new RunningQuery("foo", query, new Metadata(null, null));
+        Assert.assertEquals(runningQuery.getExpiryTime(), runningQuery.getStartTime() + 1000L);
+
+        query = new Query(new Projection(), null, new Raw(null), null, new Window(), Long.MAX_VALUE);
+        query.configure(config);
+        runningQuery = new RunningQuery("foo", query, new Metadata(null, null));
+        Assert.assertEquals(runningQuery.getExpiryTime(), Long.MAX_VALUE);
+    }
+
     @Test
     public void testTimingOut() throws Exception {
         BulletConfig config = new BulletConfig();
@@ -0,0 +1,248 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.SerializerDeserializer;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.yahoo.bullet.querying.ConcurrentQueryManagerTest.getPartitionedConfig;
+import static com.yahoo.bullet.querying.ConcurrentQueryManagerTest.getQuerier;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ShardedQueryManagerTest {
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoShards() {
+        new ShardedQueryManager(new BulletConfig(), 0);
+    }
+
+    @Test
+    public void testAddingAndRemovingQueries() {
+        try (ShardedQueryManager manager = new ShardedQueryManager(getPartitionedConfig(), 3)) {
+            Assert.assertEquals(manager.getShardCount(), 3);
+            Map<String, Querier> queriers = new HashMap<>();
+            for (int i = 0; i < 30; i++) {
+                Querier querier = getQuerier(i % 3 == 0 ? "foo" : "bar");
+                queriers.put("id" + i, querier);
+                manager.addQuery("id" + i, querier);
+            }
+            Assert.assertEquals(manager.size(), 30);
+            Assert.assertTrue(manager.hasQuery("id1"));
+            Assert.assertSame(manager.getQuery("id1"), queriers.get("id1"));
+
+            BulletRecord record = RecordBox.get().add("A", "foo").getRecord();
+            Set<String> partitioned = manager.partition(record);
+            Assert.assertEquals(partitioned.size(), 10);
+            partitioned.forEach(id -> Assert.assertTrue(Integer.parseInt(id.substring(2)) % 3 == 0));
+
+            Assert.assertSame(manager.removeAndGetQuery("id0"), queriers.get("id0"));
+            Assert.assertNull(manager.removeAndGetQuery("id0"));
+            Assert.assertFalse(manager.hasQuery("id0"));
+            Assert.assertEquals(manager.removeAndGetQueries(new HashSet<>(Arrays.asList("id1", "id2", "x"))).size(), 2);
+            manager.removeQueries(Collections.singleton("id3"));
+            Assert.assertEquals(manager.size(), 26);
+            Assert.assertEquals(manager.partition(record).size(), 8);
+            Assert.assertEquals(manager.categorize().getDone().size(), 0);
+        }
+    }
+
+    @Test
+    public void testQueriersArePinnedToTheirShard() {
+        try (ShardedQueryManager manager = new ShardedQueryManager(new BulletConfig(), 4)) {
+            Map<String, Set<String>> threads = new ConcurrentHashMap<>();
+            for (int i = 0; i < 20; i++) {
+                String id = "id" + i;
+                Querier querier = getQuerier("foo");
+                doAnswer(invocation -> {
+                    threads.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+                    return null;
+                }).when(querier).consume(anyList());
+                doReturn(i % 2 == 0).when(querier).isDone();
+                manager.addQuery(id, querier);
+            }
+            QueryCategorizer categorizer = null;
+            for (int i = 0; i < 10; i++) {
+                categorizer = manager.categorize(RecordBox.get().add("A", "foo").getRecord());
+            }
+            Assert.assertEquals(categorizer.getDone().size(), 10);
+            Assert.assertEquals(threads.size(), 20);
+            Set<String> used = new HashSet<>();
+            threads.forEach((id, names) -> {
+                Assert.assertEquals(names, Collections.singleton("bullet-query-shard-" + manager.getShard(id)));
+                used.addAll(names);
+            });
+            Assert.assertTrue(used.size() > 1);
+        }
+    }
+
+    @Test
+    public void testCategorizingBatches() {
+        try (ShardedQueryManager manager = new ShardedQueryManager(getPartitionedConfig(), 3)) {
+            Map<String, List<List<BulletRecord>>> batches = new HashMap<>();
+            for (int i = 0; i < 9; i++) {
+                Querier querier = getQuerier(i < 3 ? "foo" : "bar");
+                doReturn(i == 0).when(querier).isDone();
+                batches.put("id" + i, QueryManagerTest.captureBatches(querier));
+                manager.addQuery("id" + i, querier);
+            }
+            BulletRecord foo = RecordBox.get().add("A", "foo").getRecord();
+            BulletRecord bar = RecordBox.get().add("A", "bar").getRecord();
+            QueryCategorizer categorizer = manager.categorize(Arrays.asList(foo, bar, foo));
+            Assert.assertEquals(categorizer.getDone().keySet(), Collections.singleton("id0"));
+            for (int i = 0; i < 9; i++) {
+                Assert.assertEquals(batches.get("id" + i), Collections.singletonList(i < 3 ? Arrays.asList(foo, foo) : Collections.singletonList(bar)));
+            }
+        }
+    }
+
+    @Test
+    public void testLazyRecordsAreReadBeforeTheShards() {
+        try (ShardedQueryManager manager = new ShardedQueryManager(getPartitionedConfig(), 4)) {
+            for (int i = 0; i < 20; i++) {
+                manager.addQuery("id" + i, getQuerier(i % 2 == 0 ? "foo" : "bar"));
+            }
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            List<BulletRecord> records = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                // Deserialized Avro records only read their data when first used
+                BulletRecord record = spy((BulletRecord) SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(
+                        RecordBox.get().add("A", i % 2 == 0 ? "foo" : "bar").getRecord())));
+                doAnswer(invocation -> {
+                    threads.add(Thread.currentThread().getName());
+                    return invocation.callRealMethod();
+                }).when(record).fieldCount();
+                records.add(record);
+            }
+            manager.categorize(records);
+            Assert.assertEquals(threads, Collections.singleton(Thread.currentThread().getName()));
+            threads.clear();
+            manager.categorize(records, null);
+            Assert.assertEquals(threads, Collections.singleton(Thread.currentThread().getName()));
+
+            threads.clear();
+            BulletRecord record = spy((BulletRecord) SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(
+                    RecordBox.get().add("A", "foo").getRecord())));
+            doAnswer(invocation -> {
+                threads.add(Thread.currentThread().getName());
+                return invocation.callRealMethod();
+            }).when(record).fieldCount();
+            Assert.assertEquals(manager.partition(record).size(), 10);
+            Assert.assertEquals(threads, Collections.singleton(Thread.currentThread().getName()));
+        }
+    }
+
+    @Test
+    public void testCategorizingDue() {
+        try (ShardedQueryManager manager = new ShardedQueryManager(getPartitionedConfig(), 3)) {
+            for (int i = 0; i < 6; i++) {
+                Querier querier = getQuerier("foo");
+                doReturn(i % 2 == 0).when(querier).isDone();
+                doReturn(i % 2 == 0 ? 0L : Long.MAX_VALUE).when(querier).getNextDeadline();
+                manager.addQuery("id" + i, querier);
+            }
+            Assert.assertEquals(manager.categorizeDue().getDone().keySet(), new HashSet<>(Arrays.asList("id0", "id2", "id4")));
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        try (ShardedQueryManager manager = new ShardedQueryManager(getPartitionedConfig(), 2)) {
+            for (int i = 0; i < 10; i++) {
+                manager.addQuery("id" + i, getQuerier(i < 6 ? "foo" : "bar"));
+            }
+            manager.categorize(RecordBox.get().add("A", "foo").getRecord());
+            Map<QueryManager.PartitionStat, Object> stats = manager.getStats();
+            Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERY_COUNT), 10);
+            Assert.assertEquals(stats.get(QueryManager.PartitionStat.PARTITION_COUNT), 2);
+            Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 6L);
+            Assert.assertEquals(stats.get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN), 10L);
+            Assert.assertTrue(((String) stats.get(QueryManager.PartitionStat.LARGEST_PARTITION)).endsWith(" -> 6"));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testFailuresArePropagated() {
+        try (ShardedQueryManager manager = new ShardedQueryManager(new BulletConfig(), 2)) {
+            Querier querier = getQuerier("foo");
+            doThrow(new IllegalStateException("failed")).when(querier).consume(anyList());
+            manager.addQuery("id", querier);
+            manager.categorize(RecordBox.get().getRecord());
+        }
+    }
+
+    @Test
+    public void testClosing() {
+        ShardedQueryManager manager = new ShardedQueryManager(new BulletConfig(), 1);
+        Querier querier = getQuerier("foo");
+        manager.addQuery("id", querier);
+        manager.categorize(RecordBox.get().getRecord());
+        manager.close();
+        verify(querier, times(1)).consume(anyList());
+    }
+
+    @Test
+    public void testEnforcingBudgets() {
+        try (ShardedQueryManager manager = new ShardedQueryManager(new BulletConfig(), 3)) {
+            for (int i = 0; i < 6; i++) {
+                Querier querier = getQuerier("foo");
+                QueryBudget budget = new QueryBudget(1);
+                doReturn(budget).when(querier).getBudget();
+                // Over the default memory budget of 64 MB
+                doReturn(i % 2 == 0 ? 100L * 1024L * 1024L : 0L).when(querier).getRetainedSize();
+                doAnswer(invocation -> budget.isExceeded()).when(querier).isDone();
+                manager.addQuery("id" + i, querier);
+            }
+            QueryCategorizer categorizer = manager.enforceBudgets();
+            Assert.assertEquals(categorizer.getDone().keySet(), new HashSet<>(Arrays.asList("id0", "id2", "id4")));
+            Assert.assertTrue(manager.getQuery("id0").getBudget().isExceeded());
+            Assert.assertFalse(manager.getQuery("id1").getBudget().isExceeded());
+        }
+    }
+
+    @Test
+    public void testGlobalBudgetsApplyAcrossShards() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_BUDGET_GLOBAL_MEMORY_MB, 100);
+        config.validate();
+        try (ShardedQueryManager manager = new ShardedQueryManager(config, 3)) {
+            Set<Integer> shards = new HashSet<>();
+            for (int i = 0; i < 6; i++) {
+                Querier querier = getQuerier("foo");
+                QueryBudget budget = new QueryBudget(1);
+                doReturn(budget).when(querier).getBudget();
+                // Under the memory budget of 64 MB for each query and of 100 MB for each shard but not for all of them
+                doReturn(40L * 1024L * 1024L).when(querier).getRetainedSize();
+                doAnswer(invocation -> budget.isExceeded()).when(querier).isDone();
+                manager.addQuery("id" + i, querier);
+                shards.add(manager.getShard("id" + i));
+            }
+            Assert.assertTrue(shards.size() > 1);
+            QueryCategorizer categorizer = manager.enforceBudgets();
+            Assert.assertEquals(categorizer.getDone().size(), 4);
+            categorizer.getDone().values().forEach(querier -> Assert.assertTrue(querier.getBudget().isExceeded()));
+            Assert.assertEquals(manager.enforceBudgets().getDone().size(), 0);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.Field;
+import com.yahoo.bullet.query.Projection;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.querying.evaluators.ExpressionCompiler;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.BulletRecordProvider;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class SharedScansTest {
+    private static final BulletConfig CONFIG = new BulletConfig();
+    private static final ExpressionCompiler COMPILER = new ExpressionCompiler(CONFIG);
+    private static final BulletRecordProvider PROVIDER = CONFIG.getBulletRecordProvider();
+
+    private static Expression greaterThan(String field, int value) {
+        return new BinaryExpression(new FieldExpression(field), new ValueExpression(value), Operation.GREATER_THAN);
+    }
+
+    private static List<Field> fields(String name, String field) {
+        return Collections.singletonList(new Field(name, new FieldExpression(field)));
+    }
+
+    private static SharedScans.Key key(Expression filter, Projection.Type type, List<Field> fields) {
+        return new SharedScans.Key(filter, type, fields);
+    }
+
+    @Test
+    public void testKeys() {
+        SharedScans.Key key = key(greaterThan("a", 1), Projection.Type.NO_COPY, fields("b", "c"));
+        Assert.assertEquals(key, key);
+        Assert.assertEquals(key, key(greaterThan("a", 1), Projection.Type.NO_COPY, fields("b", "c")));
+        Assert.assertEquals(key.hashCode(), key(greaterThan("a", 1), Projection.Type.NO_COPY, fields("b", "c")).hashCode());
+        Assert.assertNotEquals(key, key(greaterThan("a", 2), Projection.Type.NO_COPY, fields("b", "c")));
+        Assert.assertNotEquals(key, key(greaterThan("a", 1), Projection.Type.COPY, fields("b", "c")));
+        Assert.assertNotEquals(key, key(greaterThan("a", 1), Projection.Type.NO_COPY, fields("b", "d")));
+        Assert.assertNotEquals(key, key(null, Projection.Type.NO_COPY, fields("b", "c")));
+        Assert.assertNotEquals(key, "foo");
+    }
+
+    @Test
+    public void testAcquiringAndReleasing() {
+        SharedScans scans = new SharedScans();
+        SharedScans.Key keyA = key(greaterThan("a", 1), Projection.Type.PASS_THROUGH, null);
+        SharedScans.Key keyB = key(null, Projection.Type.NO_COPY, fields("b", "c"));
+        SharedScans.Scan scan = scans.acquire(keyA, COMPILER, PROVIDER);
+        Assert.assertEquals(scans.size(), 1);
+
+        Assert.assertSame(scans.acquire(key(greaterThan("a", 1), Projection.Type.PASS_THROUGH, null), COMPILER, PROVIDER), scan);
+        Assert.assertNotSame(scans.acquire(keyB, COMPILER, PROVIDER), scan);
+        Assert.assertEquals(scans.size(), 2);
+
+        scans.release(keyA);
+        Assert.assertEquals(scans.size(), 2);
+        scans.release(keyA);
+        scans.release(keyB);
+        Assert.assertEquals(scans.size(), 0);
+
+        // Releasing what is not shared does nothing
+        scans.release(keyA);
+        Assert.assertEquals(scans.size(), 0);
+        Assert.assertNotSame(scans.acquire(keyA, COMPILER, PROVIDER), scan);
+    }
+
+    @Test
+    public void testScanningOncePerRecord() {
+        SharedScans scans = new SharedScans();
+        SharedScans.Scan scan = scans.acquire(key(greaterThan("a", 1), Projection.Type.NO_COPY, fields("b", "a")), COMPILER, PROVIDER);
+
+        BulletRecord record = RecordBox.get().add("a", 2).getRecord();
+        scans.advance();
+        BulletRecord projected = scan.apply(record);
+        Assert.assertEquals(projected.fieldCount(), 1);
+        Assert.assertEquals(projected.typedGet("b").getValue(), 2);
+        Assert.assertSame(scan.apply(record), projected);
+
+        // The same record in a new epoch is scanned again
+        scans.advance();
+        Assert.assertNotSame(scan.apply(record), projected);
+
+        Assert.assertNull(scan.apply(RecordBox.get().add("a", 1).getRecord()));
+        Assert.assertNull(scan.apply(RecordBox.get().getRecord()));
+    }
+
+    @Test
+    public void testScanningWithoutAProjection() {
+        SharedScans scans = new SharedScans();
+        SharedScans.Scan scan = scans.acquire(key(greaterThan("a", 1), Projection.Type.PASS_THROUGH, null), COMPILER, PROVIDER);
+        BulletRecord record = RecordBox.get().add("a", 2).getRecord();
+        scans.advance();
+        Assert.assertSame(scan.apply(record), record);
+    }
+
+    @Test
+    public void testScanningWithACopy() {
+        SharedScans scans = new SharedScans();
+        SharedScans.Scan scan = scans.acquire(key(null, Projection.Type.COPY, fields("b", "a")), COMPILER, PROVIDER);
+        BulletRecord record = RecordBox.get().add("a", 2).getRecord();
+        scans.advance();
+        BulletRecord projected = scan.apply(record);
+        Assert.assertNotSame(projected, record);
+        Assert.assertEquals(projected.fieldCount(), 2);
+        Assert.assertEquals(projected.typedGet("b").getValue(), 2);
+        Assert.assertEquals(record.fieldCount(), 1);
+    }
+}
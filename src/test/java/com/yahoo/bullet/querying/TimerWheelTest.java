@@ -0,0 +1,137 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+
+public class TimerWheelTest {
+    private static final long START = 1600000000000L;
+
+    private static Set<String> advance(TimerWheel<String> wheel, long now) {
+        List<String> due = wheel.advance(now);
+        Set<String> keys = new HashSet<>(due);
+        Assert.assertEquals(keys.size(), due.size());
+        return keys;
+    }
+
+    @Test
+    public void testSchedulingAndAdvancing() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        wheel.schedule("a", START + 10);
+        wheel.schedule("b", START + 2000);
+        wheel.schedule("c", START - 5000);
+        Assert.assertEquals(wheel.size(), 3);
+
+        Assert.assertEquals(advance(wheel, START), Collections.singleton("c"));
+        Assert.assertEquals(advance(wheel, START + 9), Collections.emptySet());
+        Assert.assertEquals(advance(wheel, START + 10), Collections.singleton("a"));
+        Assert.assertEquals(advance(wheel, START + 1999), Collections.emptySet());
+        Assert.assertEquals(advance(wheel, START + 5000), Collections.singleton("b"));
+        Assert.assertEquals(wheel.size(), 0);
+    }
+
+    @Test
+    public void testReschedulingAndCancelling() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        wheel.schedule("a", START + 10);
+        wheel.schedule("a", START + 100000);
+        wheel.schedule("b", START + 10);
+        wheel.schedule("c", START + 10);
+        wheel.cancel("b");
+        wheel.cancel("d");
+        wheel.schedule("c", Long.MAX_VALUE);
+        Assert.assertEquals(wheel.size(), 1);
+
+        Assert.assertEquals(advance(wheel, START + 99999), Collections.emptySet());
+        Assert.assertEquals(advance(wheel, START + 100000), Collections.singleton("a"));
+    }
+
+    @Test
+    public void testTimeGoingBackwards() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        wheel.schedule("a", START - 10);
+        Assert.assertEquals(advance(wheel, START - 1), Collections.emptySet());
+        Assert.assertEquals(advance(wheel, START), Collections.singleton("a"));
+    }
+
+    @Test
+    public void testFarAwayDeadlines() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        long hour = 3600000L;
+        long year = 365 * 24 * hour;
+        wheel.schedule("hour", START + hour);
+        wheel.schedule("day", START + 24 * hour);
+        wheel.schedule("year", START + year);
+        wheel.schedule("century", START + 100 * year);
+
+        for (long now = START; now < START + hour; now += 60000L) {
+            Assert.assertEquals(advance(wheel, now), Collections.emptySet());
+        }
+        Assert.assertEquals(advance(wheel, START + hour), Collections.singleton("hour"));
+        Assert.assertEquals(advance(wheel, START + 24 * hour - 1), Collections.emptySet());
+        Assert.assertEquals(advance(wheel, START + 24 * hour), Collections.singleton("day"));
+        Assert.assertEquals(advance(wheel, START + year + 1), Collections.singleton("year"));
+        Assert.assertEquals(advance(wheel, START + 99 * year), Collections.emptySet());
+        Assert.assertEquals(advance(wheel, START + 100 * year), Collections.singleton("century"));
+    }
+
+    @Test
+    public void testSameAsSortingDeadlines() {
+        Random random = new Random(42);
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        Map<String, Long> deadlines = new HashMap<>();
+        long now = START;
+        for (int round = 0; round < 2000; round++) {
+            for (int i = 0; i < 5; i++) {
+                String key = "key" + random.nextInt(500);
+                // Mostly within minutes but some within days
+                long bound = random.nextInt(10) == 0 ? 400000000L : 300000L;
+                long deadline = now + (long) (random.nextDouble() * bound) - 1000L;
+                wheel.schedule(key, deadline);
+                deadlines.put(key, deadline);
+            }
+            if (random.nextInt(4) == 0) {
+                String key = "key" + random.nextInt(500);
+                wheel.cancel(key);
+                deadlines.remove(key);
+            }
+            now += random.nextInt(3) == 0 ? random.nextInt(5000000) : random.nextInt(3000);
+
+            Set<String> expected = new HashSet<>();
+            for (Map.Entry<String, Long> entry : new ArrayList<>(deadlines.entrySet())) {
+                if (entry.getValue() <= now) {
+                    expected.add(entry.getKey());
+                    deadlines.remove(entry.getKey());
+                }
+            }
+            Assert.assertEquals(advance(wheel, now), expected);
+            Assert.assertEquals(wheel.size(), deadlines.size());
+        }
+    }
+
+    @Test
+    public void testManyKeysInOneBucket() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        for (String key : asList("a", "b", "c", "d")) {
+            wheel.schedule(key, START + 1);
+        }
+        wheel.schedule("e", START + 2);
+        Assert.assertEquals(advance(wheel, START + 1), new HashSet<>(asList("a", "b", "c", "d")));
+        Assert.assertEquals(advance(wheel, START + 2), Collections.singleton("e"));
+    }
+}
@@ -271,4 +271,23 @@ public class RawStrategyTest {
         Assert.assertEquals(raw.getRecords(), aggregate);
         Assert.assertEquals(raw.getMetadata().asMap(), raw.getResult().getMeta().asMap());
     }
+
+    @Test
+    public void testRetainedSize() {
+        RawStrategy raw = makeRaw(10);
+        Assert.assertEquals(raw.getRetainedSize(), 0L);
+        BulletRecord record = RecordBox.get().add("foo", "bar").getRecord();
+        long size = SerializerDeserializer.toBytes(record).length;
+        IntStream.range(0, 5).forEach(i -> raw.consume(record));
+        Assert.assertEquals(raw.getRetainedSize(), 5 * size);
+        raw.reset();
+        Assert.assertEquals(raw.getRetainedSize(), 0L);
+    }
+
+    @Test
+    public void testRetainedSizeOfBadRecord() {
+        RawStrategy raw = makeRaw(1);
+        raw.consume(new NoSerDeBulletRecord());
+        Assert.assertEquals(raw.getRetainedSize(), 0L);
+    }
 }
@@ -49,4 +49,23 @@ public class StrategyTest {
         strategy.consume(new TypedAvroBulletRecord());
         Assert.assertFalse(strategy.isClosed());
     }
+
+    @Test
+    public void testDefaultRetainedSize() {
+        Assert.assertEquals(new EmptyStrategy().getRetainedSize(), 0L);
+        EmptyStrategy nullStrategy = new EmptyStrategy() {
+            @Override
+            public byte[] getData() {
+                return null;
+            }
+        };
+        Assert.assertEquals(nullStrategy.getRetainedSize(), 0L);
+        EmptyStrategy someStrategy = new EmptyStrategy() {
+            @Override
+            public byte[] getData() {
+                return new byte[4];
+            }
+        };
+        Assert.assertEquals(someStrategy.getRetainedSize(), 4L);
+    }
 }
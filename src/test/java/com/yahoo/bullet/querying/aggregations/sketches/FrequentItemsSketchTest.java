@@ -212,4 +212,23 @@ public class FrequentItemsSketchTest {
         Assert.assertEquals(sketch.getRecords(), result.getRecords());
         Assert.assertEquals(sketch.getMetadata("meta", ALL_METADATA).asMap(), result.getMeta().asMap());
     }
+
+    @Test
+    public void testRetainedSize() {
+        FrequentItemsSketch sketch = new FrequentItemsSketch(ErrorType.NO_FALSE_NEGATIVES, 32, 15, provider);
+        Assert.assertEquals(sketch.getRetainedSize(), 0L);
+        sketch.update("foo");
+        sketch.update("foo");
+        sketch.update("bar");
+        // Each item is a count and its serialized UTF-16 characters and length
+        long item = Long.BYTES + Integer.BYTES + 3 * Character.BYTES;
+        Assert.assertEquals(sketch.getRetainedSize(), 2 * item);
+
+        FrequentItemsSketch unionSketch = new FrequentItemsSketch(ErrorType.NO_FALSE_NEGATIVES, 32, 15, provider);
+        unionSketch.union(sketch.serialize());
+        Assert.assertTrue(unionSketch.getRetainedSize() >= 2 * item);
+
+        unionSketch.reset();
+        Assert.assertEquals(unionSketch.getRetainedSize(), 0L);
+    }
 }
@@ -666,4 +666,24 @@ public class QuantileSketchTest {
         Assert.assertEquals(actualRangeEnds, expectedRangeEnds);
 
     }
+
+    @Test
+    public void testRetainedSize() {
+        QuantileSketch sketch = new QuantileSketch(64, 2, DistributionType.QUANTILE, 11, provider);
+        long empty = sketch.getRetainedSize();
+        IntStream.range(0, 1024).forEach(i -> sketch.update(i));
+        Assert.assertTrue(sketch.getRetainedSize() > empty);
+
+        QuantileSketch unionSketch = new QuantileSketch(64, 2, DistributionType.QUANTILE, 11, provider);
+        byte[] serialized = sketch.serialize();
+        unionSketch.union(serialized);
+        Assert.assertEquals(unionSketch.getRetainedSize(), empty + serialized.length);
+
+        // Once merged, the result is kept instead of the union
+        unionSketch.getResult(null, null);
+        Assert.assertTrue(unionSketch.getRetainedSize() > empty);
+
+        unionSketch.reset();
+        Assert.assertEquals(unionSketch.getRetainedSize(), empty);
+    }
 }
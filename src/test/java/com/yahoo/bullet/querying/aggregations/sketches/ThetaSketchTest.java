@@ -210,4 +210,26 @@ public class ThetaSketchTest {
         actual = actuals.get(0);
         Assert.assertEquals(actual, expected);
     }
+
+    @Test
+    public void testRetainedSize() {
+        ThetaSketch sketch = new ThetaSketch(ResizeFactor.X4, Family.ALPHA, 1.0f, 512, provider);
+        long empty = sketch.getRetainedSize();
+        Assert.assertTrue(empty > 0L);
+        IntStream.range(0, 1024).forEach(i -> sketch.update(String.valueOf(i)));
+        Assert.assertTrue(sketch.getRetainedSize() > empty);
+
+        ThetaSketch unionSketch = new ThetaSketch(ResizeFactor.X4, Family.QUICKSELECT, 1.0f, 512, provider);
+        long unionEmpty = unionSketch.getRetainedSize();
+        byte[] serialized = sketch.serialize();
+        unionSketch.union(serialized);
+        Assert.assertEquals(unionSketch.getRetainedSize(), unionEmpty + serialized.length);
+
+        // Once merged, the result is kept instead of the union
+        unionSketch.getResult(null, null);
+        Assert.assertEquals(unionSketch.getRetainedSize(), unionEmpty + serialized.length);
+
+        unionSketch.reset();
+        Assert.assertEquals(unionSketch.getRetainedSize(), unionEmpty);
+    }
 }
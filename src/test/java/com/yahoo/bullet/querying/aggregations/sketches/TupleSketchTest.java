@@ -340,4 +340,31 @@ public class TupleSketchTest {
         TestHelpers.assertContains(actuals, expectedE);
         TestHelpers.assertContains(actuals, expectedF);
     }
+
+    @Test
+    public void testRetainedSize() {
+        data = new CachingGroupData(null, Collections.emptyMap(), new HashMap<>());
+        TupleSketch sketch = new TupleSketch(ResizeFactor.X4, 1.0f, 64, 64, provider);
+        Assert.assertEquals(sketch.getRetainedSize(), 0L);
+
+        sketch.update(addToData("foo", 0.0, data), data);
+        long one = sketch.getRetainedSize();
+        Assert.assertTrue(one > Long.BYTES);
+        sketch.update(addToData("bar", 0.2, data), data);
+        // The size of both entries is estimated from the size of one of them
+        long two = sketch.getRetainedSize();
+        Assert.assertTrue(two > one);
+
+        TupleSketch unionSketch = new TupleSketch(ResizeFactor.X4, 1.0f, 64, 64, provider);
+        byte[] serialized = sketch.serialize();
+        unionSketch.union(serialized);
+        Assert.assertEquals(unionSketch.getRetainedSize(), serialized.length);
+
+        // Once merged, the result is kept instead of the union
+        unionSketch.getResult(null, null);
+        Assert.assertTrue(unionSketch.getRetainedSize() > one);
+
+        unionSketch.reset();
+        Assert.assertEquals(unionSketch.getRetainedSize(), 0L);
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class AdaptiveAndEvaluatorTest {
+    private static TypedObject evaluate(Evaluator evaluator, BulletRecord record) {
+        try {
+            return evaluator.evaluate(record);
+        } catch (Exception e) {
+            return new TypedObject(e.getClass().getName());
+        }
+    }
+
+    private static Evaluator returning(Serializable value) {
+        Evaluator evaluator = mock(Evaluator.class);
+        doReturn(new TypedObject(value)).when(evaluator).evaluate(any());
+        doReturn(value != null && (Boolean) value).when(evaluator).evaluateBoolean(any());
+        return evaluator;
+    }
+
+    @Test
+    public void testReordering() {
+        Evaluator neverRejects = valueEvaluator(true);
+        Evaluator alwaysRejects = valueEvaluator(false);
+        AdaptiveAndEvaluator evaluator = new AdaptiveAndEvaluator(Arrays.asList(neverRejects, alwaysRejects, valueEvaluator(true)), 1, 4);
+        BulletRecord record = RecordBox.get().getRecord();
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertFalse(evaluator.evaluateBoolean(record));
+            Assert.assertEquals(evaluator.order, new int[] {0, 1, 2});
+        }
+        Assert.assertFalse(evaluator.evaluateBoolean(record));
+        Assert.assertEquals(evaluator.order, new int[] {1, 0, 2});
+    }
+
+    @Test
+    public void testShortCircuitingInNewOrder() {
+        Evaluator first = returning(true);
+        Evaluator second = returning(false);
+        AdaptiveAndEvaluator evaluator = new AdaptiveAndEvaluator(Arrays.asList(first, second), 1000, 1);
+        evaluator.order = new int[] {1, 0};
+        BulletRecord record = RecordBox.get().getRecord();
+
+        Assert.assertFalse(evaluator.evaluateBoolean(record));
+        Assert.assertFalse(evaluator.wasNull());
+        verify(second, times(1)).evaluateBoolean(record);
+        verify(first, never()).evaluateBoolean(record);
+    }
+
+    @Test
+    public void testSamplingEvaluatesAllOperands() {
+        Evaluator first = returning(false);
+        Evaluator second = returning(true);
+        AdaptiveAndEvaluator evaluator = new AdaptiveAndEvaluator(Arrays.asList(first, second), 2, 1000);
+        BulletRecord record = RecordBox.get().getRecord();
+
+        Assert.assertFalse(evaluator.evaluateBoolean(record));
+        verify(second, never()).evaluateBoolean(record);
+        Assert.assertFalse(evaluator.evaluateBoolean(record));
+        verify(second, times(1)).evaluateBoolean(record);
+    }
+
+    @Test
+    public void testSameResultsAsAnd() {
+        BulletRecord record = RecordBox.get().add("a", true).add("b", false).add("c", "foo").getRecord();
+        List<Evaluator> operands = Arrays.asList(fieldEvaluator("a"), fieldEvaluator("b"), fieldEvaluator("x"), valueEvaluator(true));
+        for (Evaluator first : operands) {
+            for (Evaluator second : operands) {
+                for (Evaluator third : operands) {
+                    List<Evaluator> chain = Arrays.asList(first, second, third);
+                    TypedObject expected = new LogicalEvaluator(chain, Operation.AND).evaluate(record);
+                    for (int sampleInterval : Arrays.asList(1, 2, 1000)) {
+                        AdaptiveAndEvaluator evaluator = new AdaptiveAndEvaluator(chain, sampleInterval, 1);
+                        for (int i = 0; i < 4; i++) {
+                            Assert.assertEquals(evaluator.evaluate(record), expected, chain + " on " + record);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFailures() {
+        BulletRecord record = RecordBox.get().add("a", true).add("b", false).getRecord();
+        Evaluator failing = mock(Evaluator.class);
+        doThrow(new IllegalStateException("Testing")).when(failing).evaluate(any());
+        doThrow(new IllegalStateException("Testing")).when(failing).evaluateBoolean(any());
+        List<Evaluator> operands = Arrays.asList(failing, fieldEvaluator("b"));
+
+        AdaptiveAndEvaluator evaluator = new AdaptiveAndEvaluator(operands, 1, 1000);
+        Assert.assertEquals(evaluate(evaluator, record), new TypedObject(IllegalStateException.class.getName()));
+        evaluator = new AdaptiveAndEvaluator(operands, 1000, 1000);
+        Assert.assertEquals(evaluate(evaluator, record), new TypedObject(IllegalStateException.class.getName()));
+
+        // In the other order, the false comes first
+        evaluator.order = new int[] {1, 0};
+        Assert.assertEquals(evaluate(evaluator, record), TypedObject.FALSE);
+        evaluator = new AdaptiveAndEvaluator(operands, 1, 1000);
+        evaluator.order = new int[] {1, 0};
+        Assert.assertEquals(evaluate(evaluator, record), TypedObject.FALSE);
+
+        // The failing operand rejects the most and goes first
+        evaluator = new AdaptiveAndEvaluator(Arrays.asList(fieldEvaluator("a"), failing), 1, 1);
+        evaluate(evaluator, record);
+        Assert.assertEquals(evaluator.order, new int[] {1, 0});
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+
+public class ArithmeticEvaluatorTest {
+    private static ArithmeticEvaluator arithmetic(Serializable left, Serializable right, Operation op) {
+        return new ArithmeticEvaluator(valueEvaluator(left), valueEvaluator(right), op);
+    }
+
+    @Test
+    public void testResultTypes() {
+        Assert.assertEquals(arithmetic(7, 2, Operation.DIV).evaluate(null), new TypedObject(Type.INTEGER, 3));
+        Assert.assertEquals(arithmetic(7, 2L, Operation.MOD).evaluate(null), new TypedObject(Type.LONG, 1L));
+        Assert.assertEquals(arithmetic(7, 2.0f, Operation.MUL).evaluate(null), new TypedObject(Type.FLOAT, 14.0f));
+        Assert.assertEquals(arithmetic(7L, 2.5, Operation.SUB).evaluate(null), new TypedObject(Type.DOUBLE, 4.5));
+        Assert.assertEquals(arithmetic(Integer.MAX_VALUE, 1, Operation.ADD).evaluate(null), new TypedObject(Type.INTEGER, Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void testNested() {
+        BulletRecord record = RecordBox.get().add("a", 3).add("b", 4L).getRecord();
+        // (a * b) / 5.0
+        ArithmeticEvaluator evaluator = new ArithmeticEvaluator(new ArithmeticEvaluator(fieldEvaluator("a"), fieldEvaluator("b"), Operation.MUL),
+                                                                valueEvaluator(5.0), Operation.DIV);
+        Assert.assertEquals(evaluator.evaluate(record), new TypedObject(Type.DOUBLE, 2.4));
+        Assert.assertEquals(evaluator.evaluateDouble(record), 2.4);
+        Assert.assertEquals(evaluator.evaluateLong(record), 2L);
+        Assert.assertFalse(evaluator.wasNull());
+    }
+
+    @Test
+    public void testNulls() {
+        BulletRecord record = RecordBox.get().add("a", 3).getRecord();
+        ArithmeticEvaluator evaluator = new ArithmeticEvaluator(fieldEvaluator("a"), fieldEvaluator("b"), Operation.ADD);
+        Assert.assertEquals(evaluator.evaluate(record), TypedObject.NULL);
+        Assert.assertEquals(evaluator.evaluateLong(record), 0L);
+        Assert.assertTrue(evaluator.wasNull());
+        Assert.assertEquals(evaluator.evaluateDouble(record), 0.0);
+        Assert.assertTrue(evaluator.wasNull());
+    }
+
+    @Test(expectedExceptions = ArithmeticException.class)
+    public void testDivideByZero() {
+        arithmetic(1L, 0, Operation.DIV).evaluateLong(null);
+    }
+
+    @Test(expectedExceptions = ClassCastException.class)
+    public void testNotNumeric() {
+        arithmetic("1", 0, Operation.ADD).evaluate(null);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testNotArithmetic() {
+        arithmetic(1, 0, Operation.AND);
+    }
+}
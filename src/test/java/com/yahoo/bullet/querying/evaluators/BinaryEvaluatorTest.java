@@ -6,6 +6,7 @@
 package com.yahoo.bullet.querying.evaluators;
 
 import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.result.RecordBox;
@@ -28,4 +29,16 @@ public class BinaryEvaluatorTest {
         Assert.assertEquals(evaluator.op, BINARY_OPERATORS.get(Operation.ADD));
         Assert.assertEquals(evaluator.evaluate(RecordBox.get().getRecord()), new TypedObject(Type.INTEGER, 3));
     }
+
+    @Test
+    public void testConstructorWithRegex() {
+        BinaryExpression expression = new BinaryExpression(new FieldExpression("abc"), new ValueExpression(".*abc"), Operation.REGEX_LIKE);
+        expression.setType(Type.BOOLEAN);
+
+        BinaryEvaluator evaluator = new BinaryEvaluator(expression);
+        Assert.assertNotSame(evaluator.op, BINARY_OPERATORS.get(Operation.REGEX_LIKE));
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("abc", "aabc").getRecord()), TypedObject.TRUE);
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("abc", "abbc").getRecord()), TypedObject.FALSE);
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().getRecord()), TypedObject.NULL);
+    }
 }
@@ -5,6 +5,8 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.RecordBox;
 import com.yahoo.bullet.typesystem.Type;
@@ -13,10 +15,13 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
+import static com.yahoo.bullet.querying.evaluators.BinaryOperations.BINARY_OPERATORS;
 import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
 import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.listEvaluator;
 import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
@@ -307,6 +312,157 @@ public class BinaryOperationsTest {
         Assert.assertEquals(BinaryOperations.regexLikeAny(valueEvaluator("abbc"), listEvaluator(".*abc", null), null), TypedObject.NULL);
     }
 
+    private static ValueEvaluator retypedEvaluator(Serializable value, Type type) {
+        ValueExpression expression = new ValueExpression(value);
+        expression.setType(type);
+        return new ValueEvaluator(expression);
+    }
+
+    private static TypedObject evaluateSafely(BinaryOperations.BinaryOperator op, Evaluator left, Evaluator right, BulletRecord record) {
+        try {
+            return op.apply(left, right, record);
+        } catch (Exception e) {
+            return new TypedObject(e.getClass().getName());
+        }
+    }
+
+    @Test
+    public void testRegexOperatorsMatchGenericOperators() {
+        BulletRecord record = RecordBox.get().add("p", ".*abc").add("q", "a(").add("r", 1)
+                                             .addList("l", ".*abc", "abb.*").getRecord();
+        List<Evaluator> lefts = Arrays.asList(valueEvaluator("aabc"), valueEvaluator("abbc"), valueEvaluator("x\nabc"),
+                                              valueEvaluator(null), valueEvaluator(1));
+        List<Evaluator> rights = Arrays.asList(valueEvaluator(".*abc"), valueEvaluator("abbc"), valueEvaluator(null),
+                                               valueEvaluator("a("), valueEvaluator(1), fieldEvaluator("p"),
+                                               fieldEvaluator("q"), fieldEvaluator("r"), fieldEvaluator("x"));
+        List<Evaluator> rightLists = Arrays.asList(listEvaluator(".*abc", "abb.*"), listEvaluator(null, "abbc"),
+                                                   listEvaluator(".*abc", null), listEvaluator(), listEvaluator((Serializable) null),
+                                                   listEvaluator("aabc", "a("), listEvaluator("aabc", 1),
+                                                   listEvaluator("x", ".*bc", "(a)\\1bc", "a.*", null),
+                                                   listEvaluator(".*ab.*", ".*\\d+", "abbc"), valueEvaluator(null),
+                                                   fieldEvaluator("l"), fieldEvaluator("x"));
+        for (boolean fast : Arrays.asList(false, true)) {
+            for (Operation op : Arrays.asList(Operation.REGEX_LIKE, Operation.NOT_REGEX_LIKE)) {
+                for (Evaluator left : lefts) {
+                    for (Evaluator right : rights) {
+                        BinaryOperations.BinaryOperator operator = BinaryOperations.getOperator(op, right, 2, fast);
+                        Assert.assertNotSame(operator, BINARY_OPERATORS.get(op));
+                        Assert.assertEquals(evaluateSafely(operator, left, right, record),
+                                            evaluateSafely(BINARY_OPERATORS.get(op), left, right, record));
+                    }
+                }
+            }
+            for (Operation op : Arrays.asList(Operation.REGEX_LIKE_ANY, Operation.NOT_REGEX_LIKE_ANY)) {
+                for (Evaluator left : lefts) {
+                    for (Evaluator right : rightLists) {
+                        BinaryOperations.BinaryOperator operator = BinaryOperations.getOperator(op, right, 2, fast);
+                        Assert.assertEquals(evaluateSafely(operator, left, right, record),
+                                            evaluateSafely(BINARY_OPERATORS.get(op), left, right, record));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGetOperatorForOtherOperations() {
+        Assert.assertSame(BinaryOperations.getOperator(Operation.ADD, valueEvaluator(1), 2, true), BINARY_OPERATORS.get(Operation.ADD));
+        Assert.assertSame(BinaryOperations.getOperator(Operation.CONTAINS_VALUE, listEvaluator(1), 2, true), BINARY_OPERATORS.get(Operation.CONTAINS_VALUE));
+        Assert.assertSame(BinaryOperations.getOperator(Operation.IN, fieldEvaluator("a"), 2, true), BINARY_OPERATORS.get(Operation.IN));
+        Assert.assertSame(BinaryOperations.getOperator(Operation.IN, listEvaluator(1, 2L), 2, true), BINARY_OPERATORS.get(Operation.IN));
+        Assert.assertSame(BinaryOperations.getOperator(Operation.EQUALS_ANY, listEvaluator((Serializable) null), 2, true), BINARY_OPERATORS.get(Operation.EQUALS_ANY));
+    }
+
+    @Test
+    public void testInOperatorsMatchGenericOperators() {
+        BulletRecord record = RecordBox.get().add("i", 2).add("l", 3000000000L).add("f", 1.5f).add("d", Double.NaN)
+                                             .add("s", "foo").add("b", true).add("z", -0.0).addList("list", 1, 2).getRecord();
+        List<Evaluator> lefts = Arrays.asList(valueEvaluator(1), valueEvaluator(2L), valueEvaluator(3000000000L), valueEvaluator(9007199254740993L),
+                                              valueEvaluator(1.0), valueEvaluator(1.5f), valueEvaluator(0.0), valueEvaluator(-0.0),
+                                              valueEvaluator(Double.NaN), valueEvaluator("foo"), valueEvaluator("1"), valueEvaluator(true),
+                                              valueEvaluator(false), valueEvaluator(null), fieldEvaluator("i"), fieldEvaluator("l"),
+                                              fieldEvaluator("f"), fieldEvaluator("d"), fieldEvaluator("s"), fieldEvaluator("b"),
+                                              fieldEvaluator("z"), fieldEvaluator("list"), fieldEvaluator("x"),
+                                              retypedEvaluator(1, Type.STRING), retypedEvaluator("1", Type.INTEGER),
+                                              retypedEvaluator(2, Type.LONG));
+        List<ListEvaluator> rights = Arrays.asList(listEvaluator(1, 2, 3), listEvaluator(null, 2), listEvaluator(5, null),
+                                                   listEvaluator(3000000000L, 9007199254740992L, 0L), listEvaluator(1.0, 1.5, Double.NaN),
+                                                   listEvaluator(0.0), listEvaluator(-0.0, null), listEvaluator(1.5f, 0.0f),
+                                                   listEvaluator("foo", "bar"), listEvaluator("1", null), listEvaluator(true),
+                                                   listEvaluator(false, null));
+        for (int compactSetSize : Arrays.asList(0, 1, 3)) {
+            for (Operation op : Arrays.asList(Operation.IN, Operation.NOT_IN, Operation.EQUALS_ANY, Operation.NOT_EQUALS_ALL)) {
+                for (Evaluator left : lefts) {
+                    for (Evaluator right : rights) {
+                        BinaryOperations.BinaryOperator operator = BinaryOperations.getOperator(op, left, right, 2, false, compactSetSize);
+                        Assert.assertNotSame(operator, BINARY_OPERATORS.get(op));
+                        Assert.assertEquals(evaluateSafely(operator, left, right, record),
+                                            evaluateSafely(BINARY_OPERATORS.get(op), left, right, record),
+                                            op + " of " + left.evaluate(record) + " and " + right.evaluate(record));
+                        // The operator of the set does not need the list
+                        operator = BinaryOperations.getOperator(op, ConstantSet.from(right, compactSetSize));
+                        Assert.assertEquals(evaluateSafely(operator, left, null, record),
+                                            evaluateSafely(BINARY_OPERATORS.get(op), left, right, record),
+                                            op + " of " + left.evaluate(record) + " and " + right.evaluate(record));
+                    }
+                }
+            }
+            // CONTAINS_VALUE of a constant list is the same as IN
+            for (Evaluator list : rights) {
+                for (Evaluator right : lefts) {
+                    BinaryOperations.BinaryOperator operator = BinaryOperations.getOperator(Operation.CONTAINS_VALUE, list, right, 2, false, compactSetSize);
+                    Assert.assertNotSame(operator, BINARY_OPERATORS.get(Operation.CONTAINS_VALUE));
+                    Assert.assertEquals(evaluateSafely(operator, list, right, record),
+                                        evaluateSafely(BINARY_OPERATORS.get(Operation.CONTAINS_VALUE), list, right, record),
+                                        "CONTAINS_VALUE of " + list.evaluate(record) + " and " + right.evaluate(record));
+                    operator = BinaryOperations.getOperator(Operation.CONTAINS_VALUE, ConstantSet.from(list, compactSetSize));
+                    Assert.assertEquals(evaluateSafely(operator, null, right, record),
+                                        evaluateSafely(BINARY_OPERATORS.get(Operation.CONTAINS_VALUE), list, right, record),
+                                        "CONTAINS_VALUE of " + list.evaluate(record) + " and " + right.evaluate(record));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testContainsValueOfNonConstants() {
+        Assert.assertSame(BinaryOperations.getOperator(Operation.CONTAINS_VALUE, fieldEvaluator("a"), valueEvaluator(1), 2, false, 0),
+                          BINARY_OPERATORS.get(Operation.CONTAINS_VALUE));
+        Assert.assertSame(BinaryOperations.getOperator(Operation.CONTAINS_VALUE, null, valueEvaluator(1), 2, false, 0),
+                          BINARY_OPERATORS.get(Operation.CONTAINS_VALUE));
+        Assert.assertSame(BinaryOperations.getOperator(Operation.CONTAINS_VALUE, listEvaluator(1, 2L), valueEvaluator(1), 2, false, 0),
+                          BINARY_OPERATORS.get(Operation.CONTAINS_VALUE));
+    }
+
+    @Test
+    public void testStartsWith() {
+        Assert.assertEquals(BinaryOperations.startsWith(valueEvaluator("abc"), valueEvaluator("ab"), null), TypedObject.TRUE);
+        Assert.assertEquals(BinaryOperations.startsWith(valueEvaluator("abc"), valueEvaluator(""), null), TypedObject.TRUE);
+        Assert.assertEquals(BinaryOperations.startsWith(valueEvaluator("abc"), valueEvaluator("bc"), null), TypedObject.FALSE);
+        Assert.assertEquals(BinaryOperations.startsWith(valueEvaluator("ab"), valueEvaluator("abc"), null), TypedObject.FALSE);
+        Assert.assertEquals(BinaryOperations.startsWith(valueEvaluator(null), valueEvaluator("ab"), null), TypedObject.NULL);
+        Assert.assertEquals(BinaryOperations.startsWith(valueEvaluator("abc"), valueEvaluator(null), null), TypedObject.NULL);
+    }
+
+    @Test
+    public void testEndsWith() {
+        Assert.assertEquals(BinaryOperations.endsWith(valueEvaluator("abc"), valueEvaluator("bc"), null), TypedObject.TRUE);
+        Assert.assertEquals(BinaryOperations.endsWith(valueEvaluator("abc"), valueEvaluator(""), null), TypedObject.TRUE);
+        Assert.assertEquals(BinaryOperations.endsWith(valueEvaluator("abc"), valueEvaluator("ab"), null), TypedObject.FALSE);
+        Assert.assertEquals(BinaryOperations.endsWith(valueEvaluator("bc"), valueEvaluator("abc"), null), TypedObject.FALSE);
+        Assert.assertEquals(BinaryOperations.endsWith(valueEvaluator(null), valueEvaluator("bc"), null), TypedObject.NULL);
+        Assert.assertEquals(BinaryOperations.endsWith(valueEvaluator("abc"), valueEvaluator(null), null), TypedObject.NULL);
+    }
+
+    @Test
+    public void testContains() {
+        Assert.assertEquals(BinaryOperations.contains(valueEvaluator("abc"), valueEvaluator("b"), null), TypedObject.TRUE);
+        Assert.assertEquals(BinaryOperations.contains(valueEvaluator("abc"), valueEvaluator(""), null), TypedObject.TRUE);
+        Assert.assertEquals(BinaryOperations.contains(valueEvaluator("abc"), valueEvaluator("ac"), null), TypedObject.FALSE);
+        Assert.assertEquals(BinaryOperations.contains(valueEvaluator(null), valueEvaluator("b"), null), TypedObject.NULL);
+        Assert.assertEquals(BinaryOperations.contains(valueEvaluator("abc"), valueEvaluator(null), null), TypedObject.NULL);
+    }
+
     @Test
     public void testNotRegexLike() {
         Assert.assertEquals(BinaryOperations.notRegexLike(valueEvaluator("aabc"), valueEvaluator(".*abc"), null), TypedObject.FALSE);
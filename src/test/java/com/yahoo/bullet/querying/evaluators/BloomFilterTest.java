@@ -0,0 +1,44 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BloomFilterTest {
+    @Test
+    public void testNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000);
+        for (long i = 0; i < 1000; i++) {
+            filter.add(BloomFilter.hash(i * 31));
+        }
+        for (long i = 0; i < 1000; i++) {
+            Assert.assertTrue(filter.mightContain(BloomFilter.hash(i * 31)));
+        }
+    }
+
+    @Test
+    public void testFewFalsePositives() {
+        BloomFilter filter = new BloomFilter(10000);
+        for (long i = 0; i < 10000; i++) {
+            filter.add(BloomFilter.hash(i));
+        }
+        int falsePositives = 0;
+        for (long i = 10000; i < 110000; i++) {
+            if (filter.mightContain(BloomFilter.hash(i))) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue(falsePositives < 10000, "False positives: " + falsePositives);
+    }
+
+    @Test
+    public void testEmptyFilter() {
+        BloomFilter filter = new BloomFilter(0);
+        Assert.assertFalse(filter.mightContain(BloomFilter.hash(0L)));
+        Assert.assertFalse(filter.mightContain(BloomFilter.hash(42L)));
+    }
+}
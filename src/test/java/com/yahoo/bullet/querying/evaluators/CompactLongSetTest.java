@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.SerializerDeserializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CompactLongSetTest {
+    @Test
+    public void testContains() {
+        long[] values = {5L, -3L, 0L, Long.MAX_VALUE, Long.MIN_VALUE, 5L, 42L};
+        CompactLongSet set = new CompactLongSet(values);
+        Assert.assertEquals(set.size(), 6);
+        for (long value : values) {
+            Assert.assertTrue(set.contains(value));
+        }
+        Assert.assertFalse(set.contains(1L));
+        Assert.assertFalse(set.contains(-1L));
+        Assert.assertFalse(set.contains(Long.MAX_VALUE - 1));
+        // The given array is not modified
+        Assert.assertEquals(values, new long[] {5L, -3L, 0L, Long.MAX_VALUE, Long.MIN_VALUE, 5L, 42L});
+    }
+
+    @Test
+    public void testEmpty() {
+        CompactLongSet set = new CompactLongSet(new long[0]);
+        Assert.assertEquals(set.size(), 0);
+        Assert.assertFalse(set.contains(0L));
+    }
+
+    @Test
+    public void testLargeSet() {
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000000000L + i * 3L;
+        }
+        CompactLongSet set = new CompactLongSet(values);
+        for (long i = 1000000000L - 10; i < 1000000000L + values.length * 3L + 10; i++) {
+            boolean expected = i >= 1000000000L && (i - 1000000000L) % 3 == 0 && i < 1000000000L + values.length * 3L;
+            Assert.assertEquals(set.contains(i), expected);
+        }
+    }
+
+    @Test
+    public void testSerialization() {
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000000000L + i * 3L;
+        }
+        CompactLongSet set = new CompactLongSet(values);
+        byte[] bytes = SerializerDeserializer.toBytes(set);
+        // The gaps take a byte each
+        Assert.assertTrue(bytes.length < values.length + 1000);
+
+        CompactLongSet copy = SerializerDeserializer.fromBytes(bytes);
+        Assert.assertEquals(copy.size(), set.size());
+        for (long value : values) {
+            Assert.assertTrue(copy.contains(value));
+            Assert.assertFalse(copy.contains(value + 1));
+        }
+
+        copy = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(new CompactLongSet(new long[] {Long.MIN_VALUE, -1L, Long.MAX_VALUE})));
+        Assert.assertTrue(copy.contains(Long.MIN_VALUE));
+        Assert.assertTrue(copy.contains(-1L));
+        Assert.assertTrue(copy.contains(Long.MAX_VALUE));
+        Assert.assertFalse(copy.contains(0L));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.SerializerDeserializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class CompactStringSetTest {
+    @Test
+    public void testContains() {
+        CompactStringSet set = new CompactStringSet(Arrays.asList("foo", "bar", "", "foo", "😀"));
+        Assert.assertEquals(set.size(), 4);
+        Assert.assertTrue(set.contains("foo"));
+        Assert.assertTrue(set.contains("bar"));
+        Assert.assertTrue(set.contains(""));
+        Assert.assertTrue(set.contains("😀"));
+        Assert.assertFalse(set.contains("baz"));
+        Assert.assertFalse(set.contains("FOO"));
+    }
+
+    @Test
+    public void testEmpty() {
+        CompactStringSet set = new CompactStringSet(Collections.emptyList());
+        Assert.assertEquals(set.size(), 0);
+        Assert.assertFalse(set.contains(""));
+    }
+
+    @Test
+    public void testSerialization() {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            values.add("id-" + i);
+        }
+        CompactStringSet copy = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(new CompactStringSet(values)));
+        Assert.assertEquals(copy.size(), values.size());
+        for (int i = 0; i < 10000; i++) {
+            Assert.assertTrue(copy.contains("id-" + i));
+            Assert.assertFalse(copy.contains("id-" + (i + 10000)));
+        }
+    }
+}
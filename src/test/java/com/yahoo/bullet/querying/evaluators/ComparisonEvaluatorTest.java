@@ -0,0 +1,154 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+
+public class ComparisonEvaluatorTest {
+    @Test
+    public void testComparisons() {
+        BulletRecord record = RecordBox.get().add("a", 5L).getRecord();
+        Assert.assertEquals(new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(5L), Operation.EQUALS).evaluate(record), TypedObject.TRUE);
+        Assert.assertEquals(new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(5), Operation.NOT_EQUALS).evaluate(record), TypedObject.FALSE);
+        Assert.assertEquals(new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(4.5), Operation.GREATER_THAN).evaluate(record), TypedObject.TRUE);
+        Assert.assertEquals(new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(4L), Operation.LESS_THAN).evaluate(record), TypedObject.FALSE);
+        Assert.assertEquals(new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(5L), Operation.GREATER_THAN_OR_EQUALS).evaluate(record), TypedObject.TRUE);
+        Assert.assertEquals(new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(5.0f), Operation.LESS_THAN_OR_EQUALS).evaluate(record), TypedObject.TRUE);
+    }
+
+    @Test
+    public void testNulls() {
+        BulletRecord record = RecordBox.get().add("a", 5L).getRecord();
+        Assert.assertEquals(new ComparisonEvaluator(fieldEvaluator("b"), valueEvaluator(5L), Operation.EQUALS).evaluate(record), TypedObject.NULL);
+        Assert.assertEquals(new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(null), Operation.EQUALS).evaluate(record), TypedObject.NULL);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testIncomparableTypes() {
+        BulletRecord record = RecordBox.get().add("a", 5L).getRecord();
+        new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator("5"), Operation.EQUALS).evaluate(record);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testNotAComparison() {
+        new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(5L), Operation.ADD);
+    }
+
+    @Test
+    public void testCompare() {
+        Assert.assertEquals(ComparisonEvaluator.compare(new TypedObject(Long.MAX_VALUE), new TypedObject(Long.MAX_VALUE - 1)), 1);
+        Assert.assertEquals(ComparisonEvaluator.compare(new TypedObject(1), new TypedObject(2)), -1);
+        Assert.assertEquals(ComparisonEvaluator.compare(new TypedObject(2.0), new TypedObject(2.0)), 0);
+        Assert.assertEquals(ComparisonEvaluator.compare(new TypedObject(2.0f), new TypedObject(1L)), 1);
+        Assert.assertEquals(ComparisonEvaluator.compare(new TypedObject("b"), new TypedObject("a")), 1);
+        // Mismatched value and type are left to TypedObject to deal with
+        Assert.assertEquals(ComparisonEvaluator.compare(new TypedObject(Type.DOUBLE, 1.0), new TypedObject(Type.DOUBLE, 2.0)), -1);
+    }
+
+    @Test(expectedExceptions = ClassCastException.class)
+    public void testCompareMismatchedValue() {
+        ComparisonEvaluator.compare(new TypedObject(Type.LONG, 1), new TypedObject(Type.LONG, 2L));
+    }
+
+    private static List<BulletRecord> makeBatch() {
+        // The records compare to 5 as greater, null, equal, incomparable, less and greater
+        return Arrays.asList(RecordBox.get().add("a", 6L).add("b", 1L).getRecord(),
+                             RecordBox.get().add("b", 1L).getRecord(),
+                             RecordBox.get().add("a", 5L).add("b", 0L).getRecord(),
+                             RecordBox.get().add("a", "5").add("b", 1L).getRecord(),
+                             RecordBox.get().add("a", 4L).getRecord(),
+                             RecordBox.get().add("a", 7L).add("b", 2L).getRecord());
+    }
+
+    private static void assertBatchMatchesRecords(ComparisonEvaluator evaluator, List<BulletRecord> records) {
+        int[] all = {0, 1, 2, 3, 4, 5};
+        int[] selection = all.clone();
+        int size = evaluator.select(records, selection, all.length);
+        TypedObject[] results = new TypedObject[all.length];
+        evaluator.evaluate(records, all, all.length, results);
+        boolean[] booleans = new boolean[all.length];
+        boolean[] nulls = new boolean[all.length];
+        evaluator.evaluateBooleans(records, all, all.length, booleans, nulls);
+        int selected = 0;
+        for (int i = 0; i < all.length; i++) {
+            TypedObject expected;
+            try {
+                expected = evaluator.evaluate(records.get(i));
+            } catch (RuntimeException e) {
+                expected = TypedObject.NULL;
+            }
+            Assert.assertEquals(results[i], expected);
+            Assert.assertEquals(nulls[i], expected.isNull());
+            Assert.assertEquals(booleans[i], expected.equals(TypedObject.TRUE));
+            if (expected.equals(TypedObject.TRUE)) {
+                Assert.assertEquals(selection[selected++], i);
+            }
+        }
+        Assert.assertEquals(size, selected);
+    }
+
+    @Test
+    public void testBatches() {
+        List<BulletRecord> records = makeBatch();
+        ComparisonEvaluator evaluator = new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(5L), Operation.GREATER_THAN_OR_EQUALS);
+        int[] selection = {0, 1, 2, 3, 4, 5};
+        Assert.assertEquals(evaluator.select(records, selection, 6), 3);
+        Assert.assertEquals(Arrays.copyOf(selection, 3), new int[] {0, 2, 5});
+
+        TypedObject[] results = new TypedObject[3];
+        evaluator.evaluate(records, new int[] {1, 3, 4}, 3, results);
+        Assert.assertEquals(results, new TypedObject[] {TypedObject.NULL, TypedObject.NULL, TypedObject.FALSE});
+
+        assertBatchMatchesRecords(evaluator, records);
+        assertBatchMatchesRecords(new ComparisonEvaluator(valueEvaluator(5L), fieldEvaluator("a"), Operation.NOT_EQUALS), records);
+        assertBatchMatchesRecords(new ComparisonEvaluator(fieldEvaluator("a"), fieldEvaluator("b"), Operation.GREATER_THAN), records);
+        assertBatchMatchesRecords(new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(null), Operation.EQUALS), records);
+    }
+
+    @Test
+    public void testBatchesOfArithmetic() {
+        List<BulletRecord> records = makeBatch();
+        ArithmeticEvaluator sum = new ArithmeticEvaluator(fieldEvaluator("a"), fieldEvaluator("b"), Operation.ADD);
+        assertBatchMatchesRecords(new ComparisonEvaluator(sum, valueEvaluator(6L), Operation.GREATER_THAN_OR_EQUALS), records);
+        assertBatchMatchesRecords(new ComparisonEvaluator(fieldEvaluator("b"), sum, Operation.LESS_THAN), records);
+        assertBatchMatchesRecords(new ComparisonEvaluator(sum, sum, Operation.EQUALS), records);
+
+        // The values of arithmetic sides are compared in the type that they are promoted to
+        records = Arrays.asList(RecordBox.get().add("a", 1).add("b", 2.5).getRecord(),
+                                RecordBox.get().add("a", Long.MAX_VALUE).add("b", 0L).getRecord(),
+                                RecordBox.get().add("a", 3.0f).add("b", 1).getRecord(),
+                                RecordBox.get().add("a", 2).add("b", 2).getRecord(),
+                                RecordBox.get().add("a", 0L).add("b", "x").getRecord(),
+                                RecordBox.get().add("a", Double.NaN).add("b", 1.0).getRecord());
+        ArithmeticEvaluator product = new ArithmeticEvaluator(fieldEvaluator("a"), fieldEvaluator("b"), Operation.MUL);
+        ArithmeticEvaluator plusOne = new ArithmeticEvaluator(fieldEvaluator("a"), valueEvaluator(1), Operation.ADD);
+        assertBatchMatchesRecords(new ComparisonEvaluator(product, valueEvaluator(4), Operation.GREATER_THAN), records);
+        assertBatchMatchesRecords(new ComparisonEvaluator(plusOne, fieldEvaluator("a"), Operation.GREATER_THAN), records);
+        assertBatchMatchesRecords(new ComparisonEvaluator(plusOne, valueEvaluator(Long.MIN_VALUE), Operation.EQUALS), records);
+        assertBatchMatchesRecords(new ComparisonEvaluator(product, valueEvaluator(null), Operation.EQUALS), records);
+    }
+
+    @Test
+    public void testSmallerThenLargerBatches() {
+        List<BulletRecord> records = makeBatch();
+        ComparisonEvaluator evaluator = new ComparisonEvaluator(fieldEvaluator("a"), valueEvaluator(5L), Operation.EQUALS);
+        int[] selection = {2};
+        Assert.assertEquals(evaluator.select(records, selection, 1), 1);
+        assertBatchMatchesRecords(evaluator, records);
+    }
+}
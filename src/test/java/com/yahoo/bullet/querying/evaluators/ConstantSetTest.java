@@ -0,0 +1,173 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.SerializerDeserializer;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.listEvaluator;
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+
+public class ConstantSetTest {
+    @Test
+    public void testFromNonConstants() {
+        Assert.assertNull(ConstantSet.from(valueEvaluator(1)));
+        Assert.assertNull(ConstantSet.from(fieldEvaluator("a")));
+        Assert.assertNull(ConstantSet.from(new ListEvaluator(Arrays.asList(valueEvaluator(1), fieldEvaluator("a")))));
+    }
+
+    @Test
+    public void testFromUnsupportedLists() {
+        Assert.assertNull(ConstantSet.from(listEvaluator()));
+        Assert.assertNull(ConstantSet.from(listEvaluator(null, null)));
+        Assert.assertNull(ConstantSet.from(listEvaluator(1, 2L)));
+        Assert.assertNull(ConstantSet.from(listEvaluator("a", 1)));
+    }
+
+    @Test
+    public void testFrom() {
+        ConstantSet set = ConstantSet.from(listEvaluator(1, null, 2));
+        Assert.assertNotNull(set);
+        Assert.assertEquals(set.type, Type.INTEGER);
+        Assert.assertTrue(set.hasNull);
+        Assert.assertEquals(set.list.getValue(), Arrays.asList(1, null, 2));
+
+        set = ConstantSet.from(listEvaluator("a", "b"));
+        Assert.assertNotNull(set);
+        Assert.assertEquals(set.type, Type.STRING);
+        Assert.assertFalse(set.hasNull);
+    }
+
+    @Test
+    public void testFindSameType() {
+        ConstantSet set = ConstantSet.from(listEvaluator(1L, 3000000000L, 0L));
+        Assert.assertEquals(set.find(new TypedObject(Type.LONG, 3000000000L)), ConstantSet.FOUND);
+        Assert.assertEquals(set.find(new TypedObject(Type.LONG, 0L)), ConstantSet.FOUND);
+        Assert.assertEquals(set.find(new TypedObject(Type.LONG, 2L)), ConstantSet.NOT_FOUND);
+
+        set = ConstantSet.from(listEvaluator(0.0, Double.NaN));
+        Assert.assertEquals(set.find(new TypedObject(Type.DOUBLE, Double.NaN)), ConstantSet.FOUND);
+        Assert.assertEquals(set.find(new TypedObject(Type.DOUBLE, 0.0)), ConstantSet.FOUND);
+        Assert.assertEquals(set.find(new TypedObject(Type.DOUBLE, -0.0)), ConstantSet.NOT_FOUND);
+
+        set = ConstantSet.from(listEvaluator("a", "b"));
+        Assert.assertEquals(set.find(new TypedObject(Type.STRING, "a")), ConstantSet.FOUND);
+        Assert.assertEquals(set.find(new TypedObject(Type.STRING, "c")), ConstantSet.NOT_FOUND);
+    }
+
+    @Test
+    public void testFindOtherNumericTypes() {
+        ConstantSet set = ConstantSet.from(listEvaluator(1, 2, 3));
+        Assert.assertEquals(set.find(new TypedObject(Type.DOUBLE, 2.0)), ConstantSet.FOUND);
+        Assert.assertEquals(set.find(new TypedObject(Type.LONG, 3L)), ConstantSet.FOUND);
+        Assert.assertEquals(set.find(new TypedObject(Type.FLOAT, 2.5f)), ConstantSet.NOT_FOUND);
+    }
+
+    @Test
+    public void testFindUndecided() {
+        ConstantSet set = ConstantSet.from(listEvaluator(1, 2, 3));
+        Assert.assertEquals(set.find(new TypedObject(Type.STRING, "1")), ConstantSet.UNDECIDED);
+        Assert.assertEquals(set.find(new TypedObject(Type.BOOLEAN, true)), ConstantSet.UNDECIDED);
+        // The value does not have the class of its type
+        Assert.assertEquals(set.find(new TypedObject(Type.INTEGER, 1L)), ConstantSet.UNDECIDED);
+
+        set = ConstantSet.from(listEvaluator("a", "b"));
+        Assert.assertEquals(set.find(new TypedObject(Type.INTEGER, 1)), ConstantSet.UNDECIDED);
+    }
+
+    @Test
+    public void testFindStringOfOtherClass() {
+        // Strings are compared as the toString of the value
+        ConstantSet set = ConstantSet.from(listEvaluator("1", "b"), 1);
+        Assert.assertEquals(set.find(new TypedObject(Type.STRING, 1)), ConstantSet.FOUND);
+        Assert.assertEquals(set.find(new TypedObject(Type.STRING, 2)), ConstantSet.NOT_FOUND);
+    }
+
+    @Test
+    public void testLargeList() {
+        Serializable[] ids = new Serializable[10000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i * 7L;
+        }
+        ConstantSet set = ConstantSet.from(listEvaluator(ids));
+        for (long i = 0; i < ids.length * 7L; i++) {
+            int expected = i % 7 == 0 ? ConstantSet.FOUND : ConstantSet.NOT_FOUND;
+            Assert.assertEquals(set.find(new TypedObject(Type.LONG, i)), expected);
+        }
+    }
+
+    @Test
+    public void testCompact() {
+        Assert.assertFalse(ConstantSet.from(listEvaluator(1, 2, 3), 0).isCompact());
+        Assert.assertFalse(ConstantSet.from(listEvaluator(1, 2, 3), 4).isCompact());
+        Assert.assertTrue(ConstantSet.from(listEvaluator(1, 2, 3), 3).isCompact());
+        Assert.assertTrue(ConstantSet.from(listEvaluator("a", null, "b"), 3).isCompact());
+        Assert.assertNull(ConstantSet.from(listEvaluator(1, 2, 3), 3).list);
+        Assert.assertNotNull(ConstantSet.from(listEvaluator(1, 2, 3), 4).list);
+    }
+
+    @Test
+    public void testFallback() {
+        ConstantSet set = ConstantSet.from(listEvaluator(1, 2, 3), 4);
+        Assert.assertSame(set.fallback, set.list);
+
+        // A compact set only keeps the first non-null element and a null if there is one
+        set = ConstantSet.from(listEvaluator(null, 2, null, 3), 1);
+        Assert.assertEquals(set.fallback.getType(), Type.INTEGER_LIST);
+        Assert.assertEquals(set.fallback.getValue(), Arrays.asList(2, null));
+
+        set = ConstantSet.from(listEvaluator("a", "b", "c"), 1);
+        Assert.assertEquals(set.fallback.getType(), Type.STRING_LIST);
+        Assert.assertEquals(set.fallback.getValue(), Collections.singletonList("a"));
+    }
+
+    @Test
+    public void testCompactSameAsRegular() {
+        List<ListEvaluator> lists = Arrays.asList(listEvaluator(1L, 3000000000L, 0L, null), listEvaluator(0.0, Double.NaN, -0.0),
+                                                  listEvaluator(1.5f, 0.0f), listEvaluator(1, 2, 3), listEvaluator("a", "b", null),
+                                                  listEvaluator(true, null));
+        List<TypedObject> values = Arrays.asList(new TypedObject(Type.LONG, 3000000000L), new TypedObject(Type.LONG, 0L),
+                                                 new TypedObject(Type.LONG, 2L), new TypedObject(Type.DOUBLE, Double.NaN),
+                                                 new TypedObject(Type.DOUBLE, -0.0), new TypedObject(Type.DOUBLE, 2.0),
+                                                 new TypedObject(Type.FLOAT, 1.5f), new TypedObject(Type.INTEGER, 3),
+                                                 new TypedObject(Type.INTEGER, 1L), new TypedObject(Type.STRING, "a"),
+                                                 new TypedObject(Type.STRING, "c"), new TypedObject(Type.BOOLEAN, true),
+                                                 new TypedObject(Type.BOOLEAN, false));
+        for (ListEvaluator list : lists) {
+            ConstantSet regular = ConstantSet.from(list);
+            ConstantSet compact = ConstantSet.from(list, 1);
+            Assert.assertTrue(compact.isCompact());
+            Assert.assertEquals(compact.hasNull, regular.hasNull);
+            Assert.assertEquals(compact.type, regular.type);
+            for (TypedObject value : values) {
+                Assert.assertEquals(compact.find(value), regular.find(value), value + " in " + list.evaluate(null));
+            }
+        }
+    }
+
+    @Test
+    public void testCompactSerialization() {
+        Serializable[] ids = new Serializable[10000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i * 7L;
+        }
+        ConstantSet set = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(ConstantSet.from(listEvaluator(ids), 1000)));
+        Assert.assertTrue(set.isCompact());
+        for (long i = 0; i < ids.length * 7L; i++) {
+            int expected = i % 7 == 0 ? ConstantSet.FOUND : ConstantSet.NOT_FOUND;
+            Assert.assertEquals(set.find(new TypedObject(Type.LONG, i)), expected);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.SerializerDeserializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.format.DateTimeFormatter;
+
+public class DateTimeFormatterCacheTest {
+    @Test
+    public void testCaching() {
+        DateTimeFormatterCache cache = new DateTimeFormatterCache(2);
+        Assert.assertEquals(cache.size(), 0);
+        DateTimeFormatter formatter = cache.get("yyyyMMdd");
+        Assert.assertSame(cache.get("yyyyMMdd"), formatter);
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testEviction() {
+        DateTimeFormatterCache cache = new DateTimeFormatterCache(2);
+        DateTimeFormatter formatter = cache.get("yyyy");
+        cache.get("MM");
+        // Use yyyy so that MM is evicted
+        cache.get("yyyy");
+        cache.get("dd");
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertSame(cache.get("yyyy"), formatter);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidPattern() {
+        new DateTimeFormatterCache(2).get("yyyy-{");
+    }
+
+    @Test
+    public void testSerialization() {
+        DateTimeFormatterCache cache = new DateTimeFormatterCache(2);
+        cache.get("yyyy");
+        DateTimeFormatterCache copy = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(cache));
+        Assert.assertEquals(copy.size(), 0);
+        Assert.assertNotNull(copy.get("yyyy"));
+        Assert.assertEquals(copy.size(), 1);
+    }
+}
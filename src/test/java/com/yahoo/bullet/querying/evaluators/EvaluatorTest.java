@@ -0,0 +1,138 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+
+public class EvaluatorTest {
+    @Test
+    public void testEvaluateBoolean() {
+        BulletRecord record = RecordBox.get().add("a", true).add("b", "false").getRecord();
+        Evaluator evaluator = fieldEvaluator("a");
+        Assert.assertTrue(evaluator.evaluateBoolean(record));
+        Assert.assertFalse(evaluator.wasNull());
+
+        evaluator = fieldEvaluator("b");
+        Assert.assertFalse(evaluator.evaluateBoolean(record));
+        Assert.assertFalse(evaluator.wasNull());
+
+        evaluator = fieldEvaluator("c");
+        Assert.assertFalse(evaluator.evaluateBoolean(record));
+        Assert.assertTrue(evaluator.wasNull());
+    }
+
+    @Test
+    public void testEvaluateLong() {
+        Evaluator evaluator = valueEvaluator(5.5);
+        Assert.assertEquals(evaluator.evaluateLong(null), 5L);
+        Assert.assertFalse(evaluator.wasNull());
+
+        evaluator = valueEvaluator(null);
+        Assert.assertEquals(evaluator.evaluateLong(null), 0L);
+        Assert.assertTrue(evaluator.wasNull());
+    }
+
+    @Test
+    public void testEvaluateDouble() {
+        Evaluator evaluator = valueEvaluator(5);
+        Assert.assertEquals(evaluator.evaluateDouble(null), 5.0);
+        Assert.assertFalse(evaluator.wasNull());
+
+        evaluator = valueEvaluator(null);
+        Assert.assertEquals(evaluator.evaluateDouble(null), 0.0);
+        Assert.assertTrue(evaluator.wasNull());
+    }
+
+    @Test(expectedExceptions = ClassCastException.class)
+    public void testEvaluateLongNotNumeric() {
+        valueEvaluator("5").evaluateLong(null);
+    }
+
+    @Test
+    public void testToBoolean() {
+        Assert.assertTrue(Evaluator.toBoolean(TypedObject.TRUE));
+        Assert.assertFalse(Evaluator.toBoolean(TypedObject.FALSE));
+        Assert.assertFalse(Evaluator.toBoolean(new TypedObject(Type.STRING, "false")));
+        Assert.assertTrue(Evaluator.toBoolean(new TypedObject(Type.INTEGER, 1)));
+    }
+
+    @Test
+    public void testSelect() {
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().add("a", true).getRecord(),
+                                                   RecordBox.get().add("a", false).getRecord(),
+                                                   RecordBox.get().getRecord(),
+                                                   RecordBox.get().add("a", "foo").getRecord(),
+                                                   RecordBox.get().add("a", "true").getRecord());
+        Evaluator evaluator = fieldEvaluator("a");
+
+        int[] selection = {0, 1, 2, 3, 4};
+        Assert.assertEquals(evaluator.select(records, selection, 5), 2);
+        Assert.assertEquals(selection[0], 0);
+        Assert.assertEquals(selection[1], 4);
+
+        // Only the selected records are evaluated
+        selection = new int[] {1, 2, 4};
+        Assert.assertEquals(evaluator.select(records, selection, 2), 0);
+    }
+
+    @Test
+    public void testEvaluateBooleans() {
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().add("a", true).getRecord(),
+                                                   RecordBox.get().add("a", false).getRecord(),
+                                                   RecordBox.get().getRecord(),
+                                                   RecordBox.get().add("a", "foo").getRecord(),
+                                                   RecordBox.get().add("a", "true").getRecord());
+        Evaluator evaluator = fieldEvaluator("a");
+
+        boolean[] results = new boolean[5];
+        boolean[] nulls = new boolean[5];
+        evaluator.evaluateBooleans(records, new int[] {0, 1, 2, 3, 4}, 5, results, nulls);
+        Assert.assertEquals(results, new boolean[] {true, false, false, false, true});
+        Assert.assertEquals(nulls, new boolean[] {false, false, true, false, false});
+
+        evaluator.evaluateBooleans(records, new int[] {4}, 1, results, nulls);
+        Assert.assertTrue(results[0]);
+        Assert.assertFalse(nulls[0]);
+
+        // A failed evaluation is null
+        evaluator = fieldEvaluator("a");
+        List<BulletRecord> failing = Arrays.asList(RecordBox.get().add("a", true).getRecord(), null);
+        evaluator.evaluateBooleans(failing, new int[] {0, 1}, 2, results, nulls);
+        Assert.assertTrue(results[0]);
+        Assert.assertFalse(results[1]);
+        Assert.assertTrue(nulls[1]);
+    }
+
+    @Test
+    public void testEvaluateBatch() {
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().add("a", 1).getRecord(),
+                                                   null,
+                                                   RecordBox.get().getRecord(),
+                                                   RecordBox.get().add("a", 4).getRecord());
+        Evaluator evaluator = fieldEvaluator("a");
+
+        TypedObject[] results = new TypedObject[4];
+        evaluator.evaluate(records, new int[] {0, 1, 2, 3}, 4, results);
+        Assert.assertEquals(results[0], new TypedObject(Type.INTEGER, 1));
+        Assert.assertEquals(results[1], TypedObject.NULL);
+        Assert.assertEquals(results[2], TypedObject.NULL);
+        Assert.assertEquals(results[3], new TypedObject(Type.INTEGER, 4));
+
+        evaluator.evaluate(records, new int[] {3}, 1, results);
+        Assert.assertEquals(results[0], new TypedObject(Type.INTEGER, 4));
+    }
+}
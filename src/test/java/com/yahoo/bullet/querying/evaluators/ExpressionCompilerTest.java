@@ -0,0 +1,449 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.CastExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.simple.UntypedSimpleBulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class ExpressionCompilerTest {
+    private static final ExpressionCompiler COMPILER = new ExpressionCompiler(true);
+
+    private static BinaryExpression binary(Expression left, Expression right, Operation op) {
+        return new BinaryExpression(left, right, op);
+    }
+
+    private static FieldExpression field(String name) {
+        return new FieldExpression(name);
+    }
+
+    private static ValueExpression value(Serializable value) {
+        return new ValueExpression(value);
+    }
+
+    private static FieldExpression field(String name, Type type) {
+        FieldExpression expression = new FieldExpression(name);
+        expression.setType(type);
+        return expression;
+    }
+
+    private static BulletRecord untypedRecord() {
+        BulletRecord record = new UntypedSimpleBulletRecord();
+        record.typedSet("a", new TypedObject(5));
+        record.typedSet("b", new TypedObject(7L));
+        record.typedSet("c", new TypedObject(2.5f));
+        return record;
+    }
+
+    private static List<BulletRecord> records() {
+        return Arrays.asList(RecordBox.get().getRecord(),
+                             untypedRecord(),
+                             RecordBox.get().add("a", 3.5f).add("b", 2).add("c", 1.5f).getRecord(),
+                             RecordBox.get().add("a", 0).add("b", 0L).add("c", 0.0).getRecord(),
+                             RecordBox.get().add("a", 1).add("b", 2L).add("c", "foo").add("d", true).getRecord(),
+                             RecordBox.get().add("a", 5).add("b", 5L).add("c", "bar").add("d", false).getRecord(),
+                             RecordBox.get().add("a", 5.0).add("b", 4).add("c", "5").add("d", "true").getRecord(),
+                             RecordBox.get().add("a", Long.MAX_VALUE).add("b", Long.MAX_VALUE - 1).addNull("c").getRecord(),
+                             RecordBox.get().add("a", "foo").add("b", false).addList("c", 1, 2, 3).getRecord());
+    }
+
+    private static TypedObject evaluate(Evaluator evaluator, BulletRecord record) {
+        try {
+            return evaluator.evaluate(record);
+        } catch (Exception e) {
+            return new TypedObject(e.getClass().getName());
+        }
+    }
+
+    private static void assertSameResults(Expression expression) {
+        Evaluator interpreted = expression.getEvaluator();
+        Evaluator compiled = COMPILER.compile(expression);
+        for (BulletRecord record : records()) {
+            Assert.assertEquals(evaluate(compiled, record), evaluate(interpreted, record), expression + " on " + record);
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        ExpressionCompiler compiler = new ExpressionCompiler(new BulletConfig());
+        Evaluator evaluator = compiler.compile(binary(field("a"), value(1), Operation.EQUALS));
+        Assert.assertTrue(evaluator instanceof BinaryEvaluator);
+    }
+
+    @Test
+    public void testEnabledFromConfig() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_EXPRESSION_COMPILE_ENABLE, true);
+        ExpressionCompiler compiler = new ExpressionCompiler(config.validate());
+        Evaluator evaluator = compiler.compile(binary(field("a"), value(1), Operation.EQUALS));
+        Assert.assertTrue(evaluator instanceof ComparisonEvaluator);
+    }
+
+    @Test
+    public void testFlattening() {
+        Expression expression = binary(binary(field("a"), field("b"), Operation.AND),
+                                       binary(field("c"), binary(field("d"), field("e"), Operation.OR), Operation.AND),
+                                       Operation.AND);
+        LogicalEvaluator evaluator = (LogicalEvaluator) COMPILER.compile(expression);
+        Assert.assertEquals(evaluator.operands.length, 4);
+        Assert.assertFalse(evaluator.dominant);
+        Assert.assertTrue(evaluator.operands[0] instanceof FieldEvaluator);
+        Assert.assertTrue(evaluator.operands[3] instanceof LogicalEvaluator);
+        Assert.assertEquals(((LogicalEvaluator) evaluator.operands[3]).operands.length, 2);
+        Assert.assertTrue(((LogicalEvaluator) evaluator.operands[3]).dominant);
+    }
+
+    @Test
+    public void testFlatteningNAry() {
+        Expression expression = new NAryExpression(Arrays.asList(field("a"),
+                                                                 binary(field("b"), field("c"), Operation.OR),
+                                                                 new NAryExpression(Arrays.asList(field("d"), field("e")), Operation.OR)),
+                                                   Operation.OR);
+        LogicalEvaluator evaluator = (LogicalEvaluator) COMPILER.compile(expression);
+        Assert.assertEquals(evaluator.operands.length, 5);
+        Assert.assertTrue(evaluator.dominant);
+        for (Evaluator operand : evaluator.operands) {
+            Assert.assertTrue(operand instanceof FieldEvaluator);
+        }
+    }
+
+    @Test
+    public void testNestedNodesAreCompiled() {
+        Expression comparison = binary(field("a"), value(1), Operation.GREATER_THAN);
+
+        UnaryEvaluator unary = (UnaryEvaluator) COMPILER.compile(new UnaryExpression(comparison, Operation.NOT));
+        Assert.assertTrue(unary.operand instanceof ComparisonEvaluator);
+
+        NAryEvaluator nAry = (NAryEvaluator) COMPILER.compile(new NAryExpression(Arrays.asList(comparison, value(1), value(2)), Operation.IF));
+        Assert.assertTrue(nAry.operands.get(0) instanceof ComparisonEvaluator);
+
+        ListEvaluator list = (ListEvaluator) COMPILER.compile(new ListExpression(Arrays.asList(comparison, value(true))));
+        Assert.assertTrue(list.evaluators.get(0) instanceof ComparisonEvaluator);
+
+        CastEvaluator cast = (CastEvaluator) COMPILER.compile(new CastExpression(comparison, Type.STRING));
+        Assert.assertTrue(cast.value instanceof ComparisonEvaluator);
+
+        ArithmeticEvaluator add = (ArithmeticEvaluator) COMPILER.compile(binary(comparison, value(1), Operation.ADD));
+        Assert.assertTrue(add.left instanceof ComparisonEvaluator);
+
+        BinaryEvaluator xor = (BinaryEvaluator) COMPILER.compile(binary(comparison, value(true), Operation.XOR));
+        Assert.assertTrue(xor.left instanceof ComparisonEvaluator);
+        Assert.assertEquals(xor.op, BinaryOperations.BINARY_OPERATORS.get(Operation.XOR));
+    }
+
+    @Test
+    public void testFallback() {
+        UnaryExpression expression = mock(UnaryExpression.class);
+        Evaluator evaluator = EvaluatorUtils.valueEvaluator(1);
+        doThrow(new RuntimeException("Testing")).when(expression).getOperand();
+        doReturn(evaluator).when(expression).getEvaluator();
+        Assert.assertSame(COMPILER.compile(expression), evaluator);
+    }
+
+    @Test
+    public void testCompilingFilters() {
+        Expression and = binary(binary(field("a"), value(1), Operation.GREATER_THAN),
+                                new NAryExpression(Arrays.asList(field("b"), field("c")), Operation.AND), Operation.AND);
+        Expression or = binary(field("a"), field("b"), Operation.OR);
+
+        Assert.assertTrue(COMPILER.compileFilter(and) instanceof LogicalEvaluator);
+
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_EXPRESSION_REORDER_ENABLE, true);
+        ExpressionCompiler compiler = new ExpressionCompiler(config.validate());
+        AdaptiveAndEvaluator evaluator = (AdaptiveAndEvaluator) compiler.compileFilter(and);
+        Assert.assertEquals(evaluator.operands.length, 3);
+        Assert.assertTrue(evaluator.operands[0] instanceof BinaryEvaluator);
+        Assert.assertTrue(evaluator.operands[1] instanceof FieldEvaluator);
+        Assert.assertTrue(compiler.compileFilter(or) instanceof BinaryEvaluator);
+
+        compiler = new ExpressionCompiler(true, 64, false, true);
+        evaluator = (AdaptiveAndEvaluator) compiler.compileFilter(and);
+        Assert.assertTrue(evaluator.operands[0] instanceof ComparisonEvaluator);
+        Assert.assertTrue(compiler.compileFilter(or) instanceof LogicalEvaluator);
+    }
+
+    @Test
+    public void testCompilingFilterFallback() {
+        BinaryExpression expression = mock(BinaryExpression.class);
+        Evaluator evaluator = EvaluatorUtils.valueEvaluator(true);
+        doReturn(Operation.AND).when(expression).getOp();
+        doThrow(new RuntimeException("Testing")).when(expression).getLeft();
+        doReturn(evaluator).when(expression).getEvaluator();
+        Assert.assertSame(new ExpressionCompiler(true, 64, false, true).compileFilter(expression), evaluator);
+    }
+
+    @Test
+    public void testSharing() {
+        SharedEvaluators shared = new SharedEvaluators();
+        ExpressionCompiler compilerA = COMPILER.sharing(shared);
+        ExpressionCompiler compilerB = new ExpressionCompiler(false).sharing(shared);
+        Expression size = new UnaryExpression(field("c"), Operation.SIZE_OF);
+
+        ComparisonEvaluator a = (ComparisonEvaluator) ((SharedEvaluator) compilerA.compile(binary(size, value(2), Operation.GREATER_THAN))).evaluator;
+        BinaryEvaluator b = (BinaryEvaluator) ((SharedEvaluator) compilerB.compile(binary(size, field("b"), Operation.EQUALS))).evaluator;
+        Assert.assertTrue(a.left instanceof SharedEvaluator);
+        Assert.assertSame(a.left, b.left);
+        Assert.assertTrue(b.right instanceof FieldEvaluator);
+        Assert.assertEquals(shared.size(), 3);
+
+        // The same expression from another compiler is the same evaluator
+        Assert.assertSame(compilerB.compile(binary(size, value(2), Operation.GREATER_THAN)), compilerA.compile(binary(size, value(2), Operation.GREATER_THAN)));
+
+        compilerA.release();
+        Assert.assertEquals(shared.size(), 3);
+        compilerB.release();
+        Assert.assertEquals(shared.size(), 0);
+    }
+
+    @Test
+    public void testSharingNotShareable() {
+        SharedEvaluators shared = new SharedEvaluators();
+        ExpressionCompiler compiler = COMPILER.sharing(shared);
+        Assert.assertTrue(compiler.compile(binary(field("a"), value(1), Operation.ADD)) instanceof ArithmeticEvaluator);
+        Assert.assertTrue(compiler.compile(field("a")) instanceof FieldEvaluator);
+        Assert.assertTrue(compiler.compile(new ListExpression(Arrays.asList(value(1), value(2)))) instanceof ListEvaluator);
+        Assert.assertEquals(shared.size(), 0);
+    }
+
+    @Test
+    public void testSharingHasSameResults() {
+        List<Expression> expressions = Arrays.asList(binary(new UnaryExpression(field("c"), Operation.SIZE_OF), value(2), Operation.GREATER_THAN),
+                                                     binary(binary(field("a"), value(3), Operation.GREATER_THAN), field("d"), Operation.OR),
+                                                     new NAryExpression(Arrays.asList(field("d"), new CastExpression(field("a"), Type.STRING), value("none")), Operation.IF),
+                                                     binary(field("c"), new ListExpression(Arrays.asList(value("foo"), value("bar"))), Operation.IN),
+                                                     binary(field("c"), value("f.*"), Operation.REGEX_LIKE));
+        for (boolean enabled : Arrays.asList(true, false)) {
+            SharedEvaluators shared = new SharedEvaluators();
+            ExpressionCompiler compiler = new ExpressionCompiler(enabled).sharing(shared);
+            for (Expression expression : expressions) {
+                Evaluator interpreted = expression.getEvaluator();
+                Evaluator first = compiler.compile(expression);
+                Evaluator second = compiler.compile(expression);
+                for (BulletRecord record : records()) {
+                    shared.advance();
+                    Assert.assertEquals(evaluate(first, record), evaluate(interpreted, record), expression + " on " + record);
+                    Assert.assertEquals(evaluate(second, record), evaluate(interpreted, record), expression + " on " + record);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompactSetsFromConfig() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_EXPRESSION_COMPILE_ENABLE, true);
+        config.set(BulletConfig.QUERY_EXPRESSION_COMPACT_SET_ENABLE, true);
+        config.set(BulletConfig.QUERY_EXPRESSION_COMPACT_SET_MIN_SIZE, 2);
+        ExpressionCompiler compiler = new ExpressionCompiler(config.validate());
+        ListExpression list = new ListExpression(Arrays.asList(value(1), value(5), value(null)));
+        List<Expression> expressions = Arrays.asList(binary(field("a"), list, Operation.IN),
+                                                     binary(field("b"), list, Operation.NOT_IN),
+                                                     binary(field("c"), list, Operation.EQUALS_ANY),
+                                                     binary(list, field("a"), Operation.CONTAINS_VALUE),
+                                                     binary(list, field("c"), Operation.CONTAINS_VALUE));
+        for (Expression expression : expressions) {
+            Evaluator compiled = compiler.compile(expression);
+            Evaluator interpreted = expression.getEvaluator();
+            for (BulletRecord record : records()) {
+                Assert.assertEquals(evaluate(compiled, record), evaluate(interpreted, record), expression + " on " + record);
+            }
+        }
+    }
+
+    @Test
+    public void testConstantListsAreNotKept() {
+        ExpressionCompiler compiler = new ExpressionCompiler(true, 2, true, false, false, 2);
+        ListExpression list = new ListExpression(Arrays.asList(value(1), value(5), value(null)));
+        BinaryEvaluator in = (BinaryEvaluator) compiler.compile(binary(field("a"), list, Operation.IN));
+        Assert.assertNotNull(in.left);
+        Assert.assertNull(in.right);
+        BinaryEvaluator contains = (BinaryEvaluator) compiler.compile(binary(list, field("a"), Operation.CONTAINS_VALUE));
+        Assert.assertNull(contains.left);
+        Assert.assertNotNull(contains.right);
+
+        // Lists of non-constants are still evaluated
+        ListExpression fields = new ListExpression(Arrays.asList(value(1), field("b")));
+        in = (BinaryEvaluator) compiler.compile(binary(field("a"), fields, Operation.IN));
+        Assert.assertTrue(in.right instanceof ListEvaluator);
+    }
+
+    @Test
+    public void testGuardingFromConfig() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_EXPRESSION_GUARD_ENABLE, true);
+        ExpressionCompiler compiler = new ExpressionCompiler(config.validate());
+        Evaluator evaluator = compiler.compile(binary(field("c", Type.STRING), value("f.*"), Operation.REGEX_LIKE));
+        Assert.assertTrue(evaluator instanceof BinaryEvaluator);
+        Assert.assertTrue(((BinaryEvaluator) evaluator).left instanceof GuardedEvaluator);
+    }
+
+    @Test
+    public void testGuardingOnlyFieldsWithKnownTypes() {
+        for (boolean enabled : Arrays.asList(true, false)) {
+            ExpressionCompiler compiler = new ExpressionCompiler(enabled, 64, false, false, true);
+            Assert.assertTrue(compiler.compile(field("a", Type.STRING)) instanceof GuardedEvaluator);
+            Assert.assertTrue(compiler.compile(field("a", Type.INTEGER_LIST)) instanceof GuardedEvaluator);
+            Assert.assertTrue(compiler.compile(field("a")) instanceof FieldEvaluator);
+            Assert.assertTrue(compiler.compile(field("a", Type.UNKNOWN)) instanceof FieldEvaluator);
+            Assert.assertTrue(compiler.compile(value("a")) instanceof ValueEvaluator);
+        }
+        Assert.assertTrue(new ExpressionCompiler(false).compile(field("a", Type.STRING)) instanceof FieldEvaluator);
+    }
+
+    @Test
+    public void testGuardedExpressionsDoNotFail() {
+        List<Expression> expressions = Arrays.asList(binary(field("c", Type.STRING), value("f.*"), Operation.REGEX_LIKE),
+                                                     new UnaryExpression(field("c", Type.STRING), Operation.TRIM),
+                                                     new NAryExpression(Arrays.asList(field("a", Type.INTEGER), value(1), value(5)), Operation.BETWEEN),
+                                                     binary(field("a", Type.LONG), value(1L), Operation.ADD));
+        for (boolean enabled : Arrays.asList(true, false)) {
+            ExpressionCompiler compiler = new ExpressionCompiler(enabled, 64, false, false, true);
+            for (Expression expression : expressions) {
+                Evaluator interpreted = expression.getEvaluator();
+                Evaluator guarded = compiler.compile(expression);
+                for (BulletRecord record : records()) {
+                    TypedObject expected;
+                    try {
+                        expected = interpreted.evaluate(record);
+                    } catch (ClassCastException e) {
+                        expected = TypedObject.NULL;
+                    }
+                    Assert.assertEquals(guarded.evaluate(record), expected, expression + " on " + record);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGuardedFieldsAreNullInsteadOfFailing() {
+        // The value of c is not a string so the regex is null instead of failing the whole OR.
+        Expression expression = binary(binary(field("c", Type.STRING), value("f.*"), Operation.REGEX_LIKE),
+                                       binary(field("a"), value(0), Operation.GREATER_THAN), Operation.OR);
+        BulletRecord record = RecordBox.get().add("a", 1).add("c", 5).getRecord();
+        Assert.assertThrows(ClassCastException.class, () -> expression.getEvaluator().evaluate(record));
+        Assert.assertEquals(new ExpressionCompiler(true, 64, false, false, true).compile(expression).evaluate(record), TypedObject.TRUE);
+        Assert.assertEquals(new ExpressionCompiler(false, 64, false, false, true).compile(expression).evaluate(record), TypedObject.TRUE);
+    }
+
+    @Test
+    public void testSameResultsForComparisons() {
+        List<Operation> comparisons = Arrays.asList(Operation.EQUALS, Operation.NOT_EQUALS, Operation.GREATER_THAN,
+                                                    Operation.LESS_THAN, Operation.GREATER_THAN_OR_EQUALS,
+                                                    Operation.LESS_THAN_OR_EQUALS);
+        for (Operation op : comparisons) {
+            assertSameResults(binary(field("a"), field("b"), op));
+            assertSameResults(binary(field("a"), value(5), op));
+            assertSameResults(binary(field("b"), value(5L), op));
+            assertSameResults(binary(field("c"), value("foo"), op));
+            assertSameResults(binary(field("a"), value(null), op));
+            assertSameResults(binary(value(null), field("a"), op));
+            assertSameResults(binary(field("d"), value(true), op));
+        }
+    }
+
+    @Test
+    public void testSameResultsForLogicalChains() {
+        List<Expression> operands = Arrays.asList(field("d"), field("b"), field("x"), value(true), value(false), value(null),
+                                                  field("c"), binary(field("a"), value(3), Operation.GREATER_THAN));
+        for (Operation op : Arrays.asList(Operation.AND, Operation.OR)) {
+            for (Expression first : operands) {
+                for (Expression second : operands) {
+                    for (Expression third : operands) {
+                        assertSameResults(binary(binary(first, second, op), third, op));
+                        assertSameResults(binary(first, binary(second, third, op), op));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameResultsForMixedExpressions() {
+        assertSameResults(new UnaryExpression(binary(binary(field("a"), value(2), Operation.LESS_THAN),
+                                                     binary(field("c"), value("foo"), Operation.EQUALS),
+                                                     Operation.OR),
+                                              Operation.NOT));
+        assertSameResults(new NAryExpression(Arrays.asList(binary(field("a"), field("b"), Operation.GREATER_THAN_OR_EQUALS),
+                                                           field("c"), value("none")),
+                                             Operation.IF));
+        assertSameResults(binary(binary(field("a"), value(1), Operation.ADD), value(6), Operation.EQUALS));
+        assertSameResults(new CastExpression(binary(field("a"), value(1), Operation.NOT_EQUALS), Type.STRING));
+    }
+
+    @Test
+    public void testHashing() {
+        Expression hash = new UnaryExpression(field("c"), Operation.HASH64);
+        Assert.assertTrue(COMPILER.compile(hash) instanceof HashEvaluator);
+        Assert.assertTrue(new ExpressionCompiler(false).compile(hash) instanceof UnaryEvaluator);
+        Expression sample = binary(binary(hash, value(100), Operation.MOD), value(5), Operation.LESS_THAN);
+        Assert.assertTrue(COMPILER.compile(sample) instanceof ComparisonEvaluator);
+        assertSameResults(hash);
+        assertSameResults(sample);
+        assertSameResults(binary(new UnaryExpression(field("a"), Operation.HASH64), field("b"), Operation.ADD));
+    }
+
+    @Test
+    public void testHashSamplingRate() {
+        Expression sample = binary(binary(new UnaryExpression(field("key"), Operation.HASH64), value(100L), Operation.MOD),
+                                   value(5L), Operation.LESS_THAN);
+        Evaluator interpreted = sample.getEvaluator();
+        Evaluator compiled = COMPILER.compile(sample);
+        int keys = 5000;
+        int interpretedMatches = 0;
+        int compiledMatches = 0;
+        for (int i = 0; i < keys; i++) {
+            BulletRecord record = RecordBox.get().add("key", "user-" + i).getRecord();
+            interpretedMatches += (Boolean) interpreted.evaluate(record).getValue() ? 1 : 0;
+            compiledMatches += compiled.evaluateBoolean(record) ? 1 : 0;
+        }
+        Assert.assertEquals(compiledMatches, interpretedMatches);
+        // About 5% of the keys with a standard deviation of about 0.3%
+        Assert.assertTrue(interpretedMatches > keys * 0.04 && interpretedMatches < keys * 0.06, "Matched " + interpretedMatches);
+    }
+
+    @Test
+    public void testSameResultsForArithmetic() {
+        List<Operation> arithmetic = Arrays.asList(Operation.ADD, Operation.SUB, Operation.MUL, Operation.DIV, Operation.MOD);
+        List<Expression> operands = Arrays.asList(field("a"), field("b"), field("c"), field("x"), value(3), value(2L),
+                                                  value(1.5f), value(0.5), value(null), field("a", Type.LONG),
+                                                  field("b", Type.INTEGER), field("c", Type.DOUBLE));
+        for (Operation op : arithmetic) {
+            for (Expression left : operands) {
+                for (Expression right : operands) {
+                    Expression expression = binary(left, right, op);
+                    assertSameResults(expression);
+                    assertSameResults(binary(expression, field("b"), Operation.MUL));
+                    assertSameResults(binary(expression, value(2), Operation.GREATER_THAN));
+                    assertSameResults(binary(field("a", Type.LONG), expression, Operation.EQUALS));
+                    assertSameResults(binary(expression, binary(field("a"), value(1L), Operation.ADD), Operation.LESS_THAN_OR_EQUALS));
+                }
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.common.SerializerDeserializer;
 import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.RecordBox;
@@ -17,8 +18,19 @@ import org.testng.annotations.Test;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
 
 public class FieldEvaluatorTest {
     private HashMap<String, Serializable> map;
@@ -107,4 +119,69 @@ public class FieldEvaluatorTest {
         evaluator = new FieldEvaluator(new FieldExpression("aaa", "abc", new FieldExpression("dne")));
         Assert.assertEquals(evaluator.evaluate(record), TypedObject.NULL);
     }
+
+    @Test
+    public void testEvaluateIndexedRecord() {
+        Object layout = new Object();
+        BulletRecord indexed = mock(BulletRecord.class, withSettings().extraInterfaces(IndexedBulletRecord.class));
+        IndexedBulletRecord accessor = (IndexedBulletRecord) indexed;
+        doReturn(layout).when(accessor).getFieldLayout();
+        doReturn(2).when(accessor).getFieldIndex("a");
+        doReturn(new TypedObject(Type.INTEGER, 1)).when(accessor).typedGet(2, Type.UNKNOWN);
+
+        FieldEvaluator evaluator = new FieldEvaluator(new FieldExpression("a"));
+        Assert.assertEquals(evaluator.evaluate(indexed), new TypedObject(Type.INTEGER, 1));
+        Assert.assertEquals(evaluator.evaluate(indexed), new TypedObject(Type.INTEGER, 1));
+
+        // The index is only looked up once for the same layout
+        verify(accessor, times(1)).getFieldIndex("a");
+        verify(accessor, times(2)).typedGet(2, Type.UNKNOWN);
+        verify(indexed, never()).typedGet(anyString(), any(Type.class));
+
+        // A new layout looks up the index again
+        doReturn(new Object()).when(accessor).getFieldLayout();
+        Assert.assertEquals(evaluator.evaluate(indexed), new TypedObject(Type.INTEGER, 1));
+        verify(accessor, times(2)).getFieldIndex("a");
+    }
+
+    @Test
+    public void testEvaluateIndexedRecordWithFieldNotInLayout() {
+        BulletRecord indexed = mock(BulletRecord.class, withSettings().extraInterfaces(IndexedBulletRecord.class));
+        IndexedBulletRecord accessor = (IndexedBulletRecord) indexed;
+        doReturn(new Object()).when(accessor).getFieldLayout();
+        doReturn(-1).when(accessor).getFieldIndex("a");
+        doReturn(new TypedObject(Type.STRING, "foo")).when(indexed).typedGet("a", Type.STRING);
+
+        FieldExpression expression = new FieldExpression("a");
+        expression.setType(Type.STRING);
+        FieldEvaluator evaluator = new FieldEvaluator(expression);
+        Assert.assertEquals(evaluator.evaluate(indexed), new TypedObject(Type.STRING, "foo"));
+        verify(accessor, never()).typedGet(-1, Type.STRING);
+    }
+
+    @Test
+    public void testEvaluateAfterSerialization() {
+        FieldEvaluator evaluator = new FieldEvaluator(new FieldExpression("a"));
+        Assert.assertEquals(evaluator.evaluate(record), new TypedObject(Type.INTEGER, 0));
+        FieldEvaluator copy = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(evaluator));
+        Assert.assertEquals(copy.evaluate(record), new TypedObject(Type.INTEGER, 0));
+    }
+
+    @Test
+    public void testEvaluateBatch() {
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().add("a", 1).getRecord(),
+                                                   RecordBox.get().getRecord(),
+                                                   RecordBox.get().add("a", 3).getRecord());
+        FieldEvaluator evaluator = new FieldEvaluator(new FieldExpression("a"));
+        TypedObject[] results = new TypedObject[2];
+        evaluator.evaluate(records, new int[] {1, 2}, 2, results);
+        Assert.assertEquals(results[0], TypedObject.NULL);
+        Assert.assertEquals(results[1], new TypedObject(Type.INTEGER, 3));
+
+        BulletRecord failing = mock(BulletRecord.class);
+        doReturn(new TypedObject(Type.INTEGER, 1)).doThrow(new RuntimeException("Testing")).when(failing).typedGet(anyString(), any(Type.class));
+        evaluator.evaluate(Arrays.asList(failing, failing), new int[] {0, 1}, 2, results);
+        Assert.assertEquals(results[0], new TypedObject(Type.INTEGER, 1));
+        Assert.assertEquals(results[1], TypedObject.NULL);
+    }
 }
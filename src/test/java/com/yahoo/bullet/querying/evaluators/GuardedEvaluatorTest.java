@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.simple.UntypedSimpleBulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.apache.commons.lang3.tuple.Pair;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
+
+public class GuardedEvaluatorTest {
+    private static TypedObject evaluate(Type type, BulletRecord record) {
+        return new GuardedEvaluator(fieldEvaluator("a"), type).evaluate(record);
+    }
+
+    private static BulletRecord untyped(Type type, Serializable value) {
+        // An untyped record keeps any value as is.
+        BulletRecord record = new UntypedSimpleBulletRecord();
+        record.typedSet("a", new TypedObject(type, value));
+        return record;
+    }
+
+    @Test
+    public void testIsGuardable() {
+        Assert.assertTrue(GuardedEvaluator.isGuardable(Type.STRING));
+        Assert.assertTrue(GuardedEvaluator.isGuardable(Type.LONG));
+        Assert.assertTrue(GuardedEvaluator.isGuardable(Type.BOOLEAN_LIST));
+        Assert.assertTrue(GuardedEvaluator.isGuardable(Type.INTEGER_MAP_MAP));
+        Assert.assertFalse(GuardedEvaluator.isGuardable(null));
+        Assert.assertFalse(GuardedEvaluator.isGuardable(Type.UNKNOWN));
+        Assert.assertFalse(GuardedEvaluator.isGuardable(Type.NULL));
+    }
+
+    @Test
+    public void testMatchingValuesPassThrough() {
+        Assert.assertEquals(evaluate(Type.STRING, RecordBox.get().add("a", "foo").getRecord()), new TypedObject(Type.STRING, "foo"));
+        Assert.assertEquals(evaluate(Type.BOOLEAN, RecordBox.get().add("a", true).getRecord()), TypedObject.TRUE);
+        Assert.assertEquals(evaluate(Type.INTEGER_LIST, RecordBox.get().addList("a", 1, 2).getRecord()).getValue(), Arrays.asList(1, 2));
+        Assert.assertEquals(evaluate(Type.STRING_MAP, RecordBox.get().addMap("a", Pair.of("b", "c")).getRecord()).getValue(),
+                            Collections.singletonMap("b", "c"));
+        Assert.assertEquals(evaluate(Type.STRING, RecordBox.get().getRecord()), TypedObject.NULL);
+    }
+
+    @Test
+    public void testAnyNumberIsANumber() {
+        Assert.assertEquals(evaluate(Type.LONG, RecordBox.get().add("a", 5).getRecord()), new TypedObject(Type.INTEGER, 5));
+        Assert.assertEquals(evaluate(Type.INTEGER, RecordBox.get().add("a", 5.5).getRecord()), new TypedObject(Type.DOUBLE, 5.5));
+    }
+
+    @Test
+    public void testMismatchedValuesAreNull() {
+        Assert.assertEquals(evaluate(Type.STRING, RecordBox.get().add("a", 5).getRecord()), TypedObject.NULL);
+        Assert.assertEquals(evaluate(Type.LONG, RecordBox.get().add("a", "5").getRecord()), TypedObject.NULL);
+        Assert.assertEquals(evaluate(Type.BOOLEAN, RecordBox.get().add("a", "true").getRecord()), TypedObject.NULL);
+        Assert.assertEquals(evaluate(Type.INTEGER_LIST, RecordBox.get().add("a", 5).getRecord()), TypedObject.NULL);
+        Assert.assertEquals(evaluate(Type.STRING_MAP, RecordBox.get().addList("a", "b").getRecord()), TypedObject.NULL);
+    }
+
+    @Test
+    public void testValuesNotOfTheirTypeAreNull() {
+        // An untyped record gives its values the type it is asked for.
+        BulletRecord record = new UntypedSimpleBulletRecord();
+        record.typedSet("a", new TypedObject(5));
+        Assert.assertEquals(evaluate(Type.INTEGER, record), new TypedObject(Type.INTEGER, 5));
+        Assert.assertEquals(evaluate(Type.STRING, record), TypedObject.NULL);
+    }
+
+    @Test
+    public void testElementsAreCheckedByTheFirstOne() {
+        Assert.assertEquals(evaluate(Type.INTEGER_LIST, RecordBox.get().addList("a", "1", "2").getRecord()), TypedObject.NULL);
+        Assert.assertEquals(evaluate(Type.STRING_MAP, RecordBox.get().addMap("a", Pair.of("b", 1)).getRecord()), TypedObject.NULL);
+        Assert.assertEquals(evaluate(Type.LONG_LIST, RecordBox.get().addList("a", 1, 2).getRecord()).getValue(), Arrays.asList(1, 2));
+
+        Assert.assertEquals(evaluate(Type.STRING_LIST, untyped(Type.STRING_LIST, new ArrayList<>())).getValue(), Collections.emptyList());
+        Assert.assertEquals(evaluate(Type.STRING_MAP, untyped(Type.STRING_MAP, new HashMap<>())).getValue(), Collections.emptyMap());
+        Assert.assertEquals(evaluate(Type.STRING_LIST, untyped(Type.STRING_LIST, new ArrayList<>(Arrays.asList(null, "b")))).getValue(),
+                            Arrays.asList(null, "b"));
+        Assert.assertEquals(evaluate(Type.STRING_LIST, untyped(Type.STRING_LIST, new ArrayList<>(Arrays.asList(1, "b")))), TypedObject.NULL);
+        // Only the first element is checked
+        Assert.assertEquals(evaluate(Type.STRING_LIST, untyped(Type.STRING_LIST, new ArrayList<>(Arrays.asList("b", 1)))).getValue(),
+                            Arrays.asList("b", 1));
+    }
+
+    @Test
+    public void testElementsOfNestedContainersAreChecked() {
+        BulletRecord record = RecordBox.get().addListOfMaps("a", Collections.singletonMap("b", 1)).getRecord();
+        Assert.assertEquals(evaluate(Type.INTEGER_MAP_LIST, record).getValue(), Collections.singletonList(Collections.singletonMap("b", 1)));
+        Assert.assertEquals(evaluate(Type.STRING_MAP_LIST, record), TypedObject.NULL);
+
+        ArrayList<Serializable> list = new ArrayList<>(Collections.singletonList("b"));
+        Assert.assertEquals(evaluate(Type.INTEGER_MAP_LIST, untyped(Type.INTEGER_MAP_LIST, new ArrayList<>(Collections.singletonList(list)))), TypedObject.NULL);
+        Assert.assertEquals(evaluate(Type.STRING_MAP_MAP, untyped(Type.STRING_MAP_MAP, new HashMap<>(Collections.singletonMap("c", list)))), TypedObject.NULL);
+    }
+}
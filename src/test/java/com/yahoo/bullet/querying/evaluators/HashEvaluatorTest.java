@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+
+public class HashEvaluatorTest {
+    @Test
+    public void testSameAsOperation() {
+        for (Serializable value : Arrays.asList("", "abc", "straße", "😀x", "\uD800", "a\uDC00b", "\uD83D", 5, 5L, 1.5, 2.5f,
+                                                true, null)) {
+            TypedObject expected = UnaryOperations.hash64(valueEvaluator(value), null);
+            HashEvaluator evaluator = new HashEvaluator(valueEvaluator(value));
+            Assert.assertEquals(evaluator.evaluate(null), expected);
+            long result = evaluator.evaluateLong(null);
+            Assert.assertEquals(evaluator.wasNull(), value == null);
+            if (value != null) {
+                Assert.assertEquals(result, expected.getValue());
+                Assert.assertEquals(evaluator.evaluateDouble(null), (double) result);
+            }
+        }
+    }
+
+    @Test
+    public void testBufferIsReused() {
+        BulletRecord record = RecordBox.get().add("a", "short").add("b", String.join("", Collections.nCopies(100, "long"))).getRecord();
+        HashEvaluator evaluator = new HashEvaluator(fieldEvaluator("a"));
+        HashEvaluator other = new HashEvaluator(fieldEvaluator("b"));
+        Assert.assertEquals(evaluator.evaluateLong(record), XXHash64.hash((Object) "short") & Long.MAX_VALUE);
+        Assert.assertEquals(other.evaluateLong(record), XXHash64.hash(record.typedGet("b").getValue()) & Long.MAX_VALUE);
+        Assert.assertEquals(evaluator.evaluateLong(record), XXHash64.hash((Object) "short") & Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testEncode() {
+        for (String string : Arrays.asList("", "abc", "ß", "€", "😀", "\uD800", "\uDC00", "\uD800𐀀", "a\uDBFFb")) {
+            byte[] bytes = new byte[string.length() * 3];
+            int length = HashEvaluator.encode(string, bytes);
+            Assert.assertEquals(Arrays.copyOf(bytes, length), string.getBytes(StandardCharsets.UTF_8), string);
+        }
+    }
+
+    @Test
+    public void testHashIsNonNegative() {
+        // The XXH64 of "1" has the sign bit set
+        Assert.assertTrue(XXHash64.hash((Object) "1") < 0L);
+        HashEvaluator evaluator = new HashEvaluator(valueEvaluator("1"));
+        Assert.assertEquals(evaluator.evaluateLong(null), XXHash64.hash((Object) "1") & Long.MAX_VALUE);
+        Assert.assertEquals(UnaryOperations.hash64(valueEvaluator("1"), null).getValue(), evaluator.evaluateLong(null));
+    }
+}
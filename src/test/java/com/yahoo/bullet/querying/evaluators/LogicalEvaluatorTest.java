@@ -0,0 +1,144 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class LogicalEvaluatorTest {
+    private static TypedObject evaluate(Operation op, Evaluator... evaluators) {
+        return new LogicalEvaluator(Arrays.asList(evaluators), op).evaluate(RecordBox.get().getRecord());
+    }
+
+    @Test
+    public void testAnd() {
+        Assert.assertEquals(evaluate(Operation.AND, valueEvaluator(true), valueEvaluator(true), valueEvaluator(true)), TypedObject.TRUE);
+        Assert.assertEquals(evaluate(Operation.AND, valueEvaluator(true), valueEvaluator(null), valueEvaluator(true)), TypedObject.NULL);
+        Assert.assertEquals(evaluate(Operation.AND, valueEvaluator(null), valueEvaluator(false), valueEvaluator(true)), TypedObject.FALSE);
+        Assert.assertEquals(evaluate(Operation.AND, valueEvaluator("true"), valueEvaluator(1)), TypedObject.TRUE);
+    }
+
+    @Test
+    public void testOr() {
+        Assert.assertEquals(evaluate(Operation.OR, valueEvaluator(false), valueEvaluator(false), valueEvaluator(false)), TypedObject.FALSE);
+        Assert.assertEquals(evaluate(Operation.OR, valueEvaluator(false), valueEvaluator(null), valueEvaluator(false)), TypedObject.NULL);
+        Assert.assertEquals(evaluate(Operation.OR, valueEvaluator(null), valueEvaluator(true), valueEvaluator(false)), TypedObject.TRUE);
+        Assert.assertEquals(evaluate(Operation.OR, valueEvaluator("false"), valueEvaluator(0)), TypedObject.FALSE);
+    }
+
+    @Test
+    public void testEvaluateBoolean() {
+        LogicalEvaluator evaluator = new LogicalEvaluator(Arrays.asList(valueEvaluator(true), valueEvaluator(null)), Operation.AND);
+        Assert.assertFalse(evaluator.evaluateBoolean(RecordBox.get().getRecord()));
+        Assert.assertTrue(evaluator.wasNull());
+
+        evaluator = new LogicalEvaluator(Arrays.asList(valueEvaluator(null), valueEvaluator(true)), Operation.OR);
+        Assert.assertTrue(evaluator.evaluateBoolean(RecordBox.get().getRecord()));
+        Assert.assertFalse(evaluator.wasNull());
+    }
+
+    @Test
+    public void testShortCircuit() {
+        Evaluator failing = new Evaluator() {
+            @Override
+            public TypedObject evaluate(BulletRecord record) {
+                throw new RuntimeException("Should not be evaluated");
+            }
+        };
+        Assert.assertEquals(evaluate(Operation.AND, valueEvaluator(false), failing), TypedObject.FALSE);
+        Assert.assertEquals(evaluate(Operation.OR, valueEvaluator(true), failing), TypedObject.TRUE);
+    }
+
+    @Test
+    public void testSelectingWithAnd() {
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().add("a", true).add("b", true).getRecord(),
+                                                   RecordBox.get().add("a", false).add("b", true).getRecord(),
+                                                   RecordBox.get().add("b", true).getRecord(),
+                                                   RecordBox.get().add("a", true).add("b", false).getRecord(),
+                                                   RecordBox.get().add("a", true).add("b", true).add("c", 1).getRecord());
+        Evaluator a = spy(fieldEvaluator("a"));
+        Evaluator b = spy(fieldEvaluator("b"));
+        LogicalEvaluator evaluator = new LogicalEvaluator(Arrays.asList(a, b), Operation.AND);
+
+        int[] selection = {0, 1, 2, 3, 4};
+        Assert.assertEquals(evaluator.select(records, selection, 5), 2);
+        Assert.assertEquals(selection[0], 0);
+        Assert.assertEquals(selection[1], 4);
+
+        // b only sees the records that a selected
+        verify(a, times(5)).evaluateBoolean(any());
+        verify(b, times(3)).evaluateBoolean(any());
+    }
+
+    @Test
+    public void testSelectingWithOr() {
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().add("a", true).getRecord(),
+                                                   RecordBox.get().add("a", false).add("b", true).getRecord(),
+                                                   RecordBox.get().add("b", false).getRecord(),
+                                                   RecordBox.get().getRecord());
+        LogicalEvaluator evaluator = new LogicalEvaluator(Arrays.asList(fieldEvaluator("a"), fieldEvaluator("b")), Operation.OR);
+
+        int[] selection = {0, 1, 2, 3};
+        Assert.assertEquals(evaluator.select(records, selection, 4), 2);
+        Assert.assertEquals(selection[0], 0);
+        Assert.assertEquals(selection[1], 1);
+    }
+
+    @Test
+    public void testSelectingSameAsEvaluating() {
+        Evaluator failing = new Evaluator() {
+            @Override
+            public TypedObject evaluate(BulletRecord record) {
+                if (record.hasField("fail")) {
+                    throw new RuntimeException("Failing");
+                }
+                return TypedObject.TRUE;
+            }
+        };
+        List<BulletRecord> records = Arrays.asList(RecordBox.get().add("a", true).getRecord(),
+                                                   RecordBox.get().add("a", true).add("fail", 1).getRecord(),
+                                                   RecordBox.get().add("a", false).add("fail", 1).getRecord(),
+                                                   RecordBox.get().add("fail", 1).getRecord(),
+                                                   RecordBox.get().getRecord());
+        for (Operation op : Arrays.asList(Operation.AND, Operation.OR)) {
+            LogicalEvaluator evaluator = new LogicalEvaluator(Arrays.asList(fieldEvaluator("a"), failing), op);
+            int[] selection = {0, 1, 2, 3, 4};
+            int size = evaluator.select(records, selection, 5);
+            int selected = 0;
+            for (int i = 0; i < records.size(); i++) {
+                boolean matches;
+                try {
+                    matches = evaluator.evaluateBoolean(records.get(i)) && !evaluator.wasNull();
+                } catch (RuntimeException e) {
+                    matches = false;
+                }
+                if (matches) {
+                    Assert.assertEquals(selection[selected++], i, op + " on " + records.get(i));
+                }
+            }
+            Assert.assertEquals(size, selected, op.toString());
+        }
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testNotALogicalOperation() {
+        new LogicalEvaluator(Arrays.asList(valueEvaluator(true), valueEvaluator(false)), Operation.XOR);
+    }
+}
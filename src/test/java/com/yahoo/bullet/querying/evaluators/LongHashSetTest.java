@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class LongHashSetTest {
+    @Test
+    public void testEmpty() {
+        LongHashSet set = new LongHashSet(0);
+        Assert.assertEquals(set.size(), 0);
+        Assert.assertFalse(set.contains(0L));
+        Assert.assertFalse(set.contains(1L));
+    }
+
+    @Test
+    public void testAddAndContains() {
+        LongHashSet set = new LongHashSet(2);
+        set.add(0L);
+        set.add(-1L);
+        set.add(Long.MIN_VALUE);
+        set.add(Long.MAX_VALUE);
+        set.add(-1L);
+        Assert.assertEquals(set.size(), 4);
+        Assert.assertTrue(set.contains(0L));
+        Assert.assertTrue(set.contains(-1L));
+        Assert.assertTrue(set.contains(Long.MIN_VALUE));
+        Assert.assertTrue(set.contains(Long.MAX_VALUE));
+        Assert.assertFalse(set.contains(1L));
+    }
+
+    @Test
+    public void testGrowing() {
+        Random random = new Random(42);
+        Set<Long> expected = new HashSet<>();
+        LongHashSet set = new LongHashSet(1);
+        for (int i = 0; i < 5000; i++) {
+            long value = random.nextInt(10000);
+            expected.add(value);
+            set.add(value);
+        }
+        Assert.assertEquals(set.size(), expected.size());
+        for (long i = 0; i < 10000; i++) {
+            Assert.assertEquals(set.contains(i), expected.contains(i));
+        }
+    }
+}
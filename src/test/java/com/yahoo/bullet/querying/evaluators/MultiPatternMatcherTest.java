@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.SerializerDeserializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class MultiPatternMatcherTest {
+    private static final List<String> REGEXES = Arrays.asList("", "abc", "abc.*", ".*abc", ".*abc.*", ".*", ".*.*", "a.c",
+                                                              ".*a\\.c", "abc.*?", ".*+abc", "..*", "a\nb.*", "(?i)abc",
+                                                              ".*😀", "ab[c]", "(a)\\1bc", "x|abc", ".*bc.*", "b.*",
+                                                              ".*x", "\\Qa.c", "(?<name>a)bc", "(?<=a)bc", "a(?=b)bc");
+    private static final List<String> VALUES = Arrays.asList("", "abc", "xabc", "abcx", "xabcx", "ABC", "a.c", "axc",
+                                                             "x\nabc", "abc\r", " abc", "a\nb", "a\nbc", "abc\u0085x",
+                                                             "😀", "x😀", "aabc", "x", "bcd", "abx", "ab", "b");
+
+    private static void assertSameAsPatterns(List<String> regexes) {
+        List<Pattern> patterns = new ArrayList<>();
+        regexes.forEach(regex -> patterns.add(Pattern.compile(regex)));
+        for (boolean fast : Arrays.asList(false, true)) {
+            MultiPatternMatcher matcher = MultiPatternMatcher.compile(regexes, fast);
+            for (String value : VALUES) {
+                boolean expected = patterns.stream().anyMatch(pattern -> pattern.matcher(value).matches());
+                Assert.assertEquals(matcher.matches(value), expected, regexes + " on " + value);
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsPatterns() {
+        assertSameAsPatterns(Collections.emptyList());
+        assertSameAsPatterns(REGEXES);
+        for (String regex : REGEXES) {
+            assertSameAsPatterns(Collections.singletonList(regex));
+        }
+        for (int i = 0; i < REGEXES.size(); i++) {
+            assertSameAsPatterns(Arrays.asList(REGEXES.get(i), REGEXES.get((i + 7) % REGEXES.size()),
+                                               REGEXES.get((i + 13) % REGEXES.size())));
+        }
+    }
+
+    @Test
+    public void testOverlappingLiterals() {
+        // The failure links of the contains literals must not leak into the prefix and suffix literals.
+        assertSameAsPatterns(Arrays.asList("abc.*", "b.*", ".*xab", ".*b", ".*bcd.*", ".*cx.*"));
+        assertSameAsPatterns(Arrays.asList(".*she.*", ".*he.*", ".*hers.*", ".*his.*"));
+        assertSameAsPatterns(Arrays.asList(".*abcd.*", ".*bce.*", ".*c.*"));
+        assertSameAsPatterns(Arrays.asList(".*ab.*", ".*xa.*"));
+    }
+
+    @Test
+    public void testManyLiterals() {
+        List<String> regexes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            regexes.add(".*indicator" + i + ".*");
+            regexes.add("host" + i + ".*");
+            regexes.add(".*." + i + "\\.example\\.com");
+        }
+        MultiPatternMatcher matcher = MultiPatternMatcher.compile(regexes, true);
+        Assert.assertTrue(matcher.matches("GET /indicator499/foo"));
+        Assert.assertTrue(matcher.matches("host12.bar"));
+        Assert.assertTrue(matcher.matches("a.42.example.com"));
+        Assert.assertFalse(matcher.matches("GET /indicator/foo"));
+        Assert.assertFalse(matcher.matches("xhost12"));
+        Assert.assertFalse(matcher.matches("a.42.example.org"));
+    }
+
+    @Test
+    public void testIsCombinable() {
+        Assert.assertTrue(MultiPatternMatcher.isCombinable("a|b"));
+        Assert.assertTrue(MultiPatternMatcher.isCombinable("(a)(?:b)"));
+        Assert.assertTrue(MultiPatternMatcher.isCombinable("(?<=a)(?<!b)(?=c)(?!d)"));
+        Assert.assertTrue(MultiPatternMatcher.isCombinable("a\\\\"));
+        Assert.assertFalse(MultiPatternMatcher.isCombinable("(a)\\1"));
+        Assert.assertFalse(MultiPatternMatcher.isCombinable("(?<x>a)\\k<x>"));
+        Assert.assertFalse(MultiPatternMatcher.isCombinable("\\Qa"));
+        Assert.assertFalse(MultiPatternMatcher.isCombinable("(?x)a#b"));
+        Assert.assertFalse(MultiPatternMatcher.isCombinable("(?-i)a"));
+    }
+
+    @Test
+    public void testSerialization() {
+        MultiPatternMatcher matcher = MultiPatternMatcher.compile(REGEXES, true);
+        MultiPatternMatcher copy = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(matcher));
+        for (String value : VALUES) {
+            Assert.assertEquals(copy.matches(value), matcher.matches(value));
+        }
+    }
+
+    @Test(expectedExceptions = PatternSyntaxException.class)
+    public void testInvalidPattern() {
+        MultiPatternMatcher.compile(Arrays.asList("abc", "abc("), true);
+    }
+}
@@ -5,15 +5,21 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
 import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
 import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
 
 public class NAryOperationsTest {
@@ -164,4 +170,49 @@ public class NAryOperationsTest {
         Assert.assertEquals(NAryOperations.unixTimestamp(Arrays.asList(valueEvaluator(null), valueEvaluator("yyyyMMddHH")), null), TypedObject.NULL);
         Assert.assertEquals(NAryOperations.unixTimestamp(Arrays.asList(valueEvaluator("2021030519"), valueEvaluator(null)), null), TypedObject.NULL);
     }
+
+    private static TypedObject evaluateSafely(NAryOperations.NAryOperator op, List<Evaluator> operands, BulletRecord record) {
+        try {
+            return op.apply(operands, record);
+        } catch (Exception e) {
+            return new TypedObject(e.getClass().getName());
+        }
+    }
+
+    @Test
+    public void testGetOperator() {
+        Assert.assertSame(NAryOperations.getOperator(Operation.IF, Collections.emptyList()), NAryOperations.N_ARY_OPERATORS.get(Operation.IF));
+        Assert.assertSame(NAryOperations.getOperator(Operation.UNIX_TIMESTAMP, Collections.emptyList()),
+                          NAryOperations.N_ARY_OPERATORS.get(Operation.UNIX_TIMESTAMP));
+        Assert.assertNotSame(NAryOperations.getOperator(Operation.UNIX_TIMESTAMP, Collections.singletonList(valueEvaluator("2021-01-01 00:00:00"))),
+                             NAryOperations.N_ARY_OPERATORS.get(Operation.UNIX_TIMESTAMP));
+    }
+
+    @Test
+    public void testUnixTimestampOperatorsMatchGenericOperator() {
+        List<Serializable> dates = Arrays.asList("2021-01-01 00:00:00", "2021-01-01 00:00:00.5", "2020-02-29 23:59:59", "2021-02-29 00:00:00",
+                                                 "2021-1-1 0:0:0", " 2021-01-01 00:00:00 ", "2021-01-01 25:00:00", "2021-01-01", "foo",
+                                                 "2021010100", 2021010100, 20210101000000L, null);
+        List<Serializable> patterns = Arrays.asList("yyyy-MM-dd HH:mm:ss", "yyyyMMddHH", "yyyyMMddHHmmss", "yyyy-MM-dd", "yyyy-{", null);
+        NAryOperations.NAryOperator generic = NAryOperations.N_ARY_OPERATORS.get(Operation.UNIX_TIMESTAMP);
+        for (Serializable date : dates) {
+            if (!(date instanceof Number)) {
+                List<Evaluator> operands = Collections.singletonList(valueEvaluator(date));
+                NAryOperations.NAryOperator operator = NAryOperations.getOperator(Operation.UNIX_TIMESTAMP, operands);
+                Assert.assertEquals(evaluateSafely(operator, operands, null), evaluateSafely(generic, operands, null), date + "");
+            }
+            for (Serializable pattern : patterns) {
+                List<Evaluator> constant = Arrays.asList(valueEvaluator(date), valueEvaluator(pattern));
+                List<Evaluator> nonConstant = Arrays.asList(valueEvaluator(date), fieldEvaluator("pattern"));
+                BulletRecord record = pattern == null ? RecordBox.get().getRecord() : RecordBox.get().add("pattern", pattern).getRecord();
+                TypedObject expected = evaluateSafely(generic, constant, null);
+                NAryOperations.NAryOperator operator = NAryOperations.getOperator(Operation.UNIX_TIMESTAMP, constant);
+                Assert.assertEquals(evaluateSafely(operator, constant, null), expected, date + " " + pattern);
+                Assert.assertEquals(evaluateSafely(operator, constant, null), expected, date + " " + pattern);
+                operator = NAryOperations.getOperator(Operation.UNIX_TIMESTAMP, nonConstant);
+                Assert.assertEquals(evaluateSafely(operator, nonConstant, record), expected, date + " " + pattern);
+                Assert.assertEquals(evaluateSafely(operator, nonConstant, record), expected, date + " " + pattern);
+            }
+        }
+    }
 }
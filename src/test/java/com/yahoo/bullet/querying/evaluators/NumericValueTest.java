@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+
+public class NumericValueTest {
+    private static NumericValue computed(Type type, long result) {
+        NumericValue value = new NumericValue();
+        value.set(type, result);
+        return value;
+    }
+
+    private static NumericValue computed(Type type, double result) {
+        NumericValue value = new NumericValue();
+        value.set(type, result);
+        return value;
+    }
+
+    private static NumericValue loaded(TypedObject object) {
+        NumericValue value = new NumericValue();
+        value.load(new ValueEvaluator(new ValueExpression(1)) {
+            @Override
+            public TypedObject evaluate(BulletRecord record) {
+                return object;
+            }
+        }, null);
+        return value;
+    }
+
+    @Test
+    public void testLoad() {
+        NumericValue value = new NumericValue();
+        Assert.assertTrue(value.load(valueEvaluator(5L), null));
+        Assert.assertEquals(value.type, Type.LONG);
+        Assert.assertEquals(value.intValue(), 5);
+        Assert.assertEquals(value.toTypedObject(), new TypedObject(5L));
+        Assert.assertFalse(value.load(valueEvaluator(null), null));
+    }
+
+    @Test
+    public void testConversions() {
+        NumericValue value = computed(Type.DOUBLE, 1e10);
+        Assert.assertEquals(value.intValue(), (int) 1e10);
+        Assert.assertEquals(value.longValue(), 10000000000L);
+        Assert.assertEquals(value.toTypedObject(), new TypedObject(1e10));
+
+        value = computed(Type.LONG, Long.MAX_VALUE);
+        Assert.assertEquals(value.floatValue(), (float) Long.MAX_VALUE);
+        Assert.assertEquals(value.doubleValue(), (double) Long.MAX_VALUE);
+        Assert.assertEquals(value.toTypedObject(), new TypedObject(Long.MAX_VALUE));
+
+        Assert.assertEquals(computed(Type.FLOAT, 1.5).toTypedObject(), new TypedObject(1.5f));
+        Assert.assertEquals(computed(Type.INTEGER, 3L).toTypedObject(), new TypedObject(3));
+    }
+
+    @Test
+    public void testCompare() {
+        Assert.assertEquals(NumericValue.compare(computed(Type.LONG, Long.MAX_VALUE), computed(Type.LONG, Long.MAX_VALUE - 1)), 1);
+        Assert.assertEquals(NumericValue.compare(computed(Type.INTEGER, 1L), computed(Type.DOUBLE, 1.5)), -1);
+        Assert.assertEquals(NumericValue.compare(computed(Type.FLOAT, 1.5), computed(Type.FLOAT, 1.5)), 0);
+        Assert.assertEquals(NumericValue.compare(computed(Type.INTEGER, 2L), loaded(new TypedObject(1))), 1);
+        Assert.assertEquals(NumericValue.compare(loaded(new TypedObject(2)), loaded(new TypedObject(1))), 1);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testCompareIncomparable() {
+        NumericValue.compare(computed(Type.INTEGER, 2L), loaded(new TypedObject("1")));
+    }
+
+    @Test(expectedExceptions = ClassCastException.class)
+    public void testCompareMismatchedValue() {
+        NumericValue.compare(computed(Type.LONG, 2L), loaded(new TypedObject(Type.LONG, 1)));
+    }
+}
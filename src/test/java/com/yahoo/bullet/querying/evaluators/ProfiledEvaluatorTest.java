@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.metrics.NodeProfile;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class ProfiledEvaluatorTest {
+    private static Evaluator greaterThanOne() {
+        return new BinaryExpression(new FieldExpression("a"), new ValueExpression(1), Operation.GREATER_THAN).getEvaluator();
+    }
+
+    @Test
+    public void testEvaluate() {
+        NodeProfile profile = new NodeProfile(1);
+        ProfiledEvaluator evaluator = new ProfiledEvaluator(greaterThanOne(), profile);
+
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("a", 2).getRecord()), new TypedObject(Type.BOOLEAN, true));
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("a", 0).getRecord()), new TypedObject(Type.BOOLEAN, false));
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().getRecord()), TypedObject.NULL);
+
+        Assert.assertEquals(profile.getInvocations(), 3L);
+        Assert.assertEquals(profile.getPasses(), 1L);
+        Assert.assertEquals(profile.getNulls(), 1L);
+        Assert.assertEquals(profile.getFailures(), 0L);
+        Assert.assertEquals(profile.getSamples(), 3L);
+    }
+
+    @Test
+    public void testEvaluatePrimitives() {
+        NodeProfile profile = new NodeProfile(1);
+        ProfiledEvaluator evaluator = new ProfiledEvaluator(greaterThanOne(), profile);
+
+        Assert.assertTrue(evaluator.evaluateBoolean(RecordBox.get().add("a", 2).getRecord()));
+        Assert.assertFalse(evaluator.wasNull());
+        Assert.assertFalse(evaluator.evaluateBoolean(RecordBox.get().getRecord()));
+        Assert.assertTrue(evaluator.wasNull());
+
+        ProfiledEvaluator field = new ProfiledEvaluator(fieldEvaluator("a"), profile);
+        Assert.assertEquals(field.evaluateLong(RecordBox.get().add("a", 2).getRecord()), 2L);
+        Assert.assertFalse(field.wasNull());
+        Assert.assertEquals(field.evaluateDouble(RecordBox.get().add("a", 2.5).getRecord()), 2.5);
+        Assert.assertFalse(field.wasNull());
+        Assert.assertEquals(field.evaluateLong(RecordBox.get().getRecord()), 0L);
+        Assert.assertTrue(field.wasNull());
+        Assert.assertEquals(field.evaluateDouble(RecordBox.get().getRecord()), 0.0);
+        Assert.assertTrue(field.wasNull());
+
+        Assert.assertEquals(profile.getInvocations(), 6L);
+        Assert.assertEquals(profile.getPasses(), 1L);
+        Assert.assertEquals(profile.getNulls(), 3L);
+    }
+
+    @Test
+    public void testFailures() {
+        NodeProfile profile = new NodeProfile(1);
+        Evaluator failing = mock(Evaluator.class);
+        doThrow(new IllegalStateException()).when(failing).evaluate(any());
+        doThrow(new IllegalStateException()).when(failing).evaluateBoolean(any());
+        doThrow(new IllegalStateException()).when(failing).evaluateLong(any());
+        doThrow(new IllegalStateException()).when(failing).evaluateDouble(any());
+        ProfiledEvaluator evaluator = new ProfiledEvaluator(failing, profile);
+        BulletRecord record = RecordBox.get().getRecord();
+
+        Assert.assertThrows(IllegalStateException.class, () -> evaluator.evaluate(record));
+        Assert.assertThrows(IllegalStateException.class, () -> evaluator.evaluateBoolean(record));
+        Assert.assertThrows(IllegalStateException.class, () -> evaluator.evaluateLong(record));
+        Assert.assertThrows(IllegalStateException.class, () -> evaluator.evaluateDouble(record));
+
+        Assert.assertEquals(profile.getInvocations(), 4L);
+        Assert.assertEquals(profile.getFailures(), 4L);
+        Assert.assertEquals(profile.getSamples(), 4L);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RegexCacheTest {
+    @Test
+    public void testCaching() {
+        RegexCache cache = new RegexCache(2, false);
+        RegexMatcher a = cache.get("a.*");
+        Assert.assertSame(cache.get("a.*"), a);
+        Assert.assertTrue(a.matches("abc"));
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testEviction() {
+        RegexCache cache = new RegexCache(2, true);
+        RegexMatcher a = cache.get("a");
+        RegexMatcher b = cache.get("b");
+        // Uses a so that b is the least recently used
+        Assert.assertSame(cache.get("a"), a);
+        cache.get("c");
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertSame(cache.get("a"), a);
+        Assert.assertNotSame(cache.get("b"), b);
+    }
+}
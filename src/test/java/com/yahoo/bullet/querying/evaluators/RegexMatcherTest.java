@@ -0,0 +1,59 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class RegexMatcherTest {
+    private static final List<String> REGEXES = Arrays.asList("", "abc", "abc.*", ".*abc", ".*abc.*", ".*", ".*.*", "a.c",
+                                                              ".*a\\.c", "abc.*?", ".*+abc", "..*", "a\nb.*", "(?i)abc",
+                                                              ".*😀", "ab[c]");
+    private static final List<String> VALUES = Arrays.asList("", "abc", "xabc", "abcx", "xabcx", "ABC", "a.c", "axc",
+                                                             "x\nabc", "abc\r", " abc", "a\nb", "a\nbc", "abc\u0085x",
+                                                             "😀", "x😀");
+
+    @Test
+    public void testSameAsPattern() {
+        for (String regex : REGEXES) {
+            Pattern pattern = Pattern.compile(regex);
+            RegexMatcher fast = RegexMatcher.compile(regex, true);
+            RegexMatcher slow = RegexMatcher.compile(regex, false);
+            for (String value : VALUES) {
+                boolean expected = pattern.matcher(value).matches();
+                Assert.assertEquals(fast.matches(value), expected, regex + " on " + value);
+                Assert.assertEquals(slow.matches(value), expected, regex + " on " + value);
+            }
+        }
+    }
+
+    @Test
+    public void testIsLiteral() {
+        Assert.assertTrue(RegexMatcher.isLiteral(""));
+        Assert.assertTrue(RegexMatcher.isLiteral("foo bar-baz_1"));
+        Assert.assertFalse(RegexMatcher.isLiteral("foo."));
+        Assert.assertFalse(RegexMatcher.isLiteral("a\\d"));
+        Assert.assertFalse(RegexMatcher.isLiteral("a\nb"));
+        Assert.assertFalse(RegexMatcher.isLiteral("😀"));
+    }
+
+    @Test
+    public void testLineTerminators() {
+        Assert.assertTrue(RegexMatcher.hasLineTerminator("a\rb"));
+        Assert.assertTrue(RegexMatcher.hasLineTerminator("a "));
+        Assert.assertFalse(RegexMatcher.hasLineTerminator("a\tb"));
+    }
+
+    @Test(expectedExceptions = PatternSyntaxException.class)
+    public void testInvalidPattern() {
+        RegexMatcher.compile("abc(", true);
+    }
+}
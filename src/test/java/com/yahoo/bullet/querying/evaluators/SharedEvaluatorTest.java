@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SharedEvaluatorTest {
+    @Test
+    public void testEvaluatedOncePerRecord() {
+        Evaluator evaluator = mock(Evaluator.class);
+        doReturn(new TypedObject(5)).when(evaluator).evaluate(any());
+        SharedEvaluators shared = new SharedEvaluators();
+        SharedEvaluator sharedEvaluator = new SharedEvaluator(evaluator, shared);
+        BulletRecord recordA = RecordBox.get().add("a", 1).getRecord();
+        BulletRecord recordB = RecordBox.get().add("a", 2).getRecord();
+
+        Assert.assertEquals(sharedEvaluator.evaluate(recordA), new TypedObject(5));
+        Assert.assertEquals(sharedEvaluator.evaluate(recordA), new TypedObject(5));
+        Assert.assertEquals(sharedEvaluator.evaluateLong(recordA), 5L);
+        verify(evaluator, times(1)).evaluate(recordA);
+
+        // A different record is evaluated again
+        sharedEvaluator.evaluate(recordB);
+        sharedEvaluator.evaluate(recordB);
+        verify(evaluator, times(1)).evaluate(recordB);
+
+        // The same record in a new epoch is evaluated again
+        shared.advance();
+        sharedEvaluator.evaluate(recordB);
+        sharedEvaluator.evaluate(recordB);
+        verify(evaluator, times(2)).evaluate(recordB);
+    }
+
+    @Test
+    public void testExceptionsAreRethrown() {
+        Evaluator evaluator = mock(Evaluator.class);
+        doThrow(new ClassCastException("foo")).when(evaluator).evaluate(any());
+        SharedEvaluator sharedEvaluator = new SharedEvaluator(evaluator, new SharedEvaluators());
+        BulletRecord record = RecordBox.get().getRecord();
+
+        Assert.assertThrows(ClassCastException.class, () -> sharedEvaluator.evaluate(record));
+        Assert.assertThrows(ClassCastException.class, () -> sharedEvaluator.evaluate(record));
+        Assert.assertThrows(ClassCastException.class, () -> sharedEvaluator.evaluateBoolean(record));
+        verify(evaluator, times(1)).evaluate(record);
+    }
+}
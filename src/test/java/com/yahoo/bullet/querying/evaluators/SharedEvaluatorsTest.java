@@ -0,0 +1,80 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.CastExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.typesystem.Type;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+
+public class SharedEvaluatorsTest {
+    private static Expression sizeOf(String field) {
+        return new UnaryExpression(new FieldExpression(field), Operation.SIZE_OF);
+    }
+
+    @Test
+    public void testAcquiringAndReleasing() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Evaluator evaluator = shared.acquire(sizeOf("a"), () -> valueEvaluator(1));
+        Assert.assertTrue(evaluator instanceof SharedEvaluator);
+        Assert.assertEquals(shared.size(), 1);
+
+        Assert.assertSame(shared.acquire(sizeOf("a"), () -> valueEvaluator(2)), evaluator);
+        Assert.assertNotSame(shared.acquire(sizeOf("b"), () -> valueEvaluator(3)), evaluator);
+        Assert.assertEquals(shared.size(), 2);
+
+        shared.release(Collections.singletonList(sizeOf("a")));
+        Assert.assertEquals(shared.size(), 2);
+        shared.release(Arrays.asList(sizeOf("a"), sizeOf("b")));
+        Assert.assertEquals(shared.size(), 0);
+
+        // Releasing what is not shared does nothing
+        shared.release(Collections.singletonList(sizeOf("a")));
+        Assert.assertEquals(shared.size(), 0);
+        Assert.assertNotSame(shared.acquire(sizeOf("a"), () -> valueEvaluator(1)), evaluator);
+    }
+
+    @Test
+    public void testNestedAcquiring() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Expression outer = new UnaryExpression(sizeOf("a"), Operation.NOT);
+        shared.acquire(outer, () -> new UnaryEvaluator(shared.acquire(sizeOf("a"), () -> valueEvaluator(1)), UnaryOperations.UNARY_OPERATORS.get(Operation.NOT)));
+        Assert.assertEquals(shared.size(), 2);
+    }
+
+    @Test
+    public void testAdvancing() {
+        SharedEvaluators shared = new SharedEvaluators();
+        long epoch = shared.epoch;
+        shared.advance();
+        Assert.assertEquals(shared.epoch, epoch + 1);
+    }
+
+    @Test
+    public void testShareable() {
+        Assert.assertTrue(SharedEvaluators.isShareable(sizeOf("a")));
+        Assert.assertTrue(SharedEvaluators.isShareable(new BinaryExpression(new FieldExpression("a"), new ValueExpression(1), Operation.EQUALS)));
+        Assert.assertTrue(SharedEvaluators.isShareable(new NAryExpression(Collections.emptyList(), Operation.UNIX_TIMESTAMP)));
+        Assert.assertTrue(SharedEvaluators.isShareable(new CastExpression(new FieldExpression("a"), Type.LONG)));
+        Assert.assertFalse(SharedEvaluators.isShareable(new BinaryExpression(new FieldExpression("a"), new ValueExpression(1), Operation.ADD)));
+        Assert.assertFalse(SharedEvaluators.isShareable(new FieldExpression("a")));
+        Assert.assertFalse(SharedEvaluators.isShareable(new ValueExpression(1)));
+        Assert.assertFalse(SharedEvaluators.isShareable(new ListExpression(Collections.singletonList(new ValueExpression(1)))));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+
+public class StringViewEvaluatorTest {
+    private static final ExpressionCompiler COMPILER = new ExpressionCompiler(true);
+    private static final List<Operation> OPERATIONS = Arrays.asList(Operation.EQUALS, Operation.NOT_EQUALS,
+                                                                    Operation.GREATER_THAN, Operation.LESS_THAN,
+                                                                    Operation.GREATER_THAN_OR_EQUALS,
+                                                                    Operation.LESS_THAN_OR_EQUALS, Operation.STARTS_WITH,
+                                                                    Operation.ENDS_WITH, Operation.CONTAINS);
+    private static final List<Serializable> VALUES = Arrays.asList("", "foo", "FOO", "Foo", "foobar", "FooBar", "fo",
+                                                                   "xfoo", "bar", "İstanbul", "straße", "ﬃ", "fOo😀",
+                                                                   "ß", "i", "I", "@[`{", null, 5);
+    private static final List<Serializable> CONSTANTS = Arrays.asList("", "foo", "FOO", "oo", "bar", "BAR", "istanbul",
+                                                                      "STRASSE", "ss", "FFI", "foo😀", "[", "{", "zzz");
+
+    private static Expression view(Operation op, Expression... operands) {
+        return operands.length == 1 ? new UnaryExpression(operands[0], op) : new NAryExpression(Arrays.asList(operands), op);
+    }
+
+    private static TypedObject evaluate(Evaluator evaluator, BulletRecord record) {
+        try {
+            return evaluator.evaluate(record);
+        } catch (Exception e) {
+            return new TypedObject(e.getClass().getName());
+        }
+    }
+
+    private static List<Expression> views() {
+        FieldExpression field = new FieldExpression("a");
+        List<Expression> views = new ArrayList<>();
+        views.add(view(Operation.LOWER, field));
+        views.add(view(Operation.UPPER, field));
+        views.add(view(Operation.LOWER, new FieldExpression("b")));
+        for (Serializable start : Arrays.asList(1, 2L, -3, 0, 7, -7, null, Integer.MAX_VALUE, Long.MIN_VALUE)) {
+            views.add(view(Operation.SUBSTRING, field, new ValueExpression(start)));
+            for (Serializable length : Arrays.asList(1, 3L, 0, -1, 10, null, Integer.MAX_VALUE)) {
+                views.add(view(Operation.SUBSTRING, field, new ValueExpression(start), new ValueExpression(length)));
+            }
+        }
+        views.add(view(Operation.SUBSTRING, field, new FieldExpression("b"), new ValueExpression(2)));
+        return views;
+    }
+
+    private static void assertSameResults(List<Expression> views) {
+        for (Expression view : views) {
+            for (Operation op : OPERATIONS) {
+                for (Serializable constant : CONSTANTS) {
+                    assertSameResults(new BinaryExpression(view, new ValueExpression(constant), op), false);
+                    if (ComparisonEvaluator.isComparison(op)) {
+                        assertSameResults(new BinaryExpression(new ValueExpression(constant), view, op), true);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertSameResults(Expression expression, boolean reversed) {
+        Evaluator interpreted = expression.getEvaluator();
+        Evaluator compiled = COMPILER.compile(expression);
+        Assert.assertTrue(compiled instanceof StringViewEvaluator, expression.toString());
+        Assert.assertEquals(((StringViewEvaluator) compiled).reversed, reversed);
+        for (Serializable value : VALUES) {
+            RecordBox box = RecordBox.get().add("b", 2);
+            BulletRecord record = value == null ? box.addNull("a").getRecord() : box.add("a", value).getRecord();
+            Assert.assertEquals(evaluate(compiled, record), evaluate(interpreted, record), expression + " on " + value);
+        }
+    }
+
+    @Test
+    public void testSameResultsAsOperations() {
+        assertSameResults(views());
+    }
+
+    @Test
+    public void testSameResultsInLocaleWithOwnCaseMappings() {
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            assertSameResults(Arrays.asList(view(Operation.LOWER, new FieldExpression("a")),
+                                            view(Operation.UPPER, new FieldExpression("a"))));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void testNulls() {
+        BulletRecord record = RecordBox.get().add("a", "foo").getRecord();
+        StringViewEvaluator evaluator = new StringViewEvaluator(Collections.singletonList(fieldEvaluator("b")),
+                                                                StringViewEvaluator.View.LOWER, Operation.EQUALS,
+                                                                "foo", false);
+        Assert.assertEquals(evaluator.evaluate(record), TypedObject.NULL);
+        Assert.assertFalse(evaluator.evaluateBoolean(record));
+        Assert.assertTrue(evaluator.wasNull());
+
+        evaluator = new StringViewEvaluator(Arrays.asList(fieldEvaluator("a"), valueEvaluator(1), valueEvaluator(null)),
+                                            StringViewEvaluator.View.NONE, Operation.CONTAINS, "f", false);
+        Assert.assertEquals(evaluator.evaluate(record), TypedObject.NULL);
+
+        evaluator = new StringViewEvaluator(Arrays.asList(fieldEvaluator("a"), valueEvaluator(1), valueEvaluator(2)),
+                                            StringViewEvaluator.View.NONE, Operation.CONTAINS, "x", false);
+        Assert.assertEquals(evaluator.evaluate(record), TypedObject.FALSE);
+        Assert.assertFalse(evaluator.wasNull());
+    }
+
+    @Test
+    public void testIsAsciiMappable() {
+        Assert.assertTrue(StringViewEvaluator.isAsciiMappable(""));
+        Assert.assertTrue(StringViewEvaluator.isAsciiMappable("Foo Bar~"));
+        Assert.assertFalse(StringViewEvaluator.isAsciiMappable("straße"));
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("lt"));
+            Assert.assertFalse(StringViewEvaluator.isAsciiMappable("Foo"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void testNotViews() {
+        FieldExpression field = new FieldExpression("a");
+        Assert.assertNull(StringViewEvaluator.getView(field));
+        Assert.assertNull(StringViewEvaluator.getView(new UnaryExpression(field, Operation.TRIM)));
+        Assert.assertNull(StringViewEvaluator.getView(new NAryExpression(Collections.singletonList(field), Operation.SUBSTRING)));
+        Assert.assertNull(StringViewEvaluator.getView(new NAryExpression(Arrays.asList(field, field), Operation.IF)));
+        Assert.assertNull(StringViewEvaluator.getConstant(field));
+        Assert.assertNull(StringViewEvaluator.getConstant(new ValueExpression(5)));
+        Assert.assertNull(StringViewEvaluator.getConstant(new ValueExpression(null)));
+        Assert.assertFalse(StringViewEvaluator.isSupported(Operation.REGEX_LIKE));
+
+        // Non constants, non views, null constants and constants on the left of anything but a comparison are not compiled
+        Expression lower = new UnaryExpression(field, Operation.LOWER);
+        Assert.assertFalse(COMPILER.compile(new BinaryExpression(lower, field, Operation.EQUALS)) instanceof StringViewEvaluator);
+        Assert.assertFalse(COMPILER.compile(new BinaryExpression(field, new ValueExpression("a"), Operation.EQUALS)) instanceof StringViewEvaluator);
+        Assert.assertFalse(COMPILER.compile(new BinaryExpression(lower, new ValueExpression(null), Operation.EQUALS)) instanceof StringViewEvaluator);
+        Assert.assertFalse(COMPILER.compile(new BinaryExpression(new ValueExpression("a"), lower, Operation.CONTAINS)) instanceof StringViewEvaluator);
+        Assert.assertFalse(COMPILER.compile(new BinaryExpression(lower, new ValueExpression("a"), Operation.REGEX_LIKE)) instanceof StringViewEvaluator);
+        Assert.assertFalse(new ExpressionCompiler(false).compile(new BinaryExpression(lower, new ValueExpression("a"), Operation.EQUALS)) instanceof StringViewEvaluator);
+    }
+}
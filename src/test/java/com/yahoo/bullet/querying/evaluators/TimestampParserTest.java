@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class TimestampParserTest {
+    private static final ZoneRules UTC = ZoneOffset.UTC.getRules();
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(TimestampParser.DEFAULT_PATTERN);
+
+    private static long expected(String date) {
+        return LocalDateTime.parse(date, FORMATTER).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    @Test
+    public void testParsing() {
+        Assert.assertEquals(TimestampParser.parse("2021-01-01 00:00:00", false, null), 1609459200L);
+        Assert.assertEquals(TimestampParser.parse("1970-01-01 00:00:00", false, null), 0L);
+        Assert.assertEquals(TimestampParser.parse("1969-12-31 23:59:59", false, null), -1L);
+        Assert.assertEquals(TimestampParser.parse("2020-02-29 12:34:56", false, UTC), expected("2020-02-29 12:34:56"));
+        Assert.assertEquals(TimestampParser.parse("2000-12-31 23:59:59", false, UTC), expected("2000-12-31 23:59:59"));
+        Assert.assertEquals(TimestampParser.parse("1600-03-01 01:02:03", false, UTC), expected("1600-03-01 01:02:03"));
+        Assert.assertEquals(TimestampParser.parse("9999-12-31 23:59:59", false, UTC), expected("9999-12-31 23:59:59"));
+    }
+
+    @Test
+    public void testParsingRandomDates() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            LocalDateTime date = LocalDateTime.ofEpochSecond(random.nextInt(Integer.MAX_VALUE) * (random.nextBoolean() ? 4L : -4L), 0, ZoneOffset.UTC);
+            if (date.getYear() < 1600) {
+                continue;
+            }
+            String formatted = date.format(FORMATTER);
+            Assert.assertEquals(TimestampParser.parse(formatted, false, null), expected(formatted), formatted);
+        }
+    }
+
+    @Test
+    public void testFractions() {
+        long seconds = expected("2021-01-01 10:00:00");
+        Assert.assertEquals(TimestampParser.parse("2021-01-01 10:00:00.1", true, UTC), seconds);
+        Assert.assertEquals(TimestampParser.parse("2021-01-01 10:00:00.123456789", true, UTC), seconds);
+        Assert.assertEquals(TimestampParser.parse("2021-01-01 10:00:00.1", false, UTC), TimestampParser.INVALID);
+        Assert.assertEquals(TimestampParser.parse("2021-01-01 10:00:00.", true, UTC), TimestampParser.INVALID);
+        Assert.assertEquals(TimestampParser.parse("2021-01-01 10:00:00.1234567890", true, UTC), TimestampParser.INVALID);
+        Assert.assertEquals(TimestampParser.parse("2021-01-01 10:00:00.12a", true, UTC), TimestampParser.INVALID);
+        Assert.assertEquals(TimestampParser.parse("2021-01-01 10:00:00,1", true, UTC), TimestampParser.INVALID);
+    }
+
+    @Test
+    public void testInvalidDates() {
+        List<String> dates = Arrays.asList("", "2021-01-01", "2021-1-01 00:00:00", "2021-01-01T00:00:00", "2021/01/01 00:00:00",
+                                           "2021-01-01 00:00:0a", " 2021-01-01 00:00:0", "2021-01-01 00:00:00 ",
+                                           "2021-00-01 00:00:00", "2021-13-01 00:00:00", "2021-01-00 00:00:00",
+                                           "2021-02-29 00:00:00", "2021-04-31 00:00:00", "1900-02-29 00:00:00",
+                                           "2021-01-01 24:00:00", "2021-01-01 00:60:00", "2021-01-01 00:00:60",
+                                           "1599-12-31 23:59:59", "0000-01-01 00:00:00", "+021-01-01 00:00:00");
+        for (String date : dates) {
+            Assert.assertEquals(TimestampParser.parse(date, true, UTC), TimestampParser.INVALID, date);
+        }
+    }
+
+    @Test
+    public void testGaps() {
+        ZoneRules rules = ZoneId.of("America/Los_Angeles").getRules();
+        Assert.assertEquals(TimestampParser.parse("2021-03-14 02:30:00", true, rules), TimestampParser.INVALID);
+        Assert.assertEquals(TimestampParser.parse("2021-03-14 02:30:00", true, UTC), expected("2021-03-14 02:30:00"));
+        Assert.assertEquals(TimestampParser.parse("2021-03-14 03:30:00", true, rules), expected("2021-03-14 03:30:00"));
+        // Overlaps keep their fields
+        Assert.assertEquals(TimestampParser.parse("2021-11-07 01:30:00", true, rules), expected("2021-11-07 01:30:00"));
+    }
+}
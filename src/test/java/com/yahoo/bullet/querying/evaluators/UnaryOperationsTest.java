@@ -91,4 +91,12 @@ public class UnaryOperationsTest {
         Assert.assertEquals(UnaryOperations.hash(valueEvaluator(null), null), TypedObject.valueOf(Objects.hashCode(null)));
         Assert.assertEquals(UnaryOperations.hash(valueEvaluator("hello"), null), TypedObject.valueOf(Objects.hashCode("hello")));
     }
+
+    @Test
+    public void testHash64() {
+        Assert.assertEquals(UnaryOperations.hash64(valueEvaluator(null), null), TypedObject.NULL);
+        Assert.assertEquals(UnaryOperations.hash64(valueEvaluator("abc"), null), TypedObject.valueOf(0x44BC2CF5AD770999L));
+        Assert.assertEquals(UnaryOperations.hash64(valueEvaluator(5), null), UnaryOperations.hash64(valueEvaluator(5L), null));
+        Assert.assertEquals(UnaryOperations.hash64(valueEvaluator(5), null).getType(), Type.LONG);
+    }
 }
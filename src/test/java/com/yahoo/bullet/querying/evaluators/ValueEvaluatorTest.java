@@ -12,6 +12,8 @@ import com.yahoo.bullet.typesystem.TypedObject;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Collections;
+
 public class ValueEvaluatorTest {
     @Test
     public void testConstructor() {
@@ -23,4 +25,14 @@ public class ValueEvaluatorTest {
         Assert.assertEquals(evaluator.value, new TypedObject(Type.STRING, "5"));
         Assert.assertEquals(evaluator.evaluate(RecordBox.get().getRecord()), evaluator.value);
     }
+
+    @Test
+    public void testEvaluateBatch() {
+        ValueEvaluator evaluator = new ValueEvaluator(new ValueExpression(5));
+        TypedObject[] results = new TypedObject[3];
+        evaluator.evaluate(Collections.emptyList(), new int[] {0, 1, 2}, 2, results);
+        Assert.assertSame(results[0], evaluator.value);
+        Assert.assertSame(results[1], evaluator.value);
+        Assert.assertNull(results[2]);
+    }
 }
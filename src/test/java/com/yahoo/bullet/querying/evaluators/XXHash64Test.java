@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class XXHash64Test {
+    private static long hash(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        return XXHash64.hash(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void testKnownHashes() {
+        Assert.assertEquals(hash(""), 0xEF46DB3751D8E999L);
+        Assert.assertEquals(hash("a"), 0xD24EC4F1A98C6E5BL);
+        Assert.assertEquals(hash("abc"), 0x44BC2CF5AD770999L);
+        Assert.assertEquals(hash("Nobody inspects the spammish repetition"), 0xFBCEA83C8A378BF1L);
+    }
+
+    @Test
+    public void testRange() {
+        byte[] bytes = "xxabcxx".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(XXHash64.hash(bytes, 2, 3), hash("abc"));
+    }
+
+    @Test
+    public void testLongIsHashedAsLittleEndianBytes() {
+        for (long value : Arrays.asList(0L, 1L, -1L, 42L, Long.MIN_VALUE, Long.MAX_VALUE, 0x0102030405060708L)) {
+            byte[] bytes = new byte[8];
+            for (int i = 0; i < 8; i++) {
+                bytes[i] = (byte) (value >>> (8 * i));
+            }
+            Assert.assertEquals(XXHash64.hash(value), XXHash64.hash(bytes, 0, 8));
+        }
+    }
+
+    @Test
+    public void testValues() {
+        Assert.assertEquals(XXHash64.hash((Object) "abc"), hash("abc"));
+        Assert.assertEquals(XXHash64.hash((Object) 5), XXHash64.hash(5L));
+        Assert.assertEquals(XXHash64.hash((Object) 5L), XXHash64.hash(5L));
+        Assert.assertEquals(XXHash64.hash((Object) true), XXHash64.hash(1L));
+        Assert.assertEquals(XXHash64.hash((Object) false), XXHash64.hash(0L));
+        Assert.assertEquals(XXHash64.hash((Object) 1.5f), XXHash64.hash(Double.doubleToLongBits(1.5)));
+        Assert.assertEquals(XXHash64.hash((Object) 1.5), XXHash64.hash(Double.doubleToLongBits(1.5)));
+        Assert.assertEquals(XXHash64.hash(Arrays.asList("a", "b")), XXHash64.hash((long) Arrays.asList("a", "b").hashCode()));
+    }
+
+    @Test
+    public void testDistribution() {
+        // Sampling 5 of every 100 consecutive ids should select about 5% of them
+        int selected = 0;
+        Set<Long> hashes = new HashSet<>();
+        for (long i = 0; i < 100000; i++) {
+            long hash = XXHash64.hash(i);
+            hashes.add(hash);
+            if (Math.floorMod(hash, 100) < 5) {
+                selected++;
+            }
+        }
+        Assert.assertEquals(hashes.size(), 100000);
+        Assert.assertTrue(selected > 4500 && selected < 5500);
+    }
+}
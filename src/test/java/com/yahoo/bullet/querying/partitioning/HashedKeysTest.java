@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class HashedKeysTest {
+    @Test
+    public void testAddingAndClearing() {
+        HashedKeys keys = new HashedKeys();
+        Assert.assertEquals(keys.getSize(), 0);
+        for (int i = 0; i < 100; i++) {
+            keys.add(i * 3L);
+        }
+        Assert.assertEquals(keys.getSize(), 100);
+        Assert.assertEquals(keys.get(0), 0L);
+        Assert.assertEquals(keys.get(99), 297L);
+
+        keys.clear();
+        Assert.assertEquals(keys.getSize(), 0);
+        keys.add(42L);
+        Assert.assertEquals(keys.getSize(), 1);
+        Assert.assertEquals(keys.get(0), 42L);
+    }
+
+    @Test
+    public void testDistinct() {
+        HashedKeys keys = new HashedKeys();
+        keys.distinct();
+        Assert.assertEquals(keys.getSize(), 0);
+
+        keys.add(5L);
+        keys.distinct();
+        Assert.assertEquals(keys.getSize(), 1);
+
+        keys.add(-1L);
+        keys.add(5L);
+        keys.add(3L);
+        keys.add(-1L);
+        keys.add(5L);
+        keys.distinct();
+        Assert.assertEquals(keys.getSize(), 3);
+        Assert.assertEquals(keys.get(0), -1L);
+        Assert.assertEquals(keys.get(1), 3L);
+        Assert.assertEquals(keys.get(2), 5L);
+    }
+
+    @Test
+    public void testHashing() {
+        Assert.assertEquals(HashedKeys.hash("foo"), HashedKeys.hash(new StringBuilder("foo")));
+        Assert.assertNotEquals(HashedKeys.hash("foo"), HashedKeys.hash("foo."));
+        Assert.assertNotEquals(HashedKeys.hash(""), HashedKeys.hash("*"));
+    }
+
+    @Test
+    public void testHashingDecimals() {
+        long[] values = { 0L, 1L, -1L, 9L, 10L, -10L, 99L, 100L, 123456789L, -987654321L, Integer.MAX_VALUE,
+                          Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE / 10, 1000000000000000000L };
+        for (long value : values) {
+            Assert.assertEquals(HashedKeys.hashDecimal(value), HashedKeys.hash(Long.toString(value)), Long.toString(value));
+        }
+    }
+}
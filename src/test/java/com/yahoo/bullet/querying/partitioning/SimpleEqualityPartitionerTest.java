@@ -14,22 +14,28 @@ import com.yahoo.bullet.query.expressions.BinaryExpression;
 import com.yahoo.bullet.query.expressions.Expression;
 import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
 import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.query.expressions.UnaryExpression;
 import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.simple.UntypedSimpleBulletRecord;
 import com.yahoo.bullet.result.RecordBox;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 
 public class SimpleEqualityPartitionerTest {
     private BulletConfig config;
@@ -193,6 +199,38 @@ public class SimpleEqualityPartitionerTest {
         Assert.assertEquals(partitioner.getKeys(query), singleton("*"));
     }
 
+    @Test
+    public void testPartitioningForQueryWithNAryAnd() {
+        SimpleEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Query query = createQuery(new NAryExpression(asList(new BinaryExpression(new FieldExpression("A"), new ValueExpression("bar"), Operation.EQUALS),
+                                                            new BinaryExpression(new FieldExpression("C"), new ValueExpression(1), Operation.GREATER_THAN),
+                                                            new BinaryExpression(new FieldExpression("B"), new ValueExpression("baz"), Operation.EQUALS)),
+                                                     Operation.AND));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("bar.-baz."));
+    }
+
+    @Test
+    public void testPartitioningForQueryWithIn() {
+        SimpleEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Query query = createQuery(new BinaryExpression(new FieldExpression("A"), new ListExpression(singletonList(new ValueExpression("bar"))), Operation.IN),
+                                  new BinaryExpression(new FieldExpression("B"), new ListExpression(asList(new ValueExpression("baz"), new ValueExpression("qux"))), Operation.IN));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("bar.-*"));
+    }
+
+    @Test
+    public void testPartitioningForOptimizedQuery() {
+        Query query = createQuery(new UnaryExpression(new UnaryExpression(new BinaryExpression(new FieldExpression("A"), new ValueExpression("bar"), Operation.EQUALS),
+                                                                          Operation.NOT),
+                                                      Operation.NOT),
+                                  new BinaryExpression(new FieldExpression("B"), new BinaryExpression(new ValueExpression(1), new ValueExpression(2), Operation.ADD), Operation.EQUALS));
+        Assert.assertEquals(createPartitioner("A", "B").getKeys(query), singleton("*-*"));
+
+        config.set(BulletConfig.QUERY_EXPRESSION_OPTIMIZE_ENABLE, true);
+        SimpleEqualityPartitioner partitioner = createPartitioner("A", "B");
+        config.set(BulletConfig.QUERY_EXPRESSION_OPTIMIZE_ENABLE, false);
+        Assert.assertEquals(partitioner.getKeys(query), singleton("bar.-3."));
+    }
+
     @Test
     public void testPartitioningForRecordWithMissingFields() {
         SimpleEqualityPartitioner partitioner = createPartitioner("A", "B");
@@ -234,4 +272,90 @@ public class SimpleEqualityPartitionerTest {
         Set<String> actual = partitioner.getKeys(record);
         Assert.assertEquals(actual, expected);
     }
+
+    private static Set<Long> getHashedKeys(SimpleEqualityPartitioner partitioner, BulletRecord record) {
+        HashedKeys keys = new HashedKeys();
+        keys.add(42L);
+        partitioner.getHashedKeys(record, keys);
+        Assert.assertEquals(keys.get(0), 42L);
+        Set<Long> hashedKeys = new HashSet<>();
+        for (int i = 1; i < keys.getSize(); i++) {
+            hashedKeys.add(keys.get(i));
+        }
+        return hashedKeys;
+    }
+
+    private static Expression equals(String field, Serializable value) {
+        int dot = field.indexOf('.');
+        FieldExpression fieldExpression = dot < 0 ? new FieldExpression(field) :
+                                          new FieldExpression(field.substring(0, dot), field.substring(dot + 1));
+        return new BinaryExpression(fieldExpression, new ValueExpression(value), Operation.EQUALS);
+    }
+
+    @Test
+    public void testHashedKeysMatchKeys() {
+        SimpleEqualityPartitioner partitioner = createPartitioner("A", "B", "C.d");
+        List<Query> queries = asList(createQuery(), createQuery(equals("A", "foo")), createQuery(equals("B", 5)),
+                                     createQuery(equals("B", 5L)), createQuery(equals("B", "5")),
+                                     createQuery(equals("A", "foo"), equals("B", 5)),
+                                     createQuery(equals("A", "foo"), equals("C.d", "baz")),
+                                     createQuery(equals("A", null), equals("B", -12L), equals("C.d", "baz")),
+                                     createQuery(equals("A", "null")), createQuery(equals("A", "*")),
+                                     createQuery(equals("A", true)), createQuery(equals("B", 1.5)),
+                                     createQuery(equals("B", "foo")));
+        List<BulletRecord> records = asList(RecordBox.get().getRecord(),
+                                            RecordBox.get().add("A", "foo").getRecord(),
+                                            RecordBox.get().add("A", "foo").add("B", 5).getRecord(),
+                                            RecordBox.get().add("A", "foo").add("B", 5L).getRecord(),
+                                            RecordBox.get().add("A", "foo").add("B", "5").getRecord(),
+                                            RecordBox.get().add("B", -12L).addMap("C", ImmutablePair.of("d", "baz")).getRecord(),
+                                            RecordBox.get().add("A", "foo").addMap("C", ImmutablePair.of("d", "baz")).getRecord(),
+                                            RecordBox.get().add("A", "null").add("B", 1.5).getRecord(),
+                                            RecordBox.get().add("A", "*").add("B", "foo").getRecord(),
+                                            RecordBox.get().add("A", true).getRecord());
+        UntypedSimpleBulletRecord untyped = new UntypedSimpleBulletRecord();
+        untyped.setString("A", "foo");
+        untyped.setInteger("B", 5);
+        for (BulletRecord record : append(records, untyped)) {
+            Set<String> keys = partitioner.getKeys(record);
+            Set<Long> hashedKeys = getHashedKeys(partitioner, record);
+            Assert.assertEquals(hashedKeys.size(), keys.size());
+            for (Query query : queries) {
+                long[] hashedKey = partitioner.getHashedKeys(query);
+                Assert.assertEquals(hashedKey.length, 1);
+                boolean expected = keys.containsAll(partitioner.getKeys(query));
+                Assert.assertEquals(hashedKeys.contains(hashedKey[0]), expected, query + " for " + record);
+            }
+        }
+    }
+
+    private static List<BulletRecord> append(List<BulletRecord> records, BulletRecord record) {
+        List<BulletRecord> all = new ArrayList<>(records);
+        all.add(record);
+        return all;
+    }
+
+    @Test
+    public void testDefaultHashedKeys() {
+        SimpleEqualityPartitioner partitioner = createPartitioner("A");
+        Assert.assertEquals(partitioner.getHashedKeys(createQuery()), partitioner.getHashedKeys(createQuery(new FieldExpression("abc"))));
+
+        // The default hashed keys of a partitioner hash its keys
+        Partitioner fixed = new Partitioner() {
+            @Override
+            public Set<String> getKeys(Query query) {
+                return singleton("foo");
+            }
+
+            @Override
+            public Set<String> getKeys(BulletRecord record) {
+                return new HashSet<>(asList("foo", "bar"));
+            }
+        };
+        Assert.assertEquals(fixed.getHashedKeys(createQuery()), new long[] { HashedKeys.hash("foo") });
+        HashedKeys keys = new HashedKeys();
+        fixed.getHashedKeys(RecordBox.get().getRecord(), keys);
+        keys.distinct();
+        Assert.assertEquals(keys.getSize(), 2);
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.postaggregations;
+
+import com.yahoo.bullet.common.metrics.NodeProfile;
+import com.yahoo.bullet.query.postaggregations.Culling;
+import com.yahoo.bullet.result.Clip;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class ProfiledPostStrategyTest {
+    @Test
+    public void testExecute() {
+        NodeProfile profile = new NodeProfile(1);
+        PostStrategy strategy = new ProfiledPostStrategy(new Culling(Collections.singleton("a")).getPostStrategy(), profile);
+
+        Clip clip = new Clip();
+        clip.add(RecordBox.get().add("a", 1).add("b", 2).getRecord());
+        Clip result = strategy.execute(clip);
+        Assert.assertEquals(result.getRecords().size(), 1);
+        Assert.assertFalse(result.getRecords().get(0).hasField("a"));
+
+        strategy.execute(new Clip());
+
+        Assert.assertEquals(profile.getInvocations(), 2L);
+        Assert.assertEquals(profile.getPasses(), 1L);
+        Assert.assertEquals(profile.getSamples(), 2L);
+    }
+
+    @Test
+    public void testFailure() {
+        NodeProfile profile = new NodeProfile(1);
+        PostStrategy failing = mock(PostStrategy.class);
+        doThrow(new IllegalStateException()).when(failing).execute(any());
+        PostStrategy strategy = new ProfiledPostStrategy(failing, profile);
+
+        Assert.assertThrows(IllegalStateException.class, () -> strategy.execute(new Clip()));
+        Assert.assertEquals(profile.getInvocations(), 1L);
+        Assert.assertEquals(profile.getFailures(), 1L);
+    }
+}
@@ -49,6 +49,11 @@ public class BasicTest {
         new Basic(strategy, null, config).start();
     }
 
+    @Test
+    public void testNoCloseTime() {
+        Assert.assertEquals(new Basic(strategy, null, config).getNextCloseTime(), Long.MAX_VALUE);
+    }
+
     @Test
     public void testAllDataMethodsProxyToStrategy() {
         addMetadata(config, ALL_METADATA);
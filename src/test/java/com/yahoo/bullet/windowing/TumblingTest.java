@@ -7,6 +7,8 @@ package com.yahoo.bullet.windowing;
 
 import com.yahoo.bullet.querying.aggregations.MockStrategy;
 import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.Clock;
+import com.yahoo.bullet.common.ManualClock;
 import com.yahoo.bullet.query.Window;
 import com.yahoo.bullet.query.WindowUtils;
 import com.yahoo.bullet.result.Meta;
@@ -121,6 +123,36 @@ public class TumblingTest {
         Assert.assertEquals(strategy.getResetCalls(), 1);
     }
 
+    @Test
+    public void testNextCloseTime() {
+        long started = System.currentTimeMillis();
+        Tumbling tumbling = make(1000, 1000);
+        Assert.assertEquals(tumbling.getNextCloseTime(), tumbling.nextCloseTime);
+        Assert.assertTrue(tumbling.getNextCloseTime() >= started + 1000);
+        long closeTime = tumbling.getNextCloseTime();
+        tumbling.reset();
+        Assert.assertEquals(tumbling.getNextCloseTime(), closeTime + 1000);
+    }
+
+    @Test
+    public void testClosingWithAManualClock() {
+        ManualClock clock = new ManualClock(1000000L);
+        Clock previous = Clock.use(clock);
+        try {
+            Tumbling tumbling = make(1000, 1000);
+            Assert.assertEquals(tumbling.getNextCloseTime(), 1001000L);
+            clock.advance(999L);
+            Assert.assertFalse(tumbling.isClosed());
+            clock.advance(1L);
+            Assert.assertTrue(tumbling.isClosed());
+            tumbling.reset();
+            Assert.assertFalse(tumbling.isClosed());
+            Assert.assertEquals(tumbling.getNextCloseTime(), 1002000L);
+        } finally {
+            Clock.use(previous);
+        }
+    }
+
     @Test
     public void testResettingForPartition() throws Exception {
         long started = System.currentTimeMillis();